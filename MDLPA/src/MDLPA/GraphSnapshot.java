@@ -0,0 +1,254 @@
+package MDLPA;
+
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.engine.MultidimensionalGraphBuilder;
+import MDLPA.engine.PreprocessedGraph;
+import MDLPA.engine.Preprocessing;
+import MDLPA.helpers.Color;
+import MDLPA.helpers.GraphColorizer;
+import java.util.ArrayList;
+import java.util.List;
+import org.gephi.data.attributes.api.AttributeColumn;
+import org.gephi.data.attributes.api.AttributeController;
+import org.gephi.data.attributes.api.AttributeOrigin;
+import org.gephi.data.attributes.api.AttributeTable;
+import org.gephi.data.attributes.api.AttributeType;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.openide.util.Lookup;
+
+/**
+ * Copy of a Gephi graph into a MultidimensionalGraph, so that MDLPA[1] runs on the engine's own structures without
+ * holding the lock of the graph.
+ * The snapshot is taken under a short read lock and keeps the Gephi node of each engine node index, which is used to
+ * write the detected clusters back (labels, colors and the cluster column) under a single write lock.
+ * The network and its initialization are reused from the previous run when the graph hasn't changed since, see
+ * PreprocessingCache.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class GraphSnapshot {
+    // Id and title of the node column holding the index of the cluster of each node.
+    public static final String CLUSTER_COLUMN_ID = "mdlpa_cluster";
+    public static final String CLUSTER_COLUMN_TITLE = "MDLPA Cluster";
+
+    private static final GraphColorizer graphColorizer = new GraphColorizer();
+
+    // Initialization of the last run on each graph model.
+    private static final PreprocessingCache cache = new PreprocessingCache();
+
+    private final GraphModel graphModel;
+    private final Graph graph;
+    private final PreprocessingCache.Version version;
+    private final String dimensionsSeparator;
+
+    // Gephi node of each engine node index.
+    private final Node[] nodes;
+
+    // Source id, target id and label of each edge, released once the network is built.
+    private List<String[]> edges;
+
+    private PreprocessedGraph preprocessed = null;
+    private boolean cacheHit = false;
+
+    // Color of each label, created on first use so that a cluster keeps its color from the previews to the end.
+    private final Color[] labelColors;
+
+    private GraphSnapshot(
+        GraphModel graphModel,
+        Graph graph,
+        Node[] nodes,
+        List<String[]> edges,
+        PreprocessingCache.Version version,
+        String dimensionsSeparator
+    )
+    {
+        this.graphModel = graphModel;
+        this.graph = graph;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.version = version;
+        this.dimensionsSeparator = dimensionsSeparator;
+        this.labelColors = new Color[nodes.length];
+    }
+
+    /**
+     * Copies the visible graph of a model. The read lock is only held while going over the nodes and the edges,
+     * the engine structures are built once it is released (see getPreprocessed).
+     */
+    public static GraphSnapshot take(GraphModel graphModel, String dimensionsSeparator) {
+        Graph graph = graphModel.getGraphVisible();
+        List<Node> nodes = new ArrayList<Node>();
+        List<String[]> edges = new ArrayList<String[]>();
+        List<String> contents = new ArrayList<String>();
+        long fingerprint = PreprocessingCache.Version.EMPTY_FINGERPRINT;
+        int nodeVersion;
+        int edgeVersion;
+
+        graph.readLock();
+
+        try {
+            nodeVersion = graph.getNodeVersion();
+            edgeVersion = graph.getEdgeVersion();
+
+            for (Node v : graph.getNodes()) {
+                nodes.add(v);
+                contents.add(v.getNodeData().getId());
+                fingerprint = PreprocessingCache.Version.mix(fingerprint, v.getNodeData().getId().hashCode());
+            }
+
+            for (Edge edge : graph.getEdges()) {
+                String label = edge.getEdgeData().getLabel();
+                String[] sourceTargetLabel = new String[] {
+                    edge.getSource().getNodeData().getId(),
+                    edge.getTarget().getNodeData().getId(),
+                    label == null ? "" : label
+                };
+
+                for (String value : sourceTargetLabel) {
+                    contents.add(value);
+                    fingerprint = PreprocessingCache.Version.mix(fingerprint, value.hashCode());
+                }
+
+                edges.add(sourceTargetLabel);
+            }
+        }
+        finally {
+            graph.readUnlock();
+        }
+
+        PreprocessingCache.Version version = new PreprocessingCache.Version(
+            nodeVersion,
+            edgeVersion,
+            nodes.size(),
+            edges.size(),
+            fingerprint,
+            contents.toArray(new String[contents.size()]),
+            dimensionsSeparator
+        );
+
+        return new GraphSnapshot(graphModel, graph, nodes.toArray(new Node[0]), edges, version, dimensionsSeparator);
+    }
+
+    /**
+     * Returns the network and its initialization, reusing the ones of the previous run on the same version of the graph.
+     */
+    public synchronized PreprocessedGraph getPreprocessed() {
+        if (preprocessed != null)
+            return preprocessed;
+
+        preprocessed = cache.get(graphModel, version);
+
+        if (preprocessed != null) {
+            cacheHit = true;
+            edges = null;
+
+            return preprocessed;
+        }
+
+        long start = System.currentTimeMillis();
+        MultidimensionalGraphBuilder builder = new MultidimensionalGraphBuilder(dimensionsSeparator);
+
+        for (Node v : nodes) {
+            builder.addNode(v.getNodeData().getId());
+        }
+
+        for (String[] sourceTargetLabel : edges) {
+            builder.addEdge(sourceTargetLabel[0], sourceTargetLabel[1], sourceTargetLabel[2]);
+        }
+
+        edges = null;
+
+        MultidimensionalGraph multidimensionalGraph = builder.build();
+        long built = System.currentTimeMillis();
+        Preprocessing preprocessing = Preprocessing.calculate(multidimensionalGraph);
+
+        preprocessed = new PreprocessedGraph(
+            multidimensionalGraph,
+            preprocessing,
+            built - start,
+            System.currentTimeMillis() - built
+        );
+        cache.put(graphModel, version, preprocessed);
+
+        return preprocessed;
+    }
+
+    /**
+     * Returns true if the preprocessed graph was taken from a previous run.
+     */
+    public synchronized boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public Node getNode(int v) {
+        return nodes[v];
+    }
+
+    /**
+     * Returns the color of a label (labels are node indices).
+     */
+    public synchronized Color getLabelColor(int label) {
+        if (labelColors[label] == null)
+            labelColors[label] = new Color();
+
+        return labelColors[label];
+    }
+
+    /**
+     * Colors the nodes according to their labels in an intermediate state of the propagation.
+     * Only the colors are changed, which doesn't require the write lock.
+     */
+    public void writePreview(int[] labels) {
+        for (int v = 0; v < nodes.length; v++) {
+            graphColorizer.colorizeNode(nodes[v], getLabelColor(labels[v]));
+        }
+    }
+
+    /**
+     * Writes the clusters back to the Gephi graph in a single write transaction: each node is labelled with its id,
+     * colored with the color of its cluster and gets the index of its cluster (from 1) in the cluster column.
+     */
+    public void writeBack(ClusteringResult result, Color[] clusterColors) {
+        AttributeColumn clusterColumn = getClusterColumn();
+
+        graph.writeLock();
+
+        try {
+            for (int v = 0; v < nodes.length; v++) {
+                Node node = nodes[v];
+                int k = result.getClusterOf(v);
+
+                node.getNodeData().setLabel(node.getNodeData().getId());
+                graphColorizer.colorizeNode(node, clusterColors[k]);
+                node.getNodeData().getAttributes().setValue(clusterColumn.getIndex(), k + 1);
+            }
+        }
+        finally {
+            graph.writeUnlock();
+        }
+    }
+
+    private AttributeColumn getClusterColumn() {
+        AttributeTable nodeTable = Lookup.getDefault()
+            .lookup(AttributeController.class)
+            .getModel(graphModel.getWorkspace())
+            .getNodeTable();
+
+        if (nodeTable.hasColumn(CLUSTER_COLUMN_ID))
+            return nodeTable.getColumn(CLUSTER_COLUMN_ID);
+
+        return nodeTable.addColumn(
+            CLUSTER_COLUMN_ID,
+            CLUSTER_COLUMN_TITLE,
+            AttributeType.INT,
+            AttributeOrigin.COMPUTED,
+            null
+        );
+    }
+}
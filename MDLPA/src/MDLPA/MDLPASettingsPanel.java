@@ -44,6 +44,9 @@ public class MDLPASettingsPanel extends javax.swing.JPanel {
         chkDisplayClustersAndRelevantDimensions = new javax.swing.JCheckBox();
         jLabel1 = new javax.swing.JLabel();
         txtDimensionsSeparator = new javax.swing.JTextField();
+        chkLivePreview = new javax.swing.JCheckBox();
+        jLabel2 = new javax.swing.JLabel();
+        txtTimeBudget = new javax.swing.JTextField();
 
         chkDisplayNodeMemberships.setSelected(true);
         org.openide.awt.Mnemonics.setLocalizedText(chkDisplayNodeMemberships, org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.chkDisplayNodeMemberships.text")); // NOI18N
@@ -56,6 +59,14 @@ public class MDLPASettingsPanel extends javax.swing.JPanel {
         txtDimensionsSeparator.setText(org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.txtDimensionsSeparator.text")); // NOI18N
         txtDimensionsSeparator.setToolTipText(org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.txtDimensionsSeparator.toolTipText")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(chkLivePreview, org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.chkLivePreview.text")); // NOI18N
+        chkLivePreview.setToolTipText(org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.chkLivePreview.toolTipText")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(jLabel2, org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.jLabel2.text")); // NOI18N
+
+        txtTimeBudget.setText(org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.txtTimeBudget.text")); // NOI18N
+        txtTimeBudget.setToolTipText(org.openide.util.NbBundle.getMessage(MDLPASettingsPanel.class, "MDLPASettingsPanel.txtTimeBudget.toolTipText")); // NOI18N
+
         javax.swing.GroupLayout jPanel1Layout = new javax.swing.GroupLayout(jPanel1);
         jPanel1.setLayout(jPanel1Layout);
         jPanel1Layout.setHorizontalGroup(
@@ -64,11 +75,17 @@ public class MDLPASettingsPanel extends javax.swing.JPanel {
                 .addComponent(chkDisplayNodeMemberships, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addGap(138, 138, 138))
             .addComponent(chkDisplayClustersAndRelevantDimensions, javax.swing.GroupLayout.Alignment.TRAILING, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+            .addComponent(chkLivePreview, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
             .addGroup(jPanel1Layout.createSequentialGroup()
                 .addGap(21, 21, 21)
                 .addComponent(jLabel1, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addGap(33, 33, 33)
                 .addComponent(txtDimensionsSeparator, javax.swing.GroupLayout.PREFERRED_SIZE, 47, javax.swing.GroupLayout.PREFERRED_SIZE))
+            .addGroup(jPanel1Layout.createSequentialGroup()
+                .addGap(21, 21, 21)
+                .addComponent(jLabel2, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addGap(33, 33, 33)
+                .addComponent(txtTimeBudget, javax.swing.GroupLayout.PREFERRED_SIZE, 47, javax.swing.GroupLayout.PREFERRED_SIZE))
         );
         jPanel1Layout.setVerticalGroup(
             jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
@@ -79,10 +96,16 @@ public class MDLPASettingsPanel extends javax.swing.JPanel {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(jLabel1)
-                    .addComponent(txtDimensionsSeparator, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                    .addComponent(txtDimensionsSeparator, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(chkLivePreview)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel2)
+                    .addComponent(txtTimeBudget, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
         );
 
-        jPanel1Layout.linkSize(javax.swing.SwingConstants.VERTICAL, new java.awt.Component[] {chkDisplayClustersAndRelevantDimensions, chkDisplayNodeMemberships, jLabel1, txtDimensionsSeparator});
+        jPanel1Layout.linkSize(javax.swing.SwingConstants.VERTICAL, new java.awt.Component[] {chkDisplayClustersAndRelevantDimensions, chkDisplayNodeMemberships, chkLivePreview, jLabel1, jLabel2, txtDimensionsSeparator, txtTimeBudget});
 
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
@@ -106,8 +129,11 @@ public class MDLPASettingsPanel extends javax.swing.JPanel {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     public javax.swing.JCheckBox chkDisplayClustersAndRelevantDimensions;
     public javax.swing.JCheckBox chkDisplayNodeMemberships;
+    public javax.swing.JCheckBox chkLivePreview;
     private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel jLabel2;
     private javax.swing.JPanel jPanel1;
     public javax.swing.JTextField txtDimensionsSeparator;
+    public javax.swing.JTextField txtTimeBudget;
     // End of variables declaration//GEN-END:variables
 }
@@ -38,6 +38,20 @@ public class MDLPAUI implements ClustererUI {
         this.clusterer.setPrintNodeClusterMemberships(this.panel.chkDisplayNodeMemberships.isSelected());
         this.clusterer.setPrintClustersAndRelevantDimensions(this.panel.chkDisplayClustersAndRelevantDimensions.isSelected());
         this.clusterer.setDimensionsSeparator(this.panel.txtDimensionsSeparator.getText());
+        this.clusterer.setLivePreview(this.panel.chkLivePreview.isSelected());
+        this.clusterer.setTimeBudget(getTimeBudget());
+    }
+
+    /**
+     * Returns the time budget typed in the settings panel, 0 (no budget) if it isn't a positive number of milliseconds.
+     */
+    private long getTimeBudget() {
+        try {
+            return Math.max(0, Long.parseLong(this.panel.txtTimeBudget.getText().trim()));
+        }
+        catch (NumberFormatException ex) {
+            return 0;
+        }
     }
 
     private void initComponents() {
@@ -0,0 +1,126 @@
+package MDLPA;
+
+import MDLPA.engine.PreprocessedGraph;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.gephi.graph.api.GraphModel;
+
+/**
+ * Keeps the encoded network and the MDLPA[1] initialization of the last run on each Gephi graph model, so that
+ * repeated runs on an unchanged workspace skip the parsing of the edge labels and the calculation of w0 and Dv_0.
+ * An entry is reused only if the node and edge versions of the graph, its node ids and edge labels and the dimensions
+ * separator are the ones it was computed for. Models are weakly referenced, so the entries of closed
+ * workspaces are released with them.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class PreprocessingCache {
+    private final Map<GraphModel, Entry> entries = new WeakHashMap<GraphModel, Entry>();
+
+    /**
+     * Returns the preprocessed graph cached for the given version of a model, null if there is none.
+     */
+    public synchronized PreprocessedGraph get(GraphModel graphModel, Version version) {
+        Entry entry = entries.get(graphModel);
+
+        if (entry == null || !entry.version.equals(version))
+            return null;
+
+        return entry.preprocessed;
+    }
+
+    /**
+     * Caches the preprocessed graph of a model, replacing the one computed for a previous version.
+     */
+    public synchronized void put(GraphModel graphModel, Version version, PreprocessedGraph preprocessed) {
+        entries.put(graphModel, new Entry(version, preprocessed));
+    }
+
+    /**
+     * Identifies the state of a graph as seen by MDLPA.
+     * Gephi doesn't change the node and edge versions when a label is edited, which is why the labels (and node ids,
+     * which fix the node indices) are also compared. The fingerprint of their hash codes rejects most changes at once,
+     * the strings themselves are then compared, since colliding hash codes (e.g. "Aa" and "BB") would otherwise reuse
+     * a stale initialization. They are the strings held by the graph, so the version only adds references to them.
+     */
+    public static class Version {
+        // Fingerprint of an empty graph, values are then mixed in with mix.
+        public static final long EMPTY_FINGERPRINT = 0xcbf29ce484222325L;
+
+        private final int nodeVersion;
+        private final int edgeVersion;
+        private final int nodesCount;
+        private final int edgesCount;
+        private final long fingerprint;
+
+        // Node ids followed by the source id, target id and label of each edge.
+        private final String[] contents;
+
+        private final String dimensionsSeparator;
+
+        public Version(
+            int nodeVersion,
+            int edgeVersion,
+            int nodesCount,
+            int edgesCount,
+            long fingerprint,
+            String[] contents,
+            String dimensionsSeparator
+        )
+        {
+            this.nodeVersion = nodeVersion;
+            this.edgeVersion = edgeVersion;
+            this.nodesCount = nodesCount;
+            this.edgesCount = edgesCount;
+            this.fingerprint = fingerprint;
+            this.contents = contents;
+            this.dimensionsSeparator = dimensionsSeparator;
+        }
+
+        /**
+         * Mixes a value into a fingerprint (FNV-1a over the 4 bytes of the value).
+         */
+        public static long mix(long fingerprint, int value) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                fingerprint ^= (value >>> shift) & 0xff;
+                fingerprint *= 0x100000001b3L;
+            }
+
+            return fingerprint;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Version))
+                return false;
+
+            Version version = (Version)other;
+
+            return nodeVersion == version.nodeVersion
+                && edgeVersion == version.edgeVersion
+                && nodesCount == version.nodesCount
+                && edgesCount == version.edgesCount
+                && fingerprint == version.fingerprint
+                && dimensionsSeparator.equals(version.dimensionsSeparator)
+                && Arrays.equals(contents, version.contents);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int)(fingerprint ^ (fingerprint >>> 32));
+        }
+    }
+
+    private static class Entry {
+        final Version version;
+        final PreprocessedGraph preprocessed;
+
+        Entry(Version version, PreprocessedGraph preprocessed) {
+            this.version = version;
+            this.preprocessed = preprocessed;
+        }
+    }
+}
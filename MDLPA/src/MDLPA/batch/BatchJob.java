@@ -0,0 +1,272 @@
+package MDLPA.batch;
+
+import MDLPA.distributed.DistributedMDLPA;
+import MDLPA.distributed.InMemoryTransport;
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.DimensionFilter;
+import MDLPA.engine.EnsembleMDLPA;
+import MDLPA.engine.LabelPropagation;
+import MDLPA.engine.MultilevelMDLPA;
+import MDLPA.engine.PreprocessedGraph;
+import MDLPA.engine.ReducedLabelPropagation;
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A single MDLPA[1] run of a batch: a dataset, the separators used to read it, a seed and an engine mode.
+ * Jobs which read the same dataset with the same separators share the same preprocessed graph.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class BatchJob {
+    public enum Mode {
+        // A single propagation.
+        LOCAL,
+
+        // A single propagation over the pendant and twin reduction of the graph (see GraphReduction).
+        REDUCED,
+
+        // A coarsen, propagate and refine run (see MultilevelMDLPA).
+        MULTILEVEL,
+
+        // The consensus of several propagations (see EnsembleMDLPA).
+        ENSEMBLE,
+
+        // A propagation over several partition workers running as threads (see DistributedMDLPA).
+        DISTRIBUTED
+    }
+
+    private final String name;
+    private final File edgesFile;
+    private final String columnsSeparator;
+    private final String dimensionsSeparator;
+    private final long seed;
+    private final Mode mode;
+
+    // Number of runs of an ensemble or number of partitions of a distributed run.
+    private final int parallelism;
+
+    private final int maxCycles;
+
+    // Known memberships and relevant dimensions to score the job against, null when unknown.
+    private final File groundTruthFile;
+    private final File groundTruthDimensionsFile;
+
+    // Dimensions the job is restricted to, null to run on all of them.
+    private final DimensionFilter dimensionFilter;
+
+    // The propagation of a running local or reduced job, so that it can be cancelled.
+    private volatile LabelPropagation propagation = null;
+    private volatile boolean isCancelled = false;
+
+    public BatchJob(
+        String name,
+        File edgesFile,
+        String columnsSeparator,
+        String dimensionsSeparator,
+        long seed,
+        Mode mode,
+        int parallelism,
+        int maxCycles,
+        File groundTruthFile,
+        File groundTruthDimensionsFile,
+        DimensionFilter dimensionFilter
+    )
+    {
+        this.name = name;
+        this.edgesFile = edgesFile;
+        this.columnsSeparator = columnsSeparator;
+        this.dimensionsSeparator = dimensionsSeparator;
+        this.seed = seed;
+        this.mode = mode;
+        this.parallelism = parallelism;
+        this.maxCycles = maxCycles;
+        this.groundTruthFile = groundTruthFile;
+        this.groundTruthDimensionsFile = groundTruthDimensionsFile;
+        this.dimensionFilter = dimensionFilter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public File getEdgesFile() {
+        return edgesFile;
+    }
+
+    public String getColumnsSeparator() {
+        return columnsSeparator;
+    }
+
+    public String getDimensionsSeparator() {
+        return dimensionsSeparator;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxCycles() {
+        return maxCycles;
+    }
+
+    public File getGroundTruthFile() {
+        return groundTruthFile;
+    }
+
+    public File getGroundTruthDimensionsFile() {
+        return groundTruthDimensionsFile;
+    }
+
+    public DimensionFilter getDimensionFilter() {
+        return dimensionFilter;
+    }
+
+    /**
+     * Returns the mode as written in the manifest (ex ensemble:20).
+     */
+    public String getModeDescription() {
+        return mode == Mode.LOCAL || mode == Mode.REDUCED || mode == Mode.MULTILEVEL
+            ? mode.name().toLowerCase()
+            : mode.name().toLowerCase() + ":" + parallelism;
+    }
+
+    /**
+     * Returns a name identifying the job among the ones expanded from the same manifest line.
+     */
+    public String getId() {
+        return String.format("%s.%s.%d", name, getModeDescription().replace(':', '-'), seed);
+    }
+
+    /**
+     * Returns the key under which the preprocessed graph of the job is cached.
+     */
+    public String getGraphKey() {
+        return edgesFile.getAbsolutePath() + '\u0000' + columnsSeparator + '\u0000' + dimensionsSeparator;
+    }
+
+    /**
+     * Rough estimation of the heap needed to run the job on top of the shared preprocessed graph, in bytes.
+     */
+    public long getEstimatedMemory(PreprocessedGraph preprocessed) {
+        // The view of the filtered dimensions is at most as large as the graph and its preprocessing.
+        long filterMemory = dimensionFilter != null ? preprocessed.getEstimatedMemory() : 0;
+
+        return filterMemory + getEstimatedModeMemory(preprocessed);
+    }
+
+    private long getEstimatedModeMemory(PreprocessedGraph preprocessed) {
+        switch (mode) {
+            case ENSEMBLE:
+                // The runs of a batch ensemble are sequential, plus the co-membership counts and dimension votes.
+                return 2 * preprocessed.getEstimatedRunMemory()
+                    + 4L * preprocessed.getGraph().getNodesCount() * preprocessed.getGraph().getDimensionsCount();
+            case DISTRIBUTED:
+                // The partitions hold a sliced copy of the graph and of its preprocessing.
+                return preprocessed.getEstimatedMemory() + 2 * preprocessed.getEstimatedRunMemory();
+            case MULTILEVEL:
+                // Each level keeps its network and its propagation state, the coarse levels being smaller.
+                return preprocessed.getEstimatedMemory() + 3 * preprocessed.getEstimatedRunMemory();
+            case REDUCED:
+                // The reduction, shared by the jobs of the graph, is at most as large as the graph and its preprocessing.
+                return preprocessed.getEstimatedMemory() + preprocessed.getEstimatedRunMemory();
+            default:
+                return preprocessed.getEstimatedRunMemory();
+        }
+    }
+
+    /**
+     * Cancels the job: a job which didn't start yet won't run, a running local or reduced propagation stops within
+     * the node being updated. The other modes run to their end once started.
+     */
+    public void cancel() {
+        isCancelled = true;
+
+        LabelPropagation running = propagation;
+
+        if (running != null)
+            running.cancel();
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    public ClusteringResult execute(PreprocessedGraph preprocessed) throws Exception {
+        if (isCancelled)
+            throw new CancellationException("The job " + getId() + " was cancelled.");
+
+        // Each job restricts the shared graph on its own, the shared graph is only read.
+        if (dimensionFilter != null)
+            preprocessed = dimensionFilter.apply(preprocessed);
+
+        switch (mode) {
+            case ENSEMBLE:
+                EnsembleMDLPA ensemble = new EnsembleMDLPA(preprocessed.getGraph(), preprocessed.getPreprocessing());
+                ensemble.setSeed(seed);
+                ensemble.setRunsCount(parallelism);
+                // The batch workers already keep the cores busy.
+                ensemble.setThreadsCount(1);
+                ensemble.setMaxCycles(maxCycles);
+
+                return ensemble.run().getConsensus();
+            case DISTRIBUTED:
+                DistributedMDLPA distributed = new DistributedMDLPA(new InMemoryTransport(), parallelism);
+                distributed.setSeed(seed);
+
+                if (maxCycles != Integer.MAX_VALUE)
+                    distributed.setMaxSupersteps(maxCycles);
+
+                return distributed.run(preprocessed.getGraph(), preprocessed.getPreprocessing());
+            case MULTILEVEL:
+                MultilevelMDLPA multilevel = new MultilevelMDLPA(preprocessed.getGraph(), preprocessed.getPreprocessing());
+                multilevel.setSeed(seed);
+                multilevel.setMaxCycles(maxCycles);
+
+                return multilevel.run();
+            case REDUCED:
+                ReducedLabelPropagation reduced = new ReducedLabelPropagation(preprocessed.getReduction(), new Random(seed));
+
+                return propagate(reduced);
+            default:
+                LabelPropagation propagation = new LabelPropagation(
+                    preprocessed.getGraph(),
+                    preprocessed.getPreprocessing(),
+                    new Random(seed)
+                );
+
+                return propagate(propagation);
+        }
+    }
+
+    private ClusteringResult propagate(LabelPropagation propagation) {
+        // Published before checking isCancelled, so that a concurrent cancel() either sees it or is seen here.
+        this.propagation = propagation;
+
+        try {
+            if (isCancelled)
+                propagation.cancel();
+
+            propagation.propagate(maxCycles);
+
+            if (propagation.isCancelled())
+                throw new CancellationException("The job " + getId() + " was cancelled.");
+
+            return propagation.getResult();
+        }
+        finally {
+            this.propagation = null;
+        }
+    }
+}
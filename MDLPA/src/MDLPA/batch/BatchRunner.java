@@ -0,0 +1,309 @@
+package MDLPA.batch;
+
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.PreprocessedGraph;
+import MDLPA.evaluation.Evaluation;
+import MDLPA.evaluation.GroundTruth;
+import MDLPA.helpers.JsonUtils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the jobs of a manifest (see JobManifest) in a single JVM, so that sweeps over datasets, seeds and engine modes
+ * pay the JVM startup, the JIT warm-up and the loading and preprocessing of each dataset only once.
+ * Jobs run on a bounded pool of workers and are admitted according to their estimated memory (see MemoryBudget).
+ * Each job appends a JSON line to the summary with its parameters, its outcome, its quality scores (see Evaluation)
+ * and its timings; a failing job is reported in the summary and doesn't stop the batch.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class BatchRunner {
+    private static final String USAGE =
+        "Usage: java -cp MDLPA.jar MDLPA.batch.BatchRunner [options] <manifest file>\n" +
+        "  --workers <n>               Number of concurrent jobs (default: number of cores)\n" +
+        "  --memory-fraction <f>       Fraction of the maximum heap the jobs may use (default 0.8)\n" +
+        "  --summary <file>            Write the JSON lines summary to a file instead of the standard output\n" +
+        "  --output-dir <folder>       Write the memberships and clusters of each job to a folder\n";
+
+    private final List<BatchJob> jobs;
+    private final Writer summary;
+    private final MemoryBudget budget;
+    private final PreprocessedGraphCache cache;
+
+    private int workersCount = Runtime.getRuntime().availableProcessors();
+    private File outputFolder = null;
+
+    public BatchRunner(List<BatchJob> jobs, Writer summary, MemoryBudget budget) {
+        this.jobs = jobs;
+        this.summary = summary;
+        this.budget = budget;
+        this.cache = new PreprocessedGraphCache(budget, jobs);
+    }
+
+    public void setWorkersCount(int value) {
+        this.workersCount = value;
+    }
+
+    public void setOutputFolder(File value) {
+        this.outputFolder = value;
+    }
+
+    public static void main(String[] args) {
+        String manifest = null;
+        String summaryFile = null;
+        String outputFolder = null;
+        int workersCount = Runtime.getRuntime().availableProcessors();
+        double memoryFraction = 0.8;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--")) {
+                    if (manifest != null)
+                        throw new IllegalArgumentException("Unexpected argument " + args[i]);
+
+                    manifest = args[i];
+                    continue;
+                }
+
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+
+                String value = args[++i];
+
+                if (args[i - 1].equals("--workers"))
+                    workersCount = Integer.parseInt(value);
+                else if (args[i - 1].equals("--memory-fraction"))
+                    memoryFraction = Double.parseDouble(value);
+                else if (args[i - 1].equals("--summary"))
+                    summaryFile = value;
+                else if (args[i - 1].equals("--output-dir"))
+                    outputFolder = value;
+                else
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+
+            if (manifest == null)
+                throw new IllegalArgumentException("Missing manifest file.");
+        }
+        catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            List<BatchJob> jobs = JobManifest.read(new File(manifest));
+            Writer summary = summaryFile != null
+                ? new OutputStreamWriter(new FileOutputStream(summaryFile), "UTF-8")
+                : new OutputStreamWriter(System.out, "UTF-8");
+
+            try {
+                BatchRunner runner = new BatchRunner(
+                    jobs,
+                    summary,
+                    new MemoryBudget((long)(Runtime.getRuntime().maxMemory() * memoryFraction))
+                );
+                runner.setWorkersCount(workersCount);
+
+                if (outputFolder != null) {
+                    File folder = new File(outputFolder);
+                    folder.mkdirs();
+                    runner.setOutputFolder(folder);
+                }
+
+                int failed = runner.run();
+                System.err.println(String.format("%d jobs completed, %d failed.", jobs.size() - failed, failed));
+
+                if (failed > 0)
+                    System.exit(1);
+            }
+            finally {
+                summary.close();
+            }
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs all the jobs and returns the number of failed ones.
+     */
+    public int run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workersCount, jobs.size())));
+        List<Future<Boolean>> outcomes = new ArrayList<Future<Boolean>>();
+        int failed = 0;
+
+        try {
+            // Jobs are submitted in the order of the manifest, which keeps the jobs of a dataset close to each other
+            // and thus the number of cached graphs low.
+            for (final BatchJob job : jobs) {
+                outcomes.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return runJob(job);
+                    }
+                }));
+            }
+
+            for (Future<Boolean> outcome : outcomes) {
+                try {
+                    if (!outcome.get())
+                        failed++;
+                }
+                catch (ExecutionException ex) {
+                    failed++;
+                }
+            }
+
+            return failed;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean runJob(BatchJob job) {
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+        long start = System.currentTimeMillis();
+        boolean succeeded = false;
+
+        record.put("job", job.getId());
+        record.put("name", job.getName());
+        record.put("edges", job.getEdgesFile().getPath());
+        record.put("columnsSeparator", job.getColumnsSeparator());
+        record.put("dimensionsSeparator", job.getDimensionsSeparator());
+        record.put("mode", job.getModeDescription());
+        record.put("seed", job.getSeed());
+
+        if (job.getDimensionFilter() != null)
+            record.put("dimensionFilter", job.getDimensionFilter().getDimensionNames());
+
+        try {
+            PreprocessedGraphCache.Lookup lookup = cache.get(job);
+            PreprocessedGraph preprocessed = lookup.getGraph();
+            long loaded = System.currentTimeMillis();
+
+            record.put("nodes", preprocessed.getGraph().getNodesCount());
+            record.put("edgesCount", preprocessed.getGraph().getEdgesCount());
+            record.put("dimensions", preprocessed.getGraph().getDimensionsCount());
+            record.put("cacheHit", lookup.isCacheHit());
+            record.put("loadingMillis", lookup.isCacheHit() ? 0 : preprocessed.getLoadingMillis());
+            record.put("preprocessingMillis", lookup.isCacheHit() ? 0 : preprocessed.getPreprocessingMillis());
+
+            long memory = job.getEstimatedMemory(preprocessed);
+            record.put("estimatedMemoryBytes", memory);
+
+            budget.reserve(memory);
+            long admitted = System.currentTimeMillis();
+            ClusteringResult result;
+
+            try {
+                result = job.execute(preprocessed);
+            }
+            finally {
+                budget.release(memory);
+            }
+
+            record.put("admissionMillis", admitted - loaded);
+            record.put("propagationMillis", System.currentTimeMillis() - admitted);
+            record.put("clusters", result.getClustersCount());
+            record.put("cycles", result.getCycles());
+            record.put("converged", result.isConverged());
+
+            long evaluated = System.currentTimeMillis();
+            evaluate(job, result).addTo(record);
+            record.put("evaluationMillis", System.currentTimeMillis() - evaluated);
+
+            if (outputFolder != null)
+                writeResult(job, result);
+
+            succeeded = true;
+        }
+        catch (Throwable ex) {
+            Throwable cause = ex instanceof ExecutionException && ex.getCause() != null
+                ? ex.getCause()
+                : ex;
+
+            record.put("error", cause.toString());
+        }
+        finally {
+            cache.release(job);
+        }
+
+        record.put("status", succeeded ? "completed" : "failed");
+        record.put("totalMillis", System.currentTimeMillis() - start);
+        writeRecord(record);
+
+        return succeeded;
+    }
+
+    private static Evaluation evaluate(BatchJob job, ClusteringResult result) throws Exception {
+        GroundTruth groundTruth = null;
+
+        if (job.getGroundTruthFile() != null) {
+            groundTruth = GroundTruth.read(
+                result.getGraph(),
+                job.getGroundTruthFile(),
+                job.getGroundTruthDimensionsFile(),
+                job.getColumnsSeparator(),
+                job.getDimensionsSeparator()
+            );
+        }
+
+        // The batch workers already keep the cores busy.
+        return Evaluation.evaluate(result, groundTruth, 1);
+    }
+
+    private void writeResult(BatchJob job, ClusteringResult result) throws IOException {
+        Writer memberships = new OutputStreamWriter(
+            new FileOutputStream(new File(outputFolder, job.getId() + ".memberships.txt")),
+            "UTF-8"
+        );
+
+        try {
+            result.writeMemberships(memberships);
+        }
+        finally {
+            memberships.close();
+        }
+
+        Writer clusters = new OutputStreamWriter(
+            new FileOutputStream(new File(outputFolder, job.getId() + ".clusters.txt")),
+            "UTF-8"
+        );
+
+        try {
+            result.writeClustersAndRelevantDimensions(clusters);
+        }
+        finally {
+            clusters.close();
+        }
+    }
+
+    private synchronized void writeRecord(Map<String, Object> record) {
+        try {
+            summary.write(JsonUtils.toJson(record));
+            summary.write("\n");
+            summary.flush();
+        }
+        catch (IOException ex) {
+            System.err.println("Could not write the summary of " + record.get("job") + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,727 @@
+package MDLPA.batch;
+
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.LocalCommunity;
+import MDLPA.engine.LocalCommunityQuery;
+import MDLPA.engine.PreprocessedGraph;
+import MDLPA.engine.ResultIndex;
+import MDLPA.helpers.JsonUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs MDLPA[1] jobs submitted over a local HTTP endpoint, so that the tools calling MDLPA repeatedly pay the JVM
+ * startup and the loading and preprocessing of their reference graphs only once:
+ * - POST /jobs queues a job (parameters edges, name, mode, seed, maxCycles, columnsSeparator, dimensionsSeparator and
+ *   dimensions, as in a manifest line, see JobManifest) and returns its id,
+ * - GET /jobs/{id} returns the status and the outcome of a job in the fields of the batch summaries,
+ * - GET /jobs/{id}/memberships and GET /jobs/{id}/clusters stream the results of a completed job,
+ * - GET /jobs/{id}/index returns the binary image of the ResultIndex of a completed job and GET /jobs/{id}/lookup
+ *   answers from it the cluster of a node (parameter node), the clusters of a dimension (parameter dimension) or the
+ *   statistics of a cluster (parameter cluster), clusters being numbered from 1 as in the memberships,
+ * - POST /jobs/{id}/cancel (or DELETE /jobs/{id}) cancels a job,
+ * - GET /status returns the number of queued and running jobs, of cached graphs and the memory in use,
+ * - GET /query finds the community of a few nodes (parameter nodes, comma-separated ids) on the cached graph of an
+ *   edge list without running a job, see LocalCommunityQuery.
+ * Parameters are passed in the query string or as a form encoded body. The preprocessed graphs stay cached under the
+ * memory budget and the least recently used ones are evicted first (see PreprocessedGraphCache). Jobs run on a bounded
+ * pool of workers behind a bounded queue; submissions are refused while the queue is full.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class ClusteringDaemon {
+    private static final String USAGE =
+        "Usage: java -cp MDLPA.jar MDLPA.batch.ClusteringDaemon [options]\n" +
+        "  --host <address>            Address to listen on (default 127.0.0.1)\n" +
+        "  --port <n>                  Port to listen on (default 8642)\n" +
+        "  --workers <n>               Number of concurrent jobs (default: number of cores)\n" +
+        "  --queue <n>                 Number of jobs waiting for a worker beyond which submissions are refused (default 100)\n" +
+        "  --retained-jobs <n>         Number of finished jobs whose results are kept (default 100)\n" +
+        "  --connection-threads <n>    Number of threads serving the requests (default 4)\n" +
+        "  --memory-fraction <f>       Fraction of the maximum heap the cached graphs and the jobs may use (default 0.8)\n";
+
+    private final MemoryBudget budget;
+    private final PreprocessedGraphCache cache;
+    private final ThreadPoolExecutor workers;
+    private final int retainedJobsCount;
+
+    // Jobs by id, in submission order.
+    private final Map<String, DaemonJob> jobs = new LinkedHashMap<String, DaemonJob>();
+    private final AtomicLong lastJobId = new AtomicLong();
+
+    private HttpServer server = null;
+    private ExecutorService connections = null;
+
+    public ClusteringDaemon(MemoryBudget budget, int workersCount, int queueCapacity, int retainedJobsCount) {
+        this.budget = budget;
+        this.cache = new PreprocessedGraphCache(budget);
+        this.workers = new ThreadPoolExecutor(
+            workersCount,
+            workersCount,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(queueCapacity)
+        );
+        this.retainedJobsCount = retainedJobsCount;
+    }
+
+    public static void main(String[] args) {
+        String host = "127.0.0.1";
+        int port = 8642;
+        int workersCount = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = 100;
+        int retainedJobsCount = 100;
+        int connectionThreads = 4;
+        double memoryFraction = 0.8;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+
+                String value = args[++i];
+
+                if (args[i - 1].equals("--host"))
+                    host = value;
+                else if (args[i - 1].equals("--port"))
+                    port = Integer.parseInt(value);
+                else if (args[i - 1].equals("--workers"))
+                    workersCount = Integer.parseInt(value);
+                else if (args[i - 1].equals("--queue"))
+                    queueCapacity = Integer.parseInt(value);
+                else if (args[i - 1].equals("--retained-jobs"))
+                    retainedJobsCount = Integer.parseInt(value);
+                else if (args[i - 1].equals("--connection-threads"))
+                    connectionThreads = Integer.parseInt(value);
+                else if (args[i - 1].equals("--memory-fraction"))
+                    memoryFraction = Double.parseDouble(value);
+                else
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            ClusteringDaemon daemon = new ClusteringDaemon(
+                new MemoryBudget((long)(Runtime.getRuntime().maxMemory() * memoryFraction)),
+                workersCount,
+                queueCapacity,
+                retainedJobsCount
+            );
+
+            daemon.start(new InetSocketAddress(host, port), connectionThreads);
+            System.err.println(String.format("Listening on http://%s:%d/", host, port));
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public void start(InetSocketAddress address, int connectionThreads) throws IOException {
+        connections = Executors.newFixedThreadPool(connectionThreads);
+        server = HttpServer.create(address, 0);
+        server.setExecutor(connections);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    dispatch(exchange);
+                }
+                catch (IllegalArgumentException ex) {
+                    sendError(exchange, 400, ex.getMessage());
+                }
+                catch (Exception ex) {
+                    sendError(exchange, 500, ex.toString());
+                }
+                finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and cancels the queued and running jobs.
+     */
+    public void stop() {
+        if (server != null)
+            server.stop(0);
+
+        if (connections != null)
+            connections.shutdownNow();
+
+        synchronized (jobs) {
+            for (DaemonJob job : jobs.values()) {
+                job.cancel();
+            }
+        }
+
+        workers.shutdownNow();
+    }
+
+    private void dispatch(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+
+        if (path.length == 1 && path[0].equals("status") && method.equals("GET")) {
+            sendJson(exchange, 200, getStatus());
+            return;
+        }
+
+        if (path.length == 1 && path[0].equals("query") && (method.equals("GET") || method.equals("POST"))) {
+            query(exchange, readParameters(exchange));
+            return;
+        }
+
+        if (path.length == 0 || !path[0].equals("jobs")) {
+            sendError(exchange, 404, "Unknown resource " + exchange.getRequestURI().getPath());
+            return;
+        }
+
+        if (path.length == 1 && method.equals("POST")) {
+            submit(exchange, readParameters(exchange));
+            return;
+        }
+
+        DaemonJob job = path.length > 1 ? getJob(path[1]) : null;
+
+        if (job == null) {
+            sendError(exchange, 404, path.length > 1 ? "Unknown job " + path[1] : "Missing job id.");
+            return;
+        }
+
+        if (path.length == 2 && method.equals("GET")) {
+            sendJson(exchange, 200, job.getRecord());
+        }
+        else if ((path.length == 2 && method.equals("DELETE")) || (path.length == 3 && path[2].equals("cancel") && method.equals("POST"))) {
+            job.cancel();
+            sendJson(exchange, 200, job.getRecord());
+        }
+        else if (path.length == 3 && method.equals("GET") && (path[2].equals("memberships") || path[2].equals("clusters"))) {
+            sendResult(exchange, job, path[2].equals("memberships"));
+        }
+        else if (path.length == 3 && method.equals("GET") && path[2].equals("index")) {
+            sendIndex(exchange, job);
+        }
+        else if (path.length == 3 && method.equals("GET") && path[2].equals("lookup")) {
+            lookup(exchange, job, readParameters(exchange));
+        }
+        else {
+            sendError(exchange, 405, method + " isn't supported on " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private void submit(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        DaemonJob job = new DaemonJob("job-" + lastJobId.incrementAndGet(), createBatchJob(parameters));
+
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+
+        try {
+            workers.execute(job);
+        }
+        catch (RejectedExecutionException ex) {
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+
+            sendError(exchange, 503, "The queue is full, retry later.");
+            return;
+        }
+
+        sendJson(exchange, 202, job.getRecord());
+    }
+
+    /**
+     * Finds the community of the given nodes on the cached graph of an edge list, on the connection thread, see
+     * LocalCommunityQuery.
+     */
+    private void query(HttpExchange exchange, Map<String, String> parameters) throws Exception {
+        String nodes = parameters.get("nodes");
+
+        if (nodes == null || nodes.trim().isEmpty())
+            throw new IllegalArgumentException("The nodes parameter is required.");
+
+        BatchJob batchJob = createBatchJob(parameters);
+        long start = System.currentTimeMillis();
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+        PreprocessedGraphCache.Lookup lookup = cache.get(batchJob);
+
+        try {
+            PreprocessedGraph preprocessed = lookup.getGraph();
+            String[] ids = nodes.split(",");
+
+            if (batchJob.getDimensionFilter() != null)
+                preprocessed = batchJob.getDimensionFilter().apply(preprocessed);
+
+            int[] seeds = new int[ids.length];
+
+            for (int i = 0; i < ids.length; i++) {
+                seeds[i] = preprocessed.getGraph().getNodeIndex(ids[i].trim());
+
+                if (seeds[i] < 0)
+                    throw new IllegalArgumentException("Unknown node " + ids[i].trim());
+            }
+
+            long loaded = System.currentTimeMillis();
+            LocalCommunityQuery query = new LocalCommunityQuery(
+                preprocessed.getGraph(),
+                preprocessed.getPreprocessing(),
+                new Random(batchJob.getSeed())
+            );
+
+            if (parameters.containsKey("maxNodes"))
+                query.setMaxNodes(Integer.parseInt(parameters.get("maxNodes")));
+
+            if (parameters.containsKey("maxCycles"))
+                query.setMaxCycles(Integer.parseInt(parameters.get("maxCycles")));
+
+            LocalCommunity community = query.find(seeds);
+
+            record.put("nodes", community.getNodeIds());
+            record.put("relevantDimensions", community.getRelevantDimensions());
+            record.put("seedsInCommunity", community.getSeedsInCommunity());
+            record.put("propagatedNodes", community.getPropagatedCount());
+            record.put("exploredNodes", community.getExploredCount());
+            record.put("rounds", community.getRounds());
+            record.put("cycles", community.getCycles());
+            record.put("stable", community.isStable());
+            record.put("cacheHit", lookup.isCacheHit());
+            record.put("loadingMillis", loaded - start);
+            record.put("queryMillis", System.currentTimeMillis() - loaded);
+        }
+        finally {
+            cache.release(batchJob);
+        }
+
+        sendJson(exchange, 200, record);
+    }
+
+    /**
+     * Creates a job from the parameters of a manifest line.
+     */
+    private static BatchJob createBatchJob(Map<String, String> parameters) {
+        String edges = parameters.get("edges");
+
+        if (edges == null)
+            throw new IllegalArgumentException("The edges parameter is required.");
+
+        File edgesFile = new File(edges);
+
+        if (!edgesFile.isFile())
+            throw new IllegalArgumentException("No edge list at " + edgesFile.getPath());
+
+        String maxCycles = parameters.get("maxCycles");
+        String name = parameters.get("name");
+        String dimensions = parameters.get("dimensions");
+        String dimensionsSeparator = getParameter(parameters, "dimensionsSeparator", ",");
+
+        return JobManifest.createJob(
+            name != null ? name : edgesFile.getName(),
+            edgesFile.getAbsoluteFile(),
+            getParameter(parameters, "columnsSeparator", ";"),
+            dimensionsSeparator,
+            Long.parseLong(getParameter(parameters, "seed", "1")),
+            getParameter(parameters, "mode", "local"),
+            maxCycles != null ? Integer.parseInt(maxCycles) : Integer.MAX_VALUE,
+            null,
+            null,
+            dimensions != null && !dimensions.isEmpty() ? JobManifest.createDimensionFilter(dimensions, dimensionsSeparator) : null
+        );
+    }
+
+    private DaemonJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    private Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("queuedJobs", workers.getQueue().size());
+        status.put("runningJobs", workers.getActiveCount());
+        status.put("cachedGraphs", cache.size());
+        status.put("usedMemoryBytes", budget.getUsed());
+        status.put("memoryBudgetBytes", budget.getCapacity());
+
+        return status;
+    }
+
+    /**
+     * Drops the oldest finished jobs beyond the number of retained ones.
+     */
+    private void trimFinishedJobs() {
+        synchronized (jobs) {
+            List<String> finished = new ArrayList<String>();
+
+            for (DaemonJob job : jobs.values()) {
+                if (job.isFinished())
+                    finished.add(job.id);
+            }
+
+            Iterator<String> oldest = finished.iterator();
+
+            for (int i = finished.size(); i > retainedJobsCount; i--) {
+                jobs.remove(oldest.next());
+            }
+        }
+    }
+
+    private void sendResult(HttpExchange exchange, DaemonJob job, boolean memberships) throws IOException {
+        ClusteringResult result = job.getResult();
+
+        if (result == null) {
+            sendError(exchange, 409, "The job " + job.id + " is " + job.getStatus() + ".");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        // Chunked, the results are written while they're streamed.
+        exchange.sendResponseHeaders(200, 0);
+
+        Writer writer = new OutputStreamWriter(exchange.getResponseBody(), "UTF-8");
+
+        try {
+            if (memberships)
+                result.writeMemberships(writer);
+            else
+                result.writeClustersAndRelevantDimensions(writer);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void sendIndex(HttpExchange exchange, DaemonJob job) throws IOException {
+        ResultIndex index = job.getIndex();
+
+        if (index == null) {
+            sendError(exchange, 409, "The job " + job.id + " is " + job.getStatus() + ".");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, index.getSize());
+
+        try {
+            index.write(exchange.getResponseBody());
+        }
+        finally {
+            exchange.getResponseBody().close();
+        }
+    }
+
+    /**
+     * Answers a lookup of a node, a dimension or a cluster from the result index of a job.
+     */
+    private void lookup(HttpExchange exchange, DaemonJob job, Map<String, String> parameters) throws IOException {
+        ResultIndex index = job.getIndex();
+
+        if (index == null) {
+            sendError(exchange, 409, "The job " + job.id + " is " + job.getStatus() + ".");
+            return;
+        }
+
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+
+        if (parameters.containsKey("node")) {
+            String node = parameters.get("node");
+            int k = index.getClusterOf(node);
+
+            if (k < 0)
+                throw new IllegalArgumentException("Unknown node " + node);
+
+            record.put("node", node);
+            putClusterStatistics(record, index, k);
+        }
+        else if (parameters.containsKey("dimension")) {
+            String dimension = parameters.get("dimension");
+            int d = index.getDimensionIndex(dimension);
+
+            if (d < 0)
+                throw new IllegalArgumentException("Unknown dimension " + dimension);
+
+            List<Integer> clusters = new ArrayList<Integer>();
+
+            for (int k : index.getClustersOfDimension(d)) {
+                clusters.add(k + 1);
+            }
+
+            record.put("dimension", dimension);
+            record.put("clusters", clusters);
+        }
+        else if (parameters.containsKey("cluster")) {
+            int k = Integer.parseInt(parameters.get("cluster")) - 1;
+
+            if (k < 0 || k >= index.getClustersCount())
+                throw new IllegalArgumentException("Unknown cluster " + parameters.get("cluster"));
+
+            putClusterStatistics(record, index, k);
+
+            List<String> nodes = new ArrayList<String>();
+
+            for (int v : index.getClusterNodes(k)) {
+                nodes.add(index.getNodeId(v));
+            }
+
+            record.put("nodes", nodes);
+        }
+        else {
+            throw new IllegalArgumentException("One of the node, dimension or cluster parameters is required.");
+        }
+
+        sendJson(exchange, 200, record);
+    }
+
+    private static void putClusterStatistics(Map<String, Object> record, ResultIndex index, int k) {
+        Map<String, Object> internalEdges = new LinkedHashMap<String, Object>();
+
+        for (int d = 0; d < index.getDimensionsCount(); d++) {
+            internalEdges.put(index.getDimensionName(d), index.getInternalEdges(k, d));
+        }
+
+        record.put("cluster", k + 1);
+        record.put("size", index.getClusterSize(k));
+        record.put("relevantDimensions", index.getRelevantDimensions(k));
+        record.put("internalEdges", index.getInternalEdges(k));
+        record.put("internalEdgesPerDimension", internalEdges);
+        record.put("cutEdges", index.getCutEdges(k));
+        record.put("conductance", index.getConductance(k));
+    }
+
+    private static void sendJson(HttpExchange exchange, int code, Map<String, Object> record) throws IOException {
+        byte[] body = (JsonUtils.toJson(record) + "\n").getBytes("UTF-8");
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(code, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+        record.put("error", message);
+
+        sendJson(exchange, code, record);
+    }
+
+    /**
+     * Reads the parameters of the query string and of a form encoded body.
+     */
+    private static Map<String, String> readParameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<String, String>();
+        InputStream input = exchange.getRequestBody();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+
+        while ((read = input.read(buffer)) > 0) {
+            body.write(buffer, 0, read);
+        }
+
+        parseParameters(exchange.getRequestURI().getRawQuery(), parameters);
+        parseParameters(body.toString("UTF-8"), parameters);
+
+        return parameters;
+    }
+
+    private static void parseParameters(String encoded, Map<String, String> parameters) throws UnsupportedEncodingException {
+        if (encoded == null || encoded.trim().isEmpty())
+            return;
+
+        for (String pair : encoded.trim().split("&")) {
+            int equals = pair.indexOf('=');
+
+            if (equals < 0)
+                parameters.put(URLDecoder.decode(pair, "UTF-8"), "");
+            else
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+        }
+    }
+
+    private static String getParameter(Map<String, String> parameters, String name, String defaultValue) {
+        String value = parameters.get(name);
+
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    /**
+     * A submitted job along with its status and outcome.
+     */
+    private class DaemonJob implements Runnable {
+        private final String id;
+        private final BatchJob job;
+        private final long submitted = System.currentTimeMillis();
+        private final Map<String, Object> outcome = new LinkedHashMap<String, Object>();
+
+        private String status = "queued";
+        private ClusteringResult result = null;
+
+        // Index of the result, built on the first request.
+        private ResultIndex index = null;
+
+        DaemonJob(String id, BatchJob job) {
+            this.id = id;
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+
+            synchronized (this) {
+                if (!status.equals("queued"))
+                    return;
+
+                status = "running";
+                outcome.put("queueMillis", start - submitted);
+            }
+
+            Map<String, Object> record = new LinkedHashMap<String, Object>();
+            ClusteringResult completed = null;
+            String finalStatus = "failed";
+
+            try {
+                PreprocessedGraphCache.Lookup lookup = cache.get(job);
+
+                try {
+                    PreprocessedGraph preprocessed = lookup.getGraph();
+                    long loaded = System.currentTimeMillis();
+
+                    record.put("nodes", preprocessed.getGraph().getNodesCount());
+                    record.put("edgesCount", preprocessed.getGraph().getEdgesCount());
+                    record.put("dimensions", preprocessed.getGraph().getDimensionsCount());
+                    record.put("cacheHit", lookup.isCacheHit());
+                    record.put("loadingMillis", lookup.isCacheHit() ? 0 : preprocessed.getLoadingMillis());
+                    record.put("preprocessingMillis", lookup.isCacheHit() ? 0 : preprocessed.getPreprocessingMillis());
+
+                    long memory = job.getEstimatedMemory(preprocessed);
+                    budget.reserve(memory);
+                    long admitted = System.currentTimeMillis();
+
+                    try {
+                        completed = job.execute(preprocessed);
+                    }
+                    finally {
+                        budget.release(memory);
+                    }
+
+                    record.put("admissionMillis", admitted - loaded);
+                    record.put("propagationMillis", System.currentTimeMillis() - admitted);
+                    record.put("clusters", completed.getClustersCount());
+                    record.put("cycles", completed.getCycles());
+                    record.put("converged", completed.isConverged());
+                    finalStatus = "completed";
+                }
+                finally {
+                    cache.release(job);
+                }
+            }
+            catch (CancellationException ex) {
+                finalStatus = "cancelled";
+            }
+            catch (Throwable ex) {
+                Throwable cause = ex instanceof ExecutionException && ex.getCause() != null
+                    ? ex.getCause()
+                    : ex;
+
+                record.put("error", cause.toString());
+            }
+
+            record.put("totalMillis", System.currentTimeMillis() - start);
+
+            synchronized (this) {
+                outcome.putAll(record);
+                result = completed;
+                status = job.isCancelled() && completed == null ? "cancelled" : finalStatus;
+            }
+
+            trimFinishedJobs();
+        }
+
+        void cancel() {
+            job.cancel();
+
+            synchronized (this) {
+                if (!status.equals("queued"))
+                    return;
+
+                // Never started, the worker skips it.
+                status = "cancelled";
+            }
+
+            workers.remove(this);
+            trimFinishedJobs();
+        }
+
+        synchronized String getStatus() {
+            return status;
+        }
+
+        synchronized boolean isFinished() {
+            return !status.equals("queued") && !status.equals("running");
+        }
+
+        synchronized ClusteringResult getResult() {
+            return result;
+        }
+
+        synchronized ResultIndex getIndex() {
+            if (index == null && result != null)
+                index = ResultIndex.create(result);
+
+            return index;
+        }
+
+        synchronized Map<String, Object> getRecord() {
+            Map<String, Object> record = new LinkedHashMap<String, Object>();
+            record.put("job", id);
+            record.put("name", job.getName());
+            record.put("edges", job.getEdgesFile().getPath());
+            record.put("mode", job.getModeDescription());
+            record.put("seed", job.getSeed());
+
+            if (job.getDimensionFilter() != null)
+                record.put("dimensionFilter", job.getDimensionFilter().getDimensionNames());
+
+            record.put("status", status);
+            record.putAll(outcome);
+
+            return record;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package MDLPA.batch;
+
+import MDLPA.engine.DimensionFilter;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the jobs of a batch from a manifest file. The manifest is a ;-separated table with a header line naming the
+ * columns, in any order:
+ * Name;Edges;ColumnsSeparator;DimensionsSeparator;Seed;Mode;MaxCycles;GroundTruth;GroundTruthDimensions;Dimensions
+ * aarhus;Datasets/Aarhus/edges.txt;;;1-10;local,ensemble:20;;Datasets/Aarhus/memberships.csv;;
+ * Only Name and Edges are required, empty or missing cells take the defaults (; and , separators, seed 1, local mode,
+ * unbounded cycles, no ground truth, all dimensions). The Dimensions cell restricts the jobs to some dimensions,
+ * separated by the dimensions separator (see DimensionFilter). The Seed cell may hold a list (1,5,9) or a range (1-10) of seeds and the Mode cell a list of
+ * modes (local, reduced, multilevel, ensemble:runs, distributed:partitions); a line is expanded into one job per seed and mode.
+ * Relative files are resolved against the folder of the manifest. Empty lines and lines starting with # are
+ * skipped.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class JobManifest {
+    private static final Pattern COLUMNS_PATTERN = Pattern.compile(";");
+    private static final Pattern LIST_PATTERN = Pattern.compile(",");
+
+    public static List<BatchJob> read(File manifest) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), "UTF-8"));
+        File folder = manifest.getAbsoluteFile().getParentFile();
+        List<BatchJob> jobs = new ArrayList<BatchJob>();
+        Map<String, Integer> columns = null;
+        String line;
+        int lineNumber = 0;
+
+        try {
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+
+                if (line.trim().isEmpty() || line.trim().startsWith("#"))
+                    continue;
+
+                // -1 keeps the trailing empty cells.
+                String[] cells = COLUMNS_PATTERN.split(line, -1);
+
+                if (columns == null) {
+                    columns = readHeader(cells, lineNumber);
+                    continue;
+                }
+
+                try {
+                    readJobs(cells, columns, folder, jobs);
+                }
+                catch (IllegalArgumentException ex) {
+                    throw new IOException(String.format("Line %d: %s", lineNumber, ex.getMessage()));
+                }
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        return jobs;
+    }
+
+    private static Map<String, Integer> readHeader(String[] cells, int lineNumber) throws IOException {
+        Map<String, Integer> columns = new HashMap<String, Integer>();
+
+        for (int i = 0; i < cells.length; i++) {
+            columns.put(cells[i].trim().toLowerCase(), i);
+        }
+
+        if (!columns.containsKey("name") || !columns.containsKey("edges"))
+            throw new IOException(String.format("Line %d: the header must name at least the Name and Edges columns.", lineNumber));
+
+        return columns;
+    }
+
+    private static void readJobs(String[] cells, Map<String, Integer> columns, File folder, List<BatchJob> jobs) {
+        String name = getCell(cells, columns, "name", null);
+        String edges = getCell(cells, columns, "edges", null);
+
+        if (name == null || edges == null)
+            throw new IllegalArgumentException("Name and Edges are required.");
+
+        File edgesFile = resolve(folder, edges);
+        String groundTruth = getCell(cells, columns, "groundtruth", null);
+        String groundTruthDimensions = getCell(cells, columns, "groundtruthdimensions", null);
+
+        if (groundTruthDimensions != null && groundTruth == null)
+            throw new IllegalArgumentException("GroundTruthDimensions requires GroundTruth.");
+
+        // \t stands for a tab since separators can't be quoted.
+        String columnsSeparator = getCell(cells, columns, "columnsseparator", ";").replace("\\t", "\t");
+        String dimensionsSeparator = getCell(cells, columns, "dimensionsseparator", ",").replace("\\t", "\t");
+        String maxCycles = getCell(cells, columns, "maxcycles", null);
+        String dimensions = getCell(cells, columns, "dimensions", null);
+
+        for (long seed : parseSeeds(getCell(cells, columns, "seed", "1"))) {
+            for (String mode : LIST_PATTERN.split(getCell(cells, columns, "mode", "local"))) {
+                jobs.add(createJob(
+                    name,
+                    edgesFile,
+                    columnsSeparator,
+                    dimensionsSeparator,
+                    seed,
+                    mode.trim(),
+                    maxCycles != null ? Integer.parseInt(maxCycles) : Integer.MAX_VALUE,
+                    groundTruth != null ? resolve(folder, groundTruth) : null,
+                    groundTruthDimensions != null ? resolve(folder, groundTruthDimensions) : null,
+                    dimensions != null ? createDimensionFilter(dimensions, dimensionsSeparator) : null
+                ));
+            }
+        }
+    }
+
+    /**
+     * Creates a job from its mode as written in a manifest (ex ensemble:20).
+     */
+    static BatchJob createJob(
+        String name,
+        File edgesFile,
+        String columnsSeparator,
+        String dimensionsSeparator,
+        long seed,
+        String mode,
+        int maxCycles,
+        File groundTruthFile,
+        File groundTruthDimensionsFile,
+        DimensionFilter dimensionFilter
+    )
+    {
+        String[] parts = mode.split(":");
+        BatchJob.Mode engineMode;
+
+        try {
+            engineMode = BatchJob.Mode.valueOf(parts[0].trim().toUpperCase());
+        }
+        catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        int parallelism = 1;
+
+        if (engineMode == BatchJob.Mode.ENSEMBLE || engineMode == BatchJob.Mode.DISTRIBUTED) {
+            if (parts.length != 2)
+                throw new IllegalArgumentException(String.format("Mode %s requires a number of runs or partitions (ex %s:4).", mode, parts[0]));
+
+            parallelism = Integer.parseInt(parts[1].trim());
+        }
+
+        return new BatchJob(
+            name,
+            edgesFile,
+            columnsSeparator,
+            dimensionsSeparator,
+            seed,
+            engineMode,
+            parallelism,
+            maxCycles,
+            groundTruthFile,
+            groundTruthDimensionsFile,
+            dimensionFilter
+        );
+    }
+
+    /**
+     * Creates the filter of a list of dimension names separated by the dimensions separator.
+     */
+    static DimensionFilter createDimensionFilter(String dimensions, String dimensionsSeparator) {
+        List<String> names = new ArrayList<String>();
+
+        for (String name : Pattern.compile(dimensionsSeparator).split(dimensions)) {
+            if (!name.trim().isEmpty())
+                names.add(name.trim());
+        }
+
+        return new DimensionFilter(names);
+    }
+
+    private static File resolve(File folder, String path) {
+        File file = new File(path);
+
+        return file.isAbsolute() ? file : new File(folder, path);
+    }
+
+    private static List<Long> parseSeeds(String cell) {
+        List<Long> seeds = new ArrayList<Long>();
+
+        for (String item : LIST_PATTERN.split(cell)) {
+            item = item.trim();
+            // The range separator is searched after the first character to allow negative seeds.
+            int dash = item.indexOf('-', 1);
+
+            if (dash < 0) {
+                seeds.add(Long.parseLong(item));
+                continue;
+            }
+
+            long first = Long.parseLong(item.substring(0, dash).trim());
+            long last = Long.parseLong(item.substring(dash + 1).trim());
+
+            if (last < first)
+                throw new IllegalArgumentException("Empty seed range " + item);
+
+            for (long seed = first; seed <= last; seed++) {
+                seeds.add(seed);
+            }
+        }
+
+        return seeds;
+    }
+
+    private static String getCell(String[] cells, Map<String, Integer> columns, String column, String defaultValue) {
+        Integer index = columns.get(column);
+
+        if (index == null || index >= cells.length || cells[index].trim().isEmpty())
+            return defaultValue;
+
+        return cells[index].trim();
+    }
+}
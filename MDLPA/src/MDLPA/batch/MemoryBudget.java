@@ -0,0 +1,61 @@
+package MDLPA.batch;
+
+/**
+ * Admits the jobs of a batch according to their estimated heap usage, so that concurrent jobs on large networks
+ * don't exhaust the heap of the JVM.
+ * A reservation waits until the estimated memory in use leaves room for it. A reservation is always granted when no
+ * other job is running, so that jobs larger than the whole budget still run, one at a time.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class MemoryBudget {
+    private final long capacity;
+
+    // Bytes held by the running jobs and by the cached graphs.
+    private long used = 0;
+
+    // Number of granted job reservations; the cached graphs don't count as running jobs.
+    private int running = 0;
+
+    public MemoryBudget(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    /**
+     * Blocks until bytes can be reserved for a job.
+     */
+    public synchronized void reserve(long bytes) throws InterruptedException {
+        while (running > 0 && used + bytes > capacity) {
+            wait();
+        }
+
+        used += bytes;
+        running++;
+    }
+
+    public synchronized void release(long bytes) {
+        used -= bytes;
+        running--;
+        notifyAll();
+    }
+
+    /**
+     * Accounts for memory held outside of any job (a cached graph) without waiting, the budget may be overdrawn.
+     */
+    public synchronized void hold(long bytes) {
+        used += bytes;
+
+        if (bytes < 0)
+            notifyAll();
+    }
+}
@@ -0,0 +1,256 @@
+package MDLPA.batch;
+
+import MDLPA.engine.EdgeListReader;
+import MDLPA.engine.PreprocessedGraph;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shares the preprocessed graphs among the jobs of a batch which read the same dataset with the same separators.
+ * A graph is loaded and preprocessed once by the first job needing it, the concurrent jobs wait for it instead of
+ * loading it again. Since the whole batch is known in advance, a graph is evicted as soon as the last job using it is
+ * done, and its memory is accounted in the memory budget while it's cached.
+ *
+ * When the jobs aren't known in advance (see ClusteringDaemon), graphs stay cached once their jobs are done and the
+ * least recently used ones which no running job holds are evicted whenever the budget is overdrawn. A graph whose
+ * edge list was modified since it was loaded is loaded again.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class PreprocessedGraphCache {
+    // Transient heap used to parse an edge list, relative to the size of the file.
+    private static final int LOADING_MEMORY_FACTOR = 8;
+
+    private final MemoryBudget budget;
+
+    // Iterated from the least recently used graph.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    // Number of jobs still to use each graph in a batch, null when the jobs aren't known in advance.
+    private final Map<String, Integer> pendingJobs;
+
+    // Number of running jobs holding each graph when the jobs aren't known in advance.
+    private final Map<String, Integer> holders = new HashMap<String, Integer>();
+
+    /**
+     * Creates the cache of a stream of jobs which aren't known in advance, evicting the least recently used graphs.
+     */
+    public PreprocessedGraphCache(MemoryBudget budget) {
+        this.budget = budget;
+        this.pendingJobs = null;
+    }
+
+    public PreprocessedGraphCache(MemoryBudget budget, List<BatchJob> jobs) {
+        this.budget = budget;
+        this.pendingJobs = new HashMap<String, Integer>();
+
+        for (BatchJob job : jobs) {
+            Integer count = pendingJobs.get(job.getGraphKey());
+            pendingJobs.put(job.getGraphKey(), count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Returns the preprocessed graph of a job, loading it if it isn't cached yet.
+     * Each call must be followed by a call to release once the job is done.
+     */
+    public Lookup get(BatchJob job) throws Exception {
+        Entry entry;
+        boolean isLoader = false;
+
+        synchronized (this) {
+            entry = entries.get(job.getGraphKey());
+
+            // A graph loaded from an edge list modified since then is replaced, unless jobs still hold it.
+            if (entry != null && pendingJobs == null && isUnused(job.getGraphKey()) && entry.isStale(job.getEdgesFile())) {
+                entries.remove(job.getGraphKey());
+                budget.hold(-entry.heldMemory);
+                entry = null;
+            }
+
+            if (entry == null) {
+                entry = new Entry(job.getEdgesFile());
+                entries.put(job.getGraphKey(), entry);
+                isLoader = true;
+            }
+
+            if (pendingJobs == null) {
+                Integer count = holders.get(job.getGraphKey());
+                holders.put(job.getGraphKey(), count == null ? 1 : count + 1);
+            }
+        }
+
+        if (isLoader) {
+            load(job, entry);
+
+            if (pendingJobs == null)
+                evictLeastRecentlyUsed();
+        }
+
+        return new Lookup(entry.await(), !isLoader);
+    }
+
+    private void load(BatchJob job, Entry entry) throws InterruptedException {
+        long estimate = LOADING_MEMORY_FACTOR * job.getEdgesFile().length();
+        budget.reserve(estimate);
+
+        try {
+            PreprocessedGraph graph = PreprocessedGraph.load(
+                job.getEdgesFile(),
+                new EdgeListReader(job.getColumnsSeparator(), job.getDimensionsSeparator())
+            );
+
+            entry.heldMemory = graph.getEstimatedMemory();
+            budget.hold(entry.heldMemory);
+            entry.complete(graph, null);
+        }
+        catch (Throwable ex) {
+            entry.complete(null, ex);
+        }
+        finally {
+            budget.release(estimate);
+        }
+    }
+
+    public void release(BatchJob job) {
+        Entry evicted = null;
+
+        if (pendingJobs == null) {
+            releaseHolder(job);
+            return;
+        }
+
+        synchronized (this) {
+            int count = pendingJobs.get(job.getGraphKey()) - 1;
+            pendingJobs.put(job.getGraphKey(), count);
+
+            if (count == 0)
+                evicted = entries.remove(job.getGraphKey());
+        }
+
+        if (evicted != null)
+            budget.hold(-evicted.heldMemory);
+    }
+
+    private void releaseHolder(BatchJob job) {
+        synchronized (this) {
+            int count = holders.get(job.getGraphKey()) - 1;
+
+            if (count > 0) {
+                holders.put(job.getGraphKey(), count);
+                return;
+            }
+
+            holders.remove(job.getGraphKey());
+            Entry entry = entries.get(job.getGraphKey());
+
+            // Failed loads aren't cached, the edge list may be fixed before the next job.
+            if (entry != null && entry.isFailed()) {
+                entries.remove(job.getGraphKey());
+                budget.hold(-entry.heldMemory);
+            }
+        }
+
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Evicts the least recently used graphs which no job holds until the budget isn't overdrawn anymore.
+     */
+    private synchronized void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        while (budget.getUsed() > budget.getCapacity() && iterator.hasNext()) {
+            Map.Entry<String, Entry> cached = iterator.next();
+
+            if (!isUnused(cached.getKey()) || !cached.getValue().isDone())
+                continue;
+
+            iterator.remove();
+            budget.hold(-cached.getValue().heldMemory);
+        }
+    }
+
+    private boolean isUnused(String graphKey) {
+        return !holders.containsKey(graphKey);
+    }
+
+    /**
+     * Returns the number of cached graphs, loading ones included.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static class Lookup {
+        private final PreprocessedGraph graph;
+        private final boolean isCacheHit;
+
+        Lookup(PreprocessedGraph graph, boolean isCacheHit) {
+            this.graph = graph;
+            this.isCacheHit = isCacheHit;
+        }
+
+        public PreprocessedGraph getGraph() {
+            return graph;
+        }
+
+        public boolean isCacheHit() {
+            return isCacheHit;
+        }
+    }
+
+    private static class Entry {
+        private PreprocessedGraph graph;
+        private Throwable error;
+        private boolean isDone = false;
+        private long heldMemory = 0;
+
+        // State of the edge list when the graph was loaded.
+        private final long lastModified;
+        private final long length;
+
+        Entry(File edgesFile) {
+            this.lastModified = edgesFile.lastModified();
+            this.length = edgesFile.length();
+        }
+
+        boolean isStale(File edgesFile) {
+            return edgesFile.lastModified() != lastModified || edgesFile.length() != length;
+        }
+
+        synchronized boolean isDone() {
+            return isDone;
+        }
+
+        synchronized boolean isFailed() {
+            return isDone && error != null;
+        }
+
+        synchronized void complete(PreprocessedGraph graph, Throwable error) {
+            this.graph = graph;
+            this.error = error;
+            this.isDone = true;
+            notifyAll();
+        }
+
+        synchronized PreprocessedGraph await() throws InterruptedException, ExecutionException {
+            while (!isDone) {
+                wait();
+            }
+
+            // Every job reading a dataset which can't be loaded fails with the same error.
+            if (error != null)
+                throw new ExecutionException(error);
+
+            return graph;
+        }
+    }
+}
@@ -0,0 +1,830 @@
+package MDLPA.cli;
+
+import MDLPA.distributed.DistributedMDLPA;
+import MDLPA.distributed.InMemoryTransport;
+import MDLPA.distributed.SocketTransport;
+import MDLPA.distributed.Transport;
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.CompressedGraph;
+import MDLPA.engine.CompressedLabelPropagation;
+import MDLPA.engine.DRxORSampling;
+import MDLPA.engine.DimensionFilter;
+import MDLPA.engine.EdgeListReader;
+import MDLPA.engine.EnsembleMDLPA;
+import MDLPA.engine.EnsembleResult;
+import MDLPA.engine.ExecutionPlan;
+import MDLPA.engine.GraphReduction;
+import MDLPA.engine.LabelPropagation;
+import MDLPA.engine.LayerPreclustering;
+import MDLPA.engine.LocalCommunity;
+import MDLPA.engine.LocalCommunityQuery;
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.engine.MultilevelMDLPA;
+import MDLPA.engine.NodeReordering;
+import MDLPA.engine.Preprocessing;
+import MDLPA.engine.ReducedLabelPropagation;
+import MDLPA.engine.ResultIndex;
+import MDLPA.engine.SynchronousLabelPropagation;
+import MDLPA.engine.WarmStart;
+import MDLPA.evaluation.Evaluation;
+import MDLPA.evaluation.GroundTruth;
+import MDLPA.helpers.FormattingUtils;
+import MDLPA.helpers.JsonUtils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs MDLPA[1] outside of Gephi on an edge list file (see EdgeListReader for the format).
+ * Results are written in the same formats as the ones displayed by the plugin.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class MDLPACommandLine {
+    private static final String USAGE =
+        "Usage: java -cp MDLPA.jar MDLPA.cli.MDLPACommandLine [options] <edges file>\n" +
+        "  --columns-separator <s>     Separator of the edge list columns (default ;)\n" +
+        "  --dimensions-separator <s>  Separator of the dimension names on edge labels (default ,)\n" +
+        "  --seed <n>                  Seed of the randomizer (default: current time)\n" +
+        "  --max-cycles <n>            Maximum number of propagation cycles or supersteps\n" +
+        "  --approximate-drxor <d>     Estimate the DRxOR of nodes of degree above d from samples of their neighborhood\n" +
+        "  --drxor-error <f>           Maximum error of the estimated DRxOR (default 0.05)\n" +
+        "  --drxor-confidence <f>      Probability that the estimated DRxOR are within the error (default 0.95)\n" +
+        "  --memberships <file>        Write the node memberships to a file instead of the standard output\n" +
+        "  --clusters <file>           Write the clusters and their relevant dimensions to a file\n" +
+        "  --index <file>              Write the result index (see ResultIndex) to a file\n" +
+        "  --partitions <k>            Run distributed over k partition workers, each one reading its own part of the network\n" +
+        "  --transport socket|memory   Transport between the coordinator and the workers (default socket)\n" +
+        "  --worker-processes          Run each partition worker in its own JVM (socket transport only)\n" +
+        "  --worker-jvm-option <opt>   Option passed to the worker JVMs, may be repeated\n" +
+        "  --reduce                    Fold pendant nodes and merge structural twins before the propagation\n" +
+        "  --dimensions <names>        Keep only the given dimensions, separated by the dimensions separator\n" +
+        "  --plan auto|off             Choose the storage, threads and DRxOR from the profile of the network unless given (default auto)\n" +
+        "  --preprocessing-threads <n> Number of threads reading and initializing the network (default: cores)\n" +
+        "  --reorder bfs|rcm|degree    Renumber the nodes so that neighbors get close indices before the initialization\n" +
+        "  --shuffle-block <n>         Shuffle the visit order by blocks of n consecutive nodes in single runs (default 1)\n" +
+        "  --time-budget <ms>          Stop single runs at the end of the first cycle past ms milliseconds since the start\n" +
+        "  --compressed                Propagate over a compressed copy of the network and release the uncompressed one\n" +
+        "  --weight-revision push|pull|auto  Revise the weights on the neighbors when Dv changes, when they're read, or per cycle (default push)\n" +
+        "  --pull-threshold <f>        Fraction of Dv changes in a cycle above which the next one pulls in auto mode (default 0.1)\n" +
+        "  --synchronous               Update all the nodes of a cycle from the previous one, over --threads threads\n" +
+        "  --update-probability <f>    Probability with which each node is updated at each synchronous cycle (default 0.5)\n" +
+        "  --warm-start <file>         Start single runs from the memberships or the clusters (labels and Dv) of a prior run\n" +
+        "  --precluster-layers         Start single runs from the consensus of a label propagation on each dimension\n" +
+        "  --layer-cycles <n>          Maximum cycles of the propagation on each dimension (default 5)\n" +
+        "  --hub-threads <n>           Scan the neighborhoods of hubs over n threads in single runs (default 1)\n" +
+        "  --hub-degree <d>            Degree above which a node is scanned over the hub threads (default 10000)\n" +
+        "  --multilevel                Contract the provisional clusters and propagate over the coarse networks first\n" +
+        "  --coarsening-cycles <n>     Cycles run on each level before contracting it (default 2)\n" +
+        "  --refinement-cycles <n>     Maximum cycles run on each level after the projection, the finest one included (default 3)\n" +
+        "  --query <ids>               Find the community of the given nodes (comma-separated ids) around them only\n" +
+        "  --query-max-nodes <n>       Maximum number of nodes read by a query\n" +
+        "  --runs <n>                  Run an ensemble of n propagations and output their consensus\n" +
+        "  --threads <n>               Number of concurrent ensemble runs, layer propagations, synchronous chunks or evaluation scans (default: cores)\n" +
+        "  --consensus-threshold <f>   Minimum co-membership frequency of consensus edges, or share of agreeing layers (default 0.5)\n" +
+        "  --co-memberships <file>     Write the co-membership frequency of each edge of the ensemble\n" +
+        "  --stabilities <file>        Write the size and stability of each consensus cluster\n" +
+        "  --ground-truth <file>       Score the clusters against known memberships (Id;...;Cluster)\n" +
+        "  --ground-truth-dimensions <file>  Score the relevant dimensions against the known ones (Cluster;Dimensions)\n" +
+        "  --evaluation <file>         Write the quality scores (NMI, ARI, modularities) as JSON\n";
+
+    // Chunks of each parallel preprocessing pass per thread, so that a slow chunk doesn't hold the other threads.
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // Options that don't take a value.
+    private static final String[] FLAGS = { "--worker-processes", "--reduce", "--multilevel", "--compressed", "--precluster-layers", "--synchronous" };
+
+    private final Map<String, String> options = new HashMap<String, String>();
+    private final List<String> workerJvmOptions = new ArrayList<String>();
+    private String edgesFile = null;
+
+    public static void main(String[] args) {
+        MDLPACommandLine commandLine = new MDLPACommandLine();
+
+        try {
+            commandLine.parse(args);
+        }
+        catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            commandLine.run();
+        }
+        catch (IllegalArgumentException ex) {
+            // Options which can only be checked against the network, like unknown query nodes.
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            if (!arg.startsWith("--")) {
+                if (edgesFile != null)
+                    throw new IllegalArgumentException("Unexpected argument " + arg);
+
+                edgesFile = arg;
+                continue;
+            }
+
+            if (isFlag(arg)) {
+                options.put(arg, "true");
+                continue;
+            }
+
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + arg);
+
+            if (arg.equals("--worker-jvm-option"))
+                workerJvmOptions.add(args[++i]);
+            else
+                options.put(arg, args[++i]);
+        }
+
+        if (edgesFile == null)
+            throw new IllegalArgumentException("Missing edges file.");
+
+        checkValue("--transport", "socket", "memory");
+        checkValue("--plan", "auto", "off");
+        checkValue("--reorder", "bfs", "rcm", "degree");
+        checkValue("--weight-revision", "push", "pull", "auto");
+
+        if (options.containsKey("--partitions") && options.containsKey("--runs"))
+            throw new IllegalArgumentException("Ensembles can't be combined with distributed runs.");
+
+        if (options.containsKey("--worker-processes") && getOption("--transport", "socket").equals("memory"))
+            throw new IllegalArgumentException("Workers running in their own JVMs can't be reached through the memory transport.");
+
+        if (options.containsKey("--reduce") && (options.containsKey("--partitions") || options.containsKey("--runs")))
+            throw new IllegalArgumentException("The reduction is only available for single local runs.");
+
+        if (options.containsKey("--multilevel") && (options.containsKey("--partitions") || options.containsKey("--runs") || options.containsKey("--reduce")))
+            throw new IllegalArgumentException("The multilevel mode is only available for single local runs.");
+
+        if (options.containsKey("--compressed") && (options.containsKey("--partitions") || options.containsKey("--runs") || options.containsKey("--reduce") || options.containsKey("--multilevel")))
+            throw new IllegalArgumentException("The compressed store is only available for single local runs.");
+
+        if (options.containsKey("--time-budget") && (options.containsKey("--partitions") || options.containsKey("--runs") || options.containsKey("--multilevel")))
+            throw new IllegalArgumentException("The time budget is only available for single propagations.");
+
+        if (options.containsKey("--partitions") && (options.containsKey("--reorder") || options.containsKey("--dimensions") || options.containsKey("--approximate-drxor") || options.containsKey("--ground-truth") || options.containsKey("--evaluation")))
+            throw new IllegalArgumentException("The workers of distributed runs read the network themselves, it can't be reordered, restricted, approximated or evaluated.");
+
+        if (options.containsKey("--compressed") && (options.containsKey("--ground-truth") || options.containsKey("--evaluation")))
+            throw new IllegalArgumentException("The evaluation needs the uncompressed network, it can't be combined with --compressed.");
+
+        if (options.containsKey("--query") && (options.containsKey("--partitions") || options.containsKey("--runs") || options.containsKey("--reduce") || options.containsKey("--multilevel") || options.containsKey("--compressed")))
+            throw new IllegalArgumentException("Queries run on the uncompressed network of a single local run.");
+
+        if (options.containsKey("--query") && (options.containsKey("--ground-truth") || options.containsKey("--evaluation") || options.containsKey("--time-budget")))
+            throw new IllegalArgumentException("Queries can't be evaluated or given a time budget.");
+
+        if ((options.containsKey("--warm-start") || options.containsKey("--precluster-layers")) && (options.containsKey("--partitions") || options.containsKey("--runs") || options.containsKey("--reduce") || options.containsKey("--multilevel") || options.containsKey("--compressed") || options.containsKey("--query")))
+            throw new IllegalArgumentException("Warm starts are only available for single propagations on the uncompressed network.");
+
+        if (options.containsKey("--synchronous") && (options.containsKey("--partitions") || options.containsKey("--runs") || options.containsKey("--reduce") || options.containsKey("--multilevel") || options.containsKey("--compressed") || options.containsKey("--query")))
+            throw new IllegalArgumentException("The synchronous mode is only available for single propagations on the uncompressed network.");
+
+        if (options.containsKey("--warm-start") && options.containsKey("--precluster-layers"))
+            throw new IllegalArgumentException("--warm-start can't be combined with --precluster-layers.");
+
+        if (options.containsKey("--ground-truth-dimensions") && !options.containsKey("--ground-truth"))
+            throw new IllegalArgumentException("--ground-truth-dimensions requires --ground-truth.");
+    }
+
+    /**
+     * Checks that the value of an option, when given, is one of the expected ones.
+     */
+    private void checkValue(String option, String... values) {
+        if (!options.containsKey(option))
+            return;
+
+        for (String value : values) {
+            if (value.equals(options.get(option)))
+                return;
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown value %s of %s.", options.get(option), option));
+    }
+
+    private static boolean isFlag(String arg) {
+        for (String flag : FLAGS) {
+            if (flag.equals(arg))
+                return true;
+        }
+
+        return false;
+    }
+
+    private String getOption(String name, String defaultValue) {
+        String value = options.get(name);
+
+        return value != null ? value : defaultValue;
+    }
+
+    void run() throws Exception {
+        long start = System.currentTimeMillis();
+        long deadline = options.containsKey("--time-budget")
+            ? start + Long.parseLong(options.get("--time-budget"))
+            : Long.MAX_VALUE;
+        long seed = Long.parseLong(getOption("--seed", Long.toString(System.currentTimeMillis())));
+        int partitionsCount = Integer.parseInt(getOption("--partitions", "1"));
+        int runsCount = Integer.parseInt(getOption("--runs", "1"));
+
+        EdgeListReader reader = new EdgeListReader(
+            getOption("--columns-separator", ";"),
+            getOption("--dimensions-separator", ",")
+        );
+
+        if (partitionsCount > 1) {
+            // The network isn't loaded here, each worker reads its own partition from the edge list.
+            report(runDistributed(seed, partitionsCount), false, start);
+            return;
+        }
+
+        MultidimensionalGraph graph = read(reader);
+        log("Loaded %d nodes, %d edges and %d dimensions.", graph.getNodesCount(), graph.getEdgesCount(), graph.getDimensionsCount());
+
+        if (options.containsKey("--reorder")) {
+            long reorderingStart = System.currentTimeMillis();
+            graph = NodeReordering.reorder(graph, NodeReordering.Strategy.valueOf(options.get("--reorder").toUpperCase()));
+            log("Renumbered the nodes (%s) in %d ms.", options.get("--reorder"), System.currentTimeMillis() - reorderingStart);
+        }
+
+        if (options.containsKey("--query")) {
+            query(graph, seed);
+            return;
+        }
+
+        if (options.containsKey("--dimensions")) {
+            List<String> names = new ArrayList<String>();
+
+            for (String name : options.get("--dimensions").split(getOption("--dimensions-separator", ","))) {
+                names.add(name.trim());
+            }
+
+            int edgesCount = graph.getEdgesCount();
+            graph = new DimensionFilter(names).apply(graph);
+            log("Kept %d of %d edges on the dimensions %s.", graph.getEdgesCount(), edgesCount, names);
+        }
+
+        if (getOption("--plan", "auto").equals("auto"))
+            plan(graph, partitionsCount == 1 && runsCount == 1 && !options.containsKey("--multilevel") && !options.containsKey("--synchronous"));
+
+        DRxORSampling sampling = null;
+
+        if (options.containsKey("--approximate-drxor")) {
+            sampling = new DRxORSampling(
+                Integer.parseInt(options.get("--approximate-drxor")),
+                Double.parseDouble(getOption("--drxor-error", "0.05")),
+                Double.parseDouble(getOption("--drxor-confidence", "0.95")),
+                seed
+            );
+        }
+
+        Preprocessing preprocessing = preprocess(graph, sampling);
+        log("Initialization completed in %d ms.", System.currentTimeMillis() - start);
+
+        if (sampling != null) {
+            log(
+                "Approximated the DRxOR of %d nodes from %d sets each, largest estimated error %.4f.",
+                sampling.getApproximatedNodesCount(),
+                sampling.getSampleSize(),
+                sampling.getMaxEstimatedError()
+            );
+        }
+
+        ClusteringResult result;
+        boolean deadlineReached = false;
+
+        if (runsCount > 1) {
+            EnsembleMDLPA ensemble = new EnsembleMDLPA(graph, preprocessing);
+            ensemble.setSeed(seed);
+            ensemble.setRunsCount(runsCount);
+            ensemble.setThreadsCount(Integer.parseInt(getOption(
+                "--threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())
+            )));
+            ensemble.setConsensusThreshold(Double.parseDouble(getOption("--consensus-threshold", "0.5")));
+            ensemble.setMaxCycles(Integer.parseInt(getOption("--max-cycles", Integer.toString(Integer.MAX_VALUE))));
+
+            EnsembleResult ensembleResult = ensemble.run();
+            writeEnsembleSummary(ensembleResult);
+            result = ensembleResult.getConsensus();
+        }
+        else if (options.containsKey("--multilevel")) {
+            MultilevelMDLPA multilevel = new MultilevelMDLPA(graph, preprocessing);
+            multilevel.setSeed(seed);
+            multilevel.setCoarseningCycles(Integer.parseInt(getOption("--coarsening-cycles", "2")));
+            multilevel.setRefinementCycles(Integer.parseInt(getOption("--refinement-cycles", "3")));
+            multilevel.setMaxCycles(Integer.parseInt(getOption("--max-cycles", Integer.toString(Integer.MAX_VALUE))));
+
+            result = multilevel.run();
+
+            for (int[] level : multilevel.getLevelSummaries()) {
+                log("Level of %d nodes and %d edges: %d cycles.", level[0], level[1], level[2]);
+            }
+        }
+        else if (options.containsKey("--reduce")) {
+            GraphReduction reduction = GraphReduction.reduce(graph, preprocessing);
+            log(
+                "Folded %d pendants and merged %d twins, %d nodes and %d edges left.",
+                reduction.getFoldedPendantsCount(),
+                reduction.getMergedTwinsCount(),
+                reduction.getReducedGraph().getNodesCount(),
+                reduction.getReducedGraph().getEdgesCount()
+            );
+
+            ReducedLabelPropagation propagation = new ReducedLabelPropagation(reduction, new Random(seed));
+            propagation.setDeadline(deadline);
+            result = propagate(propagation);
+            deadlineReached = propagation.isDeadlineReached();
+        }
+        else if (options.containsKey("--compressed")) {
+            CompressedGraph compressed = CompressedGraph.compress(graph, preprocessing);
+            log(
+                "Compressed the network to %.1f bytes per edge (%.1f with the weights) instead of %.1f.",
+                compressed.getEncodedSize() / (double)graph.getEdgesCount(),
+                compressed.getEstimatedMemory() / (double)graph.getEdgesCount(),
+                (graph.getEstimatedMemory() + preprocessing.getEstimatedMemory() + 8L * graph.getSlotsCount()) / (double)graph.getEdgesCount()
+            );
+
+            // Only the compressed copy is kept during the propagation.
+            graph = null;
+            preprocessing = null;
+
+            CompressedLabelPropagation propagation = new CompressedLabelPropagation(compressed, new Random(seed));
+            propagation.setDeadline(deadline);
+            propagation.propagate(Integer.parseInt(getOption("--max-cycles", Integer.toString(Integer.MAX_VALUE))));
+            result = propagation.getResult();
+            deadlineReached = propagation.isDeadlineReached();
+        }
+        else {
+            WarmStart warmStart = warmStart(graph, seed);
+
+            int[] initialLabels = warmStart != null ? warmStart.getLabels() : null;
+
+            if (warmStart != null)
+                preprocessing = warmStart.apply(graph, preprocessing);
+
+            if (options.containsKey("--synchronous")) {
+                SynchronousLabelPropagation propagation = new SynchronousLabelPropagation(graph, preprocessing, initialLabels, seed);
+                propagation.setDeadline(deadline);
+                result = propagate(propagation);
+                deadlineReached = propagation.isDeadlineReached();
+            }
+            else {
+                LabelPropagation propagation = new LabelPropagation(graph, preprocessing, graph.getNodesCount(), initialLabels, new Random(seed));
+                propagation.setDeadline(deadline);
+                result = propagate(propagation);
+                deadlineReached = propagation.isDeadlineReached();
+            }
+        }
+
+        report(result, deadlineReached, start);
+
+        if (options.containsKey("--ground-truth") || options.containsKey("--evaluation"))
+            evaluate(result, reader);
+    }
+
+    /**
+     * Runs over --partitions workers, each of them reading its own partition from the edge list.
+     */
+    private ClusteringResult runDistributed(long seed, int partitionsCount) throws IOException {
+        DistributedMDLPA distributed = new DistributedMDLPA(createTransport(), partitionsCount);
+        distributed.setSeed(seed);
+        distributed.setUseWorkerProcesses(options.containsKey("--worker-processes"));
+        distributed.setMaxSupersteps(Integer.parseInt(getOption(
+            "--max-cycles",
+            Integer.toString(DistributedMDLPA.DEFAULT_MAX_SUPERSTEPS)
+        )));
+
+        for (String option : workerJvmOptions) {
+            distributed.addWorkerJvmOption(option);
+        }
+
+        return distributed.run(
+            new File(edgesFile),
+            getOption("--columns-separator", ";"),
+            getOption("--dimensions-separator", ",")
+        );
+    }
+
+    private void report(ClusteringResult result, boolean deadlineReached, long start) throws IOException {
+        log(
+            "Found %d clusters after %d cycles (%s) in %d ms.",
+            result.getClustersCount(),
+            result.getCycles(),
+            result.isConverged() ? "converged" : (deadlineReached ? "not converged, time budget spent" : "not converged"),
+            System.currentTimeMillis() - start
+        );
+
+        writeResult(result);
+    }
+
+    private void evaluate(ClusteringResult result, EdgeListReader reader) throws Exception {
+        GroundTruth groundTruth = null;
+
+        if (options.containsKey("--ground-truth")) {
+            String dimensionsFile = options.get("--ground-truth-dimensions");
+
+            groundTruth = GroundTruth.read(
+                result.getGraph(),
+                new File(options.get("--ground-truth")),
+                dimensionsFile != null ? new File(dimensionsFile) : null,
+                getOption("--columns-separator", ";"),
+                reader.getDimensionsSeparator()
+            );
+        }
+
+        Evaluation evaluation = Evaluation.evaluate(
+            result,
+            groundTruth,
+            Integer.parseInt(getOption("--threads", Integer.toString(Runtime.getRuntime().availableProcessors())))
+        );
+        log("Evaluation: %s", evaluation);
+
+        String evaluationFile = options.get("--evaluation");
+
+        if (evaluationFile != null) {
+            Map<String, Object> record = new LinkedHashMap<String, Object>();
+            record.put("clusters", result.getClustersCount());
+            record.put("cycles", result.getCycles());
+            record.put("converged", result.isConverged());
+            evaluation.addTo(record);
+
+            Writer writer = openWriter(evaluationFile);
+
+            try {
+                writer.write(JsonUtils.toJson(record));
+                writer.write("\n");
+            }
+            finally {
+                writer.close();
+            }
+        }
+    }
+
+    private Transport createTransport() {
+        String transport = getOption("--transport", "socket");
+
+        if (transport.equals("socket"))
+            return new SocketTransport();
+
+        if (transport.equals("memory"))
+            return new InMemoryTransport();
+
+        throw new IllegalArgumentException("Unknown transport " + transport);
+    }
+
+    private void writeEnsembleSummary(EnsembleResult ensembleResult) throws IOException {
+        String coMembershipsFile = options.get("--co-memberships");
+
+        if (coMembershipsFile != null) {
+            Writer coMemberships = openWriter(coMembershipsFile);
+
+            try {
+                ensembleResult.writeCoMemberships(coMemberships);
+            }
+            finally {
+                coMemberships.close();
+            }
+        }
+
+        String stabilitiesFile = options.get("--stabilities");
+
+        if (stabilitiesFile != null) {
+            Writer stabilities = openWriter(stabilitiesFile);
+
+            try {
+                ensembleResult.writeClusterStabilities(stabilities);
+            }
+            finally {
+                stabilities.close();
+            }
+        }
+    }
+
+    /**
+     * Finds the community of the --query nodes without initializing the whole network, and writes it in the format of
+     * the clusters.
+     */
+    private void query(MultidimensionalGraph graph, long seed) throws IOException {
+        String[] ids = options.get("--query").split(",");
+        int[] seeds = new int[ids.length];
+
+        for (int i = 0; i < ids.length; i++) {
+            seeds[i] = graph.getNodeIndex(ids[i].trim());
+
+            if (seeds[i] < 0)
+                throw new IllegalArgumentException("Unknown node " + ids[i].trim());
+        }
+
+        long queryStart = System.currentTimeMillis();
+        LocalCommunityQuery query = new LocalCommunityQuery(graph, null, new Random(seed));
+
+        if (options.containsKey("--query-max-nodes"))
+            query.setMaxNodes(Integer.parseInt(options.get("--query-max-nodes")));
+
+        if (options.containsKey("--max-cycles"))
+            query.setMaxCycles(Integer.parseInt(options.get("--max-cycles")));
+
+        LocalCommunity community = query.find(seeds);
+
+        log(
+            "Found a community of %d nodes (%d of %d seeds) in %d ms, %d nodes propagated and %d read over %d rounds and %d cycles%s.",
+            community.getNodes().length,
+            community.getSeedsInCommunity(),
+            seeds.length,
+            System.currentTimeMillis() - queryStart,
+            community.getPropagatedCount(),
+            community.getExploredCount(),
+            community.getRounds(),
+            community.getCycles(),
+            community.isStable() ? "" : " (not stable, node limit reached)"
+        );
+
+        String clustersFile = options.get("--clusters");
+        Writer writer = clustersFile != null
+            ? openWriter(clustersFile)
+            : new OutputStreamWriter(System.out, "UTF-8");
+
+        try {
+            writer
+                .append("cluster = [")
+                .append(FormattingUtils.getCommaSeperatedRepresentation(community.getNodeIds()))
+                .append("];\n")
+                .append("relevantDimensions = [")
+                .append(FormattingUtils.getCommaSeperatedRepresentation(community.getRelevantDimensions()))
+                .append("];\n");
+            writer.flush();
+        }
+        finally {
+            if (clustersFile != null)
+                writer.close();
+        }
+    }
+
+    private void writeResult(ClusteringResult result) throws IOException {
+        String membershipsFile = options.get("--memberships");
+        Writer memberships = membershipsFile != null
+            ? openWriter(membershipsFile)
+            : new OutputStreamWriter(System.out, "UTF-8");
+
+        try {
+            result.writeMemberships(memberships);
+        }
+        finally {
+            if (membershipsFile != null)
+                memberships.close();
+        }
+
+        String clustersFile = options.get("--clusters");
+
+        if (clustersFile != null) {
+            Writer clusters = openWriter(clustersFile);
+
+            try {
+                result.writeClustersAndRelevantDimensions(clusters);
+            }
+            finally {
+                clusters.close();
+            }
+        }
+
+        if (options.containsKey("--index")) {
+            ResultIndex index = ResultIndex.create(result);
+            index.write(new File(options.get("--index")));
+            log("Wrote the result index (%d bytes).", index.getSize());
+        }
+    }
+
+    private static Writer openWriter(String file) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    }
+
+    /**
+     * Chooses the strategies of the run from the profile of the network (see ExecutionPlan) and sets the options
+     * which weren't given explicitly accordingly.
+     * @param isSinglePropagation: whether the run is a single local propagation, the only one whose storage and hub
+     * scans are planned.
+     */
+    private void plan(MultidimensionalGraph graph, boolean isSinglePropagation) {
+        ExecutionPlan plan = ExecutionPlan.plan(graph, ExecutionPlan.getAvailableMemory(), Runtime.getRuntime().availableProcessors());
+        List<String> reasons = plan.getReasons();
+        boolean isCompressible = isSinglePropagation
+            && !options.containsKey("--reduce")
+            && !options.containsKey("--ground-truth")
+            && !options.containsKey("--evaluation")
+            && !options.containsKey("--index")
+            && !options.containsKey("--warm-start")
+            && !options.containsKey("--precluster-layers");
+
+        log("Planning for %s.", plan.getProfile());
+
+        if (options.containsKey("--compressed"))
+            log("Plan: %s, overridden by --compressed.", reasons.get(0));
+        else if (!isCompressible)
+            log("Plan: %s, not applicable to this run.", reasons.get(0));
+        else {
+            log("Plan: %s.", reasons.get(0));
+
+            if (plan.getStorage() == ExecutionPlan.Storage.COMPRESSED)
+                options.put("--compressed", "true");
+        }
+
+        if (options.containsKey("--preprocessing-threads"))
+            log("Plan: %s, overridden by --preprocessing-threads.", reasons.get(1));
+        else {
+            log("Plan: %s.", reasons.get(1));
+            options.put("--preprocessing-threads", Integer.toString(plan.getPreprocessingThreads()));
+        }
+
+        if (options.containsKey("--hub-threads"))
+            log("Plan: %s, overridden by --hub-threads.", reasons.get(2));
+        else if (!isSinglePropagation || options.containsKey("--compressed"))
+            log("Plan: %s, not applicable to this run.", reasons.get(2));
+        else {
+            log("Plan: %s.", reasons.get(2));
+            options.put("--hub-threads", Integer.toString(plan.getHubThreads()));
+
+            if (!options.containsKey("--hub-degree"))
+                options.put("--hub-degree", Integer.toString(plan.getHubDegree()));
+        }
+
+        if (options.containsKey("--approximate-drxor"))
+            log("Plan: %s, overridden by --approximate-drxor.", reasons.get(3));
+        else {
+            log("Plan: %s.", reasons.get(3));
+
+            if (plan.getDRxORDegreeThreshold() >= 0)
+                options.put("--approximate-drxor", Integer.toString(plan.getDRxORDegreeThreshold()));
+        }
+    }
+
+    /**
+     * Reads the edge list, splitting its lines over --preprocessing-threads threads.
+     */
+    private MultidimensionalGraph read(EdgeListReader reader) throws IOException {
+        int threads = getPreprocessingThreads();
+
+        if (threads <= 1)
+            return reader.read(new File(edgesFile));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            return reader.read(new File(edgesFile), executor, threads * CHUNKS_PER_THREAD);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Initializes the network over --preprocessing-threads threads.
+     */
+    private Preprocessing preprocess(MultidimensionalGraph graph, DRxORSampling sampling) {
+        int threads = getPreprocessingThreads();
+
+        if (threads <= 1)
+            return Preprocessing.calculate(graph, sampling);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            return Preprocessing.calculate(graph, sampling, executor, threads * CHUNKS_PER_THREAD);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private int getPreprocessingThreads() {
+        return Integer.parseInt(getOption(
+            "--preprocessing-threads",
+            Integer.toString(Runtime.getRuntime().availableProcessors())
+        ));
+    }
+
+    /**
+     * Returns the labels (and Dv) to start a single propagation from, read from --warm-start or found by
+     * --precluster-layers, null to start from singletons.
+     */
+    private WarmStart warmStart(MultidimensionalGraph graph, long seed) throws Exception {
+        long warmStartStart = System.currentTimeMillis();
+        WarmStart warmStart;
+
+        if (options.containsKey("--warm-start")) {
+            warmStart = WarmStart.read(graph, new File(options.get("--warm-start")));
+        }
+        else if (options.containsKey("--precluster-layers")) {
+            LayerPreclustering preclustering = new LayerPreclustering(graph);
+            preclustering.setSeed(seed);
+            preclustering.setCycles(Integer.parseInt(getOption("--layer-cycles", "5")));
+            preclustering.setThreadsCount(Integer.parseInt(getOption("--threads", Integer.toString(Runtime.getRuntime().availableProcessors()))));
+            preclustering.setConsensusThreshold(Double.parseDouble(getOption("--consensus-threshold", "0.5")));
+            warmStart = preclustering.run();
+        }
+        else {
+            return null;
+        }
+
+        log(
+            "Warm start from %d clusters%s in %d ms.",
+            warmStart.getClustersCount(),
+            warmStart.getDV() != null ? " and their relevant dimensions" : "",
+            System.currentTimeMillis() - warmStartStart
+        );
+
+        return warmStart;
+    }
+
+    /**
+     * Runs a single propagation, scanning the neighborhoods of hubs over --hub-threads threads, shuffling the visit
+     * order by blocks of --shuffle-block nodes and revising the weights as set by --weight-revision if requested.
+     */
+    private ClusteringResult propagate(LabelPropagation propagation) {
+        int hubThreads = Integer.parseInt(getOption("--hub-threads", "1"));
+        ExecutorService hubExecutor = null;
+
+        if (hubThreads > 1) {
+            // The propagation thread scans the first chunk of each hub itself.
+            hubExecutor = Executors.newFixedThreadPool(hubThreads - 1);
+            propagation.setHubParallelism(hubExecutor, Integer.parseInt(getOption("--hub-degree", "10000")), hubThreads);
+        }
+
+        propagation.setShuffleBlockSize(Integer.parseInt(getOption("--shuffle-block", "1")));
+        propagation.setWeightRevision(LabelPropagation.WeightRevision.valueOf(getOption("--weight-revision", "push").toUpperCase()));
+
+        if (options.containsKey("--pull-threshold"))
+            propagation.setPullThreshold(Double.parseDouble(options.get("--pull-threshold")));
+
+        try {
+            propagation.propagate(Integer.parseInt(getOption("--max-cycles", Integer.toString(Integer.MAX_VALUE))));
+        }
+        finally {
+            if (hubExecutor != null)
+                hubExecutor.shutdown();
+        }
+
+        if (propagation.getPullCycles() > 0)
+            log("Pulled the weights during %d of %d cycles.", propagation.getPullCycles(), propagation.getCycles());
+
+        return propagation.getResult();
+    }
+
+    /**
+     * Runs a synchronous propagation over --threads threads, updating each node with --update-probability.
+     */
+    private ClusteringResult propagate(SynchronousLabelPropagation propagation) {
+        int threads = Integer.parseInt(getOption("--threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        ExecutorService executor = null;
+
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads);
+            propagation.setParallelism(executor, threads * CHUNKS_PER_THREAD);
+        }
+
+        propagation.setUpdateProbability(Double.parseDouble(getOption(
+            "--update-probability",
+            Double.toString(SynchronousLabelPropagation.DEFAULT_UPDATE_PROBABILITY)
+        )));
+
+        try {
+            propagation.propagate(Integer.parseInt(getOption("--max-cycles", Integer.toString(Integer.MAX_VALUE))));
+        }
+        finally {
+            if (executor != null)
+                executor.shutdown();
+        }
+
+        return propagation.getResult();
+    }
+
+    private static void log(String format, Object... arguments) {
+        System.err.println(String.format(format, arguments));
+    }
+}
@@ -0,0 +1,286 @@
+package MDLPA.cli;
+
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.StreamingMDLPA;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Runs MDLPA[1] over a stream of timestamped edge events read from a file, see StreamingMDLPA:
+ * Source;Target;Label;Time
+ * 1;2;1,5;1500000000
+ * The header line is optional. With --follow, the file is tailed: the stream waits for new events at its end until
+ * the process is stopped, and the clusters of the current window are written after every --report-every events.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class StreamingCommandLine {
+    private static final String USAGE =
+        "Usage: java -cp MDLPA.jar MDLPA.cli.StreamingCommandLine --window <t> [options] <events file>\n" +
+        "  --window <t>                Time during which an event connects its nodes, in the unit of the event times\n" +
+        "  --columns-separator <s>     Separator of the event columns (default ;)\n" +
+        "  --dimensions-separator <s>  Separator of the dimension names on event labels (default ,)\n" +
+        "  --seed <n>                  Seed of the randomizer (default: current time)\n" +
+        "  --updates-per-event <n>     Maximum number of node updates run after each event (default 4)\n" +
+        "  --max-dimensions <n>        Maximum number of distinct dimensions of the stream (default 64)\n" +
+        "  --follow                    Wait for new events at the end of the file instead of stopping\n" +
+        "  --poll-interval <ms>        Time between two reads at the end of a followed file (default 500)\n" +
+        "  --report-every <n>          Log the state of the window and write its clusters every n events (default 10000)\n" +
+        "  --memberships <file>        Write the node memberships to a file instead of the standard output\n" +
+        "  --clusters <file>           Write the clusters and their relevant dimensions to a file\n";
+
+    private final Map<String, String> options = new HashMap<String, String>();
+    private String eventsFile = null;
+
+    public static void main(String[] args) {
+        StreamingCommandLine commandLine = new StreamingCommandLine();
+
+        try {
+            commandLine.parse(args);
+        }
+        catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            commandLine.run();
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            if (!arg.startsWith("--")) {
+                if (eventsFile != null)
+                    throw new IllegalArgumentException("Unexpected argument " + arg);
+
+                eventsFile = arg;
+                continue;
+            }
+
+            if (arg.equals("--follow")) {
+                options.put(arg, "true");
+                continue;
+            }
+
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + arg);
+
+            options.put(arg, args[++i]);
+        }
+
+        if (eventsFile == null)
+            throw new IllegalArgumentException("Missing events file.");
+
+        if (!options.containsKey("--window"))
+            throw new IllegalArgumentException("Missing --window.");
+    }
+
+    private String getOption(String name, String defaultValue) {
+        String value = options.get(name);
+
+        return value != null ? value : defaultValue;
+    }
+
+    void run() throws Exception {
+        long start = System.currentTimeMillis();
+        String columnsSeparator = getOption("--columns-separator", ";");
+        Pattern columnsPattern = Pattern.compile(Pattern.quote(columnsSeparator));
+        int reportInterval = Integer.parseInt(getOption("--report-every", "10000"));
+        boolean follow = options.containsKey("--follow");
+        long pollInterval = Long.parseLong(getOption("--poll-interval", "500"));
+
+        StreamingMDLPA streaming = new StreamingMDLPA(
+            Long.parseLong(options.get("--window")),
+            Integer.parseInt(getOption("--updates-per-event", "4")),
+            getOption("--dimensions-separator", ","),
+            Integer.parseInt(getOption("--max-dimensions", "64")),
+            new Random(Long.parseLong(getOption("--seed", Long.toString(System.currentTimeMillis()))))
+        );
+
+        LineTail lines = new LineTail(new InputStreamReader(new FileInputStream(new File(eventsFile)), "UTF-8"));
+        int lineNumber = 0;
+
+        try {
+            while (true) {
+                String line = lines.readLine();
+
+                if (line == null && follow) {
+                    // Nothing new, the pending updates are run while waiting.
+                    streaming.drain(Long.MAX_VALUE);
+                    Thread.sleep(pollInterval);
+                    continue;
+                }
+
+                // The last line of a complete file may lack an end of line.
+                if (line == null && (line = lines.readRemainder()) == null)
+                    break;
+
+                lineNumber++;
+                line = line.trim();
+
+                if (line.isEmpty())
+                    continue;
+
+                String[] columns = columnsPattern.split(line);
+
+                if (lineNumber == 1 && columns[0].equalsIgnoreCase("Source"))
+                    continue;
+
+                if (columns.length < 4) {
+                    throw new IOException(String.format(
+                        "Line %d: expected Source%sTarget%sLabel%sTime, found '%s'",
+                        lineNumber,
+                        columnsSeparator,
+                        columnsSeparator,
+                        columnsSeparator,
+                        line
+                    ));
+                }
+
+                streaming.addEvent(columns[0].trim(), columns[1].trim(), columns[2].trim(), Long.parseLong(columns[3].trim()));
+
+                if (streaming.getEventsCount() % reportInterval == 0) {
+                    report(streaming, start);
+
+                    if (follow)
+                        writeResult(streaming.getResult());
+                }
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        streaming.drain(Long.MAX_VALUE);
+        report(streaming, start);
+        writeResult(streaming.getResult());
+    }
+
+    private void report(StreamingMDLPA streaming, long start) {
+        log(
+            "%d events up to time %d in %d ms: %d nodes and %d edges in the window, %d updates run, %d pending.",
+            streaming.getEventsCount(),
+            streaming.getCurrentTime(),
+            System.currentTimeMillis() - start,
+            streaming.getNodesCount(),
+            streaming.getEdgesCount(),
+            streaming.getUpdatesCount(),
+            streaming.getPendingUpdatesCount()
+        );
+    }
+
+    private void writeResult(ClusteringResult result) throws IOException {
+        String membershipsFile = options.get("--memberships");
+        Writer memberships = membershipsFile != null
+            ? openWriter(membershipsFile)
+            : new OutputStreamWriter(System.out, "UTF-8");
+
+        try {
+            result.writeMemberships(memberships);
+        }
+        finally {
+            if (membershipsFile != null)
+                memberships.close();
+        }
+
+        String clustersFile = options.get("--clusters");
+
+        if (clustersFile != null) {
+            Writer clusters = openWriter(clustersFile);
+
+            try {
+                result.writeClustersAndRelevantDimensions(clusters);
+            }
+            finally {
+                clusters.close();
+            }
+        }
+    }
+
+    private static Writer openWriter(String file) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    }
+
+    private static void log(String format, Object... arguments) {
+        System.err.println(String.format(format, arguments));
+    }
+
+    /**
+     * Reads the complete lines of a file which may still be written: a line is only returned once its end of line
+     * was read, the partial last line being kept until the rest of it is appended.
+     */
+    private static class LineTail {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder pending = new StringBuilder();
+        private int position = 0;
+        private int length = 0;
+
+        LineTail(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return the next complete line, null if none was fully written yet.
+         */
+        String readLine() throws IOException {
+            while (true) {
+                while (position < length) {
+                    char c = buffer[position++];
+
+                    if (c == '\n') {
+                        String line = pending.toString();
+                        pending.setLength(0);
+
+                        return line;
+                    }
+
+                    if (c != '\r')
+                        pending.append(c);
+                }
+
+                length = reader.read(buffer);
+                position = 0;
+
+                if (length <= 0) {
+                    length = 0;
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Returns the last line if it lacks an end of line, once the file is known to be complete.
+         */
+        String readRemainder() {
+            String line = pending.toString();
+            pending.setLength(0);
+
+            return line.isEmpty() ? null : line;
+        }
+
+        void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package MDLPA.distributed;
+
+import java.io.IOException;
+
+/**
+ * A bidirectional, ordered link between the coordinator and one partition worker.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public interface Channel {
+    void send(Message message) throws IOException;
+
+    /**
+     * Blocks until the next message is available.
+     */
+    Message receive() throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,392 @@
+package MDLPA.distributed;
+
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.engine.Preprocessing;
+import MDLPA.helpers.MaskUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coordinates a distributed run of MDLPA[1] over k partition workers, whose partitions are either:
+ * - read by the workers themselves from an edge list (see PartitionLoader). The coordinator only holds the node ids,
+ *   the dimension names and the node ranges, and the labels and Dv of the result; the workers compute the w0, Dv_0 and
+ *   w of their nodes and exchange the boundary of their partition once, through the coordinator,
+ * - or sliced by the coordinator from a network and its preprocessing which it already holds (see GraphPartitioner),
+ *   for callers which have them in memory anyway, like batch jobs. Both must then fit in the coordinator.
+ * The run then proceeds in supersteps (bulk synchronous parallel model):
+ * 1. every worker runs a propagation cycle over its owned nodes, with its ghost nodes frozen,
+ * 2. the workers send the boundary labels, Dv masks and w revisions made across partition edges, which the
+ *    coordinator routes to the partitions holding the corresponding ghosts,
+ * 3. once all updates are delivered, every worker checks whether its owned nodes bear a dominant label.
+ * The run stops when all workers agree on convergence (or after maxSupersteps supersteps).
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class DistributedMDLPA {
+    // Stale ghosts may make boundary nodes oscillate, the number of supersteps is thus bounded.
+    public static final int DEFAULT_MAX_SUPERSTEPS = 1000;
+
+    // Time given to all the workers to connect, and interval at which the worker processes are checked meanwhile.
+    public static final long DEFAULT_CONNECT_TIMEOUT = 60000;
+    private static final long CONNECT_POLL_INTERVAL = 200;
+
+    private final Transport transport;
+    private final int partitionsCount;
+
+    // Run the workers as separate JVMs instead of threads of this process.
+    private boolean useWorkerProcesses = false;
+
+    // Options passed to the worker JVMs (ex -Xmx4g).
+    private final List<String> workerJvmOptions = new ArrayList<String>();
+
+    private int maxSupersteps = DEFAULT_MAX_SUPERSTEPS;
+    private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private long seed = System.currentTimeMillis();
+
+    /**
+     * Creates the message handing its partition over to a worker.
+     */
+    private interface Setup {
+        Message create(int partition) throws IOException;
+    }
+
+    public DistributedMDLPA(Transport transport, int partitionsCount) {
+        if (partitionsCount < 1)
+            throw new IllegalArgumentException("At least one partition is required.");
+
+        this.transport = transport;
+        this.partitionsCount = partitionsCount;
+    }
+
+    public void setUseWorkerProcesses(boolean value) {
+        if (value && !transport.supportsWorkerProcesses())
+            throw new IllegalArgumentException("The selected transport can't reach workers running in other processes.");
+
+        this.useWorkerProcesses = value;
+    }
+
+    public void addWorkerJvmOption(String option) {
+        this.workerJvmOptions.add(option);
+    }
+
+    public void setMaxSupersteps(int value) {
+        this.maxSupersteps = value;
+    }
+
+    /**
+     * Sets the time (in milliseconds) after which the run fails if some workers still haven't connected.
+     */
+    public void setConnectTimeout(long millis) {
+        this.connectTimeout = millis;
+    }
+
+    public void setSeed(long value) {
+        this.seed = value;
+    }
+
+    /**
+     * Runs over partitions read by the workers from an edge list, see PartitionLoader.
+     */
+    public ClusteringResult run(File edgesFile, String columnsSeparator, String dimensionsSeparator) throws IOException {
+        PartitionLoader loader = new PartitionLoader(edgesFile, columnsSeparator, dimensionsSeparator);
+        final int[] ranges = GraphPartitioner.getRanges(loader.scanOffsets(), partitionsCount);
+        final byte[] description = loader.toBytes();
+        String[] dimensionNames = loader.getDimensionNames();
+
+        // Only the nodes and the dimensions are kept to build the result.
+        MultidimensionalGraph nodes = MultidimensionalGraph.withoutEdges(
+            loader.getNodeIds(),
+            dimensionNames,
+            MaskUtils.getWordsCount(dimensionNames.length)
+        );
+
+        return run(nodes, ranges, true, new Setup() {
+            @Override
+            public Message create(int partition) {
+                return new Message(Message.LOAD, -1, partition, ranges, new long[] { seed }, null, description);
+            }
+        });
+    }
+
+    /**
+     * Runs over the partitions sliced from a network and its preprocessing held by the caller, see GraphPartitioner.
+     */
+    public ClusteringResult run(MultidimensionalGraph graph, Preprocessing preprocessing) throws IOException {
+        final Partition[] partitions = GraphPartitioner.partition(graph, preprocessing, partitionsCount);
+
+        return run(graph, GraphPartitioner.getRanges(graph, partitionsCount), false, new Setup() {
+            @Override
+            public Message create(int partition) throws IOException {
+                Message setup = new Message(
+                    Message.SETUP,
+                    -1,
+                    partition,
+                    new int[] { partitionsCount },
+                    new long[] { seed },
+                    null,
+                    partitions[partition].toBytes()
+                );
+
+                // The slice is no longer needed once it's handed over.
+                partitions[partition] = null;
+
+                return setup;
+            }
+        });
+    }
+
+    /**
+     * Hands the partitions over to the workers and runs the supersteps.
+     * @param graph: the network, or only its nodes and dimensions, on which the result is built.
+     * @param exchangesBoundaries: whether the workers exchange the boundaries of their partitions before the first
+     * superstep.
+     */
+    private ClusteringResult run(MultidimensionalGraph graph, int[] ranges, boolean exchangesBoundaries, Setup setup) throws IOException {
+        Channel[] channels = new Channel[partitionsCount];
+        List<Process> processes = new ArrayList<Process>();
+        boolean completed = false;
+
+        String address = transport.bind();
+
+        try {
+            for (int p = 0; p < partitionsCount; p++) {
+                launchWorker(address, processes);
+            }
+
+            // Partitions are handed over in the order in which the workers connect.
+            long deadline = System.currentTimeMillis() + connectTimeout;
+
+            for (int p = 0; p < partitionsCount; p++) {
+                channels[p] = acceptWorker(p, deadline, processes);
+                channels[p].send(setup.create(p));
+            }
+
+            if (exchangesBoundaries)
+                route(channels, Message.BOUNDARY);
+
+            boolean converged = agreeOnConvergence(channels);
+            int supersteps = 0;
+
+            while (!converged && supersteps < maxSupersteps) {
+                runSuperstep(channels);
+                converged = agreeOnConvergence(channels);
+                supersteps++;
+            }
+
+            ClusteringResult result = collectResult(graph, ranges, channels, supersteps, converged);
+            completed = true;
+
+            return result;
+        }
+        finally {
+            for (Channel channel : channels) {
+                if (channel != null)
+                    channel.close();
+            }
+
+            transport.close();
+
+            for (Process process : processes) {
+                if (!completed)
+                    process.destroy();
+
+                try {
+                    process.waitFor();
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the next worker to connect, checking meanwhile that none of the worker processes exited (they are
+     * then destroyed by run) and that the deadline isn't passed.
+     * @param connected: the number of workers which already connected.
+     */
+    private Channel acceptWorker(int connected, long deadline, List<Process> processes) throws IOException {
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                throw new IOException(String.format(
+                    "Only %d of the %d partition workers connected within %d ms.",
+                    connected,
+                    partitionsCount,
+                    connectTimeout
+                ));
+            }
+
+            Channel channel = transport.accept(Math.min(remaining, CONNECT_POLL_INTERVAL));
+
+            if (channel != null)
+                return channel;
+
+            for (int p = 0; p < processes.size(); p++) {
+                try {
+                    int exitValue = processes.get(p).exitValue();
+
+                    throw new IOException(String.format(
+                        "The process of partition worker %d exited with code %d before all the workers connected.",
+                        p,
+                        exitValue
+                    ));
+                }
+                catch (IllegalThreadStateException ex) {
+                    // Still running.
+                }
+            }
+        }
+    }
+
+    private void runSuperstep(Channel[] channels) throws IOException {
+        for (Channel channel : channels) {
+            channel.send(new Message(Message.STEP, -1, -1));
+        }
+
+        route(channels, Message.UPDATES);
+    }
+
+    /**
+     * Receives one message of the given type from each worker for each of the other workers and forwards them.
+     */
+    private void route(Channel[] channels, byte type) throws IOException {
+        // All messages are received before any of them is forwarded, so that no worker is written to while it is
+        // still sending its own messages.
+        List<Message> messages = new ArrayList<Message>();
+
+        for (int p = 0; p < partitionsCount; p++) {
+            for (int i = 0; i < partitionsCount - 1; i++) {
+                messages.add(receive(channels[p], type));
+            }
+        }
+
+        for (Message message : messages) {
+            channels[message.getTarget()].send(message);
+        }
+    }
+
+    private boolean agreeOnConvergence(Channel[] channels) throws IOException {
+        for (Channel channel : channels) {
+            channel.send(new Message(Message.VOTE_REQUEST, -1, -1));
+        }
+
+        boolean converged = true;
+
+        for (Channel channel : channels) {
+            Message vote = receive(channel, Message.VOTE);
+            converged &= vote.getInts()[0] == 1;
+        }
+
+        return converged;
+    }
+
+    private ClusteringResult collectResult(
+        MultidimensionalGraph graph,
+        int[] ranges,
+        Channel[] channels,
+        int supersteps,
+        boolean converged
+    ) throws IOException
+    {
+        int words = graph.getMaskWords();
+        int[] labels = new int[graph.getNodesCount()];
+        long[] DV = new long[graph.getNodesCount() * words];
+
+        for (Channel channel : channels) {
+            channel.send(new Message(Message.FINISH, -1, -1));
+        }
+
+        for (Channel channel : channels) {
+            Message result = receive(channel, Message.RESULT);
+            int start = ranges[result.getSource()];
+
+            System.arraycopy(result.getInts(), 0, labels, start, result.getInts().length);
+            System.arraycopy(result.getLongs(), 0, DV, start * words, result.getLongs().length);
+        }
+
+        return ClusteringResult.create(graph, labels, DV, supersteps, converged);
+    }
+
+    private Message receive(Channel channel, byte expectedType) throws IOException {
+        Message message = channel.receive();
+
+        if (message.getType() == Message.ERROR) {
+            throw new IOException(String.format(
+                "Partition worker %d failed:%n%s",
+                message.getSource(),
+                new String(message.getBlob(), "UTF-8")
+            ));
+        }
+
+        if (message.getType() != expectedType) {
+            throw new IOException(String.format(
+                "Expected message type %d from partition worker %d, received %d.",
+                expectedType,
+                message.getSource(),
+                message.getType()
+            ));
+        }
+
+        return message;
+    }
+
+    private void launchWorker(String address, List<Process> processes) throws IOException {
+        if (!useWorkerProcesses) {
+            Thread worker = new Thread(new PartitionWorker(transport, address), "MDLPA partition worker");
+            worker.setDaemon(true);
+            worker.start();
+            return;
+        }
+
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(workerJvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PartitionWorker.class.getName());
+        command.add(address);
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+
+        Process process = builder.start();
+        processes.add(process);
+
+        forwardOutput(process.getInputStream(), System.err);
+    }
+
+    /**
+     * Forwards the output of a worker process so that it doesn't block on a full pipe.
+     */
+    private static void forwardOutput(final InputStream input, final OutputStream output) {
+        Thread forwarder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = new byte[4096];
+
+                try {
+                    int read;
+
+                    while ((read = input.read(buffer)) >= 0) {
+                        output.write(buffer, 0, read);
+                    }
+                }
+                catch (IOException ex) {
+                    // The process ended.
+                }
+            }
+        }, "MDLPA partition worker output");
+
+        forwarder.setDaemon(true);
+        forwarder.start();
+    }
+}
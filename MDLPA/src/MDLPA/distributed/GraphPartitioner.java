@@ -0,0 +1,271 @@
+package MDLPA.distributed;
+
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.engine.Preprocessing;
+import java.util.Arrays;
+
+/**
+ * Splits a network into k partitions of contiguous node ranges holding roughly the same number of slots.
+ * partition slices a network and its preprocessing (w0, Dv_0 and w) which are already held in memory, by a batch job
+ * for instance, so both must fit in the memory of the caller. The partitions of networks which don't are read by the
+ * workers themselves, see PartitionLoader.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class GraphPartitioner {
+
+    /**
+     * Returns the first node of each partition, followed by the number of nodes.
+     */
+    public static int[] getRanges(MultidimensionalGraph graph, int partitionsCount) {
+        return getRanges(graph.getOffsets(), partitionsCount);
+    }
+
+    /**
+     * Returns the first node of each partition, followed by the number of nodes, given the offsets of the rows.
+     */
+    public static int[] getRanges(int[] offsets, int partitionsCount) {
+        int n = offsets.length - 1;
+        int[] ranges = new int[partitionsCount + 1];
+
+        // Isolated nodes still cost a visit per cycle, hence the + v.
+        long total = (long)offsets[n] + n;
+        int p = 1;
+
+        for (int v = 0; v < n && p < partitionsCount; v++) {
+            long load = (long)offsets[v] + v;
+
+            if (load >= total * p / partitionsCount)
+                ranges[p++] = v;
+        }
+
+        while (p < partitionsCount) {
+            ranges[p++] = n;
+        }
+
+        ranges[partitionsCount] = n;
+
+        return ranges;
+    }
+
+    public static Partition[] partition(MultidimensionalGraph graph, Preprocessing preprocessing, int partitionsCount) {
+        int[] ranges = getRanges(graph, partitionsCount);
+        int[][] ghosts = new int[partitionsCount][];
+
+        for (int p = 0; p < partitionsCount; p++) {
+            ghosts[p] = collectGhosts(graph, ranges[p], ranges[p + 1]);
+        }
+
+        // Counting the ghost copies of each node to lay out the mirrors of the boundary nodes.
+        int n = graph.getNodesCount();
+        int[] mirrorsCount = new int[n + 1];
+
+        for (int p = 0; p < partitionsCount; p++) {
+            for (int g : ghosts[p]) {
+                mirrorsCount[g + 1]++;
+            }
+        }
+
+        for (int v = 0; v < n; v++) {
+            mirrorsCount[v + 1] += mirrorsCount[v];
+        }
+
+        int[] mirrorPartitions = new int[mirrorsCount[n]];
+        int[] mirrorIndices = new int[mirrorsCount[n]];
+        int[] positions = Arrays.copyOf(mirrorsCount, n);
+
+        for (int p = 0; p < partitionsCount; p++) {
+            int ownedCount = ranges[p + 1] - ranges[p];
+
+            for (int i = 0; i < ghosts[p].length; i++) {
+                int g = ghosts[p][i];
+                mirrorPartitions[positions[g]] = p;
+                mirrorIndices[positions[g]] = ownedCount + i;
+                positions[g]++;
+            }
+        }
+
+        Partition[] partitions = new Partition[partitionsCount];
+
+        for (int p = 0; p < partitionsCount; p++) {
+            partitions[p] = createPartition(
+                graph,
+                preprocessing,
+                p,
+                ranges,
+                ghosts[p],
+                mirrorsCount,
+                mirrorPartitions,
+                mirrorIndices
+            );
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Returns the sorted list of the neighbors of [start, end) which fall outside the range.
+     */
+    private static int[] collectGhosts(MultidimensionalGraph graph, int start, int end) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] ghosts = new int[16];
+        int count = 0;
+
+        for (int s = offsets[start]; s < offsets[end]; s++) {
+            int u = neighbors[s];
+
+            if (u >= start && u < end)
+                continue;
+
+            if (count == ghosts.length)
+                ghosts = Arrays.copyOf(ghosts, count * 2);
+
+            ghosts[count++] = u;
+        }
+
+        Arrays.sort(ghosts, 0, count);
+
+        int distinct = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ghosts[distinct - 1] != ghosts[i])
+                ghosts[distinct++] = ghosts[i];
+        }
+
+        return Arrays.copyOf(ghosts, distinct);
+    }
+
+    private static Partition createPartition(
+        MultidimensionalGraph graph,
+        Preprocessing preprocessing,
+        int p,
+        int[] ranges,
+        int[] ghosts,
+        int[] mirrorsCount,
+        int[] mirrorPartitions,
+        int[] mirrorIndices
+    )
+    {
+        int start = ranges[p];
+        int end = ranges[p + 1];
+        int ownedCount = end - start;
+        int localCount = ownedCount + ghosts.length;
+        int words = graph.getMaskWords();
+
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] reverseSlots = graph.getReverseSlots();
+        double[] W0 = preprocessing.getW0();
+
+        int base = offsets[start];
+        int slotsCount = offsets[end] - base;
+
+        int[] globalIds = new int[localCount];
+        for (int v = 0; v < ownedCount; v++) {
+            globalIds[v] = start + v;
+        }
+        System.arraycopy(ghosts, 0, globalIds, ownedCount, ghosts.length);
+
+        int[] localOffsets = new int[localCount + 1];
+        for (int v = 0; v <= ownedCount; v++) {
+            localOffsets[v] = offsets[start + v] - base;
+        }
+        for (int v = ownedCount + 1; v <= localCount; v++) {
+            localOffsets[v] = slotsCount;
+        }
+
+        int[] localNeighbors = new int[slotsCount];
+        int[] localReverseSlots = new int[slotsCount];
+        double[] remoteW0 = new double[slotsCount];
+        int[] remoteSlots = new int[slotsCount];
+
+        for (int s = 0; s < slotsCount; s++) {
+            int u = neighbors[base + s];
+            int r = reverseSlots[base + s];
+
+            if (u >= start && u < end) {
+                localNeighbors[s] = u - start;
+                localReverseSlots[s] = r - base;
+                remoteSlots[s] = -1;
+            }
+            else {
+                int q = getOwner(ranges, u);
+
+                localNeighbors[s] = ownedCount + Arrays.binarySearch(ghosts, u);
+                localReverseSlots[s] = -1;
+                remoteW0[s] = W0[r];
+                remoteSlots[s] = r - offsets[ranges[q]];
+            }
+        }
+
+        int[] ghostOwners = new int[ghosts.length];
+        for (int i = 0; i < ghosts.length; i++) {
+            ghostOwners[i] = getOwner(ranges, ghosts[i]);
+        }
+
+        long[] DV0 = new long[localCount * words];
+        for (int v = 0; v < localCount; v++) {
+            System.arraycopy(preprocessing.getDV0(), globalIds[v] * words, DV0, v * words, words);
+        }
+
+        int[] localMirrorOffsets = new int[ownedCount + 1];
+        int mirrorsBase = mirrorsCount[start];
+        for (int v = 0; v <= ownedCount; v++) {
+            localMirrorOffsets[v] = mirrorsCount[start + v] - mirrorsBase;
+        }
+
+        MultidimensionalGraph localGraph = new MultidimensionalGraph(
+            null,
+            graph.getDimensionNames(),
+            localOffsets,
+            localNeighbors,
+            localReverseSlots,
+            Arrays.copyOfRange(graph.getSlotSignatures(), base, base + slotsCount),
+            graph.getSignatures(),
+            words
+        );
+
+        Preprocessing localPreprocessing = new Preprocessing(
+            Arrays.copyOfRange(W0, base, base + slotsCount),
+            DV0,
+            Arrays.copyOfRange(preprocessing.getW(), base, base + slotsCount)
+        );
+
+        return new Partition(
+            p,
+            ownedCount,
+            globalIds,
+            localGraph,
+            localPreprocessing,
+            remoteW0,
+            remoteSlots,
+            ghostOwners,
+            localMirrorOffsets,
+            Arrays.copyOfRange(mirrorPartitions, mirrorsBase, mirrorsCount[end]),
+            Arrays.copyOfRange(mirrorIndices, mirrorsBase, mirrorsCount[end])
+        );
+    }
+
+    /**
+     * Returns the partition owning a global node.
+     */
+    public static int getOwner(int[] ranges, int v) {
+        int low = 0;
+        int high = ranges.length - 2;
+
+        // Last partition p such that ranges[p] <= v; empty partitions share their start with the next one.
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (ranges[middle] <= v)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+
+        return low;
+    }
+}
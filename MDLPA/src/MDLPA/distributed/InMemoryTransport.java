@@ -0,0 +1,99 @@
+package MDLPA.distributed;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared-memory transport where workers run as threads of the coordinator's process and messages are handed over
+ * through blocking queues without being encoded.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class InMemoryTransport implements Transport {
+    private static final Map<String, InMemoryTransport> endpoints = new ConcurrentHashMap<String, InMemoryTransport>();
+    private static final AtomicInteger endpointsCounter = new AtomicInteger();
+
+    private final BlockingQueue<Channel> pendingChannels = new LinkedBlockingQueue<Channel>();
+    private String address = null;
+
+    @Override
+    public String bind() throws IOException {
+        address = "memory:" + endpointsCounter.incrementAndGet();
+        endpoints.put(address, this);
+
+        return address;
+    }
+
+    @Override
+    public Channel accept(long timeoutMillis) throws IOException {
+        try {
+            return pendingChannels.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex) {
+            throw new InterruptedIOException("Interrupted while waiting for workers.");
+        }
+    }
+
+    @Override
+    public Channel connect(String address) throws IOException {
+        InMemoryTransport endpoint = endpoints.get(address);
+
+        if (endpoint == null)
+            throw new IOException("No in-memory endpoint bound at " + address);
+
+        BlockingQueue<Message> toCoordinator = new LinkedBlockingQueue<Message>();
+        BlockingQueue<Message> toWorker = new LinkedBlockingQueue<Message>();
+
+        endpoint.pendingChannels.add(new QueueChannel(toWorker, toCoordinator));
+
+        return new QueueChannel(toCoordinator, toWorker);
+    }
+
+    @Override
+    public boolean supportsWorkerProcesses() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (address != null)
+            endpoints.remove(address);
+    }
+
+    private static class QueueChannel implements Channel {
+        private final BlockingQueue<Message> outgoing;
+        private final BlockingQueue<Message> incoming;
+
+        QueueChannel(BlockingQueue<Message> outgoing, BlockingQueue<Message> incoming) {
+            this.outgoing = outgoing;
+            this.incoming = incoming;
+        }
+
+        @Override
+        public void send(Message message) throws IOException {
+            outgoing.add(message);
+        }
+
+        @Override
+        public Message receive() throws IOException {
+            try {
+                return incoming.take();
+            }
+            catch (InterruptedException ex) {
+                throw new InterruptedIOException("Interrupted while waiting for a message.");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package MDLPA.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A message exchanged between the coordinator and the partition workers of a distributed MDLPA[1] run.
+ * The payload is carried by typed arrays so that messages can be encoded without relying on Java serialization.
+ * Arrays must not be modified once the message is sent since in-memory transports pass them by reference.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class Message {
+    // Coordinator -> worker: the partition to process (blob) and the seed of the randomizer (longs[0]).
+    public static final byte SETUP = 1;
+
+    // Coordinator -> worker: run a propagation cycle over the owned nodes.
+    public static final byte STEP = 2;
+
+    // Worker -> coordinator -> worker: boundary labels, Dv masks and w revisions for the target partition.
+    public static final byte UPDATES = 3;
+
+    // Coordinator -> worker: all updates were delivered, check local convergence.
+    public static final byte VOTE_REQUEST = 4;
+
+    // Worker -> coordinator: ints = {converged (0/1), label changes during the last superstep}.
+    public static final byte VOTE = 5;
+
+    // Coordinator -> worker: global convergence was agreed, send back the owned labels and Dv masks.
+    public static final byte FINISH = 6;
+
+    // Worker -> coordinator: ints = labels of the owned nodes, longs = Dv masks of the owned nodes.
+    public static final byte RESULT = 7;
+
+    // Worker -> coordinator: the worker failed, blob holds the UTF-8 error description.
+    public static final byte ERROR = 8;
+
+    // Coordinator -> worker: the partition to read from the edge list described by the blob (see PartitionLoader),
+    // ints = the first node of each partition followed by the number of nodes, longs[0] = the seed of the randomizer.
+    public static final byte LOAD = 9;
+
+    // Worker -> coordinator -> worker: the boundary of the source partition seen from the target one, exchanged once
+    // after LOAD (see PartitionLoader.collectBoundary).
+    public static final byte BOUNDARY = 10;
+
+    private final byte type;
+    private final int source;
+    private final int target;
+    private final int[] ints;
+    private final long[] longs;
+    private final double[] doubles;
+    private final byte[] blob;
+
+    public Message(byte type, int source, int target) {
+        this(type, source, target, null, null, null, null);
+    }
+
+    public Message(byte type, int source, int target, int[] ints, long[] longs, double[] doubles, byte[] blob) {
+        this.type = type;
+        this.source = source;
+        this.target = target;
+        this.ints = ints;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.blob = blob;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * Index of the sending partition, -1 for the coordinator.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Index of the receiving partition, -1 for the coordinator.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    public int[] getInts() {
+        return ints;
+    }
+
+    public long[] getLongs() {
+        return longs;
+    }
+
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    public byte[] getBlob() {
+        return blob;
+    }
+
+    public void writeTo(DataOutputStream output) throws IOException {
+        output.writeByte(type);
+        output.writeInt(source);
+        output.writeInt(target);
+
+        output.writeInt(ints == null ? -1 : ints.length);
+        if (ints != null) {
+            for (int value : ints) {
+                output.writeInt(value);
+            }
+        }
+
+        output.writeInt(longs == null ? -1 : longs.length);
+        if (longs != null) {
+            for (long value : longs) {
+                output.writeLong(value);
+            }
+        }
+
+        output.writeInt(doubles == null ? -1 : doubles.length);
+        if (doubles != null) {
+            for (double value : doubles) {
+                output.writeDouble(value);
+            }
+        }
+
+        output.writeInt(blob == null ? -1 : blob.length);
+        if (blob != null) {
+            output.write(blob);
+        }
+    }
+
+    public static Message readFrom(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        int source = input.readInt();
+        int target = input.readInt();
+
+        int length = input.readInt();
+        int[] ints = length < 0 ? null : new int[length];
+        for (int i = 0; i < length; i++) {
+            ints[i] = input.readInt();
+        }
+
+        length = input.readInt();
+        long[] longs = length < 0 ? null : new long[length];
+        for (int i = 0; i < length; i++) {
+            longs[i] = input.readLong();
+        }
+
+        length = input.readInt();
+        double[] doubles = length < 0 ? null : new double[length];
+        for (int i = 0; i < length; i++) {
+            doubles[i] = input.readDouble();
+        }
+
+        length = input.readInt();
+        byte[] blob = length < 0 ? null : new byte[length];
+        if (blob != null) {
+            input.readFully(blob);
+        }
+
+        return new Message(type, source, target, ints, longs, doubles, blob);
+    }
+}
@@ -0,0 +1,253 @@
+package MDLPA.distributed;
+
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.engine.Preprocessing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * One of the k parts of a network processed by a partition worker.
+ * The local nodes are numbered as follows: the owned nodes first, then the ghost (halo) copies of the neighbors
+ * owned by other partitions. Only the rows of the owned nodes are stored; the rows of the ghosts are empty.
+ *
+ * For each slot (v,u) where u is a ghost, the partition keeps w0(u,v) and the index of the slot (u,v) in the partition
+ * owning u, so that the w revisions made by v on u can be sent to that partition.
+ * For each owned node that has ghost copies elsewhere (a boundary node), the partition keeps the list of
+ * (partition, local index) of its copies, so that its label and Dv can be sent to them.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class Partition {
+    private final int index;
+    private final int ownedCount;
+
+    // Global index of each local node.
+    private final int[] globalIds;
+
+    private final MultidimensionalGraph graph;
+    private final Preprocessing preprocessing;
+
+    // w0(u,v) of the reverse slot when the neighbor u of the slot is a ghost, 0 otherwise.
+    private final double[] remoteW0;
+
+    // Slot of (u,v) in the partition owning u when the neighbor u of the slot is a ghost, -1 otherwise.
+    private final int[] remoteSlots;
+
+    // Partition owning each ghost, indexed by (local index - ownedCount).
+    private final int[] ghostOwners;
+
+    // Copies of the owned node v span [mirrorOffsets[v], mirrorOffsets[v + 1]) in mirrorPartitions/mirrorIndices.
+    private final int[] mirrorOffsets;
+    private final int[] mirrorPartitions;
+    private final int[] mirrorIndices;
+
+    public Partition(
+        int index,
+        int ownedCount,
+        int[] globalIds,
+        MultidimensionalGraph graph,
+        Preprocessing preprocessing,
+        double[] remoteW0,
+        int[] remoteSlots,
+        int[] ghostOwners,
+        int[] mirrorOffsets,
+        int[] mirrorPartitions,
+        int[] mirrorIndices
+    )
+    {
+        this.index = index;
+        this.ownedCount = ownedCount;
+        this.globalIds = globalIds;
+        this.graph = graph;
+        this.preprocessing = preprocessing;
+        this.remoteW0 = remoteW0;
+        this.remoteSlots = remoteSlots;
+        this.ghostOwners = ghostOwners;
+        this.mirrorOffsets = mirrorOffsets;
+        this.mirrorPartitions = mirrorPartitions;
+        this.mirrorIndices = mirrorIndices;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getOwnedCount() {
+        return ownedCount;
+    }
+
+    public int getGhostsCount() {
+        return globalIds.length - ownedCount;
+    }
+
+    public int[] getGlobalIds() {
+        return globalIds;
+    }
+
+    public MultidimensionalGraph getGraph() {
+        return graph;
+    }
+
+    public Preprocessing getPreprocessing() {
+        return preprocessing;
+    }
+
+    public double[] getRemoteW0() {
+        return remoteW0;
+    }
+
+    public int[] getRemoteSlots() {
+        return remoteSlots;
+    }
+
+    public int[] getGhostOwners() {
+        return ghostOwners;
+    }
+
+    public int[] getMirrorOffsets() {
+        return mirrorOffsets;
+    }
+
+    public int[] getMirrorPartitions() {
+        return mirrorPartitions;
+    }
+
+    public int[] getMirrorIndices() {
+        return mirrorIndices;
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeInt(index);
+        output.writeInt(ownedCount);
+        writeInts(output, globalIds);
+
+        String[] dimensionNames = graph.getDimensionNames();
+        output.writeInt(dimensionNames.length);
+        for (String dimension : dimensionNames) {
+            output.writeUTF(dimension);
+        }
+
+        output.writeInt(graph.getMaskWords());
+        writeInts(output, graph.getOffsets());
+        writeInts(output, graph.getNeighbors());
+        writeInts(output, graph.getReverseSlots());
+        writeInts(output, graph.getSlotSignatures());
+        writeLongs(output, graph.getSignatures());
+
+        writeDoubles(output, preprocessing.getW0());
+        writeLongs(output, preprocessing.getDV0());
+        writeDoubles(output, preprocessing.getW());
+
+        writeDoubles(output, remoteW0);
+        writeInts(output, remoteSlots);
+        writeInts(output, ghostOwners);
+        writeInts(output, mirrorOffsets);
+        writeInts(output, mirrorPartitions);
+        writeInts(output, mirrorIndices);
+
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    public static Partition fromBytes(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        int index = input.readInt();
+        int ownedCount = input.readInt();
+        int[] globalIds = readInts(input);
+
+        String[] dimensionNames = new String[input.readInt()];
+        for (int d = 0; d < dimensionNames.length; d++) {
+            dimensionNames[d] = input.readUTF();
+        }
+
+        int maskWords = input.readInt();
+        MultidimensionalGraph graph = new MultidimensionalGraph(
+            null,
+            dimensionNames,
+            readInts(input),
+            readInts(input),
+            readInts(input),
+            readInts(input),
+            readLongs(input),
+            maskWords
+        );
+
+        Preprocessing preprocessing = new Preprocessing(
+            readDoubles(input),
+            readLongs(input),
+            readDoubles(input)
+        );
+
+        return new Partition(
+            index,
+            ownedCount,
+            globalIds,
+            graph,
+            preprocessing,
+            readDoubles(input),
+            readInts(input),
+            readInts(input),
+            readInts(input),
+            readInts(input),
+            readInts(input)
+        );
+    }
+
+    private static void writeInts(DataOutputStream output, int[] values) throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    private static void writeLongs(DataOutputStream output, long[] values) throws IOException {
+        output.writeInt(values.length);
+        for (long value : values) {
+            output.writeLong(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream output, double[] values) throws IOException {
+        output.writeInt(values.length);
+        for (double value : values) {
+            output.writeDouble(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream input) throws IOException {
+        int[] values = new int[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readInt();
+        }
+
+        return values;
+    }
+
+    private static long[] readLongs(DataInputStream input) throws IOException {
+        long[] values = new long[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readLong();
+        }
+
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream input) throws IOException {
+        double[] values = new double[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readDouble();
+        }
+
+        return values;
+    }
+}
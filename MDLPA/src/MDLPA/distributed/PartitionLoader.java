@@ -0,0 +1,731 @@
+package MDLPA.distributed;
+
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.engine.Preprocessing;
+import MDLPA.helpers.MaskUtils;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the partitions of a distributed MDLPA[1] run straight from an edge list (see EdgeListReader for the format),
+ * so that neither the coordinator nor any worker holds the whole network or its initialization:
+ * - the coordinator scans the edge list for the node ids, the dimensions and the degrees, from which it draws the node
+ *   ranges of the partitions (see scanOffsets),
+ * - each worker scans the edge list again and only keeps the rows of the nodes of its range, the neighbors owned by
+ *   other partitions becoming ghosts. The w0 and Dv_0 of its nodes only depend on their own rows, the worker thus
+ *   computes them on its own (see load),
+ * - the workers then exchange, once and through the coordinator, what they need from the rows they don't hold: the
+ *   Dv_0 of their boundary nodes, with which the w of the edges crossing partitions are revised, the w0(u,v) of the
+ *   reverse slots of these edges along with their slot in the partition owning u, and the local index of the ghost
+ *   copies of the boundary nodes (see collectBoundary and applyBoundary).
+ * The partitions are the same as the ones sliced by GraphPartitioner from the whole network and its initialization.
+ * Nodes and dimensions are numbered in the order of their first appearance as by MultidimensionalGraphBuilder, so each
+ * scan keeps the index of every node id (but not the edges of the other partitions, dropped as they are read).
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class PartitionLoader {
+    private final File edgesFile;
+    private final String columnsSeparator;
+    private final String dimensionsSeparator;
+
+    // Index of each node id and id of each dimension, in the order of their first appearance.
+    private final Map<String, Integer> nodeIndices = new HashMap<String, Integer>();
+    private final List<String> nodeIds = new ArrayList<String>();
+    private final Map<String, Integer> dimensionIds = new HashMap<String, Integer>();
+    private final List<String> dimensionNames = new ArrayList<String>();
+
+    // Distinct sets of connecting dimensions met in the rows of the partition.
+    private final Map<BitSet, Integer> signatureIds = new HashMap<BitSet, Integer>();
+    private final List<BitSet> signatures = new ArrayList<BitSet>();
+
+    // The loaded partition, see load.
+    private int index;
+    private int[] ranges;
+    private int ownedCount;
+    private int words;
+    private MultidimensionalGraph graph;
+    private double[] W0;
+    private long[] DV0;
+
+    // Sorted global ids of the ghosts and partition owning each of them.
+    private int[] ghosts;
+    private int[] ghostOwners;
+
+    // Slots pointing to each ghost g span [ghostSlotOffsets[g], ghostSlotOffsets[g + 1]) in ghostSlots, by owned node.
+    private int[] ghostSlotOffsets;
+    private int[] ghostSlots;
+
+    // Owned nodes having a neighbor owned by each partition, in ascending order.
+    private int[][] boundaryNodes;
+
+    // Slots of the owned rows whose neighbor is owned by each partition, in row order.
+    private int[][] cutSlots;
+
+    // Local index of the ghost copies of boundaryNodes[q] in partition q, filled by applyBoundary.
+    private int[][] copyIndices;
+    private double[] remoteW0;
+    private int[] remoteSlots;
+    private int boundariesCount = 0;
+
+    /**
+     * Receives the edges of the edge list as they are read, self loops excluded.
+     */
+    private interface EdgeVisitor {
+        void visit(int source, int target, BitSet Dvu);
+    }
+
+    public PartitionLoader(File edgesFile, String columnsSeparator, String dimensionsSeparator) {
+        this.edgesFile = edgesFile;
+        this.columnsSeparator = columnsSeparator;
+        this.dimensionsSeparator = dimensionsSeparator;
+    }
+
+    public String[] getNodeIds() {
+        return nodeIds.toArray(new String[nodeIds.size()]);
+    }
+
+    public String[] getDimensionNames() {
+        return dimensionNames.toArray(new String[dimensionNames.size()]);
+    }
+
+    /**
+     * Coordinator side: scans the edge list for the node ids and the dimensions.
+     * @return the offsets of the rows of the network before the edges linking the same pair of nodes are merged,
+     * which is close enough to draw the node ranges from (see GraphPartitioner.getRanges).
+     */
+    public int[] scanOffsets() throws IOException {
+        DegreeCounter counter = new DegreeCounter();
+        scan(counter);
+
+        int n = nodeIds.size();
+        int[] offsets = new int[n + 1];
+
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + (v < counter.degrees.length ? counter.degrees[v] : 0);
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Worker side: scans the edge list for the rows of the nodes of [ranges[index], ranges[index + 1]) and computes
+     * their w0 and Dv_0.
+     */
+    public void load(int index, int[] ranges) throws IOException {
+        this.index = index;
+        this.ranges = ranges;
+        this.ownedCount = ranges[index + 1] - ranges[index];
+
+        signatureIds.clear();
+        signatures.clear();
+
+        RowCollector rows = new RowCollector(ranges[index], ranges[index + 1]);
+        scan(rows);
+
+        words = MaskUtils.getWordsCount(dimensionNames.size());
+        buildGraph(ranges[index], ranges[index + 1], rows.nodes, rows.slots, rows.count);
+
+        // The ids are only needed to number the nodes while scanning.
+        nodeIndices.clear();
+        nodeIds.clear();
+
+        Preprocessing preprocessing = Preprocessing.calculate(graph);
+        W0 = preprocessing.getW0();
+        DV0 = preprocessing.getDV0();
+
+        collectBoundaryLayout();
+    }
+
+    /**
+     * Lays out the rows of the owned nodes, sorted by global neighbor index and with the repeated pairs merged, then
+     * numbers the nodes locally: the owned nodes first, then the ghosts.
+     */
+    private void buildGraph(int start, int end, int[] rowNodes, long[] rowSlots, int slotsCount) {
+        int[] offsets = new int[ownedCount + 1];
+
+        for (int i = 0; i < slotsCount; i++) {
+            offsets[rowNodes[i] + 1]++;
+        }
+
+        for (int v = 0; v < ownedCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        long[] packedSlots = new long[slotsCount];
+        int[] positions = Arrays.copyOf(offsets, ownedCount);
+
+        for (int i = 0; i < slotsCount; i++) {
+            packedSlots[positions[rowNodes[i]]++] = rowSlots[i];
+        }
+
+        // Merging the slots of repeated pairs into a single one holding the union of their dimensions.
+        int[] globalNeighbors = new int[slotsCount];
+        int[] slotSignatures = new int[slotsCount];
+        int[] mergedOffsets = new int[ownedCount + 1];
+        int count = 0;
+
+        for (int v = 0; v < ownedCount; v++) {
+            Arrays.sort(packedSlots, offsets[v], offsets[v + 1]);
+
+            int s = offsets[v];
+
+            while (s < offsets[v + 1]) {
+                int u = (int)(packedSlots[s] >>> 32);
+                int signature = (int)packedSlots[s++];
+
+                if (s < offsets[v + 1] && (int)(packedSlots[s] >>> 32) == u) {
+                    BitSet Dvu = (BitSet)signatures.get(signature).clone();
+
+                    while (s < offsets[v + 1] && (int)(packedSlots[s] >>> 32) == u) {
+                        Dvu.or(signatures.get((int)packedSlots[s++]));
+                    }
+
+                    signature = getSignatureId(Dvu);
+                }
+
+                globalNeighbors[count] = u;
+                slotSignatures[count++] = signature;
+            }
+
+            mergedOffsets[v + 1] = count;
+        }
+
+        ghosts = collectGhosts(globalNeighbors, count, start, end);
+        ghostOwners = new int[ghosts.length];
+
+        for (int i = 0; i < ghosts.length; i++) {
+            ghostOwners[i] = GraphPartitioner.getOwner(ranges, ghosts[i]);
+        }
+
+        int localCount = ownedCount + ghosts.length;
+        int[] localOffsets = Arrays.copyOf(mergedOffsets, localCount + 1);
+
+        for (int v = ownedCount + 1; v <= localCount; v++) {
+            localOffsets[v] = count;
+        }
+
+        int[] neighbors = new int[count];
+        int[] reverseSlots = new int[count];
+        int[] cursors = new int[ownedCount];
+
+        for (int v = 0; v < ownedCount; v++) {
+            cursors[v] = mergedOffsets[v + 1];
+
+            for (int s = mergedOffsets[v]; s < mergedOffsets[v + 1]; s++) {
+                int u = globalNeighbors[s];
+
+                if (u >= start && u < end) {
+                    neighbors[s] = u - start;
+                    cursors[v] = Math.min(cursors[v], s);
+                }
+                else {
+                    neighbors[s] = ownedCount + Arrays.binarySearch(ghosts, u);
+                    reverseSlots[s] = -1;
+                }
+            }
+        }
+
+        // The owned neighbors of a row are sorted, each reverse slot is thus the next one of the row of the neighbor.
+        for (int v = 0; v < ownedCount; v++) {
+            for (int s = mergedOffsets[v]; s < mergedOffsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (u < ownedCount && u > v) {
+                    int r = cursors[u]++;
+                    reverseSlots[s] = r;
+                    reverseSlots[r] = s;
+                }
+            }
+        }
+
+        long[] packedSignatures = new long[signatures.size() * words];
+
+        for (int signature = 0; signature < signatures.size(); signature++) {
+            BitSet Dvu = signatures.get(signature);
+
+            for (int d = Dvu.nextSetBit(0); d >= 0; d = Dvu.nextSetBit(d + 1)) {
+                MaskUtils.set(packedSignatures, signature * words, d);
+            }
+        }
+
+        graph = new MultidimensionalGraph(
+            null,
+            getDimensionNames(),
+            localOffsets,
+            neighbors,
+            reverseSlots,
+            Arrays.copyOf(slotSignatures, count),
+            packedSignatures,
+            words
+        );
+    }
+
+    /**
+     * Returns the sorted list of the distinct neighbors which fall outside [start, end).
+     */
+    private static int[] collectGhosts(int[] globalNeighbors, int count, int start, int end) {
+        int[] ghosts = new int[16];
+        int ghostsCount = 0;
+
+        for (int s = 0; s < count; s++) {
+            int u = globalNeighbors[s];
+
+            if (u >= start && u < end)
+                continue;
+
+            if (ghostsCount == ghosts.length)
+                ghosts = Arrays.copyOf(ghosts, ghostsCount * 2);
+
+            ghosts[ghostsCount++] = u;
+        }
+
+        Arrays.sort(ghosts, 0, ghostsCount);
+
+        int distinct = 0;
+
+        for (int i = 0; i < ghostsCount; i++) {
+            if (distinct == 0 || ghosts[distinct - 1] != ghosts[i])
+                ghosts[distinct++] = ghosts[i];
+        }
+
+        return Arrays.copyOf(ghosts, distinct);
+    }
+
+    /**
+     * Lists the boundary nodes and the slots crossing partitions, per partition, and the slots pointing to each ghost.
+     */
+    private void collectBoundaryLayout() {
+        int partitionsCount = ranges.length - 1;
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] nodesCount = new int[partitionsCount];
+        int[] slotsCount = new int[partitionsCount];
+        int[] lastNodes = new int[partitionsCount];
+
+        Arrays.fill(lastNodes, -1);
+        ghostSlotOffsets = new int[ghosts.length + 1];
+
+        for (int v = 0; v < ownedCount; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int g = neighbors[s] - ownedCount;
+
+                if (g < 0)
+                    continue;
+
+                int q = ghostOwners[g];
+                slotsCount[q]++;
+                ghostSlotOffsets[g + 1]++;
+
+                if (lastNodes[q] != v) {
+                    lastNodes[q] = v;
+                    nodesCount[q]++;
+                }
+            }
+        }
+
+        for (int g = 0; g < ghosts.length; g++) {
+            ghostSlotOffsets[g + 1] += ghostSlotOffsets[g];
+        }
+
+        boundaryNodes = new int[partitionsCount][];
+        cutSlots = new int[partitionsCount][];
+
+        for (int q = 0; q < partitionsCount; q++) {
+            boundaryNodes[q] = new int[nodesCount[q]];
+            cutSlots[q] = new int[slotsCount[q]];
+        }
+
+        ghostSlots = new int[ghostSlotOffsets[ghosts.length]];
+        int[] ghostPositions = Arrays.copyOf(ghostSlotOffsets, ghosts.length);
+
+        Arrays.fill(nodesCount, 0);
+        Arrays.fill(slotsCount, 0);
+        Arrays.fill(lastNodes, -1);
+
+        for (int v = 0; v < ownedCount; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int g = neighbors[s] - ownedCount;
+
+                if (g < 0)
+                    continue;
+
+                int q = ghostOwners[g];
+                cutSlots[q][slotsCount[q]++] = s;
+                ghostSlots[ghostPositions[g]++] = s;
+
+                if (lastNodes[q] != v) {
+                    lastNodes[q] = v;
+                    boundaryNodes[q][nodesCount[q]++] = v;
+                }
+            }
+        }
+
+        copyIndices = new int[partitionsCount][];
+        remoteW0 = new double[graph.getSlotsCount()];
+        remoteSlots = new int[graph.getSlotsCount()];
+        Arrays.fill(remoteSlots, -1);
+        boundariesCount = 0;
+    }
+
+    /**
+     * Packs what each other partition needs from the rows of the owned nodes into one BOUNDARY message per partition q:
+     * ints = {ghosts count, local index of each ghost owned by q, slot of each (v,u) with u owned by q},
+     * longs = Dv_0 of each owned node having a neighbor owned by q, doubles = w0(v,u) of each slot.
+     * The ghosts and the nodes are sent in ascending order and the slots by u then v, which is the order in which q
+     * meets the same nodes and edges in its own rows.
+     */
+    public Message[] collectBoundary() {
+        int partitionsCount = ranges.length - 1;
+        Message[] boundaries = new Message[partitionsCount - 1];
+        int count = 0;
+
+        for (int q = 0; q < partitionsCount; q++) {
+            if (q == index)
+                continue;
+
+            int firstGhost = lowerBound(ghosts, ranges[q]);
+            int lastGhost = lowerBound(ghosts, ranges[q + 1]);
+            int ghostsCount = lastGhost - firstGhost;
+            int firstSlot = ghostSlotOffsets[firstGhost];
+            int slotsCount = ghostSlotOffsets[lastGhost] - firstSlot;
+
+            int[] ints = new int[1 + ghostsCount + slotsCount];
+            double[] doubles = new double[slotsCount];
+            long[] longs = new long[boundaryNodes[q].length * words];
+
+            ints[0] = ghostsCount;
+
+            for (int i = 0; i < ghostsCount; i++) {
+                ints[1 + i] = ownedCount + firstGhost + i;
+            }
+
+            for (int i = 0; i < slotsCount; i++) {
+                int s = ghostSlots[firstSlot + i];
+                ints[1 + ghostsCount + i] = s;
+                doubles[i] = W0[s];
+            }
+
+            for (int i = 0; i < boundaryNodes[q].length; i++) {
+                System.arraycopy(DV0, boundaryNodes[q][i] * words, longs, i * words, words);
+            }
+
+            boundaries[count++] = new Message(Message.BOUNDARY, index, q, ints, longs, doubles, null);
+        }
+
+        return boundaries;
+    }
+
+    /**
+     * Applies the BOUNDARY message of another partition, see collectBoundary.
+     */
+    public void applyBoundary(Message boundary) {
+        int p = boundary.getSource();
+        int[] ints = boundary.getInts();
+        long[] longs = boundary.getLongs();
+        double[] doubles = boundary.getDoubles();
+        int firstGhost = lowerBound(ghosts, ranges[p]);
+        int lastGhost = lowerBound(ghosts, ranges[p + 1]);
+        int copiesCount = ints[0];
+
+        if (copiesCount != boundaryNodes[p].length
+            || doubles.length != cutSlots[p].length
+            || ints.length != 1 + copiesCount + doubles.length
+            || longs.length != (lastGhost - firstGhost) * words)
+        {
+            throw new IllegalStateException(String.format(
+                "The boundary sent by partition %d doesn't match the one of partition %d.",
+                p,
+                index
+            ));
+        }
+
+        copyIndices[p] = Arrays.copyOfRange(ints, 1, 1 + copiesCount);
+        System.arraycopy(longs, 0, DV0, (ownedCount + firstGhost) * words, longs.length);
+
+        for (int i = 0; i < doubles.length; i++) {
+            int s = cutSlots[p][i];
+            remoteSlots[s] = ints[1 + copiesCount + i];
+            remoteW0[s] = doubles[i];
+        }
+
+        boundariesCount++;
+    }
+
+    /**
+     * Returns the partition once the boundaries of all the other partitions were applied, its weights w being
+     * revised with the Dv_0 of the ghosts.
+     */
+    public Partition toPartition() {
+        int partitionsCount = ranges.length - 1;
+
+        if (boundariesCount != partitionsCount - 1) {
+            throw new IllegalStateException(String.format(
+                "Partition %d received %d of the %d boundaries.",
+                index,
+                boundariesCount,
+                partitionsCount - 1
+            ));
+        }
+
+        double[] W = Preprocessing.reviseWeights(graph, W0, DV0);
+
+        // The copies of each boundary node are listed by partition.
+        int[] mirrorOffsets = new int[ownedCount + 1];
+
+        for (int q = 0; q < partitionsCount; q++) {
+            for (int v : boundaryNodes[q]) {
+                mirrorOffsets[v + 1]++;
+            }
+        }
+
+        for (int v = 0; v < ownedCount; v++) {
+            mirrorOffsets[v + 1] += mirrorOffsets[v];
+        }
+
+        int[] mirrorPartitions = new int[mirrorOffsets[ownedCount]];
+        int[] mirrorIndices = new int[mirrorOffsets[ownedCount]];
+        int[] positions = Arrays.copyOf(mirrorOffsets, ownedCount);
+
+        for (int q = 0; q < partitionsCount; q++) {
+            for (int i = 0; i < boundaryNodes[q].length; i++) {
+                int v = boundaryNodes[q][i];
+                mirrorPartitions[positions[v]] = q;
+                mirrorIndices[positions[v]] = copyIndices[q][i];
+                positions[v]++;
+            }
+        }
+
+        int[] globalIds = new int[ownedCount + ghosts.length];
+
+        for (int v = 0; v < ownedCount; v++) {
+            globalIds[v] = ranges[index] + v;
+        }
+
+        System.arraycopy(ghosts, 0, globalIds, ownedCount, ghosts.length);
+
+        return new Partition(
+            index,
+            ownedCount,
+            globalIds,
+            graph,
+            new Preprocessing(W0, DV0, W),
+            remoteW0,
+            remoteSlots,
+            ghostOwners,
+            mirrorOffsets,
+            mirrorPartitions,
+            mirrorIndices
+        );
+    }
+
+    /**
+     * Returns the position of the first value of a sorted array which is greater than or equal to value.
+     */
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (sorted[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Reads the edge list as EdgeListReader does, registering the nodes and the dimensions in the order of their
+     * first appearance.
+     */
+    private void scan(EdgeVisitor visitor) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(new FileInputStream(edgesFile), "UTF-8"));
+        Pattern columnsPattern = Pattern.compile(Pattern.quote(columnsSeparator));
+        Pattern dimensionsPattern = Pattern.compile(dimensionsSeparator);
+        int lineNumber = 0;
+
+        nodeIndices.clear();
+        nodeIds.clear();
+        dimensionIds.clear();
+        dimensionNames.clear();
+
+        try {
+            String line;
+
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+
+                if (line.isEmpty())
+                    continue;
+
+                String[] columns = columnsPattern.split(line);
+
+                if (lineNumber == 1 && columns[0].equalsIgnoreCase("Source"))
+                    continue;
+
+                if (columns.length < 3) {
+                    throw new IOException(String.format(
+                        "Line %d: expected Source%sTarget%sLabel, found '%s'",
+                        lineNumber,
+                        columnsSeparator,
+                        columnsSeparator,
+                        line
+                    ));
+                }
+
+                int source = addNode(columns[0].trim());
+                int target = addNode(columns[1].trim());
+                BitSet Dvu = new BitSet();
+
+                for (String dimension : dimensionsPattern.split(columns[2].trim())) {
+                    Dvu.set(addDimension(dimension));
+                }
+
+                if (source != target)
+                    visitor.visit(source, target, Dvu);
+            }
+        }
+        finally {
+            lines.close();
+        }
+    }
+
+    private int addNode(String id) {
+        Integer index = nodeIndices.get(id);
+
+        if (index == null) {
+            index = nodeIds.size();
+            nodeIndices.put(id, index);
+            nodeIds.add(id);
+        }
+
+        return index;
+    }
+
+    private int addDimension(String dimension) {
+        Integer dimensionId = dimensionIds.get(dimension);
+
+        if (dimensionId == null) {
+            dimensionId = dimensionNames.size();
+            dimensionIds.put(dimension, dimensionId);
+            dimensionNames.add(dimension);
+        }
+
+        return dimensionId;
+    }
+
+    private int getSignatureId(BitSet Dvu) {
+        Integer signature = signatureIds.get(Dvu);
+
+        if (signature == null) {
+            signature = signatures.size();
+            signatureIds.put(Dvu, signature);
+            signatures.add(Dvu);
+        }
+
+        return signature;
+    }
+
+    /**
+     * Counts the slots of each node, repeated pairs included.
+     */
+    private static class DegreeCounter implements EdgeVisitor {
+        int[] degrees = new int[16];
+
+        @Override
+        public void visit(int source, int target, BitSet Dvu) {
+            int last = Math.max(source, target);
+
+            if (last >= degrees.length)
+                degrees = Arrays.copyOf(degrees, Math.max(degrees.length * 2, last + 1));
+
+            degrees[source]++;
+            degrees[target]++;
+        }
+    }
+
+    /**
+     * Collects the slots of the rows of the nodes of [start, end), each one packed as (global neighbor, signature)
+     * so that rows can be sorted in place.
+     */
+    private class RowCollector implements EdgeVisitor {
+        final int start;
+        final int end;
+        int[] nodes = new int[16];
+        long[] slots = new long[16];
+        int count = 0;
+
+        RowCollector(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void visit(int source, int target, BitSet Dvu) {
+            boolean isSourceOwned = source >= start && source < end;
+            boolean isTargetOwned = target >= start && target < end;
+
+            if (!isSourceOwned && !isTargetOwned)
+                return;
+
+            int signature = getSignatureId(Dvu);
+
+            if (count + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+
+            if (isSourceOwned) {
+                nodes[count] = source - start;
+                slots[count++] = ((long)target << 32) | signature;
+            }
+
+            if (isTargetOwned) {
+                nodes[count] = target - start;
+                slots[count++] = ((long)source << 32) | signature;
+            }
+        }
+    }
+
+    /**
+     * Encodes the edge list and its separators, so that a worker can load its partition on its own.
+     */
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeUTF(edgesFile.getAbsolutePath());
+        output.writeUTF(columnsSeparator);
+        output.writeUTF(dimensionsSeparator);
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    public static PartitionLoader fromBytes(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        return new PartitionLoader(new File(input.readUTF()), input.readUTF(), input.readUTF());
+    }
+}
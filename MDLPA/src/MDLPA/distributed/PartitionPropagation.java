@@ -0,0 +1,202 @@
+package MDLPA.distributed;
+
+import MDLPA.engine.LabelPropagation;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Runs the MDLPA[1] propagation over the owned nodes of a partition while the ghost nodes are frozen between two
+ * supersteps. Changes that have to be seen by the other partitions are recorded during the superstep:
+ * - the label and Dv of the owned boundary nodes that changed,
+ * - the w(u,v) revisions made by the owned nodes v on their ghost neighbors u.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class PartitionPropagation extends LabelPropagation {
+    private final Partition partition;
+    private final int partitionsCount;
+
+    // Owned nodes having at least one ghost neighbor.
+    private final boolean[] isBoundary;
+
+    // Owned boundary nodes whose label or Dv changed since the last exchange.
+    private final boolean[] isDirty;
+    private int[] dirtyNodes = new int[16];
+    private int dirtyCount = 0;
+
+    // Pending w revisions for each partition: slot in the target partition and new weight.
+    private final int[][] revisionSlots;
+    private final double[][] revisionWeights;
+    private final int[] revisionsCount;
+
+    public PartitionPropagation(Partition partition, int partitionsCount, Random randomizer) {
+        super(
+            partition.getGraph(),
+            partition.getPreprocessing(),
+            partition.getOwnedCount(),
+            partition.getGlobalIds(),
+            randomizer
+        );
+
+        this.partition = partition;
+        this.partitionsCount = partitionsCount;
+        this.isDirty = new boolean[partition.getOwnedCount()];
+        this.revisionSlots = new int[partitionsCount][16];
+        this.revisionWeights = new double[partitionsCount][16];
+        this.revisionsCount = new int[partitionsCount];
+
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int ownedCount = partition.getOwnedCount();
+        this.isBoundary = new boolean[ownedCount];
+
+        for (int v = 0; v < ownedCount; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (neighbors[s] >= ownedCount)
+                    isBoundary[v] = true;
+            }
+        }
+    }
+
+    /**
+     * Boundary nodes only get updated at half of the supersteps, randomly. Since the ghosts are frozen during a
+     * superstep, two adjacent boundary nodes of different partitions would otherwise be able to swap their labels
+     * forever.
+     */
+    @Override
+    protected boolean updateNode(int v) {
+        if (isBoundary[v] && randomizer.nextBoolean())
+            return false;
+
+        return super.updateNode(v);
+    }
+
+    @Override
+    protected void onNodeUpdated(int v, boolean labelChanged, boolean dimensionsChanged) {
+        if (!labelChanged && !dimensionsChanged)
+            return;
+
+        int[] mirrorOffsets = partition.getMirrorOffsets();
+
+        if (isDirty[v] || mirrorOffsets[v] == mirrorOffsets[v + 1])
+            return;
+
+        isDirty[v] = true;
+
+        if (dirtyCount == dirtyNodes.length)
+            dirtyNodes = Arrays.copyOf(dirtyNodes, dirtyCount * 2);
+
+        dirtyNodes[dirtyCount++] = v;
+    }
+
+    @Override
+    protected void reviseRemoteWeight(int v, int s, double distance) {
+        int u = graph.getNeighbors()[s];
+        int q = partition.getGhostOwners()[u - partition.getOwnedCount()];
+        int count = revisionsCount[q];
+
+        if (count == revisionSlots[q].length) {
+            revisionSlots[q] = Arrays.copyOf(revisionSlots[q], count * 2);
+            revisionWeights[q] = Arrays.copyOf(revisionWeights[q], count * 2);
+        }
+
+        revisionSlots[q][count] = partition.getRemoteSlots()[s];
+        revisionWeights[q][count] = partition.getRemoteW0()[s] * distance;
+        revisionsCount[q]++;
+    }
+
+    /**
+     * Packs the changes recorded since the last exchange into one UPDATES message per partition and resets them.
+     * ints = {labels count, (ghost index, label) for each label, target slot for each revision},
+     * longs = Dv of each label, doubles = weight of each revision.
+     */
+    public Message[] collectUpdates() {
+        int index = partition.getIndex();
+        int[] mirrorOffsets = partition.getMirrorOffsets();
+        int[] mirrorPartitions = partition.getMirrorPartitions();
+        int[] mirrorIndices = partition.getMirrorIndices();
+
+        int[] labelsCount = new int[partitionsCount];
+
+        for (int i = 0; i < dirtyCount; i++) {
+            int v = dirtyNodes[i];
+
+            for (int m = mirrorOffsets[v]; m < mirrorOffsets[v + 1]; m++) {
+                labelsCount[mirrorPartitions[m]]++;
+            }
+        }
+
+        int[][] ints = new int[partitionsCount][];
+        long[][] longs = new long[partitionsCount][];
+        int[] positions = new int[partitionsCount];
+
+        for (int q = 0; q < partitionsCount; q++) {
+            ints[q] = new int[1 + 2 * labelsCount[q] + revisionsCount[q]];
+            longs[q] = new long[labelsCount[q] * words];
+            ints[q][0] = labelsCount[q];
+        }
+
+        for (int i = 0; i < dirtyCount; i++) {
+            int v = dirtyNodes[i];
+
+            for (int m = mirrorOffsets[v]; m < mirrorOffsets[v + 1]; m++) {
+                int q = mirrorPartitions[m];
+                int position = positions[q]++;
+
+                ints[q][1 + 2 * position] = mirrorIndices[m];
+                ints[q][2 + 2 * position] = labels[v];
+                System.arraycopy(DV, v * words, longs[q], position * words, words);
+            }
+
+            isDirty[v] = false;
+        }
+
+        dirtyCount = 0;
+
+        Message[] updates = new Message[partitionsCount - 1];
+        int count = 0;
+
+        for (int q = 0; q < partitionsCount; q++) {
+            if (q == index)
+                continue;
+
+            System.arraycopy(revisionSlots[q], 0, ints[q], 1 + 2 * labelsCount[q], revisionsCount[q]);
+
+            updates[count++] = new Message(
+                Message.UPDATES,
+                index,
+                q,
+                ints[q],
+                longs[q],
+                Arrays.copyOf(revisionWeights[q], revisionsCount[q]),
+                null
+            );
+
+            revisionsCount[q] = 0;
+        }
+
+        return updates;
+    }
+
+    /**
+     * Applies the changes made by another partition on the ghosts and on the w of the owned nodes.
+     */
+    public void applyUpdates(Message updates) {
+        int[] ints = updates.getInts();
+        long[] longs = updates.getLongs();
+        double[] doubles = updates.getDoubles();
+        int labelsCount = ints[0];
+
+        for (int i = 0; i < labelsCount; i++) {
+            int u = ints[1 + 2 * i];
+            labels[u] = ints[2 + 2 * i];
+            System.arraycopy(longs, i * words, DV, u * words, words);
+        }
+
+        for (int i = 0; i < doubles.length; i++) {
+            W[ints[1 + 2 * labelsCount + i]] = doubles[i];
+        }
+    }
+}
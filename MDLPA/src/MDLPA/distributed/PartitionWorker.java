@@ -0,0 +1,170 @@
+package MDLPA.distributed;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Processes one partition of a distributed MDLPA[1] run on behalf of the coordinator.
+ * Can be run as a thread of the coordinator's process or as a separate process through main().
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class PartitionWorker implements Runnable {
+    private final Transport transport;
+    private final String address;
+
+    public PartitionWorker(Transport transport, String address) {
+        this.transport = transport;
+        this.address = address;
+    }
+
+    @Override
+    public void run() {
+        try {
+            serve();
+        }
+        catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Connects to the coordinator and answers its requests until the run is finished.
+     */
+    public void serve() throws IOException {
+        Channel channel = transport.connect(address);
+        int index = -1;
+
+        try {
+            Message setup = channel.receive();
+            Partition partition;
+            int partitionsCount;
+            long seed = setup.getLongs()[0];
+
+            index = setup.getTarget();
+
+            if (setup.getType() == Message.LOAD) {
+                partitionsCount = setup.getInts().length - 1;
+                partition = load(channel, setup);
+            }
+            else {
+                partitionsCount = setup.getInts()[0];
+                partition = Partition.fromBytes(setup.getBlob());
+            }
+
+            PartitionPropagation propagation = new PartitionPropagation(
+                partition,
+                partitionsCount,
+                new Random(seed + index)
+            );
+
+            int changes = 0;
+
+            while (true) {
+                Message message = channel.receive();
+
+                switch (message.getType()) {
+                    case Message.STEP:
+                        changes = propagation.runCycle();
+
+                        for (Message updates : propagation.collectUpdates()) {
+                            channel.send(updates);
+                        }
+                        break;
+
+                    case Message.UPDATES:
+                        propagation.applyUpdates(message);
+                        break;
+
+                    case Message.VOTE_REQUEST:
+                        boolean converged = propagation.checkConvergence();
+                        channel.send(new Message(
+                            Message.VOTE,
+                            index,
+                            -1,
+                            new int[] { converged ? 1 : 0, changes },
+                            null,
+                            null,
+                            null
+                        ));
+                        break;
+
+                    case Message.FINISH:
+                        int ownedCount = partition.getOwnedCount();
+                        int words = partition.getGraph().getMaskWords();
+
+                        channel.send(new Message(
+                            Message.RESULT,
+                            index,
+                            -1,
+                            Arrays.copyOf(propagation.getLabels(), ownedCount),
+                            Arrays.copyOf(propagation.getDV(), ownedCount * words),
+                            null,
+                            null
+                        ));
+                        return;
+
+                    default:
+                        throw new IllegalStateException("Unexpected message type " + message.getType());
+                }
+            }
+        }
+        catch (RuntimeException ex) {
+            StringWriter description = new StringWriter();
+            ex.printStackTrace(new PrintWriter(description));
+
+            channel.send(new Message(Message.ERROR, index, -1, null, null, null, description.toString().getBytes("UTF-8")));
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the partition from the edge list and exchanges its boundary with the other workers, see PartitionLoader.
+     */
+    private static Partition load(Channel channel, Message setup) throws IOException {
+        PartitionLoader loader = PartitionLoader.fromBytes(setup.getBlob());
+        int[] ranges = setup.getInts();
+
+        try {
+            loader.load(setup.getTarget(), ranges);
+        }
+        catch (IOException ex) {
+            // Reported to the coordinator, which would otherwise wait for the boundaries.
+            throw new IllegalStateException("Failed to read the partition from the edge list.", ex);
+        }
+
+        for (Message boundary : loader.collectBoundary()) {
+            channel.send(boundary);
+        }
+
+        for (int i = 0; i < ranges.length - 2; i++) {
+            Message boundary = channel.receive();
+
+            if (boundary.getType() != Message.BOUNDARY)
+                throw new IllegalStateException("Unexpected message type " + boundary.getType());
+
+            loader.applyBoundary(boundary);
+        }
+
+        return loader.toPartition();
+    }
+
+    /**
+     * Entry point of the worker processes: java MDLPA.distributed.PartitionWorker host:port
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PartitionWorker <coordinator host:port>");
+            System.exit(2);
+        }
+
+        new PartitionWorker(new SocketTransport(), args[0]).serve();
+    }
+}
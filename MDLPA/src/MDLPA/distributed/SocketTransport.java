@@ -0,0 +1,97 @@
+package MDLPA.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Transport over local TCP sockets. Workers may run in separate processes of the same machine.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class SocketTransport implements Transport {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ServerSocket serverSocket = null;
+
+    @Override
+    public String bind() throws IOException {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        serverSocket = new ServerSocket(0, 50, loopback);
+
+        return loopback.getHostAddress() + ":" + serverSocket.getLocalPort();
+    }
+
+    @Override
+    public Channel accept(long timeoutMillis) throws IOException {
+        serverSocket.setSoTimeout((int)Math.max(1, Math.min(timeoutMillis, Integer.MAX_VALUE)));
+
+        try {
+            return new StreamChannel(serverSocket.accept());
+        }
+        catch (SocketTimeoutException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public Channel connect(String address) throws IOException {
+        int separator = address.lastIndexOf(':');
+        String host = address.substring(0, separator);
+        int port = Integer.parseInt(address.substring(separator + 1));
+
+        return new StreamChannel(new Socket(host, port));
+    }
+
+    @Override
+    public boolean supportsWorkerProcesses() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null)
+            serverSocket.close();
+    }
+
+    /**
+     * Encodes the messages on the buffered streams of a socket.
+     */
+    private static class StreamChannel implements Channel {
+        private final Socket socket;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        StreamChannel(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+
+            this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+        }
+
+        @Override
+        public synchronized void send(Message message) throws IOException {
+            message.writeTo(output);
+            output.flush();
+        }
+
+        @Override
+        public Message receive() throws IOException {
+            return Message.readFrom(input);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
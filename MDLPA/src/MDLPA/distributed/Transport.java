@@ -0,0 +1,37 @@
+package MDLPA.distributed;
+
+import java.io.IOException;
+
+/**
+ * Pluggable communication layer of a distributed MDLPA[1] run.
+ * The coordinator binds an endpoint and accepts one channel per partition worker; workers connect to the address
+ * returned by bind().
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public interface Transport {
+    /**
+     * Opens the coordinator endpoint and returns the address workers should connect to.
+     */
+    String bind() throws IOException;
+
+    /**
+     * Coordinator side: blocks until a worker connects or timeoutMillis milliseconds elapse.
+     * @return the channel of the worker, null if none connected in time.
+     */
+    Channel accept(long timeoutMillis) throws IOException;
+
+    /**
+     * Worker side: connects to the coordinator endpoint.
+     */
+    Channel connect(String address) throws IOException;
+
+    /**
+     * Whether workers running in other processes are able to connect to the endpoint.
+     */
+    boolean supportsWorkerProcesses();
+
+    void close() throws IOException;
+}
@@ -0,0 +1,260 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.FormattingUtils;
+import MDLPA.helpers.MaskUtils;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the clusters Ck = (Vk, Dk) detected by MDLPA[1] on a MultidimensionalGraph.
+ * Clusters are numbered from 0 in the order in which they are first met while going over the nodes by index.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class ClusteringResult {
+    private final MultidimensionalGraph graph;
+
+    // Index of the cluster of each node.
+    private final int[] memberships;
+
+    // Relevant dimensions Dk of each cluster, packed on maskWords words.
+    private final long[] clusterDimensions;
+
+    private final int clustersCount;
+    private final int cycles;
+    private final boolean converged;
+
+    public ClusteringResult(
+        MultidimensionalGraph graph,
+        int[] memberships,
+        long[] clusterDimensions,
+        int clustersCount,
+        int cycles,
+        boolean converged
+    )
+    {
+        this.graph = graph;
+        this.memberships = memberships;
+        this.clusterDimensions = clusterDimensions;
+        this.clustersCount = clustersCount;
+        this.cycles = cycles;
+        this.converged = converged;
+    }
+
+    /**
+     * Regroups the nodes into K clusters based on their labels lv. The relevant dimensions Dk of each cluster
+     * are the union of the relevant dimensions Dv of its members.
+     */
+    public static ClusteringResult create(MultidimensionalGraph graph, int[] labels, long[] DV, int cycles, boolean converged) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int[] memberships = new int[n];
+        Map<Integer, Integer> clusterIndices = new HashMap<Integer, Integer>();
+
+        for (int v = 0; v < n; v++) {
+            Integer k = clusterIndices.get(labels[v]);
+
+            if (k == null) {
+                k = clusterIndices.size();
+                clusterIndices.put(labels[v], k);
+            }
+
+            memberships[v] = k;
+        }
+
+        long[] clusterDimensions = new long[clusterIndices.size() * words];
+
+        // Taking the union of the relevant dimensions Dv of all members v in Vk
+        for (int v = 0; v < n; v++) {
+            MaskUtils.or(clusterDimensions, memberships[v] * words, DV, v * words, words);
+        }
+
+        return new ClusteringResult(graph, memberships, clusterDimensions, clusterIndices.size(), cycles, converged);
+    }
+
+    public MultidimensionalGraph getGraph() {
+        return graph;
+    }
+
+    public int[] getMemberships() {
+        return memberships;
+    }
+
+    public int getClusterOf(int v) {
+        return memberships[v];
+    }
+
+    public int getClustersCount() {
+        return clustersCount;
+    }
+
+    public long[] getClusterDimensions() {
+        return clusterDimensions;
+    }
+
+    /**
+     * Number of propagation cycles (or supersteps) that were run.
+     */
+    public int getCycles() {
+        return cycles;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Returns the nodes Vk of each cluster.
+     */
+    public int[][] getClusterNodes() {
+        int[] sizes = new int[clustersCount];
+
+        for (int v = 0; v < memberships.length; v++) {
+            sizes[memberships[v]]++;
+        }
+
+        int[][] clusters = new int[clustersCount][];
+
+        for (int k = 0; k < clustersCount; k++) {
+            clusters[k] = new int[sizes[k]];
+            sizes[k] = 0;
+        }
+
+        for (int v = 0; v < memberships.length; v++) {
+            int k = memberships[v];
+            clusters[k][sizes[k]++] = v;
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Returns the names of the relevant dimensions Dk of a cluster.
+     */
+    public List<String> getRelevantDimensions(int k) {
+        return graph.getDimensionNames(clusterDimensions, k * graph.getMaskWords());
+    }
+
+    /**
+     * Writes the list of memberships in the following format:
+     * node_i:Cluster_j where (node_i:) is represented by the index of the row and wont be displayed.
+     * Nodes are sorted by id and clusters are numbered from 1.
+     * This format was adopted to allow compatibility with other implementations in MATLAB which generate similar clustering results.
+     */
+    public void writeMemberships(Writer writer) throws IOException {
+        for (int v : getNodesSortedById()) {
+            writer
+                .append(Integer.toString(memberships[v] + 1))
+                .append("\n");
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Writes the list of clusters and their relevant dimensions in the following format:
+     * clusters = {[v1, .., vi], ..., [vj, ..., vn]};
+     * relevantDimensions = {[d1, .., dk], ..., [d2, .., do]};
+     */
+    public void writeClustersAndRelevantDimensions(Writer writer) throws IOException {
+        StringBuilder clusterGroupsBuilder = new StringBuilder();
+        StringBuilder clusterRelevantDimensionsBuilder = new StringBuilder();
+        int[][] clusters = getClusterNodes();
+
+        for (int k = 0; k < clustersCount; k++) {
+            List<String> Vk = new ArrayList<String>();
+
+            for (int v : clusters[k]) {
+                Vk.add(graph.getNodeId(v));
+            }
+
+            clusterGroupsBuilder
+                .append("[")
+                .append(FormattingUtils.getCommaSeperatedRepresentation(Vk))
+                .append("],");
+
+            clusterRelevantDimensionsBuilder
+                .append("[")
+                .append(FormattingUtils.getCommaSeperatedRepresentation(getRelevantDimensions(k)))
+                .append("],");
+        }
+
+        writer
+            .append("clusters = {")
+            .append(trimLastComma(clusterGroupsBuilder))
+            .append("};\n")
+            .append("relevantDimensions = {")
+            .append(trimLastComma(clusterRelevantDimensionsBuilder))
+            .append("};\n");
+
+        writer.flush();
+    }
+
+    /**
+     * Returns the node indices sorted by the numerical value of their ids when possible, lexicographically otherwise.
+     */
+    public Integer[] getNodesSortedById() {
+        return sortById(graph.getNodeIds());
+    }
+
+    static Integer[] sortById(final String[] nodeIds) {
+        Integer[] sorted = new Integer[nodeIds.length];
+
+        for (int v = 0; v < sorted.length; v++) {
+            sorted[v] = v;
+        }
+
+        // The ids are parsed once rather than on each comparison, with the same order as compareIds.
+        final long[] indices = new long[nodeIds.length];
+        final boolean[] isNumerical = new boolean[nodeIds.length];
+
+        for (int v = 0; v < nodeIds.length; v++) {
+            try {
+                indices[v] = Long.parseLong(nodeIds[v]);
+                isNumerical[v] = true;
+            }
+            catch (NumberFormatException ex) {
+                isNumerical[v] = false;
+            }
+        }
+
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer v1, Integer v2) {
+                if (!isNumerical[v1] || !isNumerical[v2])
+                    return nodeIds[v1].compareTo(nodeIds[v2]);
+
+                return indices[v1] < indices[v2] ? -1 : (indices[v1] == indices[v2] ? 0 : 1);
+            }
+        });
+
+        return sorted;
+    }
+
+    static int compareIds(String id1, String id2) {
+        try {
+            long index1 = Long.parseLong(id1);
+            long index2 = Long.parseLong(id2);
+
+            return index1 < index2 ? -1 : (index1 == index2 ? 0 : 1);
+        }
+        catch (NumberFormatException ex) {
+            return id1.compareTo(id2);
+        }
+    }
+
+    private static String trimLastComma(StringBuilder builder) {
+        if (builder.length() == 0)
+            return "";
+
+        return builder.substring(0, builder.length() - 1);
+    }
+}
@@ -0,0 +1,397 @@
+package MDLPA.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed, read-only form of a MultidimensionalGraph along with its MDLPA[1] initialization, for networks whose
+ * CSR arrays and per-slot weights don't fit in memory.
+ * Each row is encoded as a sequence of varints (7 bits per byte, the high bit set on all bytes but the last):
+ * - the degree of the node and the size of its signature dictionary, i.e. the distinct signatures Dvu of the row,
+ * - the signature ids of the dictionary, sorted and gap-coded,
+ * - for each slot, the gap from the previous neighbor (the first one relative to the node, zigzag-coded) followed by
+ *   the position of its signature in the dictionary, omitted when the dictionary has a single entry.
+ * Rows are packed into pages of PAGE_SIZE bytes and located through an index holding the page and position of each row.
+ *
+ * The initial weights w0(v,u) only depend on the node v and the signature Dvu, so they are stored once per dictionary
+ * entry. The revised weights w(v,u) = w0(v,u) * J(Du, Dvu) are not stored at all: propagations recompute them from
+ * the relevant dimensions of the neighbors while decoding the rows, see CompressedLabelPropagation.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class CompressedGraph {
+    // Rows are never split over two pages, rows larger than a page get their own page.
+    static final int PAGE_SIZE = 1 << 26;
+
+    private final String[] nodeIds;
+    private final String[] dimensionNames;
+    private final long[] signatures;
+    private final int maskWords;
+    private final int slotsCount;
+
+    private final byte[][] pages;
+
+    // Page (high 32 bits) and position (low 32 bits) of the encoded row of each node.
+    private final long[] rowPositions;
+
+    // The dictionary entries of row v are numbered from entryOffsets[v].
+    private final int[] entryOffsets;
+
+    // w0 of each dictionary entry.
+    private final double[] entryW0;
+
+    // Dv_0 of each node, packed on maskWords words.
+    private final long[] DV0;
+
+    private CompressedGraph(
+        String[] nodeIds,
+        String[] dimensionNames,
+        long[] signatures,
+        int maskWords,
+        int slotsCount,
+        byte[][] pages,
+        long[] rowPositions,
+        int[] entryOffsets,
+        double[] entryW0,
+        long[] DV0
+    )
+    {
+        this.nodeIds = nodeIds;
+        this.dimensionNames = dimensionNames;
+        this.signatures = signatures;
+        this.maskWords = maskWords;
+        this.slotsCount = slotsCount;
+        this.pages = pages;
+        this.rowPositions = rowPositions;
+        this.entryOffsets = entryOffsets;
+        this.entryW0 = entryW0;
+        this.DV0 = DV0;
+    }
+
+    /**
+     * Encodes a network and its initialization. Neither of them is referenced by the compressed graph, so they can be
+     * released once it is built.
+     */
+    public static CompressedGraph compress(MultidimensionalGraph graph, Preprocessing preprocessing) {
+        int n = graph.getNodesCount();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        double[] W0 = preprocessing.getW0();
+
+        List<byte[]> pages = new ArrayList<byte[]>();
+        long[] rowPositions = new long[n];
+        int[] entryOffsets = new int[n + 1];
+        double[] entryW0 = new double[16];
+
+        RowEncoder encoder = new RowEncoder();
+        int[] dictionary = new int[16];
+        int[] codes = new int[graph.getSignaturesCount()];
+        byte[] page = new byte[PAGE_SIZE];
+        int position = 0;
+
+        for (int v = 0; v < n; v++) {
+            int from = offsets[v];
+            int to = offsets[v + 1];
+
+            if (dictionary.length < to - from)
+                dictionary = new int[to - from];
+
+            // Distinct signatures of the row, sorted.
+            int k = 0;
+
+            for (int s = from; s < to; s++) {
+                dictionary[k++] = slotSignatures[s];
+            }
+
+            Arrays.sort(dictionary, 0, k);
+            k = unique(dictionary, k);
+
+            entryOffsets[v + 1] = entryOffsets[v] + k;
+
+            if (entryW0.length < entryOffsets[v + 1])
+                entryW0 = Arrays.copyOf(entryW0, Math.max(entryOffsets[v + 1], entryW0.length * 2));
+
+            encoder.clear();
+            encoder.write(to - from);
+            encoder.write(k);
+
+            for (int i = 0; i < k; i++) {
+                encoder.write(i == 0 ? dictionary[0] : dictionary[i] - dictionary[i - 1]);
+                codes[dictionary[i]] = i;
+                entryW0[entryOffsets[v] + i] = Double.NaN;
+            }
+
+            for (int s = from; s < to; s++) {
+                int u = neighbors[s];
+                int code = codes[slotSignatures[s]];
+                int entry = entryOffsets[v] + code;
+
+                encoder.write(s == from ? zigzag(u - v) : u - neighbors[s - 1] - 1);
+
+                if (k > 1)
+                    encoder.write(code);
+
+                if (Double.isNaN(entryW0[entry]))
+                    entryW0[entry] = W0[s];
+                else if (entryW0[entry] != W0[s])
+                    throw new IllegalArgumentException("The initial weights of node " + graph.getNodeId(v) + " differ between slots of the same signature.");
+            }
+
+            if (position + encoder.size() > page.length) {
+                pages.add(Arrays.copyOf(page, position));
+                page = new byte[Math.max(PAGE_SIZE, encoder.size())];
+                position = 0;
+            }
+
+            rowPositions[v] = ((long)pages.size() << 32) | position;
+            position = encoder.copyTo(page, position);
+        }
+
+        pages.add(Arrays.copyOf(page, position));
+
+        return new CompressedGraph(
+            graph.getNodeIds(),
+            graph.getDimensionNames(),
+            graph.getSignatures(),
+            graph.getMaskWords(),
+            graph.getSlotsCount(),
+            pages.toArray(new byte[pages.size()][]),
+            rowPositions,
+            entryOffsets,
+            Arrays.copyOf(entryW0, entryOffsets[n]),
+            preprocessing.getDV0()
+        );
+    }
+
+    public int getNodesCount() {
+        return rowPositions.length;
+    }
+
+    /**
+     * Returns the number of undirected edges.
+     */
+    public int getEdgesCount() {
+        return slotsCount / 2;
+    }
+
+    public int getSlotsCount() {
+        return slotsCount;
+    }
+
+    public int getMaskWords() {
+        return maskWords;
+    }
+
+    public long[] getSignatures() {
+        return signatures;
+    }
+
+    public double[] getEntryW0() {
+        return entryW0;
+    }
+
+    public long[] getDV0() {
+        return DV0;
+    }
+
+    public String getNodeId(int v) {
+        return nodeIds[v];
+    }
+
+    /**
+     * Returns the nodes of the network without its edges, see MultidimensionalGraph.withoutEdges.
+     */
+    public MultidimensionalGraph getNodesGraph() {
+        return MultidimensionalGraph.withoutEdges(nodeIds, dimensionNames, maskWords);
+    }
+
+    /**
+     * Returns a new cursor over the rows. Cursors aren't thread-safe, each thread decodes rows with its own cursor.
+     */
+    public RowCursor newCursor() {
+        return new RowCursor();
+    }
+
+    /**
+     * Size of the encoded rows, in bytes.
+     */
+    public long getEncodedSize() {
+        long size = 0;
+
+        for (byte[] page : pages) {
+            size += page.length;
+        }
+
+        return size;
+    }
+
+    /**
+     * Rough estimation of the heap occupied by the structure, in bytes.
+     */
+    public long getEstimatedMemory() {
+        return getEncodedSize()
+            + 8L * rowPositions.length
+            + 4L * entryOffsets.length
+            + 8L * (entryW0.length + DV0.length + signatures.length)
+            + 64L * (nodeIds.length + dimensionNames.length);
+    }
+
+    /**
+     * Decodes the rows sequentially, slot by slot:
+     * cursor.seek(v);
+     * while (cursor.next()) { cursor.getNeighbor(); cursor.getSignature(); cursor.getEntry(); }
+     */
+    public class RowCursor {
+        private int[] dictionary = new int[16];
+        private byte[] page;
+        private int position;
+        private int v;
+        private int degree;
+        private int dictionarySize;
+        private int remaining;
+        private int neighbor;
+        private int code;
+
+        private RowCursor() {
+        }
+
+        /**
+         * Positions the cursor before the first slot of the row of v.
+         */
+        public void seek(int v) {
+            long rowPosition = rowPositions[v];
+
+            this.page = pages[(int)(rowPosition >>> 32)];
+            this.position = (int)rowPosition;
+            this.v = v;
+            this.degree = readVarint();
+            this.dictionarySize = readVarint();
+            this.remaining = degree;
+
+            if (dictionary.length < dictionarySize)
+                dictionary = new int[dictionarySize];
+
+            int signature = 0;
+
+            for (int i = 0; i < dictionarySize; i++) {
+                signature += readVarint();
+                dictionary[i] = signature;
+            }
+
+            code = 0;
+        }
+
+        /**
+         * Decodes the next slot of the row.
+         * @return false once the row is exhausted.
+         */
+        public boolean next() {
+            if (remaining == 0)
+                return false;
+
+            int gap = readVarint();
+
+            neighbor = remaining == degree ? v + unzigzag(gap) : neighbor + gap + 1;
+
+            if (dictionarySize > 1)
+                code = readVarint();
+
+            remaining--;
+
+            return true;
+        }
+
+        public int getDegree() {
+            return degree;
+        }
+
+        public int getNeighbor() {
+            return neighbor;
+        }
+
+        /**
+         * Returns the signature id of Dvu for the current slot.
+         */
+        public int getSignature() {
+            return dictionary[code];
+        }
+
+        /**
+         * Returns the dictionary entry of the current slot, which indexes getEntryW0.
+         */
+        public int getEntry() {
+            return entryOffsets[v] + code;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = page[position++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            return value;
+        }
+    }
+
+    private static int unique(int[] sorted, int length) {
+        int count = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i])
+                sorted[count++] = sorted[i];
+        }
+
+        return count;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable buffer in which a row is encoded before being copied to its page.
+     */
+    private static class RowEncoder {
+        private byte[] bytes = new byte[256];
+        private int size = 0;
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void write(int value) {
+            if (size + 5 > bytes.length)
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte)((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+
+            bytes[size++] = (byte)value;
+        }
+
+        int copyTo(byte[] page, int position) {
+            System.arraycopy(bytes, 0, page, position, size);
+
+            return position + size;
+        }
+    }
+}
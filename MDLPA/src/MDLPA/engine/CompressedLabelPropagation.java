@@ -0,0 +1,265 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.Random;
+
+/**
+ * Runs the propagation phase of MDLPA[1] on a CompressedGraph, decoding the rows sequentially at each visit.
+ * The attraction weight w(v,u) applied on v by a neighbor u is recomputed as w0(v,u) * J(Du, Dvu) while tallying the
+ * neighborhood of v, which is the value LabelPropagation keeps up to date on the slot of (v,u). Updating Dv thus costs
+ * no write on the rows of the neighbors, and the propagation holds no per-slot state.
+ * Nodes are visited and ties are broken as in LabelPropagation, so both give the same clusters for the same seed.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class CompressedLabelPropagation {
+    private final CompressedGraph graph;
+    private final CompressedGraph.RowCursor cursor;
+    private final Random randomizer;
+    private final double[] entryW0;
+    private final long[] signatures;
+    private final int words;
+
+    // Label lv of each node, initialized with the index of the node.
+    private final int[] labels;
+
+    // Relevant dimensions Dv of each node, packed on maskWords words.
+    private final long[] DV;
+
+    private final int[] order;
+
+    // Reusable buffers.
+    private final LabelWeights combinedClusterWeights = new LabelWeights();
+    private int[] dominantLabels = new int[16];
+    private final long[] DU;
+    private final long[] combinedDvu;
+
+    private int cycles = 0;
+    private boolean converged = false;
+    private volatile boolean isCancelled = false;
+
+    // Time (System.currentTimeMillis) after which no new cycle is started, Long.MAX_VALUE for none.
+    private long deadline = Long.MAX_VALUE;
+    private boolean deadlineReached = false;
+
+    public CompressedLabelPropagation(CompressedGraph graph, Random randomizer) {
+        int n = graph.getNodesCount();
+
+        this.graph = graph;
+        this.cursor = graph.newCursor();
+        this.randomizer = randomizer;
+        this.entryW0 = graph.getEntryW0();
+        this.signatures = graph.getSignatures();
+        this.words = graph.getMaskWords();
+        this.DV = graph.getDV0().clone();
+        this.labels = new int[n];
+        this.order = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            labels[v] = v;
+            order[v] = v;
+        }
+
+        this.DU = new long[words];
+        this.combinedDvu = new long[words];
+    }
+
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Stops the propagation at the first cycle boundary after the deadline (a System.currentTimeMillis time). The
+     * labels and relevant dimensions are then the ones of the last completed cycle, and the result isn't converged.
+     */
+    public void setDeadline(long value) {
+        this.deadline = value;
+    }
+
+    /**
+     * Sets the deadline millis milliseconds from now, see setDeadline.
+     */
+    public void setTimeBudget(long millis) {
+        setDeadline(System.currentTimeMillis() + millis);
+    }
+
+    /**
+     * Checks whether the deadline passed, in which case no new cycle should be started.
+     */
+    public boolean checkDeadline() {
+        if (!deadlineReached && System.currentTimeMillis() >= deadline)
+            deadlineReached = true;
+
+        return deadlineReached;
+    }
+
+    public boolean isDeadlineReached() {
+        return deadlineReached;
+    }
+
+    /**
+     * Runs propagation cycles until convergence, cancellation, the deadline or until maxCycles cycles were run.
+     * @return true if the propagation converged.
+     */
+    public boolean propagate(int maxCycles) {
+        while (!isCancelled && !checkDeadline() && !checkConvergence() && cycles < maxCycles) {
+            runCycle();
+        }
+
+        return converged;
+    }
+
+    /**
+     * Runs a single propagation cycle over the nodes in a random order.
+     * @return the number of nodes whose label changed.
+     */
+    public int runCycle() {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = randomizer.nextInt(i + 1);
+            int value = order[i];
+            order[i] = order[j];
+            order[j] = value;
+        }
+
+        int changes = 0;
+
+        for (int i = 0; i < order.length; i++) {
+            if (isCancelled)
+                break;
+
+            if (updateNode(order[i]))
+                changes++;
+        }
+
+        cycles++;
+
+        return changes;
+    }
+
+    /**
+     * Checks whether all nodes are currently bearing a dominant label according to the propagation rule of MDLPA.
+     */
+    public boolean checkConvergence() {
+        converged = true;
+
+        for (int v = 0; v < labels.length; v++) {
+            if (tallyCombinedClusterWeights(v) == 0)
+                continue;
+
+            if (combinedClusterWeights.get(labels[v]) != combinedClusterWeights.getMaxWeight()) {
+                converged = false;
+                break;
+            }
+        }
+
+        return converged;
+    }
+
+    private boolean updateNode(int v) {
+        if (tallyCombinedClusterWeights(v) == 0)
+            return false;
+
+        int newlv = getDominantCluster();
+        boolean labelChanged = labels[v] != newlv;
+
+        updateDv(v, newlv);
+        labels[v] = newlv;
+
+        return labelChanged;
+    }
+
+    /**
+     * Picks the cluster applying the highest combined weight in the last tally, randomly among ties.
+     */
+    private int getDominantCluster() {
+        double maxWeight = combinedClusterWeights.getMaxWeight();
+        int tiesCount = 0;
+
+        if (dominantLabels.length < combinedClusterWeights.size())
+            dominantLabels = new int[combinedClusterWeights.size()];
+
+        for (int i = 0; i < combinedClusterWeights.size(); i++) {
+            if (combinedClusterWeights.getWeight(i) == maxWeight)
+                dominantLabels[tiesCount++] = combinedClusterWeights.getLabel(i);
+        }
+
+        if (tiesCount == 1)
+            return dominantLabels[0];
+
+        return dominantLabels[randomizer.nextInt(tiesCount)];
+    }
+
+    /**
+     * Tallies the combined weights applied on v by its neighboring clusters.
+     * @return the degree of v.
+     */
+    private int tallyCombinedClusterWeights(int v) {
+        combinedClusterWeights.clear();
+        cursor.seek(v);
+
+        while (cursor.next()) {
+            int u = cursor.getNeighbor();
+            double distance;
+
+            if (words == 1) {
+                long Du = DV[u];
+                long Dvu = signatures[cursor.getSignature()];
+                int union = Long.bitCount(Du | Dvu);
+
+                distance = union == 0 ? 0 : Long.bitCount(Du & Dvu) / (double)union;
+            }
+            else {
+                distance = MaskUtils.getJaccardCoefficient(DV, u * words, signatures, cursor.getSignature() * words, words);
+            }
+
+            combinedClusterWeights.add(labels[u], entryW0[cursor.getEntry()] * distance);
+        }
+
+        return cursor.getDegree();
+    }
+
+    /**
+     * Updates Dv from the relevant dimensions of the neighbors belonging to the winning cluster and the dimensions
+     * connecting v to them.
+     */
+    private void updateDv(int v, int winningLabel) {
+        MaskUtils.clear(DU, 0, words);
+        MaskUtils.clear(combinedDvu, 0, words);
+        cursor.seek(v);
+
+        while (cursor.next()) {
+            int u = cursor.getNeighbor();
+
+            if (labels[u] != winningLabel)
+                continue;
+
+            MaskUtils.or(DU, 0, DV, u * words, words);
+            MaskUtils.or(combinedDvu, 0, signatures, cursor.getSignature() * words, words);
+        }
+
+        // Intersecting the two sets to filter out irrelevant dimensions possibly caught in the first propagation cycles.
+        MaskUtils.and(DU, 0, combinedDvu, 0, words);
+        MaskUtils.copy(DU, 0, DV, v * words, words);
+    }
+
+    /**
+     * Regroups the nodes into clusters based on their current labels.
+     */
+    public ClusteringResult getResult() {
+        return ClusteringResult.create(graph.getNodesGraph(), labels, DV, cycles, converged);
+    }
+}
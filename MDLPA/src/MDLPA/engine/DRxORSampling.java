@@ -0,0 +1,116 @@
+package MDLPA.engine;
+
+import java.util.Random;
+
+/**
+ * Settings and report of the approximate DRxOR of the initialization phase of MDLPA[1].
+ * The DRxOR of each connecting dimensions set of a node is the fraction of the distinct connecting dimensions sets of
+ * its neighborhood it contains, which costs a number of mask comparisons quadratic in the number of distinct sets.
+ * Above degreeThreshold, the fraction is estimated from a sample of the distinct sets instead, drawn systematically
+ * from the sets sorted by cardinality so that each cardinality (stratum) is represented in proportion.
+ * The sample size follows Hoeffding's bound: with probability confidence, each estimate is within errorBound of the
+ * exact DRxOR. The reported error of a node is Serfling's bound for its sample, which accounts for the sampling
+ * without replacement among the distinct sets and is never larger than errorBound.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class DRxORSampling {
+    private final int degreeThreshold;
+    private final double errorBound;
+    private final double confidence;
+    private final int sampleSize;
+    private final Random randomizer;
+
+    // Report of the last preprocessing.
+    private int approximatedNodesCount = 0;
+    private double maxEstimatedError = 0;
+
+    /**
+     * @param degreeThreshold: nodes of a higher degree get an approximate DRxOR.
+     * @param errorBound: maximum absolute error of the estimates (ex 0.05).
+     * @param confidence: probability that an estimate is within the error bound (ex 0.95).
+     */
+    public DRxORSampling(int degreeThreshold, double errorBound, double confidence, long seed) {
+        if (errorBound <= 0 || errorBound >= 1)
+            throw new IllegalArgumentException("The DRxOR error bound must be between 0 and 1.");
+
+        if (confidence <= 0 || confidence >= 1)
+            throw new IllegalArgumentException("The DRxOR confidence must be between 0 and 1.");
+
+        this.degreeThreshold = degreeThreshold;
+        this.errorBound = errorBound;
+        this.confidence = confidence;
+        this.sampleSize = (int)Math.ceil(Math.log(2 / (1 - confidence)) / (2 * errorBound * errorBound));
+        this.randomizer = new Random(seed);
+    }
+
+    public int getDegreeThreshold() {
+        return degreeThreshold;
+    }
+
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Number of distinct connecting dimensions sets each estimate is made from.
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public int getApproximatedNodesCount() {
+        return approximatedNodesCount;
+    }
+
+    /**
+     * Largest estimated error among the approximated nodes, 0 if none was approximated.
+     */
+    public double getMaxEstimatedError() {
+        return maxEstimatedError;
+    }
+
+    /**
+     * Checks whether a node with the given degree and number of distinct connecting dimensions sets is approximated.
+     * Neighborhoods with fewer distinct sets than the sample size are cheaper to compute exactly.
+     */
+    boolean isApproximated(int degree, int distinctCount) {
+        return degree > degreeThreshold && distinctCount > sampleSize;
+    }
+
+    /**
+     * Picks sampleSize sets out of distinctCount sets sorted by cardinality: one set at a random position within each
+     * of the sampleSize equal-width intervals of the sorted list.
+     */
+    int[] sample(int distinctCount, int[] positions) {
+        double step = distinctCount / (double)sampleSize;
+
+        for (int i = 0; i < sampleSize; i++) {
+            positions[i] = Math.min(distinctCount - 1, (int)(i * step + randomizer.nextDouble() * step));
+        }
+
+        return positions;
+    }
+
+    /**
+     * Records an approximated node along with the error bound of its estimates.
+     */
+    void reportApproximation(int distinctCount) {
+        double finitePopulationCorrection = 1 - (sampleSize - 1) / (double)distinctCount;
+        double error = Math.sqrt(finitePopulationCorrection * Math.log(2 / (1 - confidence)) / (2 * sampleSize));
+
+        approximatedNodesCount++;
+        maxEstimatedError = Math.max(maxEstimatedError, error);
+    }
+
+    void reset() {
+        approximatedNodesCount = 0;
+        maxEstimatedError = 0;
+    }
+}
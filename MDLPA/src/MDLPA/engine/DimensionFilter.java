@@ -0,0 +1,240 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restricts a MultidimensionalGraph to a subset of its dimensions (layers), so that MDLPA[1] can be run on the subset
+ * without reading the edge list again:
+ * - the connecting dimensions Dvu of each edge are intersected with the subset, edges left without dimensions are
+ *   dropped and the signatures which become equal are merged,
+ * - the view shares the node ids and dimension names of the network, so the results keep the same nodes (the ones
+ *   left without edges become singletons) and dimension names,
+ * - w0 and Dv_0 only depend on the row of a node, so they are copied from the initialization of the network for the
+ *   nodes whose row holds no signature changed by the filter, and computed again for the other ones.
+ * The network and its initialization are only read, several filters can be applied to them concurrently.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class DimensionFilter {
+    private final List<String> dimensionNames;
+
+    public DimensionFilter(Collection<String> dimensionNames) {
+        if (dimensionNames.isEmpty())
+            throw new IllegalArgumentException("The dimension filter is empty.");
+
+        this.dimensionNames = new ArrayList<String>(dimensionNames);
+    }
+
+    public List<String> getDimensionNames() {
+        return dimensionNames;
+    }
+
+    /**
+     * Returns the mask of the kept dimensions of a network.
+     */
+    public long[] getMask(MultidimensionalGraph graph) {
+        long[] mask = new long[graph.getMaskWords()];
+        String[] names = graph.getDimensionNames();
+
+        for (String name : dimensionNames) {
+            int dimension = -1;
+
+            for (int d = 0; d < names.length; d++) {
+                if (names[d].equals(name))
+                    dimension = d;
+            }
+
+            if (dimension < 0)
+                throw new IllegalArgumentException("Unknown dimension " + name);
+
+            MaskUtils.set(mask, 0, dimension);
+        }
+
+        return mask;
+    }
+
+    /**
+     * Returns the view of a network restricted to the kept dimensions, the network itself if no edge has a dimension
+     * outside of them.
+     */
+    public MultidimensionalGraph apply(MultidimensionalGraph graph) {
+        return new View(graph).graph;
+    }
+
+    /**
+     * Returns the view of a network restricted to the kept dimensions along with its initialization, reusing the
+     * initialization of the network for the nodes whose neighborhood isn't changed by the filter.
+     */
+    public PreprocessedGraph apply(PreprocessedGraph preprocessed) {
+        long start = System.currentTimeMillis();
+        View view = new View(preprocessed.getGraph());
+
+        if (view.graph == preprocessed.getGraph())
+            return preprocessed;
+
+        Preprocessing preprocessing = view.preprocess(preprocessed.getPreprocessing());
+
+        return new PreprocessedGraph(view.graph, preprocessing, 0, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Restricted network along with the correspondence between its signatures and the ones of the network.
+     */
+    private class View {
+        private final MultidimensionalGraph source;
+        private final MultidimensionalGraph graph;
+
+        // Signature of the view of each signature of the network, -1 if it holds none of the kept dimensions.
+        private final int[] signatureMap;
+
+        // Whether each signature of the network is changed by the filter (restricted or dropped).
+        private final boolean[] isChanged;
+
+        View(MultidimensionalGraph source) {
+            int words = source.getMaskWords();
+            long[] mask = getMask(source);
+            long[] signatures = source.getSignatures();
+            int signaturesCount = source.getSignaturesCount();
+
+            this.source = source;
+            this.signatureMap = new int[signaturesCount];
+            this.isChanged = new boolean[signaturesCount];
+
+            Map<BitSet, Integer> viewSignatureIds = new HashMap<BitSet, Integer>();
+            long[] viewSignatures = new long[signaturesCount * words];
+            long[] masked = new long[words];
+            boolean anyChanged = false;
+
+            for (int i = 0; i < signaturesCount; i++) {
+                MaskUtils.copy(signatures, i * words, masked, 0, words);
+                MaskUtils.and(masked, 0, mask, 0, words);
+                isChanged[i] = !MaskUtils.equals(masked, 0, signatures, i * words, words);
+                anyChanged |= isChanged[i];
+
+                if (MaskUtils.isEmpty(masked, 0, words)) {
+                    signatureMap[i] = -1;
+                    continue;
+                }
+
+                BitSet key = MaskUtils.toBitSet(masked, 0, words);
+                Integer id = viewSignatureIds.get(key);
+
+                if (id == null) {
+                    id = viewSignatureIds.size();
+                    viewSignatureIds.put(key, id);
+                    MaskUtils.copy(masked, 0, viewSignatures, id * words, words);
+                }
+
+                signatureMap[i] = id;
+            }
+
+            this.graph = anyChanged ? restrict(viewSignatures, viewSignatureIds.size()) : source;
+        }
+
+        /**
+         * Copies the slots whose signature holds kept dimensions, rows keep their order.
+         */
+        private MultidimensionalGraph restrict(long[] viewSignatures, int viewSignaturesCount) {
+            int n = source.getNodesCount();
+            int words = source.getMaskWords();
+            int[] offsets = source.getOffsets();
+            int[] neighbors = source.getNeighbors();
+            int[] reverseSlots = source.getReverseSlots();
+            int[] slotSignatures = source.getSlotSignatures();
+
+            // Slot of the view of each slot of the network, -1 if it's dropped.
+            int[] slotMap = new int[source.getSlotsCount()];
+            int[] viewOffsets = new int[n + 1];
+            int kept = 0;
+
+            for (int v = 0; v < n; v++) {
+                for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                    slotMap[s] = signatureMap[slotSignatures[s]] < 0 ? -1 : kept++;
+                }
+
+                viewOffsets[v + 1] = kept;
+            }
+
+            int[] viewNeighbors = new int[kept];
+            int[] viewReverseSlots = new int[kept];
+            int[] viewSlotSignatures = new int[kept];
+
+            for (int s = 0; s < slotMap.length; s++) {
+                int t = slotMap[s];
+
+                if (t < 0)
+                    continue;
+
+                viewNeighbors[t] = neighbors[s];
+                viewReverseSlots[t] = reverseSlots[s] < 0 ? -1 : slotMap[reverseSlots[s]];
+                viewSlotSignatures[t] = signatureMap[slotSignatures[s]];
+            }
+
+            long[] signatures = new long[viewSignaturesCount * words];
+            System.arraycopy(viewSignatures, 0, signatures, 0, signatures.length);
+
+            return new MultidimensionalGraph(
+                source.getNodeIds(),
+                source.getDimensionNames(),
+                viewOffsets,
+                viewNeighbors,
+                viewReverseSlots,
+                viewSlotSignatures,
+                signatures,
+                words
+            );
+        }
+
+        /**
+         * Initializes the view from the initialization of the network, see DimensionFilter.
+         */
+        Preprocessing preprocess(Preprocessing base) {
+            int n = graph.getNodesCount();
+            int words = graph.getMaskWords();
+            int[] sourceOffsets = source.getOffsets();
+            int[] sourceSlotSignatures = source.getSlotSignatures();
+            int[] offsets = graph.getOffsets();
+            double[] baseW0 = base.getW0();
+            double[] W0 = new double[graph.getSlotsCount()];
+            long[] DV0 = new long[n * words];
+            double[] W = new double[graph.getSlotsCount()];
+            boolean[] isRowChanged = new boolean[n];
+
+            Preprocessing.NeighborhoodScratch scratch = new Preprocessing.NeighborhoodScratch(graph.getSignaturesCount());
+
+            for (int v = 0; v < n; v++) {
+                for (int s = sourceOffsets[v]; s < sourceOffsets[v + 1] && !isRowChanged[v]; s++) {
+                    isRowChanged[v] = isChanged[sourceSlotSignatures[s]];
+                }
+
+                if (isRowChanged[v]) {
+                    Preprocessing.calculateW0InNeighborhood(graph, v, W0, scratch, null);
+                    continue;
+                }
+
+                // The row is the same in the view as in the network.
+                System.arraycopy(baseW0, sourceOffsets[v], W0, offsets[v], offsets[v + 1] - offsets[v]);
+                MaskUtils.copy(base.getDV0(), v * words, DV0, v * words, words);
+            }
+
+            for (int v = 0; v < n; v++) {
+                if (isRowChanged[v])
+                    Preprocessing.initializeRelevantDimensionsDv(graph, v, W0, DV0, scratch);
+            }
+
+            for (int v = 0; v < n; v++) {
+                Preprocessing.reviseWeightsInNeighborhood(graph, v, W0, DV0, W);
+            }
+
+            return new Preprocessing(W0, DV0, W);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package MDLPA.engine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a multidimensional network from an edge list in the format generated by the Matlab/Octave conversion helpers
+ * and accepted by the Gephi data laboratory:
+ * Source;Target;Label;Type
+ * 1;2;1,5;Undirected
+ * The header line is optional and the Type column is ignored since MDLPA processes undirected networks.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class EdgeListReader {
+    // Number of lines read before their columns are split concurrently.
+    private static final int BATCH_LINES = 65536;
+
+    // Marks the lines lacking columns in a batch.
+    private static final String[] MALFORMED = new String[0];
+
+    // Separates the columns of the edge list.
+    private String columnsSeparator = ";";
+
+    // Separates the dimension names on the edge labels.
+    private String dimensionsSeparator = ",";
+
+    public EdgeListReader() {
+    }
+
+    public EdgeListReader(String columnsSeparator, String dimensionsSeparator) {
+        this.columnsSeparator = columnsSeparator;
+        this.dimensionsSeparator = dimensionsSeparator;
+    }
+
+    public String getDimensionsSeparator() {
+        return dimensionsSeparator;
+    }
+
+    public MultidimensionalGraph read(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+
+        try {
+            return read(reader);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    public MultidimensionalGraph read(File file, ExecutorService executor, int chunksCount) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+
+        try {
+            return read(reader, executor, chunksCount);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    public MultidimensionalGraph read(Reader reader) throws IOException {
+        MultidimensionalGraphBuilder builder = new MultidimensionalGraphBuilder(dimensionsSeparator);
+        BufferedReader lines = new BufferedReader(reader);
+        Pattern columnsPattern = Pattern.compile(Pattern.quote(columnsSeparator));
+        String line;
+        int lineNumber = 0;
+
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+
+            if (line.isEmpty())
+                continue;
+
+            String[] columns = columnsPattern.split(line);
+
+            if (lineNumber == 1 && columns[0].equalsIgnoreCase("Source"))
+                continue;
+
+            if (columns.length < 3) {
+                throw new IOException(String.format(
+                    "Line %d: expected Source%sTarget%sLabel, found '%s'",
+                    lineNumber,
+                    columnsSeparator,
+                    columnsSeparator,
+                    line
+                ));
+            }
+
+            builder.addEdge(columns[0].trim(), columns[1].trim(), columns[2].trim());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Reads the edge list by batches of lines whose columns and labels are split over chunksCount chunks running
+     * concurrently on an executor, see MultidimensionalGraphBuilder.addEdges. The network is the same as the one read
+     * sequentially.
+     */
+    public MultidimensionalGraph read(Reader reader, ExecutorService executor, int chunksCount) throws IOException {
+        MultidimensionalGraphBuilder builder = new MultidimensionalGraphBuilder(dimensionsSeparator);
+        BufferedReader lines = new BufferedReader(reader);
+        final Pattern columnsPattern = Pattern.compile(Pattern.quote(columnsSeparator));
+        final String[] batch = new String[BATCH_LINES];
+        final String[][] batchColumns = new String[BATCH_LINES][];
+        List<String[]> edges = new ArrayList<String[]>(BATCH_LINES);
+        int lineNumber = 0;
+
+        while (true) {
+            final boolean isFirstBatch = lineNumber == 0;
+            int batchSize = 0;
+            String line;
+
+            while (batchSize < BATCH_LINES && (line = lines.readLine()) != null) {
+                batch[batchSize++] = line;
+            }
+
+            if (batchSize == 0)
+                break;
+
+            ParallelChunks.run(ParallelChunks.uniformBounds(batchSize, chunksCount), executor, new ParallelChunks.Chunk() {
+                @Override
+                public void run(int from, int to) {
+                    for (int l = from; l < to; l++) {
+                        String trimmed = batch[l].trim();
+                        String[] columns = trimmed.isEmpty() ? null : columnsPattern.split(trimmed);
+
+                        if (columns == null || (isFirstBatch && l == 0 && columns[0].equalsIgnoreCase("Source")))
+                            batchColumns[l] = null;
+                        else if (columns.length < 3)
+                            batchColumns[l] = MALFORMED;
+                        else
+                            batchColumns[l] = new String[] { columns[0].trim(), columns[1].trim(), columns[2].trim() };
+                    }
+                }
+            });
+
+            edges.clear();
+
+            for (int l = 0; l < batchSize; l++) {
+                lineNumber++;
+
+                if (batchColumns[l] == MALFORMED) {
+                    throw new IOException(String.format(
+                        "Line %d: expected Source%sTarget%sLabel, found '%s'",
+                        lineNumber,
+                        columnsSeparator,
+                        columnsSeparator,
+                        batch[l].trim()
+                    ));
+                }
+
+                if (batchColumns[l] != null)
+                    edges.add(batchColumns[l]);
+            }
+
+            builder.addEdges(edges, executor, chunksCount);
+        }
+
+        return builder.build();
+    }
+}
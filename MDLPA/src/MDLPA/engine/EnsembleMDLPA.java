@@ -0,0 +1,196 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Runs MDLPA[1] several times on the same network and builds a consensus out of the runs.
+ * Since MDLPA is stochastic (random visit order and random tie-breaks), single runs may differ; the ensemble takes the
+ * initialization once and runs N independent propagations concurrently over the shared, read-only preprocessing.
+ *
+ * The co-membership frequency is only tracked for the pairs of adjacent nodes, keeping the memory proportional to the
+ * number of edges. The consensus partition groups the nodes linked by edges whose endpoints were put in the same
+ * cluster by more than consensusThreshold of the runs. The relevant dimensions of a node in the consensus are the
+ * dimensions found in its Dv by more than half of the runs.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class EnsembleMDLPA {
+    private final MultidimensionalGraph graph;
+    private final Preprocessing preprocessing;
+
+    private int runsCount = 20;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private int maxCycles = Integer.MAX_VALUE;
+    private double consensusThreshold = 0.5;
+    private long seed = System.currentTimeMillis();
+
+    public EnsembleMDLPA(MultidimensionalGraph graph, Preprocessing preprocessing) {
+        this.graph = graph;
+        this.preprocessing = preprocessing;
+    }
+
+    public void setRunsCount(int value) {
+        this.runsCount = value;
+    }
+
+    public void setThreadsCount(int value) {
+        this.threadsCount = value;
+    }
+
+    public void setMaxCycles(int value) {
+        this.maxCycles = value;
+    }
+
+    public void setConsensusThreshold(double value) {
+        this.consensusThreshold = value;
+    }
+
+    public void setSeed(long value) {
+        this.seed = value;
+    }
+
+    public EnsembleResult run() throws InterruptedException, ExecutionException {
+        int n = graph.getNodesCount();
+        int dimensionsCount = graph.getDimensionsCount();
+
+        // Number of runs in which the endpoints of each slot shared the same cluster.
+        final AtomicIntegerArray coMemberships = new AtomicIntegerArray(graph.getSlotsCount());
+
+        // Number of runs in which each dimension was found relevant for each node.
+        final AtomicIntegerArray dimensionVotes = new AtomicIntegerArray(n * dimensionsCount);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadsCount, runsCount)));
+        List<Future<int[]>> runs = new ArrayList<Future<int[]>>();
+
+        try {
+            for (int i = 0; i < runsCount; i++) {
+                final Random randomizer = new Random(seed + i);
+
+                runs.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        LabelPropagation propagation = new LabelPropagation(graph, preprocessing, randomizer);
+                        propagation.propagate(maxCycles);
+
+                        accumulate(propagation, coMemberships, dimensionVotes);
+
+                        return new int[] {
+                            propagation.getResult().getClustersCount(),
+                            propagation.getCycles(),
+                            propagation.isConverged() ? 1 : 0
+                        };
+                    }
+                }));
+            }
+
+            int[][] summaries = new int[runsCount][];
+
+            for (int i = 0; i < runsCount; i++) {
+                summaries[i] = runs.get(i).get();
+            }
+
+            return buildConsensus(coMemberships, dimensionVotes, summaries);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void accumulate(LabelPropagation propagation, AtomicIntegerArray coMemberships, AtomicIntegerArray dimensionVotes) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int dimensionsCount = graph.getDimensionsCount();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] labels = propagation.getLabels();
+        long[] DV = propagation.getDV();
+
+        for (int v = 0; v < n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (labels[v] == labels[neighbors[s]])
+                    coMemberships.incrementAndGet(s);
+            }
+
+            for (int d = 0; d < dimensionsCount; d++) {
+                if (MaskUtils.get(DV, v * words, d))
+                    dimensionVotes.incrementAndGet(v * dimensionsCount + d);
+            }
+        }
+    }
+
+    private EnsembleResult buildConsensus(AtomicIntegerArray coMemberships, AtomicIntegerArray dimensionVotes, int[][] summaries) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int dimensionsCount = graph.getDimensionsCount();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+
+        double[] frequencies = new double[graph.getSlotsCount()];
+        int[] parents = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            parents[v] = v;
+        }
+
+        for (int v = 0; v < n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                frequencies[s] = coMemberships.get(s) / (double)runsCount;
+
+                if (frequencies[s] > consensusThreshold)
+                    union(parents, v, neighbors[s]);
+            }
+        }
+
+        int[] labels = new int[n];
+        long[] DV = new long[n * words];
+
+        for (int v = 0; v < n; v++) {
+            labels[v] = find(parents, v);
+
+            for (int d = 0; d < dimensionsCount; d++) {
+                if (dimensionVotes.get(v * dimensionsCount + d) * 2 > runsCount)
+                    MaskUtils.set(DV, v * words, d);
+            }
+        }
+
+        int convergedRuns = 0;
+        int maxCyclesRun = 0;
+
+        for (int[] summary : summaries) {
+            convergedRuns += summary[2];
+            maxCyclesRun = Math.max(maxCyclesRun, summary[1]);
+        }
+
+        ClusteringResult consensus = ClusteringResult.create(graph, labels, DV, maxCyclesRun, convergedRuns == runsCount);
+
+        return new EnsembleResult(consensus, frequencies, summaries);
+    }
+
+    private static int find(int[] parents, int v) {
+        while (parents[v] != v) {
+            parents[v] = parents[parents[v]];
+            v = parents[v];
+        }
+
+        return v;
+    }
+
+    private static void union(int[] parents, int v, int u) {
+        int rootv = find(parents, v);
+        int rootu = find(parents, u);
+
+        if (rootv != rootu)
+            parents[Math.max(rootv, rootu)] = Math.min(rootv, rootu);
+    }
+}
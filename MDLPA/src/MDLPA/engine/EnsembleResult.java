@@ -0,0 +1,139 @@
+package MDLPA.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Holds the consensus partition of an ensemble of MDLPA[1] runs along with the co-membership frequency of the
+ * endpoints of each edge.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class EnsembleResult {
+    private final ClusteringResult consensus;
+
+    // Fraction of the runs in which the endpoints of each slot shared the same cluster.
+    private final double[] coMembershipFrequencies;
+
+    // For each run: {number of clusters, number of cycles, converged (0/1)}.
+    private final int[][] runSummaries;
+
+    public EnsembleResult(ClusteringResult consensus, double[] coMembershipFrequencies, int[][] runSummaries) {
+        this.consensus = consensus;
+        this.coMembershipFrequencies = coMembershipFrequencies;
+        this.runSummaries = runSummaries;
+    }
+
+    public ClusteringResult getConsensus() {
+        return consensus;
+    }
+
+    public double[] getCoMembershipFrequencies() {
+        return coMembershipFrequencies;
+    }
+
+    public int getRunsCount() {
+        return runSummaries.length;
+    }
+
+    public int getClustersCount(int run) {
+        return runSummaries[run][0];
+    }
+
+    public int getCycles(int run) {
+        return runSummaries[run][1];
+    }
+
+    public boolean isConverged(int run) {
+        return runSummaries[run][2] == 1;
+    }
+
+    /**
+     * Returns the mean co-membership frequency of the edges lying inside each consensus cluster, 1 for clusters
+     * without internal edges. Values close to 1 denote clusters that were found by almost every run.
+     */
+    public double[] getClusterStabilities() {
+        MultidimensionalGraph graph = consensus.getGraph();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] memberships = consensus.getMemberships();
+        int clustersCount = consensus.getClustersCount();
+
+        double[] sums = new double[clustersCount];
+        int[] counts = new int[clustersCount];
+
+        for (int v = 0; v < memberships.length; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int k = memberships[v];
+
+                if (memberships[neighbors[s]] == k) {
+                    sums[k] += coMembershipFrequencies[s];
+                    counts[k]++;
+                }
+            }
+        }
+
+        double[] stabilities = new double[clustersCount];
+
+        for (int k = 0; k < clustersCount; k++) {
+            stabilities[k] = counts[k] == 0 ? 1 : sums[k] / counts[k];
+        }
+
+        return stabilities;
+    }
+
+    /**
+     * Writes the co-membership frequency of each edge in the format Source;Target;Frequency.
+     */
+    public void writeCoMemberships(Writer writer) throws IOException {
+        MultidimensionalGraph graph = consensus.getGraph();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+
+        writer.append("Source;Target;Frequency\n");
+
+        for (int v = 0; v < graph.getNodesCount(); v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (u < v)
+                    continue;
+
+                writer
+                    .append(graph.getNodeId(v))
+                    .append(";")
+                    .append(graph.getNodeId(u))
+                    .append(";")
+                    .append(Double.toString(coMembershipFrequencies[s]))
+                    .append("\n");
+            }
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Writes the size and stability of each consensus cluster in the format Cluster;Size;Stability,
+     * clusters being numbered from 1 as in the memberships.
+     */
+    public void writeClusterStabilities(Writer writer) throws IOException {
+        double[] stabilities = getClusterStabilities();
+        int[][] clusters = consensus.getClusterNodes();
+
+        writer.append("Cluster;Size;Stability\n");
+
+        for (int k = 0; k < stabilities.length; k++) {
+            writer
+                .append(Integer.toString(k + 1))
+                .append(";")
+                .append(Integer.toString(clusters[k].length))
+                .append(";")
+                .append(Double.toString(stabilities[k]))
+                .append("\n");
+        }
+
+        writer.flush();
+    }
+}
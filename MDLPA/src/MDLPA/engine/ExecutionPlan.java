@@ -0,0 +1,249 @@
+package MDLPA.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Profile of a loaded network and the execution strategies of MDLPA[1] chosen from it:
+ * - the storage of the propagation: the arrays of the network and its initialization, or a compressed copy of them
+ *   (see CompressedGraph) when the propagation on the arrays would take more than MAX_ARRAYS_MEMORY_SHARE of the
+ *   available heap. The copy is built from the arrays, so it doesn't lower the peak of the run, but the propagation
+ *   then runs on a much smaller working set once the arrays are released,
+ * - the number of threads of the initialization, one per MIN_SLOTS_PER_THREAD slots up to the number of cores, since
+ *   a small network is initialized faster than the threads are started,
+ * - the parallel scans of hubs (see HubScans), when the rows of degree above HUB_DEGREE hold a significant share of
+ *   the slots and there are cores to scan them,
+ * - the exact or sampled DRxOR (see DRxORSampling), sampled when the exact one would take more than
+ *   MAX_EXACT_DRXOR_COMPARISONS mask comparisons, mostly spent on the neighborhoods of hubs.
+ * The mask width follows from the number of dimensions and is only reported. The memory figures are the rough
+ * estimations of the structures (getEstimatedMemory).
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class ExecutionPlan {
+    public enum Storage { ARRAYS, COMPRESSED }
+
+    public static final double MAX_ARRAYS_MEMORY_SHARE = 0.5;
+    public static final int MIN_SLOTS_PER_THREAD = 50000;
+    public static final int HUB_DEGREE = 10000;
+    public static final double MIN_HUB_SLOTS_SHARE = 0.1;
+    public static final long MAX_EXACT_DRXOR_COMPARISONS = 1000000000L;
+    public static final double DRXOR_ERROR = 0.05;
+    public static final double DRXOR_CONFIDENCE = 0.95;
+
+    // Profile of the network.
+    private final int nodesCount;
+    private final int edgesCount;
+    private final int maxDegree;
+    private final int percentile99Degree;
+    private final int hubsCount;
+    private final double hubSlotsShare;
+    private final int dimensionsCount;
+    private final int signaturesCount;
+    private final int maskWords;
+    private final long exactDRxORComparisons;
+    private final long availableMemory;
+    private final int cores;
+
+    // Estimated heap needed beyond the network by the propagation on the arrays, and while building the compressed copy.
+    private final long arraysMemory;
+    private final long compressedMemory;
+
+    // Strategies.
+    private Storage storage;
+    private int preprocessingThreads;
+    private int hubThreads;
+    private int drxorDegreeThreshold;
+    private final List<String> reasons = new ArrayList<String>();
+
+    private ExecutionPlan(MultidimensionalGraph graph, long availableMemory, int cores) {
+        int n = graph.getNodesCount();
+        int[] offsets = graph.getOffsets();
+        int[] degrees = new int[n];
+        long hubSlots = 0;
+        long comparisons = 0;
+        int hubs = 0;
+
+        for (int v = 0; v < n; v++) {
+            degrees[v] = offsets[v + 1] - offsets[v];
+
+            // The distinct connecting dimension sets of a row are bounded by its degree and the signatures count.
+            long distinct = Math.min(degrees[v], graph.getSignaturesCount());
+            comparisons += distinct * distinct;
+
+            if (degrees[v] > HUB_DEGREE) {
+                hubs++;
+                hubSlots += degrees[v];
+            }
+        }
+
+        Arrays.sort(degrees);
+
+        this.nodesCount = n;
+        this.edgesCount = graph.getEdgesCount();
+        this.maxDegree = n > 0 ? degrees[n - 1] : 0;
+        this.percentile99Degree = n > 0 ? degrees[(int)(0.99 * (n - 1))] : 0;
+        this.hubsCount = hubs;
+        this.hubSlotsShare = graph.getSlotsCount() > 0 ? hubSlots / (double)graph.getSlotsCount() : 0;
+        this.dimensionsCount = graph.getDimensionsCount();
+        this.signaturesCount = graph.getSignaturesCount();
+        this.maskWords = graph.getMaskWords();
+        this.exactDRxORComparisons = comparisons * maskWords;
+        this.availableMemory = availableMemory;
+        this.cores = cores;
+
+        long slots = graph.getSlotsCount();
+        long preprocessingMemory = 16L * slots + 8L * n * maskWords;
+        long runMemory = 8L * n + 8L * n * maskWords + 8L * slots + 4L * maxDegree;
+
+        // Whole pages for the encoded rows (up to 4 bytes per slot) and up to 8 bytes per slot for their w0 entries,
+        // whose buffer grows by doubling while the copy is built, along with the row positions and Dv_0.
+        long pagesMemory = (long)CompressedGraph.PAGE_SIZE * Math.max(1, (4L * slots + CompressedGraph.PAGE_SIZE - 1) / CompressedGraph.PAGE_SIZE);
+        long compressedCopyMemory = pagesMemory + 16L * slots + 12L * n + 8L * n * maskWords;
+
+        this.arraysMemory = preprocessingMemory + runMemory;
+        this.compressedMemory = preprocessingMemory + compressedCopyMemory;
+    }
+
+    /**
+     * Profiles a loaded network and chooses its execution strategies.
+     * @param availableMemory: the heap left once the network is loaded, in bytes.
+     * @param cores: the number of cores the run may use.
+     */
+    public static ExecutionPlan plan(MultidimensionalGraph graph, long availableMemory, int cores) {
+        ExecutionPlan plan = new ExecutionPlan(graph, availableMemory, cores);
+        plan.choose(graph);
+
+        return plan;
+    }
+
+    /**
+     * Returns the heap left to the run, i.e. the maximum heap less the heap in use once the garbage of the loading is
+     * collected.
+     */
+    public static long getAvailableMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    private void choose(MultidimensionalGraph graph) {
+        if (arraysMemory <= MAX_ARRAYS_MEMORY_SHARE * availableMemory) {
+            storage = Storage.ARRAYS;
+            reasons.add(String.format("arrays: the propagation needs about %d MB of the %d MB available", mb(arraysMemory), mb(availableMemory)));
+        }
+        else if (compressedMemory <= availableMemory) {
+            storage = Storage.COMPRESSED;
+            reasons.add(String.format(
+                "compressed: the propagation on the arrays needs about %d MB of the %d MB available, building the compressed copy %d MB",
+                mb(arraysMemory),
+                mb(availableMemory),
+                mb(compressedMemory)
+            ));
+        }
+        else {
+            storage = Storage.ARRAYS;
+            reasons.add(String.format(
+                arraysMemory <= availableMemory
+                    ? "arrays: the propagation needs about %d MB of the %d MB available, too little to build the compressed copy (%d MB)"
+                    : "arrays: the propagation needs about %d MB of the %d MB available and the compressed copy %d MB, the run may exhaust the heap",
+                mb(arraysMemory),
+                mb(availableMemory),
+                mb(compressedMemory)
+            ));
+        }
+
+        preprocessingThreads = Math.max(1, Math.min(cores, graph.getSlotsCount() / MIN_SLOTS_PER_THREAD));
+        reasons.add(String.format("%d initialization threads for %d slots", preprocessingThreads, graph.getSlotsCount()));
+
+        if (cores > 1 && hubSlotsShare >= MIN_HUB_SLOTS_SHARE) {
+            hubThreads = cores;
+            reasons.add(String.format("hub scans over %d threads: %d hubs hold %.0f%% of the slots", cores, hubsCount, 100 * hubSlotsShare));
+        }
+        else {
+            hubThreads = 1;
+            reasons.add(cores > 1
+                ? String.format("sequential scans: hubs hold %.0f%% of the slots", 100 * hubSlotsShare)
+                : "sequential scans: a single core");
+        }
+
+        if (exactDRxORComparisons > MAX_EXACT_DRXOR_COMPARISONS) {
+            // Below the sample size, a neighborhood is computed exactly anyway.
+            drxorDegreeThreshold = new DRxORSampling(0, DRXOR_ERROR, DRXOR_CONFIDENCE, 0).getSampleSize();
+            reasons.add(String.format(
+                "sampled DRxOR above degree %d: the exact one needs up to %d mask comparisons",
+                drxorDegreeThreshold,
+                exactDRxORComparisons
+            ));
+        }
+        else {
+            drxorDegreeThreshold = -1;
+            reasons.add(String.format("exact DRxOR: up to %d mask comparisons", exactDRxORComparisons));
+        }
+    }
+
+    private static long mb(long bytes) {
+        return bytes >> 20;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public int getPreprocessingThreads() {
+        return preprocessingThreads;
+    }
+
+    public int getHubThreads() {
+        return hubThreads;
+    }
+
+    public int getHubDegree() {
+        return HUB_DEGREE;
+    }
+
+    /**
+     * Returns the degree above which the DRxOR is sampled, -1 if it's computed exactly.
+     */
+    public int getDRxORDegreeThreshold() {
+        return drxorDegreeThreshold;
+    }
+
+    public long getArraysMemory() {
+        return arraysMemory;
+    }
+
+    public long getCompressedMemory() {
+        return compressedMemory;
+    }
+
+    /**
+     * Returns the profile of the network in a line.
+     */
+    public String getProfile() {
+        return String.format(
+            "%d nodes, %d edges, degrees up to %d (99th percentile %d, %d hubs), %d dimensions on %d mask words, %d signatures, %d MB and %d cores available",
+            nodesCount,
+            edgesCount,
+            maxDegree,
+            percentile99Degree,
+            hubsCount,
+            dimensionsCount,
+            maskWords,
+            signaturesCount,
+            mb(availableMemory),
+            cores
+        );
+    }
+
+    /**
+     * Returns the reason of each choice, in the order storage, initialization threads, hub scans and DRxOR.
+     */
+    public List<String> getReasons() {
+        return reasons;
+    }
+}
@@ -0,0 +1,393 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.Arrays;
+
+/**
+ * Shrinks a network before the propagation phase of MDLPA[1] by folding away the nodes whose label is determined by
+ * their neighbors:
+ * - pendant nodes (degree 1, attached to a node of degree 2 or more) are folded into their anchor. A pendant always
+ *   ends up in the cluster of its anchor, so it's replaced by a vote of its anchor for its own label, weighted by
+ *   w(anchor,pendant), see ReducedLabelPropagation.
+ * - structural twins (nodes of degree 2 or more with the same neighbors through the same connecting dimensions) are
+ *   merged into their first node. Twins share the same w0 and Dv_0, so the slots towards the representative carry the
+ *   sum of the weights of the slots towards the twins.
+ * The initialization (w0, Dv_0 and w) is computed on the whole network beforehand, so that the DRxOR estimations are
+ * unchanged. The clusters are expanded back to the whole network with expand: twins take the label and Dv of their
+ * representative, pendants the label of their anchor and the dimensions of its Dv connecting them to it.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class GraphReduction {
+    public static final byte KEPT = 0;
+    public static final byte TWIN = 1;
+    public static final byte PENDANT = 2;
+
+    private final MultidimensionalGraph graph;
+    private final MultidimensionalGraph reducedGraph;
+    private final Preprocessing reducedPreprocessing;
+
+    // Role of each node of the network (KEPT, TWIN or PENDANT).
+    private final byte[] roles;
+
+    // Reduced node standing for each node of the network: itself, its twins representative or its anchor.
+    private final int[] representatives;
+
+    // Node of the network kept as each reduced node.
+    private final int[] keptNodes;
+
+    // Pendants folded into the reduced node v span [pendantOffsets[v], pendantOffsets[v + 1]) in the arrays below.
+    private final int[] pendantOffsets;
+
+    // w0(anchor,pendant) and connecting dimensions of each folded pendant.
+    private final double[] pendantW0;
+    private final int[] pendantSignatures;
+
+    private GraphReduction(
+        MultidimensionalGraph graph,
+        MultidimensionalGraph reducedGraph,
+        Preprocessing reducedPreprocessing,
+        byte[] roles,
+        int[] representatives,
+        int[] keptNodes,
+        int[] pendantOffsets,
+        double[] pendantW0,
+        int[] pendantSignatures
+    )
+    {
+        this.graph = graph;
+        this.reducedGraph = reducedGraph;
+        this.reducedPreprocessing = reducedPreprocessing;
+        this.roles = roles;
+        this.representatives = representatives;
+        this.keptNodes = keptNodes;
+        this.pendantOffsets = pendantOffsets;
+        this.pendantW0 = pendantW0;
+        this.pendantSignatures = pendantSignatures;
+    }
+
+    public MultidimensionalGraph getGraph() {
+        return graph;
+    }
+
+    public MultidimensionalGraph getReducedGraph() {
+        return reducedGraph;
+    }
+
+    public Preprocessing getReducedPreprocessing() {
+        return reducedPreprocessing;
+    }
+
+    public int[] getRepresentatives() {
+        return representatives;
+    }
+
+    public int[] getPendantOffsets() {
+        return pendantOffsets;
+    }
+
+    public double[] getPendantW0() {
+        return pendantW0;
+    }
+
+    public int[] getPendantSignatures() {
+        return pendantSignatures;
+    }
+
+    public int getFoldedPendantsCount() {
+        return pendantW0.length;
+    }
+
+    public int getMergedTwinsCount() {
+        return graph.getNodesCount() - reducedGraph.getNodesCount() - pendantW0.length;
+    }
+
+    public long getEstimatedMemory() {
+        return reducedGraph.getEstimatedMemory()
+            + reducedPreprocessing.getEstimatedMemory()
+            + 9L * graph.getNodesCount()
+            + 12L * pendantW0.length;
+    }
+
+    public static GraphReduction reduce(MultidimensionalGraph graph, Preprocessing preprocessing) {
+        int n = graph.getNodesCount();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        byte[] roles = new byte[n];
+        int[] representatives = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            representatives[v] = v;
+
+            // Pairs of pendants linked together are left as they are.
+            if (graph.getDegree(v) == 1 && graph.getDegree(neighbors[offsets[v]]) > 1) {
+                roles[v] = PENDANT;
+                representatives[v] = neighbors[offsets[v]];
+            }
+        }
+
+        findTwins(graph, roles, representatives);
+
+        // Numbering the reduced nodes in the order of the network, which keeps the rows sorted once remapped.
+        int[] reducedIndices = new int[n];
+        int reducedCount = 0;
+
+        for (int v = 0; v < n; v++) {
+            if (roles[v] == KEPT)
+                reducedIndices[v] = reducedCount++;
+        }
+
+        int[] keptNodes = new int[reducedCount];
+        int[] pendantOffsets = new int[reducedCount + 1];
+
+        for (int v = 0; v < n; v++) {
+            if (roles[v] == KEPT)
+                keptNodes[reducedIndices[v]] = v;
+            else if (roles[v] == PENDANT)
+                pendantOffsets[reducedIndices[representatives[v]] + 1]++;
+        }
+
+        for (int v = 0; v < n; v++) {
+            representatives[v] = reducedIndices[representatives[v]];
+        }
+
+        for (int v = 0; v < reducedCount; v++) {
+            pendantOffsets[v + 1] += pendantOffsets[v];
+        }
+
+        return build(graph, preprocessing, roles, representatives, keptNodes, pendantOffsets);
+    }
+
+    /**
+     * Marks as TWIN the nodes having the same row as a smaller node, pointing them to the smallest one.
+     */
+    private static void findTwins(MultidimensionalGraph graph, byte[] roles, int[] representatives) {
+        int n = graph.getNodesCount();
+        long[] hashes = new long[n];
+        int candidatesCount = 0;
+
+        for (int v = 0; v < n; v++) {
+            if (roles[v] == KEPT && graph.getDegree(v) > 1)
+                hashes[candidatesCount++] = ((long)getRowHash(graph, v) << 32) | v;
+        }
+
+        // Sorting by hash, then by node, so that the first node of each group of twins comes first.
+        Arrays.sort(hashes, 0, candidatesCount);
+
+        for (int i = 0; i < candidatesCount; ) {
+            int end = i + 1;
+
+            while (end < candidatesCount && (hashes[end] >>> 32) == (hashes[i] >>> 32)) {
+                end++;
+            }
+
+            for (int j = i; j < end; j++) {
+                int v = (int)hashes[j];
+
+                if (roles[v] != KEPT)
+                    continue;
+
+                for (int k = j + 1; k < end; k++) {
+                    int u = (int)hashes[k];
+
+                    if (roles[u] == KEPT && haveSameRows(graph, v, u)) {
+                        roles[u] = TWIN;
+                        representatives[u] = v;
+                    }
+                }
+            }
+
+            i = end;
+        }
+    }
+
+    private static int getRowHash(MultidimensionalGraph graph, int v) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        int hash = 1;
+
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            hash = 31 * (31 * hash + neighbors[s]) + slotSignatures[s];
+        }
+
+        return hash;
+    }
+
+    private static boolean haveSameRows(MultidimensionalGraph graph, int v, int u) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+
+        if (graph.getDegree(v) != graph.getDegree(u))
+            return false;
+
+        for (int i = 0; i < graph.getDegree(v); i++) {
+            int sv = offsets[v] + i;
+            int su = offsets[u] + i;
+
+            if (neighbors[sv] != neighbors[su] || slotSignatures[sv] != slotSignatures[su])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static GraphReduction build(
+        MultidimensionalGraph graph,
+        Preprocessing preprocessing,
+        byte[] roles,
+        int[] representatives,
+        int[] keptNodes,
+        int[] pendantOffsets
+    )
+    {
+        int n = graph.getNodesCount();
+        int reducedCount = keptNodes.length;
+        int words = graph.getMaskWords();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] reverseSlots = graph.getReverseSlots();
+        int[] slotSignatures = graph.getSlotSignatures();
+        double[] W0 = preprocessing.getW0();
+        double[] W = preprocessing.getW();
+
+        double[] pendantW0 = new double[pendantOffsets[reducedCount]];
+        int[] pendantSignatures = new int[pendantOffsets[reducedCount]];
+        int[] pendantPositions = Arrays.copyOf(pendantOffsets, reducedCount);
+
+        for (int p = 0; p < n; p++) {
+            if (roles[p] != PENDANT)
+                continue;
+
+            int position = pendantPositions[representatives[p]]++;
+            int s = offsets[p];
+
+            // w0(anchor,pendant) is stored on the reverse slot of the only slot of the pendant.
+            pendantW0[position] = W0[reverseSlots[s]];
+            pendantSignatures[position] = slotSignatures[s];
+        }
+
+        // The rows of the reduced nodes: the slots towards the pendants are dropped and the slots towards twins merged.
+        int[] reducedOffsets = new int[reducedCount + 1];
+        int[] reducedNeighbors = new int[graph.getSlotsCount()];
+        int[] reducedSignatures = new int[graph.getSlotsCount()];
+        double[] reducedW0 = new double[graph.getSlotsCount()];
+        double[] reducedW = new double[graph.getSlotsCount()];
+        long[] row = new long[16];
+        int slotsCount = 0;
+
+        for (int r = 0; r < reducedCount; r++) {
+            int v = keptNodes[r];
+            int rowLength = 0;
+
+            if (row.length < graph.getDegree(v))
+                row = new long[graph.getDegree(v)];
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (roles[neighbors[s]] != PENDANT)
+                    row[rowLength++] = ((long)representatives[neighbors[s]] << 32) | s;
+            }
+
+            Arrays.sort(row, 0, rowLength);
+
+            for (int i = 0; i < rowLength; i++) {
+                int target = (int)(row[i] >>> 32);
+                int s = (int)row[i];
+
+                // Twins are reached through the same connecting dimensions, their slots are merged.
+                if (slotsCount > reducedOffsets[r] && reducedNeighbors[slotsCount - 1] == target) {
+                    reducedW0[slotsCount - 1] += W0[s];
+                    reducedW[slotsCount - 1] += W[s];
+                    continue;
+                }
+
+                reducedNeighbors[slotsCount] = target;
+                reducedSignatures[slotsCount] = slotSignatures[s];
+                reducedW0[slotsCount] = W0[s];
+                reducedW[slotsCount] = W[s];
+                slotsCount++;
+            }
+
+            reducedOffsets[r + 1] = slotsCount;
+        }
+
+        String[] nodeIds = new String[reducedCount];
+        long[] reducedDV0 = new long[reducedCount * words];
+
+        for (int r = 0; r < reducedCount; r++) {
+            nodeIds[r] = graph.getNodeId(keptNodes[r]);
+            MaskUtils.copy(preprocessing.getDV0(), keptNodes[r] * words, reducedDV0, r * words, words);
+        }
+
+        reducedNeighbors = Arrays.copyOf(reducedNeighbors, slotsCount);
+        int[] reducedReverseSlots = new int[slotsCount];
+
+        MultidimensionalGraph reducedGraph = new MultidimensionalGraph(
+            nodeIds,
+            graph.getDimensionNames(),
+            reducedOffsets,
+            reducedNeighbors,
+            reducedReverseSlots,
+            Arrays.copyOf(reducedSignatures, slotsCount),
+            graph.getSignatures(),
+            words
+        );
+
+        for (int r = 0; r < reducedCount; r++) {
+            for (int s = reducedOffsets[r]; s < reducedOffsets[r + 1]; s++) {
+                reducedReverseSlots[s] = reducedGraph.getSlot(reducedNeighbors[s], r);
+            }
+        }
+
+        Preprocessing reducedPreprocessing = new Preprocessing(
+            Arrays.copyOf(reducedW0, slotsCount),
+            reducedDV0,
+            Arrays.copyOf(reducedW, slotsCount)
+        );
+
+        return new GraphReduction(
+            graph,
+            reducedGraph,
+            reducedPreprocessing,
+            roles,
+            representatives,
+            keptNodes,
+            pendantOffsets,
+            pendantW0,
+            pendantSignatures
+        );
+    }
+
+    /**
+     * Expands the labels and relevant dimensions found on the reduced network back to the whole network.
+     */
+    public ClusteringResult expand(LabelPropagation propagation) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int[] offsets = graph.getOffsets();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int[] reducedLabels = propagation.getLabels();
+        long[] reducedDV = propagation.getDV();
+
+        int[] labels = new int[n];
+        long[] DV = new long[n * words];
+
+        for (int v = 0; v < n; v++) {
+            int r = representatives[v];
+
+            // Reduced labels are reduced node indices, they're mapped back to the nodes of the network.
+            labels[v] = keptNodes[reducedLabels[r]];
+            MaskUtils.copy(reducedDV, r * words, DV, v * words, words);
+
+            // The pendant follows its anchor through the dimensions connecting them.
+            if (roles[v] == PENDANT)
+                MaskUtils.and(DV, v * words, signatures, slotSignatures[offsets[v]] * words, words);
+        }
+
+        return ClusteringResult.create(graph, labels, DV, propagation.getCycles(), propagation.isConverged());
+    }
+}
@@ -0,0 +1,196 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the neighborhood scans of the nodes of a propagation whose degree is above a threshold into contiguous chunks
+ * of their adjacency row, scanned concurrently, so that a single hub doesn't make its thread a straggler:
+ * - the labels of the neighbors and the weights they apply (pulling the stale ones) are gathered per chunk into row
+ *   buffers, then added to the combined weights of the neighboring clusters in slot order. Partial sums per chunk would
+ *   be added in a different order and differ from a sequential tally in the last bits, which is enough to break the
+ *   ties differently, whereas the combined weights, the order of first appearance of the labels and thus the clusters
+ *   are the same as the ones of a sequential tally,
+ * - the relevant dimensions Du and connecting dimensions Dvu of the winning cluster are united per chunk, then merged,
+ * - the weights w(u,v) are revised in parallel chunks, each one writing distinct reverse slots.
+ * The calling thread scans the first chunk itself.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+class HubScans {
+    private final MultidimensionalGraph graph;
+    private final ExecutorService executor;
+    private final int degreeThreshold;
+    private final int chunksCount;
+    private final int words;
+
+    // Labels of the neighbors of a hub and the weights they apply, per slot of its row.
+    private int[] rowLabels = new int[0];
+    private double[] rowWeights = new double[0];
+
+    // Per chunk buffers.
+    private final long[][] chunkDU;
+    private final long[][] chunkDvu;
+    private final int[] chunkRemoteSlots;
+
+    /**
+     * Scans run on a chunk of a row.
+     */
+    private interface ChunkScan {
+        void scan(int chunk, int from, int to);
+    }
+
+    HubScans(MultidimensionalGraph graph, ExecutorService executor, int degreeThreshold, int chunksCount) {
+        this.graph = graph;
+        this.executor = executor;
+        this.degreeThreshold = degreeThreshold;
+        this.chunksCount = chunksCount;
+        this.words = graph.getMaskWords();
+        this.chunkDU = new long[chunksCount][words];
+        this.chunkDvu = new long[chunksCount][words];
+        this.chunkRemoteSlots = new int[chunksCount];
+    }
+
+    boolean isHub(int v) {
+        return graph.getDegree(v) > degreeThreshold;
+    }
+
+    /**
+     * Adds the weights applied on v by each neighboring cluster to combinedClusterWeights, pulling the stale ones if
+     * lazyWeights isn't null. The weights are added in slot order, as by a sequential tally.
+     */
+    void tally(int v, final int[] labels, final double[] W, final LazyWeights lazyWeights, LabelWeights combinedClusterWeights) {
+        final int[] neighbors = graph.getNeighbors();
+        final int rowStart = graph.getOffsets()[v];
+        int degree = graph.getDegree(v);
+
+        if (rowLabels.length < degree) {
+            rowLabels = new int[degree];
+            rowWeights = new double[degree];
+        }
+
+        final int[] chunkLabels = rowLabels;
+        final double[] chunkWeights = rowWeights;
+
+        scan(v, new ChunkScan() {
+            @Override
+            public void scan(int chunk, int from, int to) {
+                for (int s = from; s < to; s++) {
+                    int u = neighbors[s];
+                    chunkLabels[s - rowStart] = labels[u];
+                    chunkWeights[s - rowStart] = lazyWeights != null ? lazyWeights.get(s, u) : W[s];
+                }
+            }
+        });
+
+        for (int i = 0; i < degree; i++) {
+            combinedClusterWeights.add(chunkLabels[i], chunkWeights[i]);
+        }
+    }
+
+    /**
+     * Adds the relevant dimensions of the neighbors of v in the winning cluster to DU and the dimensions connecting v
+     * to them to combinedDvu.
+     */
+    void collectWinningDimensions(int v, final int winningLabel, final int[] labels, final long[] DV, long[] DU, long[] combinedDvu) {
+        final int[] neighbors = graph.getNeighbors();
+        final int[] slotSignatures = graph.getSlotSignatures();
+        final long[] signatures = graph.getSignatures();
+
+        int chunks = scan(v, new ChunkScan() {
+            @Override
+            public void scan(int chunk, int from, int to) {
+                long[] DUChunk = chunkDU[chunk];
+                long[] DvuChunk = chunkDvu[chunk];
+
+                MaskUtils.clear(DUChunk, 0, words);
+                MaskUtils.clear(DvuChunk, 0, words);
+
+                for (int s = from; s < to; s++) {
+                    int u = neighbors[s];
+
+                    if (labels[u] != winningLabel)
+                        continue;
+
+                    MaskUtils.or(DUChunk, 0, DV, u * words, words);
+                    MaskUtils.or(DvuChunk, 0, signatures, slotSignatures[s] * words, words);
+                }
+            }
+        });
+
+        for (int c = 0; c < chunks; c++) {
+            MaskUtils.or(DU, 0, chunkDU[c], 0, words);
+            MaskUtils.or(combinedDvu, 0, chunkDvu[c], 0, words);
+        }
+    }
+
+    /**
+     * Revises the weights applied by v on its neighbors, see WeightKernels.reviseRow.
+     * @return the number of slots of v whose reverse slot isn't held.
+     */
+    int reviseRow(final int v, final long[] DV, final double[] W0, final double[] W) {
+        int chunks = scan(v, new ChunkScan() {
+            @Override
+            public void scan(int chunk, int from, int to) {
+                chunkRemoteSlots[chunk] = WeightKernels.reviseRow(graph, DV, v, from, to, W0, W);
+            }
+        });
+
+        int remoteSlots = 0;
+
+        for (int c = 0; c < chunks; c++) {
+            remoteSlots += chunkRemoteSlots[c];
+        }
+
+        return remoteSlots;
+    }
+
+    /**
+     * Runs a scan over the chunks of the row of v, the first one on the calling thread.
+     * @return the number of chunks.
+     */
+    private int scan(int v, final ChunkScan chunkScan) {
+        int[] offsets = graph.getOffsets();
+        int from = offsets[v];
+        int to = offsets[v + 1];
+        int chunkLength = (to - from + chunksCount - 1) / chunksCount;
+        int chunks = (to - from + chunkLength - 1) / chunkLength;
+        List<Future<?>> scans = new ArrayList<Future<?>>();
+
+        for (int c = 1; c < chunks; c++) {
+            final int chunk = c;
+            final int chunkFrom = from + c * chunkLength;
+            final int chunkTo = Math.min(to, chunkFrom + chunkLength);
+
+            scans.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    chunkScan.scan(chunk, chunkFrom, chunkTo);
+                }
+            }));
+        }
+
+        chunkScan.scan(0, from, Math.min(to, from + chunkLength));
+
+        try {
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning the neighborhood of a hub.", ex);
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to scan the neighborhood of a hub.", ex.getCause());
+        }
+
+        return chunks;
+    }
+}
@@ -0,0 +1,109 @@
+package MDLPA.engine;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes snapshots of the labels of a running propagation every cyclesInterval cycles or every millisInterval
+ * milliseconds, whichever comes first.
+ * Snapshots are copies of the label array handed to a listener on its own executor. Only the latest snapshot is kept:
+ * while the listener is busy, newer snapshots replace the pending one, so that a slow listener never holds the
+ * propagation back.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class LabelPreview {
+    public interface Listener {
+        /**
+         * Invoked on the executor of the preview with the labels as they were after the given number of cycles.
+         */
+        void onPreview(int[] labels, int cycles);
+    }
+
+    private final Listener listener;
+    private final Executor executor;
+    private final int cyclesInterval;
+    private final long millisInterval;
+
+    // Latest snapshot not yet handed to the listener, and whether a delivery is scheduled on the executor.
+    private final AtomicReference<Snapshot> pending = new AtomicReference<Snapshot>();
+    private final AtomicBoolean isDelivering = new AtomicBoolean(false);
+
+    // Only touched by the propagation thread.
+    private int lastCycles = 0;
+    private long lastMillis = System.currentTimeMillis();
+
+    /**
+     * @param cyclesInterval: number of cycles between two snapshots, 0 to only publish on time.
+     * @param millisInterval: milliseconds between two snapshots, 0 to only publish every cyclesInterval cycles.
+     */
+    public LabelPreview(Listener listener, Executor executor, int cyclesInterval, long millisInterval) {
+        this.listener = listener;
+        this.executor = executor;
+        this.cyclesInterval = cyclesInterval;
+        this.millisInterval = millisInterval;
+    }
+
+    /**
+     * Invoked by the propagation between node updates and at the end of each cycle. Publishes a snapshot when one of
+     * the intervals is over.
+     */
+    public void offer(int[] labels, int cycles, boolean cycleEnded) {
+        boolean cyclesElapsed = cycleEnded && cyclesInterval > 0 && cycles - lastCycles >= cyclesInterval;
+        boolean timeElapsed = millisInterval > 0 && System.currentTimeMillis() - lastMillis >= millisInterval;
+
+        if (cyclesElapsed || timeElapsed)
+            publish(labels, cycles);
+    }
+
+    /**
+     * Publishes a snapshot of the labels regardless of the intervals.
+     */
+    public void publish(int[] labels, int cycles) {
+        lastCycles = cycles;
+        lastMillis = System.currentTimeMillis();
+
+        // Any snapshot still pending is outdated, it is simply replaced.
+        pending.set(new Snapshot(labels.clone(), cycles));
+
+        if (isDelivering.compareAndSet(false, true))
+            executor.execute(new Delivery());
+    }
+
+    private static class Snapshot {
+        final int[] labels;
+        final int cycles;
+
+        Snapshot(int[] labels, int cycles) {
+            this.labels = labels;
+            this.cycles = cycles;
+        }
+    }
+
+    private class Delivery implements Runnable {
+        @Override
+        public void run() {
+            while (true) {
+                Snapshot snapshot;
+
+                while ((snapshot = pending.getAndSet(null)) != null) {
+                    try {
+                        listener.onPreview(snapshot.labels, snapshot.cycles);
+                    }
+                    catch (RuntimeException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+
+                isDelivering.set(false);
+
+                // A snapshot published after the last getAndSet but before the flag was reset would be left behind.
+                if (pending.get() == null || !isDelivering.compareAndSet(false, true))
+                    return;
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the propagation phase of MDLPA[1] on a MultidimensionalGraph.
+ * Each node v holds a label lv, a set of relevant dimensions Dv and the attraction weights w(v,u) applied on it by its
+ * neighbors. At each propagation cycle, the nodes are visited in a random order and each one of them joins the cluster
+ * applying the highest combined attraction weight in its neighborhood, then updates Dv and the weights it applies on its
+ * neighbors. The process stops once every node bears one of the dominant labels of its neighborhood.
+ *
+ * Only the first activeNodesCount nodes are updated; the remaining ones (if any) are read-only copies of nodes owned
+ * by another process, see MDLPA.distributed.
+ *
+ * When Dv changes, the weights w(u,v) applied by v on its neighbors are either revised right away (push) or computed
+ * again when they're read (pull, see LazyWeights). In the AUTO mode, each cycle pulls if the fraction of nodes whose Dv
+ * changed during the previous cycle is above the pull threshold: the first cycles change most Dv and the revisions
+ * are then paid by the scans of the neighbors, while the last ones change few of them and push them.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class LabelPropagation {
+    public enum WeightRevision { PUSH, PULL, AUTO }
+
+    public static final double DEFAULT_PULL_THRESHOLD = 0.1;
+
+    // The preview intervals are checked every 4096 node updates.
+    private static final int PREVIEW_CHECK_MASK = 4095;
+
+    protected final MultidimensionalGraph graph;
+    protected final Random randomizer;
+
+    // Immutable initial attraction weights, shared with the preprocessing.
+    protected final double[] W0;
+
+    // Label lv of each node. Labels are initialized with the index of the node (each node in its own cluster).
+    protected final int[] labels;
+
+    // Relevant dimensions Dv of each node, packed on maskWords words.
+    protected final long[] DV;
+
+    // Revised attraction weights w(v,u), stored on the slot of (v,u).
+    protected final double[] W;
+
+    protected final int words;
+
+    private final int activeNodesCount;
+    private final int[] order;
+
+    // Reusable buffers.
+    private final LabelWeights combinedClusterWeights = new LabelWeights();
+    private final int[] dominantLabels;
+    private final long[] DU;
+    private final long[] combinedDvu;
+
+    private int cycles = 0;
+    private boolean converged = false;
+    private volatile boolean isCancelled = false;
+
+    // Time (System.currentTimeMillis) after which no new cycle is started, Long.MAX_VALUE for none.
+    private long deadline = Long.MAX_VALUE;
+    private boolean deadlineReached = false;
+
+    // Publishes snapshots of the labels while the propagation runs, null when nobody watches.
+    private LabelPreview preview = null;
+
+    // Scans the neighborhoods of high-degree nodes in parallel chunks, null to scan every node sequentially.
+    private HubScans hubScans = null;
+
+    // When above 1, the visit order is shuffled by blocks of consecutive nodes, see setShuffleBlockSize.
+    private int shuffleBlockSize = 1;
+    private int[] blockOrder = null;
+
+    // Pulled weights, null while every change of Dv is pushed.
+    private LazyWeights lazyWeights = null;
+    private WeightRevision weightRevision = WeightRevision.PUSH;
+    private double pullThreshold = DEFAULT_PULL_THRESHOLD;
+    private boolean isPulling = false;
+    private int pullCycles = 0;
+
+    // Number of changes of Dv during the current cycle and fraction of the active nodes changed in the previous one.
+    private int dimensionChanges = 0;
+    private double lastDimensionChangesFraction = 1;
+
+    public LabelPropagation(MultidimensionalGraph graph, Preprocessing preprocessing, Random randomizer) {
+        this(graph, preprocessing, graph.getNodesCount(), null, randomizer);
+    }
+
+    /**
+     * @param activeNodesCount: number of nodes to update, starting from node 0.
+     * @param initialLabels: labels to start from, null to put each node in its own cluster.
+     */
+    public LabelPropagation(
+        MultidimensionalGraph graph,
+        Preprocessing preprocessing,
+        int activeNodesCount,
+        int[] initialLabels,
+        Random randomizer
+    )
+    {
+        this.graph = graph;
+        this.randomizer = randomizer;
+        this.activeNodesCount = activeNodesCount;
+        this.words = graph.getMaskWords();
+
+        this.W0 = preprocessing.getW0();
+        this.DV = preprocessing.getDV0().clone();
+        this.W = preprocessing.getW().clone();
+
+        int n = graph.getNodesCount();
+
+        if (initialLabels != null) {
+            this.labels = initialLabels.clone();
+        }
+        else {
+            this.labels = new int[n];
+
+            for (int v = 0; v < n; v++) {
+                labels[v] = v;
+            }
+        }
+
+        this.order = new int[activeNodesCount];
+
+        for (int v = 0; v < activeNodesCount; v++) {
+            order[v] = v;
+        }
+
+        int maxDegree = 0;
+
+        for (int v = 0; v < activeNodesCount; v++) {
+            maxDegree = Math.max(maxDegree, graph.getDegree(v));
+        }
+
+        // One more for the own cluster weight of subclasses.
+        this.dominantLabels = new int[maxDegree + 1];
+        this.DU = new long[words];
+        this.combinedDvu = new long[words];
+    }
+
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public long[] getDV() {
+        return DV;
+    }
+
+    public double[] getW() {
+        if (lazyWeights != null)
+            lazyWeights.refresh();
+
+        return W;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Stops the propagation at the first cycle boundary after the deadline (a System.currentTimeMillis time). The
+     * labels and relevant dimensions are then the ones of the last completed cycle, and the result isn't converged.
+     */
+    public void setDeadline(long value) {
+        this.deadline = value;
+    }
+
+    /**
+     * Sets the deadline millis milliseconds from now, see setDeadline.
+     */
+    public void setTimeBudget(long millis) {
+        setDeadline(System.currentTimeMillis() + millis);
+    }
+
+    /**
+     * Checks whether the deadline passed, in which case no new cycle should be started.
+     */
+    public boolean checkDeadline() {
+        if (!deadlineReached && System.currentTimeMillis() >= deadline)
+            deadlineReached = true;
+
+        return deadlineReached;
+    }
+
+    public boolean isDeadlineReached() {
+        return deadlineReached;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    public void setPreview(LabelPreview value) {
+        this.preview = value;
+    }
+
+    /**
+     * Shuffles the visit order by blocks of value consecutive nodes instead of node by node: the blocks are visited in
+     * a random order and the nodes of each block in a random order. On networks whose neighbors have close indices
+     * (see NodeReordering), the nodes updated one after the other then read close rows and labels.
+     */
+    public void setShuffleBlockSize(int value) {
+        this.shuffleBlockSize = Math.max(1, value);
+        this.blockOrder = null;
+    }
+
+    /**
+     * Splits the neighborhood scans of the nodes of degree above degreeThreshold into chunksCount chunks run on
+     * the executor, see HubScans.
+     */
+    public void setHubParallelism(ExecutorService executor, int degreeThreshold, int chunksCount) {
+        this.hubScans = chunksCount > 1 ? new HubScans(graph, executor, degreeThreshold, chunksCount) : null;
+    }
+
+    /**
+     * Sets how the weights are revised when Dv changes, see LabelPropagation.
+     */
+    public void setWeightRevision(WeightRevision value) {
+        this.weightRevision = value;
+
+        if (value != WeightRevision.PUSH && lazyWeights == null)
+            lazyWeights = new LazyWeights(graph, DV, W0, W);
+    }
+
+    /**
+     * Sets the fraction of the active nodes whose Dv changed during a cycle above which the next cycle pulls the
+     * weights in the AUTO mode.
+     */
+    public void setPullThreshold(double value) {
+        this.pullThreshold = value;
+    }
+
+    /**
+     * Returns the number of cycles which pulled the weights.
+     */
+    public int getPullCycles() {
+        return pullCycles;
+    }
+
+    /**
+     * Runs propagation cycles until convergence, cancellation, the deadline or until maxCycles cycles were run.
+     * @return true if the propagation converged.
+     */
+    public boolean propagate(int maxCycles) {
+        while (!isCancelled && !checkDeadline() && !checkConvergence() && cycles < maxCycles) {
+            runCycle();
+        }
+
+        return converged;
+    }
+
+    /**
+     * Runs a single propagation cycle over the active nodes in a random order.
+     * @return the number of nodes whose label changed.
+     */
+    public int runCycle() {
+        // This will simulate a random parallel processing
+        if (shuffleBlockSize > 1)
+            shuffleByBlocks();
+        else
+            shuffle(order, 0, order.length);
+
+        isPulling = weightRevision == WeightRevision.PULL
+            || (weightRevision == WeightRevision.AUTO && lastDimensionChangesFraction > pullThreshold);
+
+        if (isPulling)
+            pullCycles++;
+
+        dimensionChanges = 0;
+        int changes = 0;
+
+        for (int i = 0; i < order.length; i++) {
+            if (isCancelled)
+                break;
+
+            if (updateNode(order[i]))
+                changes++;
+
+            // Time based previews are also checked within long cycles.
+            if (preview != null && (i & PREVIEW_CHECK_MASK) == PREVIEW_CHECK_MASK)
+                preview.offer(labels, cycles, false);
+        }
+
+        cycles++;
+        lastDimensionChangesFraction = order.length > 0 ? dimensionChanges / (double)order.length : 0;
+
+        if (preview != null)
+            preview.offer(labels, cycles, true);
+
+        return changes;
+    }
+
+    /**
+     * Applies the update rule of MDLPA[1] on a node.
+     * @return true if the label of the node changed.
+     */
+    protected boolean updateNode(int v) {
+        int[] offsets = graph.getOffsets();
+
+        if (offsets[v] == offsets[v + 1])
+            return false;
+
+        int newlv = getDominantClusterInNeighbourhood(v);
+        boolean dimensionsChanged = updateDvAndw(v, newlv);
+        boolean labelChanged = labels[v] != newlv;
+
+        if (dimensionsChanged)
+            dimensionChanges++;
+
+        labels[v] = newlv;
+        onNodeUpdated(v, labelChanged, dimensionsChanged);
+
+        return labelChanged;
+    }
+
+    /**
+     * Returns the dominant cluster in the neighborhood of a node v based on the maximum combined attraction weight w.
+     * If two or more clusters apply the same w, then one of them is picked randomly.
+     */
+    protected int getDominantClusterInNeighbourhood(int v) {
+        tallyCombinedClusterWeights(v);
+
+        double maxWeight = combinedClusterWeights.getMaxWeight();
+        int tiesCount = 0;
+
+        for (int i = 0; i < combinedClusterWeights.size(); i++) {
+            if (combinedClusterWeights.getWeight(i) == maxWeight)
+                dominantLabels[tiesCount++] = combinedClusterWeights.getLabel(i);
+        }
+
+        // Take a random dominant cluster regardless of the current membership lv of v.
+        if (tiesCount == 1)
+            return dominantLabels[0];
+
+        return dominantLabels[randomizer.nextInt(tiesCount)];
+    }
+
+    private void tallyCombinedClusterWeights(int v) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+
+        combinedClusterWeights.clear();
+
+        if (hubScans != null && hubScans.isHub(v)) {
+            hubScans.tally(v, labels, W, lazyWeights, combinedClusterWeights);
+        }
+        else if (lazyWeights != null) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+                combinedClusterWeights.add(labels[u], lazyWeights.get(s, u));
+            }
+        }
+        else {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                combinedClusterWeights.add(labels[neighbors[s]], W[s]);
+            }
+        }
+
+        double ownClusterWeight = getOwnClusterWeight(v);
+
+        if (ownClusterWeight > 0)
+            combinedClusterWeights.add(labels[v], ownClusterWeight);
+    }
+
+    /**
+     * Updates the relevant dimensions Dv of v based on the relevant dimensions of the neighbors belonging to the winning cluster.
+     * If Dv changes, w(u,v) gets updated for each neighbor u in Nv.
+     * @return true if Dv changed.
+     */
+    protected boolean updateDvAndw(int v, int winningLabel) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+
+        MaskUtils.clear(DU, 0, words);
+        MaskUtils.clear(combinedDvu, 0, words);
+
+        if (hubScans != null && hubScans.isHub(v)) {
+            hubScans.collectWinningDimensions(v, winningLabel, labels, DV, DU, combinedDvu);
+        }
+        else {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (labels[u] != winningLabel)
+                    continue;
+
+                MaskUtils.or(DU, 0, DV, u * words, words);
+                MaskUtils.or(combinedDvu, 0, signatures, slotSignatures[s] * words, words);
+            }
+        }
+
+        if (winningLabel == labels[v])
+            addOwnClusterDimensions(v, DU, combinedDvu);
+
+        // Intersecting the two sets to filter out irrelevant dimensions possibly caught in the first propagation cycles.
+        MaskUtils.and(DU, 0, combinedDvu, 0, words);
+
+        // Nothing's changed, no need to update w(u,v)
+        if (MaskUtils.equals(DU, 0, DV, v * words, words))
+            return false;
+
+        MaskUtils.copy(DU, 0, DV, v * words, words);
+
+        // Updating w(u, v) carried by this node v on its neighbors u in Nv
+        updateW(v);
+
+        return true;
+    }
+
+    /**
+     * Updates the attraction weights w(u,v) applied by v on its neighbors u in Nv according to Dv.
+     * The distance between the new Dv and the connecting dimensions Dvu is estimated using the jaccard coefficient.
+     */
+    protected void updateW(int v) {
+        boolean hasRemoteSlots;
+
+        if (isPulling) {
+            // The weights applied on the local neighbors are computed again when they're read, the remote ones are
+            // still revised by their owners.
+            lazyWeights.defer(v);
+            hasRemoteSlots = activeNodesCount < graph.getNodesCount();
+        }
+        else {
+            // Revising the whole row at once, the weights applied on remote neighbors are revised afterwards.
+            int remoteSlots = hubScans != null && hubScans.isHub(v)
+                ? hubScans.reviseRow(v, DV, W0, W)
+                : WeightKernels.reviseRow(graph, DV, v, W0, W);
+
+            hasRemoteSlots = remoteSlots > 0;
+        }
+
+        if (!hasRemoteSlots)
+            return;
+
+        int[] offsets = graph.getOffsets();
+        int[] reverseSlots = graph.getReverseSlots();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            if (reverseSlots[s] >= 0)
+                continue;
+
+            double distance = MaskUtils.getJaccardCoefficient(DV, v * words, signatures, slotSignatures[s] * words, words);
+            reviseRemoteWeight(v, s, distance);
+        }
+    }
+
+    /**
+     * Checks whether all active nodes are currently bearing a dominant label according to the propagation rule of MDLPA.
+     */
+    public boolean checkConvergence() {
+        converged = true;
+
+        for (int v = 0; v < activeNodesCount; v++) {
+            if (!isAssignedToDominantClusterInNeighbourhood(v)) {
+                converged = false;
+                break;
+            }
+        }
+
+        return converged;
+    }
+
+    protected boolean isAssignedToDominantClusterInNeighbourhood(int v) {
+        int[] offsets = graph.getOffsets();
+
+        if (offsets[v] == offsets[v + 1])
+            return true;
+
+        tallyCombinedClusterWeights(v);
+
+        return combinedClusterWeights.get(labels[v]) == combinedClusterWeights.getMaxWeight();
+    }
+
+    /**
+     * Returns the weight applied on v by its own cluster besides its neighbors, see ReducedLabelPropagation.
+     */
+    protected double getOwnClusterWeight(int v) {
+        return 0;
+    }
+
+    /**
+     * Invoked when v stays in its own cluster to add the dimensions brought by the members of the cluster which aren't
+     * neighbors of v to DU and to the combined connecting dimensions, see ReducedLabelPropagation.
+     */
+    protected void addOwnClusterDimensions(int v, long[] DU, long[] combinedDvu) {
+    }
+
+    /**
+     * Invoked after the update of an active node.
+     */
+    protected void onNodeUpdated(int v, boolean labelChanged, boolean dimensionsChanged) {
+    }
+
+    /**
+     * Invoked when Dv changes and the row of the neighbor on the slot s isn't held by this propagation.
+     */
+    protected void reviseRemoteWeight(int v, int s, double distance) {
+    }
+
+    private void shuffle(int[] values, int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + randomizer.nextInt(i - from + 1);
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    private void shuffleByBlocks() {
+        int blocksCount = (order.length + shuffleBlockSize - 1) / shuffleBlockSize;
+
+        if (blockOrder == null) {
+            blockOrder = new int[blocksCount];
+
+            for (int b = 0; b < blocksCount; b++) {
+                blockOrder[b] = b;
+            }
+        }
+
+        shuffle(blockOrder, 0, blocksCount);
+
+        int i = 0;
+
+        for (int b : blockOrder) {
+            int blockStart = i;
+            int end = Math.min(order.length, (b + 1) * shuffleBlockSize);
+
+            for (int v = b * shuffleBlockSize; v < end; v++) {
+                order[i++] = v;
+            }
+
+            shuffle(order, blockStart, i);
+        }
+    }
+
+    /**
+     * Regroups the nodes into clusters based on their current labels.
+     */
+    public ClusteringResult getResult() {
+        return ClusteringResult.create(graph, labels, DV, cycles, converged);
+    }
+}
@@ -0,0 +1,149 @@
+package MDLPA.engine;
+
+/**
+ * Accumulates the combined attraction weights applied by each neighboring cluster on a node.
+ * Labels are kept in an open addressing table so that a tally costs O(degree) regardless of the number of labels,
+ * and are enumerated in the order of their first appearance.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class LabelWeights {
+    private int[] keys;
+    private double[] values;
+    private int[] used;
+    private int[] order;
+    private int size = 0;
+    private int mask;
+
+    public LabelWeights() {
+        this(16);
+    }
+
+    public LabelWeights(int expectedLabels) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedLabels * 2 - 1)) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new double[capacity];
+        used = new int[capacity];
+        order = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * Adds a weight to the combined weight of a label.
+     */
+    public void add(int label, double weight) {
+        int position = indexOf(label);
+
+        if (position < 0) {
+            if ((size + 1) * 2 > keys.length)
+                grow();
+
+            position = ~indexOf(label);
+            keys[position] = label;
+            values[position] = 0;
+            used[position] = 1;
+            order[size++] = position;
+        }
+
+        values[position] += weight;
+    }
+
+    /**
+     * Returns the combined weight of a label, NaN if the label wasn't met.
+     */
+    public double get(int label) {
+        int position = indexOf(label);
+
+        return position < 0 ? Double.NaN : values[position];
+    }
+
+    public boolean contains(int label) {
+        return indexOf(label) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the i-th label in the order of first appearance.
+     */
+    public int getLabel(int i) {
+        return keys[order[i]];
+    }
+
+    /**
+     * Returns the combined weight of the i-th label in the order of first appearance.
+     */
+    public double getWeight(int i) {
+        return values[order[i]];
+    }
+
+    public double getMaxWeight() {
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, values[order[i]]);
+        }
+
+        return max;
+    }
+
+    /**
+     * Merges the weights tallied by another instance into this one.
+     */
+    public void addAll(LabelWeights other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.getLabel(i), other.getWeight(i));
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            used[order[i]] = 0;
+        }
+
+        size = 0;
+    }
+
+    private int indexOf(int label) {
+        int position = mix(label) & mask;
+
+        while (used[position] != 0) {
+            if (keys[position] == label)
+                return position;
+
+            position = (position + 1) & mask;
+        }
+
+        return ~position;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        int[] oldOrder = order;
+        int oldSize = size;
+
+        allocate(keys.length * 2);
+
+        for (int i = 0; i < oldSize; i++) {
+            int position = ~indexOf(oldKeys[oldOrder[i]]);
+            keys[position] = oldKeys[oldOrder[i]];
+            values[position] = oldValues[oldOrder[i]];
+            used[position] = 1;
+            order[size++] = position;
+        }
+    }
+
+    private static int mix(int label) {
+        int h = label * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,242 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Cheap pre-clustering of a network used as the warm start of MDLPA[1] (see WarmStart):
+ * - a plain label propagation is run on each dimension (layer) separately, over the edges holding it and without
+ *   weights, a node keeping its label when it's among the dominant ones. The layers are propagated concurrently over
+ *   the shared, read-only network and only run a few cycles,
+ * - the consensus merges the endpoints of the edges which share a label on more than consensusThreshold of the layers
+ *   in which both have edges, in the same way as the consensus of EnsembleMDLPA.
+ * Only the labels are seeded, the propagation starts from Dv_0. Each layer cycle scans the whole rows of the nodes of
+ * the layer, so the pre-clustering costs about cycles full cycles per layer spread over the threads.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class LayerPreclustering {
+    private final MultidimensionalGraph graph;
+
+    private int cycles = 5;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private double consensusThreshold = 0.5;
+    private long seed = System.currentTimeMillis();
+
+    public LayerPreclustering(MultidimensionalGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets the maximum number of cycles run on each layer.
+     */
+    public void setCycles(int value) {
+        this.cycles = value;
+    }
+
+    public void setThreadsCount(int value) {
+        this.threadsCount = value;
+    }
+
+    public void setConsensusThreshold(double value) {
+        this.consensusThreshold = value;
+    }
+
+    public void setSeed(long value) {
+        this.seed = value;
+    }
+
+    public WarmStart run() throws InterruptedException, ExecutionException {
+        int dimensionsCount = graph.getDimensionsCount();
+
+        // Number of layers on which the endpoints of each slot share the same label.
+        final AtomicIntegerArray agreements = new AtomicIntegerArray(graph.getSlotsCount());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadsCount, dimensionsCount)));
+        List<Future<?>> layers = new ArrayList<Future<?>>();
+
+        try {
+            for (int d = 0; d < dimensionsCount; d++) {
+                final int dimension = d;
+                final Random randomizer = new Random(seed + d);
+
+                layers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        propagateLayer(dimension, randomizer, agreements);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> layer : layers) {
+                layer.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        return new WarmStart(buildConsensus(agreements), null);
+    }
+
+    /**
+     * Runs the label propagation on one layer and counts the slots whose endpoints end up with the same label.
+     */
+    private void propagateLayer(int dimension, Random randomizer, AtomicIntegerArray agreements) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        boolean[] isInLayer = new boolean[graph.getSignaturesCount()];
+
+        for (int i = 0; i < isInLayer.length; i++) {
+            isInLayer[i] = MaskUtils.get(signatures, i * words, dimension);
+        }
+
+        int[] labels = new int[n];
+        int[] order = new int[n];
+        int layerNodesCount = 0;
+        int maxDegree = 0;
+
+        for (int v = 0; v < n; v++) {
+            labels[v] = v;
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (isInLayer[slotSignatures[s]]) {
+                    order[layerNodesCount++] = v;
+                    maxDegree = Math.max(maxDegree, offsets[v + 1] - offsets[v]);
+                    break;
+                }
+            }
+        }
+
+        LabelWeights labelWeights = new LabelWeights();
+        int[] dominantLabels = new int[maxDegree];
+
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            for (int i = layerNodesCount - 1; i > 0; i--) {
+                int j = randomizer.nextInt(i + 1);
+                int v = order[i];
+                order[i] = order[j];
+                order[j] = v;
+            }
+
+            int changes = 0;
+
+            for (int i = 0; i < layerNodesCount; i++) {
+                int v = order[i];
+                labelWeights.clear();
+
+                for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                    if (isInLayer[slotSignatures[s]])
+                        labelWeights.add(labels[neighbors[s]], 1);
+                }
+
+                double maxWeight = labelWeights.getMaxWeight();
+                int tiesCount = 0;
+                boolean isCurrentDominant = false;
+
+                for (int k = 0; k < labelWeights.size(); k++) {
+                    if (labelWeights.getWeight(k) == maxWeight) {
+                        dominantLabels[tiesCount++] = labelWeights.getLabel(k);
+                        isCurrentDominant |= labelWeights.getLabel(k) == labels[v];
+                    }
+                }
+
+                if (isCurrentDominant)
+                    continue;
+
+                labels[v] = dominantLabels[tiesCount == 1 ? 0 : randomizer.nextInt(tiesCount)];
+                changes++;
+            }
+
+            if (changes == 0)
+                break;
+        }
+
+        // Nodes outside of the layer kept their own index as label, so they never agree with a neighbor.
+        for (int i = 0; i < layerNodesCount; i++) {
+            int v = order[i];
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (labels[v] == labels[neighbors[s]])
+                    agreements.incrementAndGet(s);
+            }
+        }
+    }
+
+    private int[] buildConsensus(AtomicIntegerArray agreements) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int[] parents = new int[n];
+
+        // Dimensions in which each node has edges.
+        long[] layers = new long[n * words];
+
+        for (int v = 0; v < n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                MaskUtils.or(layers, v * words, signatures, slotSignatures[s] * words, words);
+            }
+        }
+
+        for (int v = 0; v < n; v++) {
+            parents[v] = v;
+        }
+
+        for (int v = 0; v < n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+                int sharedLayers = 0;
+
+                for (int w = 0; w < words; w++) {
+                    sharedLayers += Long.bitCount(layers[v * words + w] & layers[u * words + w]);
+                }
+
+                if (agreements.get(s) > consensusThreshold * sharedLayers)
+                    union(parents, v, u);
+            }
+        }
+
+        int[] labels = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            labels[v] = find(parents, v);
+        }
+
+        return labels;
+    }
+
+    private static int find(int[] parents, int v) {
+        while (parents[v] != v) {
+            parents[v] = parents[parents[v]];
+            v = parents[v];
+        }
+
+        return v;
+    }
+
+    private static void union(int[] parents, int v, int u) {
+        int rootv = find(parents, v);
+        int rootu = find(parents, u);
+
+        if (rootv != rootu)
+            parents[Math.max(rootv, rootu)] = Math.min(rootv, rootu);
+    }
+}
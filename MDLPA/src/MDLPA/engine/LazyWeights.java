@@ -0,0 +1,69 @@
+package MDLPA.engine;
+
+/**
+ * Pull side of the revision of the attraction weights of a LabelPropagation: instead of revising w(u,v) on all its
+ * neighbors u when Dv changes (push), a node only bumps its version, and the weight w(u,v) stored on a slot of u is
+ * computed again from w0 and the current Dv when it's read with a version older than the one of v. The weights read
+ * are thus the same as the pushed ones, the cost of a change of Dv being paid by the scans of its neighbors, which
+ * write their own rows, instead of the scattered writes of a push.
+ * The slots of a row are written by the scans of the row only, so that the chunks of a hub scan (see HubScans) can
+ * read their slots concurrently.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+final class LazyWeights {
+    private final MultidimensionalGraph graph;
+    private final long[] DV;
+    private final double[] W0;
+    private final double[] W;
+
+    // Number of changes of Dv of each node which weren't pushed.
+    private final int[] nodeVersions;
+
+    // Version of the neighbor for which the weight of each slot was last computed or pushed.
+    private final int[] slotVersions;
+
+    LazyWeights(MultidimensionalGraph graph, long[] DV, double[] W0, double[] W) {
+        this.graph = graph;
+        this.DV = DV;
+        this.W0 = W0;
+        this.W = W;
+        this.nodeVersions = new int[graph.getNodesCount()];
+        this.slotVersions = new int[graph.getSlotsCount()];
+    }
+
+    /**
+     * Returns the weight of the slot s towards the neighbor u, computing it again if Dv changed since.
+     */
+    double get(int s, int u) {
+        if (slotVersions[s] != nodeVersions[u]) {
+            W[s] = WeightKernels.getWeight(graph, DV, u, s, W0);
+            slotVersions[s] = nodeVersions[u];
+        }
+
+        return W[s];
+    }
+
+    /**
+     * Marks the weights applied by v on its neighbors as stale after a change of Dv which isn't pushed.
+     */
+    void defer(int v) {
+        nodeVersions[v]++;
+    }
+
+    /**
+     * Computes again all the stale weights, so that W can be read directly.
+     */
+    void refresh() {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+
+        for (int v = 0; v < graph.getNodesCount(); v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                get(s, neighbors[s]);
+            }
+        }
+    }
+}
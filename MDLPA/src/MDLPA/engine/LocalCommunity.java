@@ -0,0 +1,109 @@
+package MDLPA.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the community Ck = (Vk, Dk) of a set of seed nodes found by a LocalCommunityQuery, along with the extent of
+ * the network explored to find it.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class LocalCommunity {
+    private final MultidimensionalGraph graph;
+
+    // Indices of the members of the community.
+    private final int[] nodes;
+
+    // Relevant dimensions Dk of the community, packed on maskWords words.
+    private final long[] dimensions;
+
+    private final int seedsInCommunity;
+    private final int propagatedCount;
+    private final int exploredCount;
+    private final int rounds;
+    private final int cycles;
+    private final boolean stable;
+
+    public LocalCommunity(
+        MultidimensionalGraph graph,
+        int[] nodes,
+        long[] dimensions,
+        int seedsInCommunity,
+        int propagatedCount,
+        int exploredCount,
+        int rounds,
+        int cycles,
+        boolean stable
+    )
+    {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.dimensions = dimensions;
+        this.seedsInCommunity = seedsInCommunity;
+        this.propagatedCount = propagatedCount;
+        this.exploredCount = exploredCount;
+        this.rounds = rounds;
+        this.cycles = cycles;
+        this.stable = stable;
+    }
+
+    public int[] getNodes() {
+        return nodes;
+    }
+
+    public List<String> getNodeIds() {
+        List<String> ids = new ArrayList<String>(nodes.length);
+
+        for (int v : nodes) {
+            ids.add(graph.getNodeId(v));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the names of the relevant dimensions Dk of the community.
+     */
+    public List<String> getRelevantDimensions() {
+        return graph.getDimensionNames(dimensions, 0);
+    }
+
+    /**
+     * Returns the number of seeds which ended in the community of the first one.
+     */
+    public int getSeedsInCommunity() {
+        return seedsInCommunity;
+    }
+
+    /**
+     * Returns the number of nodes whose labels were propagated.
+     */
+    public int getPropagatedCount() {
+        return propagatedCount;
+    }
+
+    /**
+     * Returns the number of nodes read, i.e. the propagated nodes and their frozen neighbors.
+     */
+    public int getExploredCount() {
+        return exploredCount;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Returns false if the query stopped on its limits before the label and relevant dimensions of the seeds settled.
+     */
+    public boolean isStable() {
+        return stable;
+    }
+}
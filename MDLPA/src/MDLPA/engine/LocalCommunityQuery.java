@@ -0,0 +1,454 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Finds the MDLPA[1] community of one or more seed nodes without running the propagation over the whole network.
+ * The propagation runs on a region of the network grown outward from the seeds, in rounds:
+ * - the labels and relevant dimensions of the nodes of the region are propagated until they are all dominant, as in
+ *   LabelPropagation,
+ * - the neighbors of the region are read but frozen (boundary conditions): they keep their own label and Dv_0,
+ * - the region is then extended with the frozen neighbors of the community of the first seed.
+ * The query stops once the labels and relevant dimensions of the seeds are the same after an extension as before it,
+ * when the community has no frozen neighbor left, or when maxNodes nodes were read.
+ * Without a Preprocessing, w0 and Dv_0 are computed for the nodes read only, so that the cost of a query depends on
+ * the size of the explored region rather than on the size of the network.
+ * A query isn't thread-safe, each thread runs its own.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class LocalCommunityQuery {
+    public static final int DEFAULT_MAX_CYCLES = 100;
+
+    private final MultidimensionalGraph graph;
+    private final Preprocessing preprocessing;
+    private final Random randomizer;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final int[] slotSignatures;
+    private final long[] signatures;
+    private final int words;
+    private final Preprocessing.NeighborhoodScratch scratch;
+
+    private int maxNodes = Integer.MAX_VALUE;
+    private int maxCycles = DEFAULT_MAX_CYCLES;
+
+    // Local index of each node read, the per node state below is indexed by local index.
+    private final Map<Integer, Integer> localIndices = new HashMap<Integer, Integer>();
+    private int exploredCount = 0;
+    private int[] nodes = new int[16];
+    private int[] labels = new int[16];
+    private long[] DV;
+    private boolean[] inRegion = new boolean[16];
+
+    // w0 of the row of each node, from w0Offsets[l].
+    private int[] w0Offsets = new int[16];
+    private double[] W0 = new double[64];
+    private int w0Size = 0;
+
+    // Local indices of the neighbors of each node of the region, from neighborOffsets[l].
+    private int[] neighborOffsets = new int[16];
+    private int[] localNeighbors = new int[64];
+    private int localNeighborsSize = 0;
+
+    private int[] region = new int[16];
+    private int regionSize = 0;
+    private int[] order = new int[16];
+    private int cycles = 0;
+
+    // Reusable buffers.
+    private final LabelWeights combinedClusterWeights = new LabelWeights();
+    private int[] dominantLabels = new int[16];
+    private final long[] DU;
+    private final long[] combinedDvu;
+
+    /**
+     * @param preprocessing: the initialization of the whole network if it's available, null to initialize the nodes
+     * read only.
+     */
+    public LocalCommunityQuery(MultidimensionalGraph graph, Preprocessing preprocessing, Random randomizer) {
+        this.graph = graph;
+        this.preprocessing = preprocessing;
+        this.randomizer = randomizer;
+        this.offsets = graph.getOffsets();
+        this.neighbors = graph.getNeighbors();
+        this.slotSignatures = graph.getSlotSignatures();
+        this.signatures = graph.getSignatures();
+        this.words = graph.getMaskWords();
+        this.scratch = preprocessing == null ? new Preprocessing.NeighborhoodScratch(graph.getSignaturesCount()) : null;
+        this.DV = new long[16 * words];
+        this.DU = new long[words];
+        this.combinedDvu = new long[words];
+    }
+
+    /**
+     * Stops extending the region once maxNodes nodes were read (the nodes of the last extension are still added).
+     */
+    public void setMaxNodes(int value) {
+        this.maxNodes = value;
+    }
+
+    /**
+     * Sets the maximum number of propagation cycles run on the region between two extensions.
+     */
+    public void setMaxCycles(int value) {
+        this.maxCycles = value;
+    }
+
+    /**
+     * Finds the community of the first seed, the other seeds being propagated from the start along with it.
+     */
+    public LocalCommunity find(int... seeds) {
+        localIndices.clear();
+        exploredCount = 0;
+        w0Size = 0;
+        localNeighborsSize = 0;
+        regionSize = 0;
+        cycles = 0;
+
+        int[] seedIndices = new int[seeds.length];
+
+        for (int i = 0; i < seeds.length; i++) {
+            seedIndices[i] = explore(seeds[i]);
+
+            if (!inRegion[seedIndices[i]])
+                addToRegion(seedIndices[i]);
+        }
+
+        int[] seedLabels = new int[seeds.length];
+        long[] seedDV = new long[seeds.length * words];
+        boolean stable = false;
+        int rounds = 0;
+
+        while (true) {
+            int roundCycles = 0;
+
+            while (!checkConvergence() && roundCycles < maxCycles) {
+                runCycle();
+                roundCycles++;
+            }
+
+            boolean unchanged = rounds > 0;
+
+            for (int i = 0; i < seeds.length; i++) {
+                int l = seedIndices[i];
+
+                unchanged &= labels[l] == seedLabels[i] && MaskUtils.equals(DV, l * words, seedDV, i * words, words);
+                seedLabels[i] = labels[l];
+                MaskUtils.copy(DV, l * words, seedDV, i * words, words);
+            }
+
+            rounds++;
+
+            if (unchanged) {
+                stable = true;
+                break;
+            }
+
+            if (exploredCount >= maxNodes)
+                break;
+
+            if (extend(seedLabels[0]) == 0) {
+                stable = true;
+                break;
+            }
+        }
+
+        return createCommunity(seedIndices, rounds, stable);
+    }
+
+    /**
+     * Returns the local index of a node, reading its row and initializing it if it wasn't read yet.
+     */
+    private int explore(int v) {
+        Integer index = localIndices.get(v);
+
+        if (index != null)
+            return index;
+
+        int l = exploredCount++;
+        int degree = offsets[v + 1] - offsets[v];
+
+        if (nodes.length == l) {
+            int capacity = l * 2;
+
+            nodes = Arrays.copyOf(nodes, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            DV = Arrays.copyOf(DV, capacity * words);
+            inRegion = Arrays.copyOf(inRegion, capacity);
+            w0Offsets = Arrays.copyOf(w0Offsets, capacity);
+            neighborOffsets = Arrays.copyOf(neighborOffsets, capacity);
+        }
+
+        if (W0.length < w0Size + degree)
+            W0 = Arrays.copyOf(W0, Math.max(w0Size + degree, W0.length * 2));
+
+        localIndices.put(v, l);
+        nodes[l] = v;
+        labels[l] = v;
+        inRegion[l] = false;
+        w0Offsets[l] = w0Size;
+        w0Size += degree;
+        initialize(v, l);
+
+        return l;
+    }
+
+    /**
+     * Sets w0 of the row of v and Dv_0, from the preprocessing if there is one, as in Preprocessing otherwise.
+     */
+    private void initialize(int v, int l) {
+        int from = offsets[v];
+        int to = offsets[v + 1];
+        int base = w0Offsets[l] - from;
+
+        if (preprocessing != null) {
+            System.arraycopy(preprocessing.getW0(), from, W0, w0Offsets[l], to - from);
+            MaskUtils.copy(preprocessing.getDV0(), v * words, DV, l * words, words);
+            return;
+        }
+
+        MaskUtils.clear(DV, l * words, words);
+
+        if (from == to)
+            return;
+
+        int distinctCount = scratch.collectDistinctSignatures(slotSignatures, from, to);
+        int[] distinct = scratch.distinct;
+
+        Preprocessing.calculateDRxOR(graph, scratch, distinctCount);
+
+        for (int s = from; s < to; s++) {
+            W0[base + s] = scratch.values[slotSignatures[s]];
+        }
+
+        for (int i = 0; i < distinctCount; i++) {
+            scratch.values[distinct[i]] = 0;
+        }
+
+        for (int s = from; s < to; s++) {
+            scratch.values[slotSignatures[s]] += W0[base + s];
+        }
+
+        double maxAccumulatedW0 = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < distinctCount; i++) {
+            maxAccumulatedW0 = Math.max(maxAccumulatedW0, scratch.values[distinct[i]]);
+        }
+
+        for (int i = 0; i < distinctCount; i++) {
+            if (scratch.values[distinct[i]] == maxAccumulatedW0)
+                MaskUtils.or(DV, l * words, signatures, distinct[i] * words, words);
+        }
+    }
+
+    /**
+     * Adds a node to the region, reading its neighbors which become frozen unless they are in the region already.
+     */
+    private void addToRegion(int l) {
+        int v = nodes[l];
+        int degree = offsets[v + 1] - offsets[v];
+
+        if (region.length == regionSize) {
+            region = Arrays.copyOf(region, regionSize * 2);
+            order = new int[region.length];
+        }
+
+        if (localNeighbors.length < localNeighborsSize + degree)
+            localNeighbors = Arrays.copyOf(localNeighbors, Math.max(localNeighborsSize + degree, localNeighbors.length * 2));
+
+        inRegion[l] = true;
+        region[regionSize++] = l;
+        neighborOffsets[l] = localNeighborsSize;
+        localNeighborsSize += degree;
+
+        for (int i = 0; i < degree; i++) {
+            int lu = explore(neighbors[offsets[v] + i]);
+            localNeighbors[neighborOffsets[l] + i] = lu;
+        }
+    }
+
+    /**
+     * Adds the frozen neighbors of the members of a community to the region.
+     * @return the number of nodes added.
+     */
+    private int extend(int label) {
+        int size = regionSize;
+        int added = 0;
+
+        for (int i = 0; i < size && exploredCount < maxNodes; i++) {
+            int l = region[i];
+
+            if (labels[l] != label)
+                continue;
+
+            int degree = offsets[nodes[l] + 1] - offsets[nodes[l]];
+
+            for (int j = 0; j < degree; j++) {
+                int lu = localNeighbors[neighborOffsets[l] + j];
+
+                if (!inRegion[lu]) {
+                    addToRegion(lu);
+                    added++;
+                }
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Runs a single propagation cycle over the region in a random order.
+     */
+    private void runCycle() {
+        System.arraycopy(region, 0, order, 0, regionSize);
+
+        for (int i = regionSize - 1; i > 0; i--) {
+            int j = randomizer.nextInt(i + 1);
+            int value = order[i];
+            order[i] = order[j];
+            order[j] = value;
+        }
+
+        for (int i = 0; i < regionSize; i++) {
+            updateNode(order[i]);
+        }
+
+        cycles++;
+    }
+
+    /**
+     * Checks whether all nodes of the region are bearing a dominant label.
+     */
+    private boolean checkConvergence() {
+        for (int i = 0; i < regionSize; i++) {
+            int l = region[i];
+
+            if (tallyCombinedClusterWeights(l) == 0)
+                continue;
+
+            if (combinedClusterWeights.get(labels[l]) != combinedClusterWeights.getMaxWeight())
+                return false;
+        }
+
+        return true;
+    }
+
+    private void updateNode(int l) {
+        if (tallyCombinedClusterWeights(l) == 0)
+            return;
+
+        int newlv = getDominantCluster();
+
+        updateDv(l, newlv);
+        labels[l] = newlv;
+    }
+
+    /**
+     * Picks the cluster applying the highest combined weight in the last tally, randomly among ties.
+     */
+    private int getDominantCluster() {
+        double maxWeight = combinedClusterWeights.getMaxWeight();
+        int tiesCount = 0;
+
+        if (dominantLabels.length < combinedClusterWeights.size())
+            dominantLabels = new int[combinedClusterWeights.size()];
+
+        for (int i = 0; i < combinedClusterWeights.size(); i++) {
+            if (combinedClusterWeights.getWeight(i) == maxWeight)
+                dominantLabels[tiesCount++] = combinedClusterWeights.getLabel(i);
+        }
+
+        if (tiesCount == 1)
+            return dominantLabels[0];
+
+        return dominantLabels[randomizer.nextInt(tiesCount)];
+    }
+
+    /**
+     * Tallies the combined weights w0(v,u) * J(Du, Dvu) applied on a node of the region by its neighboring clusters.
+     * @return the degree of the node.
+     */
+    private int tallyCombinedClusterWeights(int l) {
+        int from = offsets[nodes[l]];
+        int degree = offsets[nodes[l] + 1] - from;
+
+        combinedClusterWeights.clear();
+
+        for (int i = 0; i < degree; i++) {
+            int lu = localNeighbors[neighborOffsets[l] + i];
+            double distance = MaskUtils.getJaccardCoefficient(DV, lu * words, signatures, slotSignatures[from + i] * words, words);
+
+            combinedClusterWeights.add(labels[lu], W0[w0Offsets[l] + i] * distance);
+        }
+
+        return degree;
+    }
+
+    /**
+     * Updates Dv from the relevant dimensions of the neighbors belonging to the winning cluster and the dimensions
+     * connecting v to them.
+     */
+    private void updateDv(int l, int winningLabel) {
+        int from = offsets[nodes[l]];
+        int degree = offsets[nodes[l] + 1] - from;
+
+        MaskUtils.clear(DU, 0, words);
+        MaskUtils.clear(combinedDvu, 0, words);
+
+        for (int i = 0; i < degree; i++) {
+            int lu = localNeighbors[neighborOffsets[l] + i];
+
+            if (labels[lu] != winningLabel)
+                continue;
+
+            MaskUtils.or(DU, 0, DV, lu * words, words);
+            MaskUtils.or(combinedDvu, 0, signatures, slotSignatures[from + i] * words, words);
+        }
+
+        MaskUtils.and(DU, 0, combinedDvu, 0, words);
+        MaskUtils.copy(DU, 0, DV, l * words, words);
+    }
+
+    /**
+     * Collects the nodes read bearing the label of the first seed, and the union of their relevant dimensions.
+     */
+    private LocalCommunity createCommunity(int[] seedIndices, int rounds, boolean stable) {
+        int label = labels[seedIndices[0]];
+        long[] dimensions = new long[words];
+        int count = 0;
+
+        for (int l = 0; l < exploredCount; l++) {
+            if (labels[l] == label)
+                count++;
+        }
+
+        int[] members = new int[count];
+        count = 0;
+
+        for (int l = 0; l < exploredCount; l++) {
+            if (labels[l] != label)
+                continue;
+
+            members[count++] = nodes[l];
+            MaskUtils.or(dimensions, 0, DV, l * words, words);
+        }
+
+        Arrays.sort(members);
+
+        int seedsInCommunity = 0;
+
+        for (int l : seedIndices) {
+            if (labels[l] == label)
+                seedsInCommunity++;
+        }
+
+        return new LocalCommunity(graph, members, dimensions, seedsInCommunity, regionSize, exploredCount, rounds, cycles, stable);
+    }
+}
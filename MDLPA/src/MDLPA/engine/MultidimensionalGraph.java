@@ -0,0 +1,228 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, Gephi-independent representation of a multidimensional network on which MDLPA[1] is executed.
+ * Nodes are identified by their index in [0, n) and the adjacency is stored as a compressed sparse row (CSR) structure
+ * where each undirected edge (v,u) is represented by two slots: one in the row of v and one in the row of u.
+ * Rows are sorted by neighbor index.
+ *
+ * The set of connecting dimensions Dvu of each edge is not stored per edge; distinct sets are collected once into a
+ * table of signatures (packed dimension masks) and each slot refers to the id of its signature.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class MultidimensionalGraph {
+    // Original ids of the nodes (as found in the edge list or in the Gephi graph), null to use the node indices.
+    private final String[] nodeIds;
+
+    // Original names of the dimensions, indexed by their bit position in the masks.
+    private final String[] dimensionNames;
+
+    // Row v spans the slots [offsets[v], offsets[v + 1]).
+    private final int[] offsets;
+
+    // Neighbor u of each slot.
+    private final int[] neighbors;
+
+    // For the slot of (v,u) in the row of v, the slot of (u,v) in the row of u, -1 if the row of u isn't available.
+    private final int[] reverseSlots;
+
+    // Id of the signature Dvu of each slot.
+    private final int[] slotSignatures;
+
+    // Packed masks of the distinct signatures, maskWords words each.
+    private final long[] signatures;
+
+    private final int maskWords;
+
+    // Index of each node id, built on the first lookup.
+    private Map<String, Integer> nodeIndices = null;
+
+    public MultidimensionalGraph(
+        String[] nodeIds,
+        String[] dimensionNames,
+        int[] offsets,
+        int[] neighbors,
+        int[] reverseSlots,
+        int[] slotSignatures,
+        long[] signatures,
+        int maskWords
+    )
+    {
+        this.nodeIds = nodeIds;
+        this.dimensionNames = dimensionNames;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.reverseSlots = reverseSlots;
+        this.slotSignatures = slotSignatures;
+        this.signatures = signatures;
+        this.maskWords = maskWords;
+    }
+
+    /**
+     * Returns a network holding nodes and dimensions but no edges, which is all a ClusteringResult reads.
+     */
+    public static MultidimensionalGraph withoutEdges(String[] nodeIds, String[] dimensionNames, int maskWords) {
+        return new MultidimensionalGraph(
+            nodeIds,
+            dimensionNames,
+            new int[nodeIds.length + 1],
+            new int[0],
+            new int[0],
+            new int[0],
+            new long[0],
+            maskWords
+        );
+    }
+
+    public int getNodesCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of undirected edges.
+     */
+    public int getEdgesCount() {
+        return neighbors.length / 2;
+    }
+
+    public int getSlotsCount() {
+        return neighbors.length;
+    }
+
+    public int getDimensionsCount() {
+        return dimensionNames.length;
+    }
+
+    public int getSignaturesCount() {
+        return signatures.length / maskWords;
+    }
+
+    public int getMaskWords() {
+        return maskWords;
+    }
+
+    public String getNodeId(int v) {
+        return nodeIds != null ? nodeIds[v] : Integer.toString(v);
+    }
+
+    public String[] getNodeIds() {
+        if (nodeIds != null)
+            return nodeIds;
+
+        String[] ids = new String[getNodesCount()];
+
+        for (int v = 0; v < ids.length; v++) {
+            ids[v] = Integer.toString(v);
+        }
+
+        return ids;
+    }
+
+    public String[] getDimensionNames() {
+        return dimensionNames;
+    }
+
+    /**
+     * Returns the index of the node bearing an id, -1 if there is none.
+     */
+    public synchronized int getNodeIndex(String id) {
+        if (nodeIndices == null) {
+            String[] ids = getNodeIds();
+            nodeIndices = new HashMap<String, Integer>(ids.length * 2);
+
+            for (int v = 0; v < ids.length; v++) {
+                nodeIndices.put(ids[v], v);
+            }
+        }
+
+        Integer index = nodeIndices.get(id);
+
+        return index != null ? index : -1;
+    }
+
+    public int getDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+
+    public int[] getReverseSlots() {
+        return reverseSlots;
+    }
+
+    public int[] getSlotSignatures() {
+        return slotSignatures;
+    }
+
+    public long[] getSignatures() {
+        return signatures;
+    }
+
+    /**
+     * Returns the slot of (v,u) in the row of v, -1 if u is not a neighbor of v.
+     */
+    public int getSlot(int v, int u) {
+        int low = offsets[v];
+        int high = offsets[v + 1] - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int neighbor = neighbors[middle];
+
+            if (neighbor < u)
+                low = middle + 1;
+            else if (neighbor > u)
+                high = middle - 1;
+            else
+                return middle;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Recovers back the original dimension names from a packed mask.
+     */
+    public List<String> getDimensionNames(long[] mask, int offset) {
+        List<String> names = new ArrayList<String>();
+
+        for (int d = 0; d < dimensionNames.length; d++) {
+            if (MaskUtils.get(mask, offset, d))
+                names.add(dimensionNames[d]);
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the BitSet representation of a signature.
+     */
+    public BitSet getSignature(int signature) {
+        return MaskUtils.toBitSet(signatures, signature * maskWords, maskWords);
+    }
+
+    /**
+     * Rough estimation of the heap occupied by the structure, in bytes.
+     */
+    public long getEstimatedMemory() {
+        return 4L * (offsets.length + 3L * neighbors.length)
+            + 8L * signatures.length
+            + 64L * ((nodeIds != null ? nodeIds.length : 0) + dimensionNames.length);
+    }
+}
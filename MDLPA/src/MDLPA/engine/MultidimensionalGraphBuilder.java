@@ -0,0 +1,387 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Builds up a MultidimensionalGraph from a list of labeled edges.
+ * The label of each edge holds the names of its connecting dimensions separated by the dimensions separator,
+ * example : label of edge (n0,n1) = "d0,d2,d5".
+ * Dimension ids start from 0 with 1 graded increments in the order of their first appearance.
+ * Self loops are ignored, and the dimensions of repeated node pairs are merged into a single edge.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class MultidimensionalGraphBuilder {
+    private final Pattern dimensionsSeparator;
+
+    // Maps each node id to its index.
+    private final Map<String, Integer> nodeIndices = new HashMap<String, Integer>();
+    private final List<String> nodeIds = new ArrayList<String>();
+
+    // Maps each existing dimensions label (ex D1) to a unique integer identifier.
+    private final Map<String, Integer> dimensionIds = new HashMap<String, Integer>();
+    private final List<String> dimensionNames = new ArrayList<String>();
+
+    // Maps each distinct set of connecting dimensions to its signature id.
+    private final Map<BitSet, Integer> signatureIds = new HashMap<BitSet, Integer>();
+    private final List<BitSet> signatures = new ArrayList<BitSet>();
+
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int[] edgeSignatures = new int[16];
+    private int edgesCount = 0;
+
+    public MultidimensionalGraphBuilder(String dimensionsSeparator) {
+        this.dimensionsSeparator = Pattern.compile(dimensionsSeparator);
+    }
+
+    /**
+     * Registers a node and returns its index. Registering an existing id returns the index it was given the first time.
+     */
+    public int addNode(String id) {
+        Integer index = nodeIndices.get(id);
+
+        if (index == null) {
+            index = nodeIds.size();
+            nodeIndices.put(id, index);
+            nodeIds.add(id);
+        }
+
+        return index;
+    }
+
+    /**
+     * Adds an edge between two node ids, registering the nodes if needed.
+     */
+    public void addEdge(String source, String target, String label) {
+        addEdge(addNode(source), addNode(target), label);
+    }
+
+    /**
+     * Adds an edge between two registered nodes.
+     */
+    public void addEdge(int source, int target, String label) {
+        addEdge(source, target, getSignatureId(parseDimensions(label)));
+    }
+
+    /**
+     * Adds an edge between two registered nodes given the BitSet of its connecting dimension ids.
+     */
+    public void addEdge(int source, int target, BitSet Dvu) {
+        addEdge(source, target, getSignatureId(Dvu));
+    }
+
+    /**
+     * Adds edges given as (source, target, label) triples, their labels being parsed over chunksCount chunks running
+     * concurrently on an executor:
+     * - the dimensions met for the first time get provisional ids from a concurrent dictionary, along with the position
+     *   of their first appearance (edge, then position in the label),
+     * - they are then renumbered in the order of their first appearance, which is the order in which addEdge
+     *   registers them,
+     * - the nodes and signatures are registered sequentially, in the order of the edges.
+     * The network built is thus the same as the one built by adding the edges one by one.
+     */
+    public void addEdges(final List<String[]> edges, ExecutorService executor, int chunksCount) {
+        final int knownCount = dimensionNames.size();
+        final ConcurrentHashMap<String, Integer> provisionalIds = new ConcurrentHashMap<String, Integer>(dimensionIds);
+        final ConcurrentHashMap<String, AtomicLong> firstAppearances = new ConcurrentHashMap<String, AtomicLong>();
+        final AtomicInteger nextProvisionalId = new AtomicInteger(knownCount);
+        final BitSet[] labels = new BitSet[edges.size()];
+        int[] bounds = ParallelChunks.uniformBounds(edges.size(), chunksCount);
+
+        ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+            @Override
+            public void run(int from, int to) {
+                for (int e = from; e < to; e++) {
+                    String[] names = dimensionsSeparator.split(edges.get(e)[2]);
+                    BitSet Dvu = new BitSet();
+
+                    for (int position = 0; position < names.length; position++) {
+                        Integer id = provisionalIds.get(names[position]);
+
+                        if (id == null) {
+                            // Ids lost to a concurrent registration of the same name are skipped by the renumbering.
+                            Integer candidate = nextProvisionalId.getAndIncrement();
+                            id = provisionalIds.putIfAbsent(names[position], candidate);
+
+                            if (id == null)
+                                id = candidate;
+                        }
+
+                        if (id >= knownCount)
+                            recordAppearance(firstAppearances, names[position], ((long)e << 16) | Math.min(position, 0xffff));
+
+                        Dvu.set(id);
+                    }
+
+                    labels[e] = Dvu;
+                }
+            }
+        });
+
+        // Renumbering the new dimensions in the order of their first appearance.
+        List<Map.Entry<String, AtomicLong>> appearances = new ArrayList<Map.Entry<String, AtomicLong>>(firstAppearances.entrySet());
+
+        Collections.sort(appearances, new Comparator<Map.Entry<String, AtomicLong>>() {
+            @Override
+            public int compare(Map.Entry<String, AtomicLong> a1, Map.Entry<String, AtomicLong> a2) {
+                long p1 = a1.getValue().get();
+                long p2 = a2.getValue().get();
+
+                return p1 < p2 ? -1 : (p1 == p2 ? 0 : 1);
+            }
+        });
+
+        final int[] finalIds = new int[nextProvisionalId.get()];
+        boolean isRenumbered = false;
+
+        for (int id = 0; id < knownCount; id++) {
+            finalIds[id] = id;
+        }
+
+        for (Map.Entry<String, AtomicLong> appearance : appearances) {
+            int provisionalId = provisionalIds.get(appearance.getKey());
+
+            finalIds[provisionalId] = addDimension(appearance.getKey());
+            isRenumbered |= finalIds[provisionalId] != provisionalId;
+        }
+
+        if (isRenumbered) {
+            ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+                @Override
+                public void run(int from, int to) {
+                    for (int e = from; e < to; e++) {
+                        BitSet Dvu = new BitSet();
+
+                        for (int d = labels[e].nextSetBit(0); d >= 0; d = labels[e].nextSetBit(d + 1)) {
+                            Dvu.set(finalIds[d]);
+                        }
+
+                        labels[e] = Dvu;
+                    }
+                }
+            });
+        }
+
+        for (int e = 0; e < labels.length; e++) {
+            addEdge(addNode(edges.get(e)[0]), addNode(edges.get(e)[1]), labels[e]);
+        }
+    }
+
+    /**
+     * Lowers the recorded first appearance of a dimension to the given position if it's earlier.
+     */
+    private static void recordAppearance(ConcurrentHashMap<String, AtomicLong> firstAppearances, String name, long position) {
+        AtomicLong firstAppearance = firstAppearances.get(name);
+
+        if (firstAppearance == null) {
+            AtomicLong candidate = new AtomicLong(position);
+            firstAppearance = firstAppearances.putIfAbsent(name, candidate);
+
+            if (firstAppearance == null)
+                return;
+        }
+
+        long current = firstAppearance.get();
+
+        while (position < current && !firstAppearance.compareAndSet(current, position)) {
+            current = firstAppearance.get();
+        }
+    }
+
+    /**
+     * Registers a dimension and returns its id.
+     */
+    public int addDimension(String dimension) {
+        Integer dimensionId = dimensionIds.get(dimension);
+
+        if (dimensionId == null) {
+            dimensionId = dimensionNames.size();
+            dimensionIds.put(dimension, dimensionId);
+            dimensionNames.add(dimension);
+        }
+
+        return dimensionId;
+    }
+
+    public int getNodesCount() {
+        return nodeIds.size();
+    }
+
+    /**
+     * Makes a BitSet representation of an edge label where each connecting dimension is mapped to a bit position.
+     */
+    public BitSet parseDimensions(String label) {
+        String[] connectingDimensions = dimensionsSeparator.split(label);
+        BitSet Dvu = new BitSet();
+
+        for (String dimension : connectingDimensions) {
+            Dvu.set(addDimension(dimension));
+        }
+
+        return Dvu;
+    }
+
+    private int getSignatureId(BitSet Dvu) {
+        Integer signature = signatureIds.get(Dvu);
+
+        if (signature == null) {
+            signature = signatures.size();
+            signatureIds.put(Dvu, signature);
+            signatures.add(Dvu);
+        }
+
+        return signature;
+    }
+
+    private void addEdge(int source, int target, int signature) {
+        if (source == target)
+            return;
+
+        if (edgesCount == sources.length) {
+            int capacity = sources.length * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            edgeSignatures = Arrays.copyOf(edgeSignatures, capacity);
+        }
+
+        sources[edgesCount] = source;
+        targets[edgesCount] = target;
+        edgeSignatures[edgesCount] = signature;
+        edgesCount++;
+    }
+
+    public MultidimensionalGraph build() {
+        int n = nodeIds.size();
+        int[] offsets = new int[n + 1];
+
+        for (int e = 0; e < edgesCount; e++) {
+            offsets[sources[e] + 1]++;
+            offsets[targets[e] + 1]++;
+        }
+
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // Each slot is packed as (neighbor, signature) so that rows can be sorted in place.
+        long[] packedSlots = new long[offsets[n]];
+        int[] positions = Arrays.copyOf(offsets, n);
+
+        for (int e = 0; e < edgesCount; e++) {
+            int v = sources[e];
+            int u = targets[e];
+            packedSlots[positions[v]++] = ((long)u << 32) | edgeSignatures[e];
+            packedSlots[positions[u]++] = ((long)v << 32) | edgeSignatures[e];
+        }
+
+        boolean hasRepeatedPairs = false;
+
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(packedSlots, offsets[v], offsets[v + 1]);
+
+            for (int s = offsets[v] + 1; s < offsets[v + 1]; s++) {
+                if ((packedSlots[s] >>> 32) == (packedSlots[s - 1] >>> 32))
+                    hasRepeatedPairs = true;
+            }
+        }
+
+        if (hasRepeatedPairs) {
+            return mergeRepeatedPairs(offsets, packedSlots).build();
+        }
+
+        int[] neighbors = new int[packedSlots.length];
+        int[] slotSignatures = new int[packedSlots.length];
+
+        for (int s = 0; s < packedSlots.length; s++) {
+            neighbors[s] = (int)(packedSlots[s] >>> 32);
+            slotSignatures[s] = (int)packedSlots[s];
+        }
+
+        int maskWords = MaskUtils.getWordsCount(dimensionNames.size());
+        long[] packedSignatures = new long[signatures.size() * maskWords];
+
+        for (int signature = 0; signature < signatures.size(); signature++) {
+            BitSet Dvu = signatures.get(signature);
+
+            for (int d = Dvu.nextSetBit(0); d >= 0; d = Dvu.nextSetBit(d + 1)) {
+                MaskUtils.set(packedSignatures, signature * maskWords, d);
+            }
+        }
+
+        int[] reverseSlots = new int[neighbors.length];
+        MultidimensionalGraph graph = new MultidimensionalGraph(
+            nodeIds.toArray(new String[0]),
+            dimensionNames.toArray(new String[0]),
+            offsets,
+            neighbors,
+            reverseSlots,
+            slotSignatures,
+            packedSignatures,
+            maskWords
+        );
+
+        for (int v = 0; v < n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (u > v) {
+                    int r = graph.getSlot(u, v);
+                    reverseSlots[s] = r;
+                    reverseSlots[r] = s;
+                }
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Collapses the edges linking the same pair of nodes into a single edge holding the union of their dimensions.
+     */
+    private MultidimensionalGraphBuilder mergeRepeatedPairs(int[] offsets, long[] packedSlots) {
+        MultidimensionalGraphBuilder merged = new MultidimensionalGraphBuilder(dimensionsSeparator.pattern());
+
+        for (String id : nodeIds) {
+            merged.addNode(id);
+        }
+
+        for (String dimension : dimensionNames) {
+            merged.addDimension(dimension);
+        }
+
+        for (int v = 0; v < nodeIds.size(); v++) {
+            int s = offsets[v];
+
+            while (s < offsets[v + 1]) {
+                int u = (int)(packedSlots[s] >>> 32);
+                BitSet Dvu = new BitSet();
+
+                while (s < offsets[v + 1] && (int)(packedSlots[s] >>> 32) == u) {
+                    Dvu.or(signatures.get((int)packedSlots[s]));
+                    s++;
+                }
+
+                if (u > v)
+                    merged.addEdge(v, u, Dvu);
+            }
+        }
+
+        return merged;
+    }
+}
@@ -0,0 +1,328 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs MDLPA[1] in multilevel fashion to spread the labels over large clusters in fewer passes over the network:
+ * 1. a few propagation cycles are run and the provisional clusters are contracted into supernodes. Two supernodes are
+ *    linked when their members are, through the union of the connecting dimensions of the links and with the sum of
+ *    their w0 and w. The Dv_0 of a supernode is the union of the Dv of its members. The links inside a supernode
+ *    become the weight its own cluster applies on it, so that supernodes keep their cohesion.
+ * 2. the contraction is repeated on the coarse network until it no longer shrinks, then the propagation is run to
+ *    convergence on the coarsest network.
+ * 3. the labels are projected back level by level, each level running a few refinement cycles starting from the
+ *    projected labels and from the Dv and w its nodes had before the contraction. The finest level is refined in the
+ *    same way, so that a run costs coarseningCycles + refinementCycles passes over the network at most. It stops
+ *    earlier when the labels converge, otherwise the result isn't converged.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class MultilevelMDLPA {
+    private final MultidimensionalGraph graph;
+    private final Preprocessing preprocessing;
+
+    private int coarseningCycles = 2;
+    private int refinementCycles = 3;
+    private int maxLevels = 10;
+
+    // The coarsening stops when a contraction keeps more than this fraction of the nodes.
+    private double maxContractionRatio = 0.8;
+
+    private int maxCycles = Integer.MAX_VALUE;
+    private long seed = System.currentTimeMillis();
+
+    // Nodes, edges and propagation cycles of each level, from the finest one.
+    private final List<int[]> levelSummaries = new ArrayList<int[]>();
+
+    public MultilevelMDLPA(MultidimensionalGraph graph, Preprocessing preprocessing) {
+        this.graph = graph;
+        this.preprocessing = preprocessing;
+    }
+
+    public void setCoarseningCycles(int value) {
+        this.coarseningCycles = value;
+    }
+
+    public void setRefinementCycles(int value) {
+        this.refinementCycles = value;
+    }
+
+    public void setMaxLevels(int value) {
+        this.maxLevels = value;
+    }
+
+    public void setMaxContractionRatio(double value) {
+        this.maxContractionRatio = value;
+    }
+
+    public void setMaxCycles(int value) {
+        this.maxCycles = value;
+    }
+
+    public void setSeed(long value) {
+        this.seed = value;
+    }
+
+    /**
+     * Returns {nodes, edges, cycles} for each level of the last run, starting from the finest one.
+     */
+    public List<int[]> getLevelSummaries() {
+        return levelSummaries;
+    }
+
+    public ClusteringResult run() {
+        Random randomizer = new Random(seed);
+        List<Level> levels = new ArrayList<Level>();
+        Level level = new Level(graph, preprocessing, null, null);
+        LabelPropagation propagation;
+
+        levelSummaries.clear();
+
+        while (true) {
+            propagation = level.createPropagation(level.preprocessing, null, randomizer);
+
+            if (levels.size() + 1 >= maxLevels || propagation.propagate(coarseningCycles))
+                break;
+
+            ClusteringResult provisional = propagation.getResult();
+
+            if (provisional.getClustersCount() > maxContractionRatio * level.graph.getNodesCount())
+                break;
+
+            level.contract(propagation, provisional);
+            levels.add(level);
+            level = level.coarse;
+        }
+
+        // The coarsest level runs to convergence.
+        propagation.propagate(maxCycles);
+        addSummary(level.graph, propagation.getCycles());
+
+        for (int l = levels.size() - 1; l >= 0; l--) {
+            level = levels.get(l);
+            int[] coarseLabels = propagation.getLabels();
+            int[] memberships = level.provisional.getMemberships();
+            int[] labels = new int[memberships.length];
+
+            // Coarse labels are supernode indices, they're mapped to the first member of the supernode.
+            for (int v = 0; v < labels.length; v++) {
+                labels[v] = level.representatives[coarseLabels[memberships[v]]];
+            }
+
+            int previousCycles = level.propagation.getCycles();
+
+            propagation = level.createPropagation(
+                new Preprocessing(level.preprocessing.getW0(), level.propagation.getDV(), level.propagation.getW()),
+                labels,
+                randomizer
+            );
+            // The finest level is only refined as much as the others, so that the passes over the network are mostly
+            // the coarsening ones.
+            propagation.propagate(l > 0 ? refinementCycles : Math.min(refinementCycles, Math.max(0, maxCycles - previousCycles)));
+            addSummary(level.graph, previousCycles + propagation.getCycles());
+        }
+
+        // Summaries were added from the coarsest level.
+        Collections.reverse(levelSummaries);
+
+        return ClusteringResult.create(
+            graph,
+            propagation.getLabels(),
+            propagation.getDV(),
+            levelSummaries.get(0)[2],
+            propagation.isConverged()
+        );
+    }
+
+    private void addSummary(MultidimensionalGraph levelGraph, int cycles) {
+        levelSummaries.add(new int[] { levelGraph.getNodesCount(), levelGraph.getEdgesCount(), cycles });
+    }
+
+    /**
+     * A level of the hierarchy. Contracted levels also hold the propagation run on them before the contraction, their
+     * provisional clusters and the next, coarser level.
+     */
+    static class Level {
+        final MultidimensionalGraph graph;
+        final Preprocessing preprocessing;
+
+        // Weight applied on each node by its own cluster and dimensions connecting it to its own cluster, null on the
+        // finest level.
+        final double[] ownWeights;
+        final long[] ownDimensions;
+
+        LabelPropagation propagation;
+        ClusteringResult provisional;
+
+        // First member of each provisional cluster.
+        int[] representatives;
+
+        Level coarse;
+
+        Level(MultidimensionalGraph graph, Preprocessing preprocessing, double[] ownWeights, long[] ownDimensions) {
+            this.graph = graph;
+            this.preprocessing = preprocessing;
+            this.ownWeights = ownWeights;
+            this.ownDimensions = ownDimensions;
+        }
+
+        LabelPropagation createPropagation(Preprocessing state, int[] initialLabels, Random randomizer) {
+            if (ownWeights == null)
+                return new LabelPropagation(graph, state, graph.getNodesCount(), initialLabels, randomizer);
+
+            return new LabelPropagation(graph, state, graph.getNodesCount(), initialLabels, randomizer) {
+                @Override
+                protected double getOwnClusterWeight(int v) {
+                    return ownWeights[v];
+                }
+
+                @Override
+                protected void addOwnClusterDimensions(int v, long[] DU, long[] combinedDvu) {
+                    MaskUtils.or(DU, 0, DV, v * words, words);
+                    MaskUtils.or(combinedDvu, 0, ownDimensions, v * words, words);
+                }
+            };
+        }
+
+        /**
+         * Contracts the provisional clusters of this level into the supernodes of the next level.
+         */
+        void contract(LabelPropagation propagation, ClusteringResult provisional) {
+            this.propagation = propagation;
+            this.provisional = provisional;
+
+            int k = provisional.getClustersCount();
+            int words = graph.getMaskWords();
+            int[] offsets = graph.getOffsets();
+            int[] neighbors = graph.getNeighbors();
+            int[] slotSignatures = graph.getSlotSignatures();
+            long[] signatures = graph.getSignatures();
+            double[] W0 = preprocessing.getW0();
+            double[] W = propagation.getW();
+            int[] memberships = provisional.getMemberships();
+            int[][] members = provisional.getClusterNodes();
+
+            representatives = new int[k];
+            for (int c = 0; c < k; c++) {
+                representatives[c] = members[c][0];
+            }
+
+            int[] coarseOffsets = new int[k + 1];
+            int[] coarseNeighbors = new int[graph.getSlotsCount()];
+            int[] coarseSlotSignatures = new int[graph.getSlotsCount()];
+            double[] coarseW0 = new double[graph.getSlotsCount()];
+            double[] coarseW = new double[graph.getSlotsCount()];
+            long[] coarseSignatures = new long[16 * words];
+            double[] coarseOwnWeights = new double[k];
+            long[] coarseOwnDimensions = new long[k * words];
+            Map<BitSet, Integer> signatureIds = new HashMap<BitSet, Integer>();
+            long[] combined = new long[words];
+            long[] row = new long[16];
+            int slotsCount = 0;
+
+            for (int c = 0; c < k; c++) {
+                int rowLength = 0;
+
+                for (int v : members[c]) {
+                    if (ownWeights != null) {
+                        coarseOwnWeights[c] += ownWeights[v];
+                        MaskUtils.or(coarseOwnDimensions, c * words, ownDimensions, v * words, words);
+                    }
+
+                    for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                        // Links inside a supernode become the weight of its own cluster.
+                        if (memberships[neighbors[s]] == c) {
+                            coarseOwnWeights[c] += W[s];
+                            MaskUtils.or(coarseOwnDimensions, c * words, signatures, slotSignatures[s] * words, words);
+                            continue;
+                        }
+
+                        if (rowLength == row.length)
+                            row = Arrays.copyOf(row, row.length * 2);
+
+                        row[rowLength++] = ((long)memberships[neighbors[s]] << 32) | s;
+                    }
+                }
+
+                Arrays.sort(row, 0, rowLength);
+
+                for (int i = 0; i < rowLength; ) {
+                    int target = (int)(row[i] >>> 32);
+                    double w0 = 0;
+                    double w = 0;
+
+                    MaskUtils.clear(combined, 0, words);
+
+                    for (; i < rowLength && (int)(row[i] >>> 32) == target; i++) {
+                        int s = (int)row[i];
+                        w0 += W0[s];
+                        w += W[s];
+                        MaskUtils.or(combined, 0, signatures, slotSignatures[s] * words, words);
+                    }
+
+                    BitSet key = MaskUtils.toBitSet(combined, 0, words);
+                    Integer signature = signatureIds.get(key);
+
+                    if (signature == null) {
+                        signature = signatureIds.size();
+                        signatureIds.put(key, signature);
+
+                        if ((signature + 1) * words > coarseSignatures.length)
+                            coarseSignatures = Arrays.copyOf(coarseSignatures, coarseSignatures.length * 2);
+
+                        MaskUtils.copy(combined, 0, coarseSignatures, signature * words, words);
+                    }
+
+                    coarseNeighbors[slotsCount] = target;
+                    coarseSlotSignatures[slotsCount] = signature;
+                    coarseW0[slotsCount] = w0;
+                    coarseW[slotsCount] = w;
+                    slotsCount++;
+                }
+
+                coarseOffsets[c + 1] = slotsCount;
+            }
+
+            coarseNeighbors = Arrays.copyOf(coarseNeighbors, slotsCount);
+            int[] coarseReverseSlots = new int[slotsCount];
+
+            MultidimensionalGraph coarseGraph = new MultidimensionalGraph(
+                null,
+                graph.getDimensionNames(),
+                coarseOffsets,
+                coarseNeighbors,
+                coarseReverseSlots,
+                Arrays.copyOf(coarseSlotSignatures, slotsCount),
+                Arrays.copyOf(coarseSignatures, signatureIds.size() * words),
+                words
+            );
+
+            for (int c = 0; c < k; c++) {
+                for (int s = coarseOffsets[c]; s < coarseOffsets[c + 1]; s++) {
+                    coarseReverseSlots[s] = coarseGraph.getSlot(coarseNeighbors[s], c);
+                }
+            }
+
+            coarse = new Level(
+                coarseGraph,
+                new Preprocessing(
+                    Arrays.copyOf(coarseW0, slotsCount),
+                    provisional.getClusterDimensions(),
+                    Arrays.copyOf(coarseW, slotsCount)
+                ),
+                coarseOwnWeights,
+                coarseOwnDimensions
+            );
+        }
+    }
+}
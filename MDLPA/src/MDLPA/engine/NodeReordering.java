@@ -0,0 +1,234 @@
+package MDLPA.engine;
+
+import java.util.Arrays;
+
+/**
+ * Renumbers the nodes of a network so that neighbors get close indices, which keeps the rows, labels and relevant
+ * dimensions read while updating a node close in memory:
+ * - BFS numbers the nodes in breadth-first order, each connected component starting from its node of highest degree,
+ * - RCM (reverse Cuthill-McKee) starts each component from a node of lowest degree, visits the neighbors by increasing
+ *   degree and reverses the final order, which narrows the bandwidth of the adjacency matrix,
+ * - DEGREE numbers the nodes by decreasing degree so that the rows of the hubs, read by most updates, are packed together.
+ * The renumbered network keeps the original node ids, so that memberships are written against them as before.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class NodeReordering {
+    public enum Strategy {
+        NONE,
+        BFS,
+        RCM,
+        DEGREE
+    }
+
+    /**
+     * Returns the network renumbered according to a strategy, the network itself for NONE.
+     */
+    public static MultidimensionalGraph reorder(MultidimensionalGraph graph, Strategy strategy) {
+        switch (strategy) {
+            case BFS:
+                return renumber(graph, toIndices(getBreadthFirstOrder(graph, false)));
+            case RCM:
+                int[] order = getBreadthFirstOrder(graph, true);
+                reverse(order);
+
+                return renumber(graph, toIndices(order));
+            case DEGREE:
+                return renumber(graph, toIndices(getDegreeOrder(graph)));
+            default:
+                return graph;
+        }
+    }
+
+    /**
+     * Returns the nodes in breadth-first order, component by component. Cuthill-McKee components start from a node of
+     * lowest degree and visit the neighbors of each node by increasing degree, plain BFS components start from a node
+     * of highest degree and visit the neighbors in row order.
+     */
+    static int[] getBreadthFirstOrder(MultidimensionalGraph graph, boolean cuthillMcKee) {
+        int n = graph.getNodesCount();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] byDegree = getDegreeOrder(graph);
+        boolean[] isVisited = new boolean[n];
+        int[] order = new int[n];
+        long[] row = new long[16];
+        int head = 0;
+        int tail = 0;
+
+        if (cuthillMcKee)
+            reverse(byDegree);
+
+        for (int root : byDegree) {
+            if (isVisited[root])
+                continue;
+
+            isVisited[root] = true;
+            order[tail++] = root;
+
+            while (head < tail) {
+                int v = order[head++];
+
+                if (!cuthillMcKee) {
+                    for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                        int u = neighbors[s];
+
+                        if (!isVisited[u]) {
+                            isVisited[u] = true;
+                            order[tail++] = u;
+                        }
+                    }
+
+                    continue;
+                }
+
+                int rowLength = 0;
+
+                if (row.length < graph.getDegree(v))
+                    row = new long[graph.getDegree(v)];
+
+                // Unvisited neighbors packed as (degree, neighbor) to be visited by increasing degree.
+                for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                    int u = neighbors[s];
+
+                    if (!isVisited[u]) {
+                        isVisited[u] = true;
+                        row[rowLength++] = ((long)graph.getDegree(u) << 32) | u;
+                    }
+                }
+
+                Arrays.sort(row, 0, rowLength);
+
+                for (int i = 0; i < rowLength; i++) {
+                    order[tail++] = (int)row[i];
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Returns the nodes by decreasing degree, ties being kept in index order.
+     */
+    static int[] getDegreeOrder(MultidimensionalGraph graph) {
+        int n = graph.getNodesCount();
+        int maxDegree = 0;
+
+        for (int v = 0; v < n; v++) {
+            maxDegree = Math.max(maxDegree, graph.getDegree(v));
+        }
+
+        // Counting sort on the degrees.
+        int[] starts = new int[maxDegree + 2];
+
+        for (int v = 0; v < n; v++) {
+            starts[maxDegree - graph.getDegree(v) + 1]++;
+        }
+
+        for (int d = 0; d <= maxDegree; d++) {
+            starts[d + 1] += starts[d];
+        }
+
+        int[] order = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            order[starts[maxDegree - graph.getDegree(v)]++] = v;
+        }
+
+        return order;
+    }
+
+    /**
+     * Builds the network in which each node v gets the index newIndices[v].
+     */
+    public static MultidimensionalGraph renumber(MultidimensionalGraph graph, int[] newIndices) {
+        int n = graph.getNodesCount();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        int[] oldIndices = new int[n];
+        String[] nodeIds = new String[n];
+
+        for (int v = 0; v < n; v++) {
+            oldIndices[newIndices[v]] = v;
+            nodeIds[newIndices[v]] = graph.getNodeId(v);
+        }
+
+        int[] newOffsets = new int[n + 1];
+
+        for (int v = 0; v < n; v++) {
+            newOffsets[v + 1] = newOffsets[v] + graph.getDegree(oldIndices[v]);
+        }
+
+        int[] newNeighbors = new int[neighbors.length];
+        int[] newSlotSignatures = new int[neighbors.length];
+        long[] row = new long[16];
+
+        for (int v = 0; v < n; v++) {
+            int old = oldIndices[v];
+            int rowLength = 0;
+
+            if (row.length < graph.getDegree(old))
+                row = new long[graph.getDegree(old)];
+
+            // Rows are sorted again by the new neighbor indices.
+            for (int s = offsets[old]; s < offsets[old + 1]; s++) {
+                row[rowLength++] = ((long)newIndices[neighbors[s]] << 32) | slotSignatures[s];
+            }
+
+            Arrays.sort(row, 0, rowLength);
+
+            for (int i = 0; i < rowLength; i++) {
+                newNeighbors[newOffsets[v] + i] = (int)(row[i] >>> 32);
+                newSlotSignatures[newOffsets[v] + i] = (int)row[i];
+            }
+        }
+
+        int[] reverseSlots = new int[neighbors.length];
+        MultidimensionalGraph renumbered = new MultidimensionalGraph(
+            nodeIds,
+            graph.getDimensionNames(),
+            newOffsets,
+            newNeighbors,
+            reverseSlots,
+            newSlotSignatures,
+            graph.getSignatures(),
+            graph.getMaskWords()
+        );
+
+        for (int v = 0; v < n; v++) {
+            for (int s = newOffsets[v]; s < newOffsets[v + 1]; s++) {
+                int u = newNeighbors[s];
+
+                if (u > v) {
+                    int r = renumbered.getSlot(u, v);
+                    reverseSlots[s] = r;
+                    reverseSlots[r] = s;
+                }
+            }
+        }
+
+        return renumbered;
+    }
+
+    private static int[] toIndices(int[] order) {
+        int[] indices = new int[order.length];
+
+        for (int i = 0; i < order.length; i++) {
+            indices[order[i]] = i;
+        }
+
+        return indices;
+    }
+
+    private static void reverse(int[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
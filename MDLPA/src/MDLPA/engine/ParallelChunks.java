@@ -0,0 +1,119 @@
+package MDLPA.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a pass over a range of indices (nodes, edges, lines) split into contiguous chunks, the chunks being run
+ * concurrently on an executor. Each chunk is expected to write only to the entries of its own indices, so that no
+ * synchronization is needed beyond waiting for all of them.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+final class ParallelChunks {
+    /**
+     * A pass run on the indices from (inclusive) to to (exclusive).
+     */
+    interface Chunk {
+        void run(int from, int to);
+    }
+
+    private ParallelChunks() {
+    }
+
+    /**
+     * Splits [0, count) into chunksCount chunks of equal length.
+     */
+    static int[] uniformBounds(int count, int chunksCount) {
+        int chunks = Math.max(1, Math.min(chunksCount, count));
+        int[] bounds = new int[chunks + 1];
+
+        for (int c = 0; c <= chunks; c++) {
+            bounds[c] = (int)((long)count * c / chunks);
+        }
+
+        return bounds;
+    }
+
+    /**
+     * Splits the nodes of a network into chunksCount chunks holding about the same number of slots, so that a chunk
+     * of high-degree nodes doesn't hold as many nodes as a chunk of low-degree ones.
+     */
+    static int[] slotBalancedBounds(int[] offsets, int chunksCount) {
+        int n = offsets.length - 1;
+        int chunks = Math.max(1, Math.min(chunksCount, n));
+        int[] bounds = new int[chunks + 1];
+        int v = 0;
+
+        for (int c = 1; c < chunks; c++) {
+            long target = (long)offsets[n] * c / chunks;
+
+            while (v < n && offsets[v] < target) {
+                v++;
+            }
+
+            bounds[c] = v;
+        }
+
+        bounds[chunks] = n;
+
+        return bounds;
+    }
+
+    /**
+     * Runs a pass over the chunks delimited by bounds and waits for all of them. Without an executor, the chunks run
+     * in order on the calling thread.
+     */
+    static void run(int[] bounds, ExecutorService executor, final Chunk chunk) {
+        if (executor == null || bounds.length <= 2) {
+            for (int c = 0; c + 1 < bounds.length; c++) {
+                chunk.run(bounds[c], bounds[c + 1]);
+            }
+
+            return;
+        }
+
+        List<Future<?>> runs = new ArrayList<Future<?>>();
+
+        for (int c = 0; c + 1 < bounds.length; c++) {
+            final int from = bounds[c];
+            final int to = bounds[c + 1];
+
+            runs.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    chunk.run(from, to);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        }
+        catch (InterruptedException ex) {
+            for (Future<?> run : runs) {
+                run.cancel(true);
+            }
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running a parallel pass.", ex);
+        }
+        catch (ExecutionException ex) {
+            for (Future<?> run : runs) {
+                run.cancel(true);
+            }
+
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException)ex.getCause();
+
+            throw new IllegalStateException("Failed to run a parallel pass.", ex.getCause());
+        }
+    }
+}
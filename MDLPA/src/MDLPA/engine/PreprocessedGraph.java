@@ -0,0 +1,76 @@
+package MDLPA.engine;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A network loaded from an edge list along with its MDLPA[1] initialization, ready to be shared by several runs.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class PreprocessedGraph {
+    private final MultidimensionalGraph graph;
+    private final Preprocessing preprocessing;
+    private final long loadingMillis;
+    private final long preprocessingMillis;
+
+    // Computed on first use.
+    private GraphReduction reduction = null;
+
+    public PreprocessedGraph(MultidimensionalGraph graph, Preprocessing preprocessing, long loadingMillis, long preprocessingMillis) {
+        this.graph = graph;
+        this.preprocessing = preprocessing;
+        this.loadingMillis = loadingMillis;
+        this.preprocessingMillis = preprocessingMillis;
+    }
+
+    public static PreprocessedGraph load(File edgesFile, EdgeListReader reader) throws IOException {
+        long start = System.currentTimeMillis();
+        MultidimensionalGraph graph = reader.read(edgesFile);
+        long loaded = System.currentTimeMillis();
+        Preprocessing preprocessing = Preprocessing.calculate(graph);
+
+        return new PreprocessedGraph(graph, preprocessing, loaded - start, System.currentTimeMillis() - loaded);
+    }
+
+    public MultidimensionalGraph getGraph() {
+        return graph;
+    }
+
+    public Preprocessing getPreprocessing() {
+        return preprocessing;
+    }
+
+    public long getLoadingMillis() {
+        return loadingMillis;
+    }
+
+    public long getPreprocessingMillis() {
+        return preprocessingMillis;
+    }
+
+    /**
+     * Returns the pendant and twin reduction of the graph, see GraphReduction.
+     */
+    public synchronized GraphReduction getReduction() {
+        if (reduction == null)
+            reduction = GraphReduction.reduce(graph, preprocessing);
+
+        return reduction;
+    }
+
+    public long getEstimatedMemory() {
+        return graph.getEstimatedMemory() + preprocessing.getEstimatedMemory();
+    }
+
+    /**
+     * Rough estimation of the heap needed by one propagation run (labels, Dv, w and visit order), in bytes.
+     */
+    public long getEstimatedRunMemory() {
+        return 8L * graph.getNodesCount()
+            + 8L * graph.getNodesCount() * graph.getMaskWords()
+            + 8L * graph.getSlotsCount();
+    }
+}
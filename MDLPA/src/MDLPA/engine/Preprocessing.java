@@ -0,0 +1,396 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Holds the immutable outcome of the initialization phase of MDLPA[1] on a network:
+ * - the initial attraction weights w0(v,u) of each slot, estimated with the DRxOR metric,
+ * - the initial relevant dimensions Dv_0 of each node,
+ * - the attraction weights w(v,u) revised according to Dv_0.
+ * Propagation runs take copies of Dv and w so that the same preprocessing can be shared by several runs.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class Preprocessing {
+    // w0(v,u) applied on v by its neighbor u, stored on the slot of (v,u).
+    private final double[] W0;
+
+    // Dv_0 of each node, packed on maskWords words.
+    private final long[] DV0;
+
+    // w(v,u) revised with Dv_0 of each neighbor u.
+    private final double[] W;
+
+    public Preprocessing(double[] W0, long[] DV0, double[] W) {
+        this.W0 = W0;
+        this.DV0 = DV0;
+        this.W = W;
+    }
+
+    public double[] getW0() {
+        return W0;
+    }
+
+    public long[] getDV0() {
+        return DV0;
+    }
+
+    public double[] getW() {
+        return W;
+    }
+
+    /**
+     * Rough estimation of the heap occupied by the preprocessing, in bytes.
+     */
+    public long getEstimatedMemory() {
+        return 8L * (W0.length + DV0.length + W.length);
+    }
+
+    /**
+     * Runs the initialization phase of MDLPA on a network.
+     */
+    public static Preprocessing calculate(MultidimensionalGraph graph) {
+        return calculate(graph, null);
+    }
+
+    /**
+     * Runs the initialization phase of MDLPA on a network, estimating the DRxOR of high-degree nodes from samples of
+     * their neighborhood.
+     * @param sampling: the sampling settings, which also receive the report of the approximation, null to compute
+     * the DRxOR of every node exactly.
+     */
+    public static Preprocessing calculate(MultidimensionalGraph graph, DRxORSampling sampling) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        double[] W0 = new double[graph.getSlotsCount()];
+        long[] DV0 = new long[n * words];
+        double[] W = new double[graph.getSlotsCount()];
+
+        NeighborhoodScratch scratch = new NeighborhoodScratch(graph.getSignaturesCount());
+
+        if (sampling != null)
+            sampling.reset();
+
+        for (int v = 0; v < n; v++) {
+            calculateW0InNeighborhood(graph, v, W0, scratch, sampling);
+        }
+
+        for (int v = 0; v < n; v++) {
+            initializeRelevantDimensionsDv(graph, v, W0, DV0, scratch);
+        }
+
+        for (int v = 0; v < n; v++) {
+            reviseWeightsInNeighborhood(graph, v, W0, DV0, W);
+        }
+
+        return new Preprocessing(W0, DV0, W);
+    }
+
+    /**
+     * Runs the initialization phase of MDLPA on a network, each of its three passes (w0, Dv_0 and w) running over
+     * chunks of nodes concurrently on an executor. Every pass only writes the slots of the rows of its nodes and Dv_0
+     * of its nodes, so the outcome is the same as the one of a sequential initialization.
+     * The nodes whose DRxOR may be approximated are left out of the concurrent w0 pass and computed afterwards in
+     * order, so that they draw their samples from the randomizer of the sampling as in a sequential initialization.
+     * @param chunksCount: the number of chunks of each pass, a few times the number of threads of the executor.
+     */
+    public static Preprocessing calculate(
+        final MultidimensionalGraph graph,
+        final DRxORSampling sampling,
+        ExecutorService executor,
+        int chunksCount
+    )
+    {
+        int n = graph.getNodesCount();
+        final double[] W0 = new double[graph.getSlotsCount()];
+        final long[] DV0 = new long[n * graph.getMaskWords()];
+        final double[] W = new double[graph.getSlotsCount()];
+        final boolean[] isDeferred = new boolean[n];
+        int[] bounds = ParallelChunks.slotBalancedBounds(graph.getOffsets(), chunksCount);
+
+        if (sampling != null)
+            sampling.reset();
+
+        ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+            @Override
+            public void run(int from, int to) {
+                NeighborhoodScratch scratch = new NeighborhoodScratch(graph.getSignaturesCount());
+
+                for (int v = from; v < to; v++) {
+                    if (sampling != null && graph.getDegree(v) > sampling.getDegreeThreshold())
+                        isDeferred[v] = true;
+                    else
+                        calculateW0InNeighborhood(graph, v, W0, scratch, null);
+                }
+            }
+        });
+
+        if (sampling != null) {
+            NeighborhoodScratch scratch = new NeighborhoodScratch(graph.getSignaturesCount());
+
+            for (int v = 0; v < n; v++) {
+                if (isDeferred[v])
+                    calculateW0InNeighborhood(graph, v, W0, scratch, sampling);
+            }
+        }
+
+        ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+            @Override
+            public void run(int from, int to) {
+                NeighborhoodScratch scratch = new NeighborhoodScratch(graph.getSignaturesCount());
+
+                for (int v = from; v < to; v++) {
+                    initializeRelevantDimensionsDv(graph, v, W0, DV0, scratch);
+                }
+            }
+        });
+
+        ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+            @Override
+            public void run(int from, int to) {
+                for (int v = from; v < to; v++) {
+                    reviseWeightsInNeighborhood(graph, v, W0, DV0, W);
+                }
+            }
+        });
+
+        return new Preprocessing(W0, DV0, W);
+    }
+
+    /**
+     * Revises the attraction weights w(v,u) of every row of a network according to the relevant dimensions of the
+     * neighbors, for instance once the Dv_0 of nodes whose rows aren't stored are known.
+     */
+    public static double[] reviseWeights(MultidimensionalGraph graph, double[] W0, long[] DV) {
+        double[] W = new double[graph.getSlotsCount()];
+
+        for (int v = 0; v < graph.getNodesCount(); v++) {
+            reviseWeightsInNeighborhood(graph, v, W0, DV, W);
+        }
+
+        return W;
+    }
+
+    /**
+     * Estimates w0(v,u) for each neighbor u of v with the DRxOR metric of the connecting dimensions Dvu.
+     * As in [1], the relevance is estimated over the set of distinct connecting dimension sets of the neighborhood.
+     */
+    static void calculateW0InNeighborhood(
+        MultidimensionalGraph graph,
+        int v,
+        double[] W0,
+        NeighborhoodScratch scratch,
+        DRxORSampling sampling
+    )
+    {
+        int[] offsets = graph.getOffsets();
+        int[] slotSignatures = graph.getSlotSignatures();
+
+        int distinctCount = scratch.collectDistinctSignatures(slotSignatures, offsets[v], offsets[v + 1]);
+
+        if (sampling != null && sampling.isApproximated(offsets[v + 1] - offsets[v], distinctCount)) {
+            estimateW0InNeighborhood(graph, v, W0, scratch, sampling, distinctCount);
+            return;
+        }
+
+        calculateDRxOR(graph, scratch, distinctCount);
+
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            W0[s] = scratch.values[slotSignatures[s]];
+        }
+    }
+
+    /**
+     * Computes the DRxOR of each of the distinct connecting dimension sets of a neighborhood, collected in
+     * scratch.distinct, into scratch.values (indexed by signature).
+     */
+    static void calculateDRxOR(MultidimensionalGraph graph, NeighborhoodScratch scratch, int distinctCount) {
+        long[] signatures = graph.getSignatures();
+        int words = graph.getMaskWords();
+        int[] distinct = scratch.distinct;
+
+        for (int i = 0; i < distinctCount; i++) {
+            int candidate = distinct[i];
+            double DRxOR = 1;
+
+            if (distinctCount > 1) {
+                int numberOfExclusivelyReachableNeighbors = 0;
+
+                for (int j = 0; j < distinctCount; j++) {
+                    // Check whether Dvu ⊆ candidate
+                    if (MaskUtils.contains(signatures, candidate * words, signatures, distinct[j] * words, words))
+                        numberOfExclusivelyReachableNeighbors++;
+                }
+
+                DRxOR = numberOfExclusivelyReachableNeighbors / (double)distinctCount;
+            }
+
+            scratch.values[candidate] = DRxOR;
+        }
+    }
+
+    /**
+     * Estimates w0(v,u) for each neighbor u of v with the DRxOR of Dvu computed against a sample of the distinct
+     * connecting dimension sets of the neighborhood, see DRxORSampling.
+     */
+    static void estimateW0InNeighborhood(
+        MultidimensionalGraph graph,
+        int v,
+        double[] W0,
+        NeighborhoodScratch scratch,
+        DRxORSampling sampling,
+        int distinctCount
+    )
+    {
+        int[] offsets = graph.getOffsets();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int words = graph.getMaskWords();
+        int[] distinct = scratch.distinct;
+        long[] sorted = scratch.getSorted();
+
+        // Sorting the distinct sets by cardinality so that the systematic sample is stratified by cardinality.
+        for (int i = 0; i < distinctCount; i++) {
+            long cardinality = MaskUtils.cardinality(signatures, distinct[i] * words, words);
+            sorted[i] = (cardinality << 32) | distinct[i];
+        }
+
+        Arrays.sort(sorted, 0, distinctCount);
+
+        int[] sample = sampling.sample(distinctCount, scratch.getSamplePositions(sampling.getSampleSize()));
+
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = (int)sorted[sample[i]];
+        }
+
+        for (int i = 0; i < distinctCount; i++) {
+            int candidate = distinct[i];
+            int numberOfExclusivelyReachableNeighbors = 0;
+
+            for (int j = 0; j < sample.length; j++) {
+                // Check whether Dvu ⊆ candidate
+                if (MaskUtils.contains(signatures, candidate * words, signatures, sample[j] * words, words))
+                    numberOfExclusivelyReachableNeighbors++;
+            }
+
+            scratch.values[candidate] = numberOfExclusivelyReachableNeighbors / (double)sample.length;
+        }
+
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            W0[s] = scratch.values[slotSignatures[s]];
+        }
+
+        sampling.reportApproximation(distinctCount);
+    }
+
+    /**
+     * Selects Dv_0 as the union of the connecting dimensions Dvu which accumulate the highest w0 in the neighborhood of v.
+     * Isolated nodes have no relevant dimensions.
+     */
+    static void initializeRelevantDimensionsDv(MultidimensionalGraph graph, int v, double[] W0, long[] DV, NeighborhoodScratch scratch) {
+        int[] offsets = graph.getOffsets();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int words = graph.getMaskWords();
+
+        if (offsets[v] == offsets[v + 1])
+            return;
+
+        int distinctCount = scratch.collectDistinctSignatures(slotSignatures, offsets[v], offsets[v + 1]);
+        int[] distinct = scratch.distinct;
+
+        for (int i = 0; i < distinctCount; i++) {
+            scratch.values[distinct[i]] = 0;
+        }
+
+        // Summing overs w0 applied on v which share the same linking dimensions Dvu
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            scratch.values[slotSignatures[s]] += W0[s];
+        }
+
+        double maxAccumulatedW0 = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < distinctCount; i++) {
+            maxAccumulatedW0 = Math.max(maxAccumulatedW0, scratch.values[distinct[i]]);
+        }
+
+        for (int i = 0; i < distinctCount; i++) {
+            // Take the union if more than Dvu support the highest w0 in v's neighborhood.
+            if (scratch.values[distinct[i]] == maxAccumulatedW0)
+                MaskUtils.or(DV, v * words, signatures, distinct[i] * words, words);
+        }
+    }
+
+    /**
+     * Revises the attraction weights w(v,u) applied on v by its neighbors according to their relevant dimensions Du.
+     * Only the slots of the row of v are written.
+     */
+    static void reviseWeightsInNeighborhood(MultidimensionalGraph graph, int v, double[] W0, long[] DV, double[] W) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int words = graph.getMaskWords();
+
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            int u = neighbors[s];
+            double distance = MaskUtils.getJaccardCoefficient(DV, u * words, signatures, slotSignatures[s] * words, words);
+
+            W[s] = W0[s] * distance;
+        }
+    }
+
+    /**
+     * Reusable buffers used to collect the distinct signatures of a neighborhood without allocations.
+     */
+    static class NeighborhoodScratch {
+        final int[] stamps;
+        final int[] distinct;
+        final double[] values;
+        private int stamp = 0;
+
+        // Used by the approximate DRxOR only.
+        private long[] sorted = null;
+        private int[] samplePositions = null;
+
+        NeighborhoodScratch(int signaturesCount) {
+            stamps = new int[signaturesCount];
+            distinct = new int[signaturesCount];
+            values = new double[signaturesCount];
+        }
+
+        long[] getSorted() {
+            if (sorted == null)
+                sorted = new long[stamps.length];
+
+            return sorted;
+        }
+
+        int[] getSamplePositions(int sampleSize) {
+            if (samplePositions == null)
+                samplePositions = new int[sampleSize];
+
+            return samplePositions;
+        }
+
+        int collectDistinctSignatures(int[] slotSignatures, int from, int to) {
+            stamp++;
+            int count = 0;
+
+            for (int s = from; s < to; s++) {
+                int signature = slotSignatures[s];
+
+                if (stamps[signature] != stamp) {
+                    stamps[signature] = stamp;
+                    distinct[count++] = signature;
+                }
+            }
+
+            return count;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package MDLPA.engine;
+
+import java.util.Random;
+
+/**
+ * Runs the propagation phase of MDLPA[1] on a network shrunk by a GraphReduction.
+ * The pendants folded into a node v vote for the current label of v: each pendant p applies on v the weight
+ * w(v,p) = w0(v,p) * J(Dp, Dvp) where Dp, the relevant dimensions p takes from v, is Dv restricted to the dimensions
+ * Dvp connecting them. When v stays in its own cluster, the pendants are part of the winning cluster and bring their
+ * Dp and Dvp to the update of Dv.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class ReducedLabelPropagation extends LabelPropagation {
+    private final GraphReduction reduction;
+    private final int[] pendantOffsets;
+    private final double[] pendantW0;
+    private final int[] pendantSignatures;
+    private final long[] signatures;
+
+    public ReducedLabelPropagation(GraphReduction reduction, Random randomizer) {
+        this(reduction, null, randomizer);
+    }
+
+    /**
+     * @param initialLabels: labels of the reduced nodes to start from, null to put each node in its own cluster.
+     */
+    public ReducedLabelPropagation(GraphReduction reduction, int[] initialLabels, Random randomizer) {
+        super(
+            reduction.getReducedGraph(),
+            reduction.getReducedPreprocessing(),
+            reduction.getReducedGraph().getNodesCount(),
+            initialLabels,
+            randomizer
+        );
+
+        this.reduction = reduction;
+        this.pendantOffsets = reduction.getPendantOffsets();
+        this.pendantW0 = reduction.getPendantW0();
+        this.pendantSignatures = reduction.getPendantSignatures();
+        this.signatures = graph.getSignatures();
+    }
+
+    @Override
+    protected double getOwnClusterWeight(int v) {
+        double weight = 0;
+
+        for (int p = pendantOffsets[v]; p < pendantOffsets[v + 1]; p++) {
+            int signature = pendantSignatures[p] * words;
+            int common = 0;
+            int connecting = 0;
+
+            // Dp is included in Dvp, so J(Dp, Dvp) = |Dv & Dvp| / |Dvp|.
+            for (int i = 0; i < words; i++) {
+                common += Long.bitCount(DV[v * words + i] & signatures[signature + i]);
+                connecting += Long.bitCount(signatures[signature + i]);
+            }
+
+            if (connecting > 0)
+                weight += pendantW0[p] * common / connecting;
+        }
+
+        return weight;
+    }
+
+    @Override
+    protected void addOwnClusterDimensions(int v, long[] DU, long[] combinedDvu) {
+        for (int p = pendantOffsets[v]; p < pendantOffsets[v + 1]; p++) {
+            int signature = pendantSignatures[p] * words;
+
+            for (int i = 0; i < words; i++) {
+                DU[i] |= DV[v * words + i] & signatures[signature + i];
+                combinedDvu[i] |= signatures[signature + i];
+            }
+        }
+    }
+
+    /**
+     * Regroups the nodes of the whole network into clusters based on the current labels of the reduced nodes.
+     */
+    @Override
+    public ClusteringResult getResult() {
+        return reduction.expand(this);
+    }
+}
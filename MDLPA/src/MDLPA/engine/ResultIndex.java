@@ -0,0 +1,565 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable index of the clusters Ck = (Vk, Dk) detected by MDLPA[1], answering in constant time:
+ * - the cluster of a node, by index or by id (through an open addressing table of the ids),
+ * - the members Vk and relevant dimensions Dk of a cluster,
+ * - the clusters for which a dimension is relevant (inverted index of the Dk masks),
+ * - the size, internal edges (in total and on each dimension), cut edges and conductance of a cluster.
+ * The index is a single binary image (big-endian, 8-byte aligned sections) read through buffer views, either built in
+ * memory from a ClusteringResult or memory-mapped from a file written by write, so that a service can query a large
+ * result without loading it. Images are limited to 2 GB.
+ * The conductance of Ck is cut(Ck) / min(vol(Ck), vol(V - Ck)), 0 when either volume is 0.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class ResultIndex {
+    private static final int MAGIC = 0x4d444c49;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 12;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer image;
+    private final int nodesCount;
+    private final int clustersCount;
+    private final int dimensionsCount;
+    private final int maskWords;
+    private final int cycles;
+    private final boolean converged;
+    private final int idTableMask;
+
+    // Cluster of each node.
+    private final IntBuffer memberships;
+
+    // Members of cluster k, sorted by index: clusterNodes[clusterOffsets[k], clusterOffsets[k + 1]).
+    private final IntBuffer clusterOffsets;
+    private final IntBuffer clusterNodes;
+
+    // Clusters for which dimension d is relevant: dimensionClusters[dimensionOffsets[d], dimensionOffsets[d + 1]).
+    private final IntBuffer dimensionOffsets;
+    private final IntBuffer dimensionClusters;
+
+    // Internal edges of cluster k on dimension d at k * dimensionsCount + d.
+    private final IntBuffer dimensionInternalEdges;
+    private final IntBuffer internalEdges;
+    private final IntBuffer cutEdges;
+
+    // Byte offsets of the node ids and dimension names in the strings section.
+    private final IntBuffer nodeIdOffsets;
+    private final IntBuffer dimensionNameOffsets;
+
+    // Index + 1 of the node of each occupied entry of the table of ids, 0 for empty entries.
+    private final IntBuffer idTable;
+
+    // Relevant dimensions Dk of each cluster, packed on maskWords words.
+    private final LongBuffer clusterDimensions;
+    private final DoubleBuffer conductances;
+    private final ByteBuffer strings;
+
+    private ResultIndex(ByteBuffer image) throws IOException {
+        this.image = image.asReadOnlyBuffer();
+        IntBuffer header = section(0, HEADER_INTS * 4).asIntBuffer();
+
+        if (header.get(0) != MAGIC || header.get(1) != VERSION)
+            throw new IOException("Not a result index of version " + VERSION + ".");
+
+        this.nodesCount = header.get(2);
+        this.clustersCount = header.get(3);
+        this.dimensionsCount = header.get(4);
+        this.maskWords = header.get(5);
+        this.cycles = header.get(6);
+        this.converged = header.get(7) != 0;
+
+        int dimensionEntries = header.get(8);
+        int idTableCapacity = header.get(9);
+        int stringsLength = header.get(10);
+
+        this.idTableMask = idTableCapacity - 1;
+
+        int position = HEADER_INTS * 4;
+        memberships = section(position, 4 * nodesCount).asIntBuffer();
+        position = align(position + 4 * nodesCount);
+        clusterOffsets = section(position, 4 * (clustersCount + 1)).asIntBuffer();
+        position = align(position + 4 * (clustersCount + 1));
+        clusterNodes = section(position, 4 * nodesCount).asIntBuffer();
+        position = align(position + 4 * nodesCount);
+        dimensionOffsets = section(position, 4 * (dimensionsCount + 1)).asIntBuffer();
+        position = align(position + 4 * (dimensionsCount + 1));
+        dimensionClusters = section(position, 4 * dimensionEntries).asIntBuffer();
+        position = align(position + 4 * dimensionEntries);
+        dimensionInternalEdges = section(position, 4 * clustersCount * dimensionsCount).asIntBuffer();
+        position = align(position + 4 * clustersCount * dimensionsCount);
+        internalEdges = section(position, 4 * clustersCount).asIntBuffer();
+        position = align(position + 4 * clustersCount);
+        cutEdges = section(position, 4 * clustersCount).asIntBuffer();
+        position = align(position + 4 * clustersCount);
+        nodeIdOffsets = section(position, 4 * (nodesCount + 1)).asIntBuffer();
+        position = align(position + 4 * (nodesCount + 1));
+        dimensionNameOffsets = section(position, 4 * (dimensionsCount + 1)).asIntBuffer();
+        position = align(position + 4 * (dimensionsCount + 1));
+        idTable = section(position, 4 * idTableCapacity).asIntBuffer();
+        position = align(position + 4 * idTableCapacity);
+        clusterDimensions = section(position, 8 * clustersCount * maskWords).asLongBuffer();
+        position += 8 * clustersCount * maskWords;
+        conductances = section(position, 8 * clustersCount).asDoubleBuffer();
+        position += 8 * clustersCount;
+        strings = section(position, stringsLength);
+    }
+
+    private ByteBuffer section(int position, int length) throws IOException {
+        if (position + length > image.capacity())
+            throw new IOException("Truncated result index.");
+
+        ByteBuffer section = image.duplicate();
+        section.position(position);
+        section.limit(position + length);
+
+        return section.slice();
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    /**
+     * Builds the index of a clustering result, reading the edges of its network for the edge counts.
+     */
+    public static ResultIndex create(ClusteringResult result) {
+        MultidimensionalGraph graph = result.getGraph();
+        int n = graph.getNodesCount();
+        int K = result.getClustersCount();
+        int D = graph.getDimensionsCount();
+        int words = graph.getMaskWords();
+        int[] memberships = result.getMemberships();
+        long[] clusterDimensions = result.getClusterDimensions();
+
+        // Members of each cluster, by index.
+        int[] clusterOffsets = new int[K + 1];
+        int[] clusterNodes = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            clusterOffsets[memberships[v] + 1]++;
+        }
+
+        for (int k = 0; k < K; k++) {
+            clusterOffsets[k + 1] += clusterOffsets[k];
+        }
+
+        int[] positions = clusterOffsets.clone();
+
+        for (int v = 0; v < n; v++) {
+            clusterNodes[positions[memberships[v]]++] = v;
+        }
+
+        // Inverted index of the relevant dimensions.
+        int[] dimensionOffsets = new int[D + 1];
+
+        for (int k = 0; k < K; k++) {
+            for (int d = 0; d < D; d++) {
+                if (MaskUtils.get(clusterDimensions, k * words, d))
+                    dimensionOffsets[d + 1]++;
+            }
+        }
+
+        for (int d = 0; d < D; d++) {
+            dimensionOffsets[d + 1] += dimensionOffsets[d];
+        }
+
+        int[] dimensionClusters = new int[dimensionOffsets[D]];
+        positions = dimensionOffsets.clone();
+
+        for (int k = 0; k < K; k++) {
+            for (int d = 0; d < D; d++) {
+                if (MaskUtils.get(clusterDimensions, k * words, d))
+                    dimensionClusters[positions[d]++] = k;
+            }
+        }
+
+        // Edge counts, each edge (v,u) being counted from the row of v < u, and volumes.
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int[][] signatureDimensions = new int[graph.getSignaturesCount()][];
+
+        for (int i = 0; i < signatureDimensions.length; i++) {
+            signatureDimensions[i] = new int[MaskUtils.cardinality(signatures, i * words, words)];
+
+            for (int d = 0, j = 0; d < D; d++) {
+                if (MaskUtils.get(signatures, i * words, d))
+                    signatureDimensions[i][j++] = d;
+            }
+        }
+
+        int[] dimensionInternalEdges = new int[K * D];
+        int[] internalEdges = new int[K];
+        int[] cutEdges = new int[K];
+        long[] volumes = new long[K];
+
+        for (int v = 0; v < n; v++) {
+            int k = memberships[v];
+            volumes[k] += offsets[v + 1] - offsets[v];
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (memberships[u] != k) {
+                    cutEdges[k]++;
+                    continue;
+                }
+
+                if (v >= u)
+                    continue;
+
+                internalEdges[k]++;
+
+                for (int d : signatureDimensions[slotSignatures[s]]) {
+                    dimensionInternalEdges[k * D + d]++;
+                }
+            }
+        }
+
+        double[] conductances = new double[K];
+        long totalVolume = graph.getSlotsCount();
+
+        for (int k = 0; k < K; k++) {
+            long volume = Math.min(volumes[k], totalVolume - volumes[k]);
+            conductances[k] = volume > 0 ? cutEdges[k] / (double)volume : 0;
+        }
+
+        // Node ids and dimension names, UTF-8 encoded one after the other.
+        List<byte[]> encoded = new ArrayList<byte[]>(n + D);
+        int[] nodeIdOffsets = new int[n + 1];
+        int[] dimensionNameOffsets = new int[D + 1];
+        int stringsLength = 0;
+
+        for (int v = 0; v < n; v++) {
+            byte[] bytes = graph.getNodeId(v).getBytes(UTF8);
+            encoded.add(bytes);
+            stringsLength += bytes.length;
+            nodeIdOffsets[v + 1] = stringsLength;
+        }
+
+        dimensionNameOffsets[0] = stringsLength;
+
+        for (int d = 0; d < D; d++) {
+            byte[] bytes = graph.getDimensionNames()[d].getBytes(UTF8);
+            encoded.add(bytes);
+            stringsLength += bytes.length;
+            dimensionNameOffsets[d + 1] = stringsLength;
+        }
+
+        // Table of the ids, at most half full.
+        int capacity = Integer.highestOneBit(Math.max(1, n)) << 2;
+        int[] idTable = new int[capacity];
+
+        for (int v = 0; v < n; v++) {
+            int entry = graph.getNodeId(v).hashCode() & (capacity - 1);
+
+            while (idTable[entry] != 0) {
+                entry = (entry + 1) & (capacity - 1);
+            }
+
+            idTable[entry] = v + 1;
+        }
+
+        long length = align(HEADER_INTS * 4)
+            + align(4 * n) * 2L
+            + align(4 * (K + 1))
+            + align(4 * (D + 1)) * 2L
+            + align(4 * dimensionClusters.length)
+            + align(4 * dimensionInternalEdges.length)
+            + align(4 * K) * 2L
+            + align(4 * (n + 1))
+            + align(4 * capacity)
+            + 8L * clusterDimensions.length
+            + 8L * K
+            + stringsLength;
+
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The result is too large to be indexed.");
+
+        ByteBuffer image = ByteBuffer.allocate((int)length);
+        image.asIntBuffer().put(new int[] {
+            MAGIC,
+            VERSION,
+            n,
+            K,
+            D,
+            words,
+            result.getCycles(),
+            result.isConverged() ? 1 : 0,
+            dimensionClusters.length,
+            capacity,
+            stringsLength,
+            0
+        });
+
+        int position = HEADER_INTS * 4;
+
+        for (int[] section : new int[][] {
+            memberships,
+            clusterOffsets,
+            clusterNodes,
+            dimensionOffsets,
+            dimensionClusters,
+            dimensionInternalEdges,
+            internalEdges,
+            cutEdges,
+            nodeIdOffsets,
+            dimensionNameOffsets,
+            idTable
+        }) {
+            image.position(position);
+            image.asIntBuffer().put(section);
+            position = align(position + 4 * section.length);
+        }
+
+        image.position(position);
+        image.asLongBuffer().put(clusterDimensions);
+        position += 8 * clusterDimensions.length;
+        image.position(position);
+        image.asDoubleBuffer().put(conductances);
+        position += 8 * K;
+        image.position(position);
+
+        for (byte[] bytes : encoded) {
+            image.put(bytes);
+        }
+
+        image.rewind();
+
+        try {
+            return new ResultIndex(image);
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException("Failed to read a built result index.", ex);
+        }
+    }
+
+    /**
+     * Memory-maps an index written by write, the file being read on demand by the queries.
+     */
+    public static ResultIndex map(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+
+        try {
+            // The mapping stays valid once the file is closed.
+            return new ResultIndex(input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length()));
+        }
+        finally {
+            input.close();
+        }
+    }
+
+    public void write(File file) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+
+        try {
+            write(output);
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Writes the binary image of the index, which map reads back.
+     */
+    public void write(OutputStream output) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(output);
+        ByteBuffer bytes = image.duplicate();
+        bytes.rewind();
+
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Returns the size of the binary image, in bytes.
+     */
+    public int getSize() {
+        return image.capacity();
+    }
+
+    public int getNodesCount() {
+        return nodesCount;
+    }
+
+    public int getClustersCount() {
+        return clustersCount;
+    }
+
+    public int getDimensionsCount() {
+        return dimensionsCount;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public int getClusterOf(int v) {
+        return memberships.get(v);
+    }
+
+    /**
+     * Returns the cluster of a node given its id, -1 if the id is unknown.
+     */
+    public int getClusterOf(String id) {
+        int v = getNodeIndex(id);
+
+        return v >= 0 ? memberships.get(v) : -1;
+    }
+
+    /**
+     * Returns the index of a node given its id, -1 if the id is unknown.
+     */
+    public int getNodeIndex(String id) {
+        for (int entry = id.hashCode() & idTableMask; idTable.get(entry) != 0; entry = (entry + 1) & idTableMask) {
+            int v = idTable.get(entry) - 1;
+
+            if (getNodeId(v).equals(id))
+                return v;
+        }
+
+        return -1;
+    }
+
+    public String getNodeId(int v) {
+        return getString(nodeIdOffsets.get(v), nodeIdOffsets.get(v + 1));
+    }
+
+    public String getDimensionName(int d) {
+        return getString(dimensionNameOffsets.get(d), dimensionNameOffsets.get(d + 1));
+    }
+
+    /**
+     * Returns the index of a dimension given its name, -1 if the name is unknown.
+     */
+    public int getDimensionIndex(String name) {
+        for (int d = 0; d < dimensionsCount; d++) {
+            if (getDimensionName(d).equals(name))
+                return d;
+        }
+
+        return -1;
+    }
+
+    private String getString(int from, int to) {
+        byte[] bytes = new byte[to - from];
+
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = strings.get(i);
+        }
+
+        return new String(bytes, UTF8);
+    }
+
+    public int getClusterSize(int k) {
+        return clusterOffsets.get(k + 1) - clusterOffsets.get(k);
+    }
+
+    /**
+     * Returns the i-th member of a cluster, members being sorted by index.
+     */
+    public int getClusterNode(int k, int i) {
+        return clusterNodes.get(clusterOffsets.get(k) + i);
+    }
+
+    public int[] getClusterNodes(int k) {
+        int[] nodes = new int[getClusterSize(k)];
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = getClusterNode(k, i);
+        }
+
+        return nodes;
+    }
+
+    public boolean isRelevant(int k, int d) {
+        return (clusterDimensions.get(k * maskWords + (d >>> 6)) & (1L << (d & 63))) != 0;
+    }
+
+    /**
+     * Returns the names of the relevant dimensions Dk of a cluster.
+     */
+    public List<String> getRelevantDimensions(int k) {
+        List<String> names = new ArrayList<String>();
+
+        for (int d = 0; d < dimensionsCount; d++) {
+            if (isRelevant(k, d))
+                names.add(getDimensionName(d));
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the clusters for which a dimension is relevant, in increasing order.
+     */
+    public int[] getClustersOfDimension(int d) {
+        int from = dimensionOffsets.get(d);
+        int[] clusters = new int[dimensionOffsets.get(d + 1) - from];
+
+        for (int i = 0; i < clusters.length; i++) {
+            clusters[i] = dimensionClusters.get(from + i);
+        }
+
+        return clusters;
+    }
+
+    public int getClustersOfDimensionCount(int d) {
+        return dimensionOffsets.get(d + 1) - dimensionOffsets.get(d);
+    }
+
+    /**
+     * Returns the number of edges between members of a cluster.
+     */
+    public int getInternalEdges(int k) {
+        return internalEdges.get(k);
+    }
+
+    /**
+     * Returns the number of edges between members of a cluster connected on a dimension.
+     */
+    public int getInternalEdges(int k, int d) {
+        return dimensionInternalEdges.get(k * dimensionsCount + d);
+    }
+
+    /**
+     * Returns the number of edges between a member of a cluster and a node outside of it.
+     */
+    public int getCutEdges(int k) {
+        return cutEdges.get(k);
+    }
+
+    public double getConductance(int k) {
+        return conductances.get(k);
+    }
+}
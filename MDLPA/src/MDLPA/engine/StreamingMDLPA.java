@@ -0,0 +1,609 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the MDLPA[1] clusters of a multidimensional network made of the timestamped edge events of a sliding
+ * window. Each event (u, v, dimensions, time) connects u and v along its dimensions until time + window; an edge
+ * holds the dimensions of its events still in the window and disappears with the last of them, and so do the nodes
+ * left without edges.
+ * Instead of being run in cycles over the whole network, the propagation is driven by a queue of nodes to update:
+ * - the endpoints of an edge whose connecting dimensions change are queued, their w0 (DRxOR) and, for new nodes, their
+ *   Dv_0 being recomputed from their current neighborhood when they are updated,
+ * - a node is updated with the rule of MDLPA, the attraction weights w(v,u) = w0(v,u) * J(Du, Dvu) being recomputed
+ *   from the relevant dimensions of the neighbors as in CompressedLabelPropagation,
+ * - the neighbors of a node whose label or relevant dimensions change are queued in turn.
+ * Each event triggers at most updatesPerEvent node updates, so that its cost is bounded by the update of that many
+ * neighborhoods; the remaining ones are carried over to the next events (or run by drain).
+ * Events are expected in time order, late events are counted at the time of the latest one.
+ * The methods are synchronized, so that the clusters can be queried from another thread while events are added.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class StreamingMDLPA {
+    private final long window;
+    private final int updatesPerEvent;
+    private final Pattern dimensionsSeparator;
+    private final int maxDimensions;
+    private final int words;
+    private final Random randomizer;
+
+    // Maps each dimension name to its id.
+    private final Map<String, Integer> dimensionIds = new HashMap<String, Integer>();
+    private final List<String> dimensionNames = new ArrayList<String>();
+
+    // Maps the id of each node in the window to its index, indices of removed nodes are reused.
+    private final Map<String, Integer> nodeIndices = new HashMap<String, Integer>();
+    private int[] freeIndices = new int[16];
+    private int freeIndicesCount = 0;
+    private int capacity = 0;
+
+    // Per node state, indexed by node index. The edges of each node are kept by neighbor index.
+    private String[] nodeIds = new String[0];
+    private int[] labels = new int[0];
+    private long[] DV = new long[0];
+    private List<Map<Integer, StreamEdge>> neighborhoods = new ArrayList<Map<Integer, StreamEdge>>();
+    private boolean[] isDirty = new boolean[0];
+    private boolean[] isNew = new boolean[0];
+    private boolean[] isQueued = new boolean[0];
+
+    // Labels are never reused, so that a new node doesn't join the cluster of a removed one.
+    private int nextLabel = 0;
+
+    private final ArrayDeque<Integer> pendingUpdates = new ArrayDeque<Integer>();
+    private final ArrayDeque<Expiry> expiries = new ArrayDeque<Expiry>();
+
+    private long currentTime = Long.MIN_VALUE;
+    private int edgesCount = 0;
+    private long eventsCount = 0;
+    private long updatesCount = 0;
+
+    // Reusable buffers.
+    private final LabelWeights combinedClusterWeights = new LabelWeights();
+    private int[] dominantLabels = new int[16];
+    private final long[] DU;
+    private final long[] combinedDvu;
+    private long[] distinctMasks;
+    private double[] distinctValues = new double[16];
+
+    /**
+     * @param window: time during which an event connects its nodes, in the unit of the event times.
+     * @param updatesPerEvent: maximum number of node updates run after each event.
+     * @param maxDimensions: maximum number of distinct dimensions of the stream, which sets the size of the masks.
+     */
+    public StreamingMDLPA(long window, int updatesPerEvent, String dimensionsSeparator, int maxDimensions, Random randomizer) {
+        this.window = window;
+        this.updatesPerEvent = updatesPerEvent;
+        this.dimensionsSeparator = Pattern.compile(dimensionsSeparator);
+        this.maxDimensions = maxDimensions;
+        this.words = MaskUtils.getWordsCount(maxDimensions);
+        this.randomizer = randomizer;
+        this.DU = new long[words];
+        this.combinedDvu = new long[words];
+        this.distinctMasks = new long[16 * words];
+    }
+
+    /**
+     * Adds an edge event between two nodes along the dimensions of its label, expiring the events which left the
+     * window, then runs up to updatesPerEvent node updates.
+     */
+    public synchronized void addEvent(String source, String target, String label, long time) {
+        currentTime = Math.max(currentTime, time);
+        eventsCount++;
+        expire(currentTime - window);
+
+        if (!source.equals(target)) {
+            int v = getOrAddNode(source);
+            int u = getOrAddNode(target);
+            StreamEdge edge = neighborhoods.get(v).get(u);
+
+            if (edge == null) {
+                edge = new StreamEdge(v, u, words);
+                neighborhoods.get(v).put(u, edge);
+                neighborhoods.get(u).put(v, edge);
+                edgesCount++;
+            }
+
+            boolean changed = false;
+
+            for (String name : dimensionsSeparator.split(label.trim())) {
+                int dimension = getDimensionId(name.trim());
+
+                changed |= edge.see(dimension, currentTime);
+                expiries.add(new Expiry(edge, dimension, currentTime));
+            }
+
+            if (changed) {
+                markDirty(v);
+                markDirty(u);
+                initializeIfNew(v);
+                initializeIfNew(u);
+            }
+        }
+
+        propagate(updatesPerEvent);
+    }
+
+    /**
+     * Runs the pending node updates, at most maxUpdates of them.
+     * @return true if no update is pending anymore.
+     */
+    public synchronized boolean drain(long maxUpdates) {
+        propagate(maxUpdates);
+
+        return pendingUpdates.isEmpty();
+    }
+
+    /**
+     * Returns the current clusters of the nodes in the window. The result is converged when no update is pending.
+     */
+    public synchronized ClusteringResult getResult() {
+        String[] ids = new String[nodeIndices.size()];
+        int[] compactLabels = new int[ids.length];
+        long[] compactDV = new long[ids.length * words];
+        int i = 0;
+
+        for (int v = 0; v < capacity; v++) {
+            if (nodeIds[v] == null)
+                continue;
+
+            ids[i] = nodeIds[v];
+            compactLabels[i] = labels[v];
+            MaskUtils.copy(DV, v * words, compactDV, i * words, words);
+            i++;
+        }
+
+        return ClusteringResult.create(
+            MultidimensionalGraph.withoutEdges(ids, dimensionNames.toArray(new String[dimensionNames.size()]), words),
+            compactLabels,
+            compactDV,
+            0,
+            pendingUpdates.isEmpty()
+        );
+    }
+
+    public synchronized int getNodesCount() {
+        return nodeIndices.size();
+    }
+
+    public synchronized int getEdgesCount() {
+        return edgesCount;
+    }
+
+    public synchronized long getEventsCount() {
+        return eventsCount;
+    }
+
+    /**
+     * Returns the number of node updates run since the beginning of the stream.
+     */
+    public synchronized long getUpdatesCount() {
+        return updatesCount;
+    }
+
+    public synchronized int getPendingUpdatesCount() {
+        return pendingUpdates.size();
+    }
+
+    /**
+     * Returns the time of the latest event.
+     */
+    public synchronized long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Removes the dimensions whose last event happened at or before cutoff, then the edges and nodes left empty.
+     */
+    private void expire(long cutoff) {
+        while (!expiries.isEmpty() && expiries.peek().time <= cutoff) {
+            Expiry expiry = expiries.poll();
+            StreamEdge edge = expiry.edge;
+
+            // A later event on the same edge and dimension has its own expiry.
+            if (!edge.forget(expiry.dimension, expiry.time))
+                continue;
+
+            if (edge.isEmpty()) {
+                neighborhoods.get(edge.v).remove(edge.u);
+                neighborhoods.get(edge.u).remove(edge.v);
+                edgesCount--;
+            }
+
+            markDirty(edge.v);
+            markDirty(edge.u);
+
+            if (neighborhoods.get(edge.v).isEmpty())
+                removeNode(edge.v);
+
+            if (neighborhoods.get(edge.u).isEmpty())
+                removeNode(edge.u);
+        }
+    }
+
+    private void propagate(long maxUpdates) {
+        for (long i = 0; i < maxUpdates && !pendingUpdates.isEmpty(); i++) {
+            int v = pendingUpdates.poll();
+            isQueued[v] = false;
+
+            if (nodeIds[v] != null)
+                updateNode(v);
+        }
+    }
+
+    /**
+     * Applies the update rule of MDLPA on a node, queuing its neighbors if its label or relevant dimensions change.
+     */
+    private void updateNode(int v) {
+        Map<Integer, StreamEdge> edges = neighborhoods.get(v);
+        updatesCount++;
+
+        if (isDirty[v]) {
+            calculateW0InNeighborhood(v, edges);
+            isDirty[v] = false;
+
+            if (isNew[v]) {
+                initializeRelevantDimensionsDv(v, edges);
+                isNew[v] = false;
+            }
+        }
+
+        combinedClusterWeights.clear();
+
+        for (StreamEdge edge : edges.values()) {
+            int u = edge.getOther(v);
+            double distance = MaskUtils.getJaccardCoefficient(DV, u * words, edge.mask, 0, words);
+
+            combinedClusterWeights.add(labels[u], edge.getW0(v) * distance);
+        }
+
+        // A node already bearing a dominant label keeps it, so that ties don't keep the queue busy.
+        int newlv = edges.isEmpty() || combinedClusterWeights.get(labels[v]) == combinedClusterWeights.getMaxWeight()
+            ? labels[v]
+            : getDominantCluster();
+
+        MaskUtils.clear(DU, 0, words);
+        MaskUtils.clear(combinedDvu, 0, words);
+
+        for (StreamEdge edge : edges.values()) {
+            int u = edge.getOther(v);
+
+            if (labels[u] != newlv)
+                continue;
+
+            MaskUtils.or(DU, 0, DV, u * words, words);
+            MaskUtils.or(combinedDvu, 0, edge.mask, 0, words);
+        }
+
+        MaskUtils.and(DU, 0, combinedDvu, 0, words);
+
+        boolean changed = labels[v] != newlv || !MaskUtils.equals(DU, 0, DV, v * words, words);
+
+        labels[v] = newlv;
+        MaskUtils.copy(DU, 0, DV, v * words, words);
+
+        if (changed) {
+            for (int u : edges.keySet()) {
+                enqueue(u);
+            }
+        }
+    }
+
+    private int getDominantCluster() {
+        double maxWeight = combinedClusterWeights.getMaxWeight();
+        int tiesCount = 0;
+
+        if (dominantLabels.length < combinedClusterWeights.size())
+            dominantLabels = new int[combinedClusterWeights.size()];
+
+        for (int i = 0; i < combinedClusterWeights.size(); i++) {
+            if (combinedClusterWeights.getWeight(i) == maxWeight)
+                dominantLabels[tiesCount++] = combinedClusterWeights.getLabel(i);
+        }
+
+        if (tiesCount == 1)
+            return dominantLabels[0];
+
+        return dominantLabels[randomizer.nextInt(tiesCount)];
+    }
+
+    /**
+     * Recomputes w0(v,u) for each neighbor u of v with the DRxOR of Dvu among the distinct connecting dimension sets
+     * of the neighborhood, as in Preprocessing.
+     */
+    private void calculateW0InNeighborhood(int v, Map<Integer, StreamEdge> edges) {
+        int distinctCount = collectDistinctMasks(edges);
+
+        for (int i = 0; i < distinctCount; i++) {
+            double DRxOR = 1;
+
+            if (distinctCount > 1) {
+                int numberOfExclusivelyReachableNeighbors = 0;
+
+                for (int j = 0; j < distinctCount; j++) {
+                    // Check whether Dvu ⊆ candidate
+                    if (MaskUtils.contains(distinctMasks, i * words, distinctMasks, j * words, words))
+                        numberOfExclusivelyReachableNeighbors++;
+                }
+
+                DRxOR = numberOfExclusivelyReachableNeighbors / (double)distinctCount;
+            }
+
+            distinctValues[i] = DRxOR;
+        }
+
+        for (StreamEdge edge : edges.values()) {
+            edge.setW0(v, distinctValues[indexOfDistinctMask(edge.mask, distinctCount)]);
+        }
+    }
+
+    /**
+     * Selects Dv_0 as the union of the connecting dimensions Dvu which accumulate the highest w0 in the neighborhood
+     * of v, as in Preprocessing. Expects the distinct masks of the neighborhood to be collected.
+     */
+    private void initializeRelevantDimensionsDv(int v, Map<Integer, StreamEdge> edges) {
+        int distinctCount = collectDistinctMasks(edges);
+
+        Arrays.fill(distinctValues, 0, distinctCount, 0);
+
+        for (StreamEdge edge : edges.values()) {
+            distinctValues[indexOfDistinctMask(edge.mask, distinctCount)] += edge.getW0(v);
+        }
+
+        double maxAccumulatedW0 = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < distinctCount; i++) {
+            maxAccumulatedW0 = Math.max(maxAccumulatedW0, distinctValues[i]);
+        }
+
+        MaskUtils.clear(DV, v * words, words);
+
+        for (int i = 0; i < distinctCount; i++) {
+            if (distinctValues[i] == maxAccumulatedW0)
+                MaskUtils.or(DV, v * words, distinctMasks, i * words, words);
+        }
+    }
+
+    /**
+     * Collects the distinct connecting dimension sets of a neighborhood into distinctMasks.
+     * @return the number of distinct sets.
+     */
+    private int collectDistinctMasks(Map<Integer, StreamEdge> edges) {
+        int distinctCount = 0;
+
+        for (StreamEdge edge : edges.values()) {
+            if (indexOfDistinctMask(edge.mask, distinctCount) >= 0)
+                continue;
+
+            if (distinctMasks.length < (distinctCount + 1) * words) {
+                distinctMasks = Arrays.copyOf(distinctMasks, distinctMasks.length * 2);
+                distinctValues = Arrays.copyOf(distinctValues, distinctValues.length * 2);
+            }
+
+            MaskUtils.copy(edge.mask, 0, distinctMasks, distinctCount * words, words);
+            distinctCount++;
+        }
+
+        return distinctCount;
+    }
+
+    private int indexOfDistinctMask(long[] mask, int distinctCount) {
+        for (int i = 0; i < distinctCount; i++) {
+            if (MaskUtils.equals(distinctMasks, i * words, mask, 0, words))
+                return i;
+        }
+
+        return -1;
+    }
+
+    private int getDimensionId(String name) {
+        Integer id = dimensionIds.get(name);
+
+        if (id == null) {
+            if (dimensionNames.size() >= maxDimensions)
+                throw new IllegalArgumentException(String.format("The stream holds more than %d dimensions.", maxDimensions));
+
+            id = dimensionNames.size();
+            dimensionIds.put(name, id);
+            dimensionNames.add(name);
+        }
+
+        return id;
+    }
+
+    private int getOrAddNode(String id) {
+        Integer index = nodeIndices.get(id);
+
+        if (index != null)
+            return index;
+
+        int v = freeIndicesCount > 0 ? freeIndices[--freeIndicesCount] : grow();
+
+        nodeIndices.put(id, v);
+        nodeIds[v] = id;
+        labels[v] = nextLabel++;
+        MaskUtils.clear(DV, v * words, words);
+        isNew[v] = true;
+
+        return v;
+    }
+
+    private void removeNode(int v) {
+        if (nodeIds[v] == null)
+            return;
+
+        nodeIndices.remove(nodeIds[v]);
+        nodeIds[v] = null;
+
+        if (freeIndicesCount == freeIndices.length)
+            freeIndices = Arrays.copyOf(freeIndices, freeIndices.length * 2);
+
+        freeIndices[freeIndicesCount++] = v;
+    }
+
+    /**
+     * Adds a node index at the end of the per node arrays, doubling them when full.
+     */
+    private int grow() {
+        if (capacity == nodeIds.length) {
+            int newCapacity = Math.max(16, capacity * 2);
+
+            nodeIds = Arrays.copyOf(nodeIds, newCapacity);
+            labels = Arrays.copyOf(labels, newCapacity);
+            DV = Arrays.copyOf(DV, newCapacity * words);
+            isDirty = Arrays.copyOf(isDirty, newCapacity);
+            isNew = Arrays.copyOf(isNew, newCapacity);
+            isQueued = Arrays.copyOf(isQueued, newCapacity);
+        }
+
+        neighborhoods.add(new LinkedHashMap<Integer, StreamEdge>());
+
+        return capacity++;
+    }
+
+    /**
+     * Refreshes Dv_0 of a node which wasn't updated yet as soon as its neighborhood changes: its neighbors may be
+     * updated before it, and would otherwise find no relevant dimensions on it.
+     */
+    private void initializeIfNew(int v) {
+        if (!isNew[v])
+            return;
+
+        Map<Integer, StreamEdge> edges = neighborhoods.get(v);
+
+        calculateW0InNeighborhood(v, edges);
+        initializeRelevantDimensionsDv(v, edges);
+    }
+
+    private void markDirty(int v) {
+        isDirty[v] = true;
+        enqueue(v);
+    }
+
+    private void enqueue(int v) {
+        if (isQueued[v])
+            return;
+
+        isQueued[v] = true;
+        pendingUpdates.add(v);
+    }
+
+    /**
+     * An edge of the window, shared by the neighborhoods of its two nodes.
+     */
+    private static class StreamEdge {
+        final int v;
+        final int u;
+
+        // Connecting dimensions Dvu of the events in the window.
+        final long[] mask;
+
+        // Time of the latest event of each dimension of the mask.
+        private int[] dimensions = new int[2];
+        private long[] lastSeen = new long[2];
+        private int dimensionsCount = 0;
+
+        // w0(v,u) applied on v by u and w0(u,v) applied on u by v.
+        private double w0OnV = 0;
+        private double w0OnU = 0;
+
+        StreamEdge(int v, int u, int words) {
+            this.v = v;
+            this.u = u;
+            this.mask = new long[words];
+        }
+
+        int getOther(int node) {
+            return node == v ? u : v;
+        }
+
+        double getW0(int node) {
+            return node == v ? w0OnV : w0OnU;
+        }
+
+        void setW0(int node, double value) {
+            if (node == v)
+                w0OnV = value;
+            else
+                w0OnU = value;
+        }
+
+        /**
+         * Records an event along a dimension.
+         * @return true if the dimension is new to the edge.
+         */
+        boolean see(int dimension, long time) {
+            for (int i = 0; i < dimensionsCount; i++) {
+                if (dimensions[i] == dimension) {
+                    lastSeen[i] = time;
+                    return false;
+                }
+            }
+
+            if (dimensionsCount == dimensions.length) {
+                dimensions = Arrays.copyOf(dimensions, dimensionsCount * 2);
+                lastSeen = Arrays.copyOf(lastSeen, dimensionsCount * 2);
+            }
+
+            dimensions[dimensionsCount] = dimension;
+            lastSeen[dimensionsCount] = time;
+            dimensionsCount++;
+            MaskUtils.set(mask, 0, dimension);
+
+            return true;
+        }
+
+        /**
+         * Removes a dimension if its latest event happened at the given time.
+         * @return true if the dimension was removed.
+         */
+        boolean forget(int dimension, long time) {
+            for (int i = 0; i < dimensionsCount; i++) {
+                if (dimensions[i] != dimension)
+                    continue;
+
+                if (lastSeen[i] != time)
+                    return false;
+
+                dimensionsCount--;
+                dimensions[i] = dimensions[dimensionsCount];
+                lastSeen[i] = lastSeen[dimensionsCount];
+                mask[dimension >>> 6] &= ~(1L << (dimension & 63));
+
+                return true;
+            }
+
+            return false;
+        }
+
+        boolean isEmpty() {
+            return dimensionsCount == 0;
+        }
+    }
+
+    /**
+     * The end of validity of an event along one of its dimensions.
+     */
+    private static class Expiry {
+        final StreamEdge edge;
+        final int dimension;
+        final long time;
+
+        Expiry(StreamEdge edge, int dimension, long time) {
+            this.edge = edge;
+            this.dimension = dimension;
+            this.time = time;
+        }
+    }
+}
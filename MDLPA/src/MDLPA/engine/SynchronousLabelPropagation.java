@@ -0,0 +1,333 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the propagation phase of MDLPA[1] synchronously: each cycle reads the labels, the relevant dimensions Dv and the
+ * attraction weights w of the previous cycle and writes the new labels and Dv into a second buffer, so the nodes can
+ * be updated in any order and by any number of threads with the same result.
+ * - the new labels and Dv are computed from the ones of the previous cycle, then the rows whose neighbors changed their
+ *   Dv revise their own weights (as in the pull mode of LabelPropagation), so every pass only writes to the entries of
+ *   the nodes it updates,
+ * - synchronous updates make the endpoints of bipartite-like structures swap their labels forever. They are damped by
+ *   keeping the current label when it's among the dominant ones and by updating each node (its label and Dv) with
+ *   updateProbability only, the other nodes keeping their label and Dv for the cycle,
+ * - the random draws (partial updates and ties) are made from a hash of the seed, the cycle and the node rather than
+ *   from a shared randomizer, so the clusters only depend on the seed.
+ * The propagation converges when the label of every node is among the dominant ones of its neighborhood, as checked by
+ * LabelPropagation; the check is made during the tally of each cycle, whose updates are dropped when it passes.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class SynchronousLabelPropagation {
+    public static final double DEFAULT_UPDATE_PROBABILITY = 0.5;
+
+    private final MultidimensionalGraph graph;
+    private final double[] W0;
+    private final double[] W;
+    private final long seed;
+    private final int words;
+
+    // Labels and relevant dimensions of the current cycle, and the buffers of the next one.
+    private int[] labels;
+    private int[] nextLabels;
+    private long[] DV;
+    private long[] nextDV;
+
+    // Whether the Dv of each node changed during the current cycle.
+    private final boolean[] isDvChanged;
+
+    private double updateProbability = DEFAULT_UPDATE_PROBABILITY;
+    private ExecutorService executor = null;
+    private int[] bounds;
+
+    private int cycles = 0;
+    private boolean converged = false;
+    private volatile boolean isCancelled = false;
+
+    // Time (System.currentTimeMillis) after which no new cycle is started, Long.MAX_VALUE for none.
+    private long deadline = Long.MAX_VALUE;
+    private boolean deadlineReached = false;
+
+    /**
+     * @param initialLabels: labels to start from, null to put each node in its own cluster.
+     */
+    public SynchronousLabelPropagation(MultidimensionalGraph graph, Preprocessing preprocessing, int[] initialLabels, long seed) {
+        int n = graph.getNodesCount();
+
+        this.graph = graph;
+        this.seed = seed;
+        this.words = graph.getMaskWords();
+        this.W0 = preprocessing.getW0();
+        this.W = preprocessing.getW().clone();
+        this.DV = preprocessing.getDV0().clone();
+        this.nextDV = new long[DV.length];
+        this.nextLabels = new int[n];
+        this.isDvChanged = new boolean[n];
+        this.bounds = ParallelChunks.uniformBounds(n, 1);
+
+        if (initialLabels != null) {
+            this.labels = initialLabels.clone();
+        }
+        else {
+            this.labels = new int[n];
+
+            for (int v = 0; v < n; v++) {
+                labels[v] = v;
+            }
+        }
+    }
+
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public long[] getDV() {
+        return DV;
+    }
+
+    public double[] getW() {
+        return W;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Sets the probability with which each node is updated at each cycle, 1 to update all of them.
+     */
+    public void setUpdateProbability(double value) {
+        if (value <= 0 || value > 1)
+            throw new IllegalArgumentException("The update probability must be in ]0, 1].");
+
+        this.updateProbability = value;
+    }
+
+    /**
+     * Splits each pass into chunksCount chunks holding about the same number of slots, run on the executor.
+     */
+    public void setParallelism(ExecutorService executor, int chunksCount) {
+        this.executor = executor;
+        this.bounds = ParallelChunks.slotBalancedBounds(graph.getOffsets(), chunksCount);
+    }
+
+    /**
+     * Stops the propagation at the first cycle boundary after the deadline (a System.currentTimeMillis time). The
+     * labels and relevant dimensions are then the ones of the last completed cycle, and the result isn't converged.
+     */
+    public void setDeadline(long value) {
+        this.deadline = value;
+    }
+
+    /**
+     * Sets the deadline millis milliseconds from now, see setDeadline.
+     */
+    public void setTimeBudget(long millis) {
+        setDeadline(System.currentTimeMillis() + millis);
+    }
+
+    /**
+     * Checks whether the deadline passed, in which case no new cycle should be started.
+     */
+    public boolean checkDeadline() {
+        if (!deadlineReached && System.currentTimeMillis() >= deadline)
+            deadlineReached = true;
+
+        return deadlineReached;
+    }
+
+    public boolean isDeadlineReached() {
+        return deadlineReached;
+    }
+
+    /**
+     * Runs propagation cycles until convergence, cancellation, the deadline or until maxCycles cycles were run.
+     * @return true if the propagation converged.
+     */
+    public boolean propagate(int maxCycles) {
+        while (!isCancelled && !checkDeadline() && !converged && cycles < maxCycles) {
+            runCycle();
+        }
+
+        return converged;
+    }
+
+    /**
+     * Runs a single synchronous cycle, unless the labels of the current one turn out to be stable.
+     * @return the number of nodes whose label changed.
+     */
+    public int runCycle() {
+        final AtomicInteger unstableCount = new AtomicInteger();
+        final AtomicInteger changesCount = new AtomicInteger();
+        final int cycle = cycles;
+
+        ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+            @Override
+            public void run(int from, int to) {
+                int[] counts = updateNodes(cycle, from, to);
+
+                unstableCount.addAndGet(counts[0]);
+                changesCount.addAndGet(counts[1]);
+            }
+        });
+
+        if (unstableCount.get() == 0) {
+            converged = true;
+            return 0;
+        }
+
+        int[] swappedLabels = labels;
+        labels = nextLabels;
+        nextLabels = swappedLabels;
+
+        long[] swappedDV = DV;
+        DV = nextDV;
+        nextDV = swappedDV;
+
+        ParallelChunks.run(bounds, executor, new ParallelChunks.Chunk() {
+            @Override
+            public void run(int from, int to) {
+                reviseWeights(from, to);
+            }
+        });
+
+        cycles++;
+
+        return changesCount.get();
+    }
+
+    /**
+     * Computes the labels and Dv of the next cycle for the nodes from (inclusive) to to (exclusive).
+     * @return the number of nodes whose label isn't among the dominant ones and the number of label changes.
+     */
+    private int[] updateNodes(int cycle, int from, int to) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        LabelWeights combinedClusterWeights = new LabelWeights();
+        int[] dominantLabels = new int[16];
+        long[] DU = new long[words];
+        long[] combinedDvu = new long[words];
+        int unstable = 0;
+        int changes = 0;
+
+        for (int v = from; v < to; v++) {
+            int lv = labels[v];
+            nextLabels[v] = lv;
+            MaskUtils.copy(DV, v * words, nextDV, v * words, words);
+            isDvChanged[v] = false;
+
+            if (offsets[v] == offsets[v + 1])
+                continue;
+
+            combinedClusterWeights.clear();
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                combinedClusterWeights.add(labels[neighbors[s]], W[s]);
+            }
+
+            double maxWeight = combinedClusterWeights.getMaxWeight();
+            boolean isStable = combinedClusterWeights.get(lv) == maxWeight;
+
+            if (!isStable)
+                unstable++;
+
+            long hash = hash(seed, cycle, v);
+
+            if ((hash >>> 11) * 0x1.0p-53 >= updateProbability)
+                continue;
+
+            // The current label is kept on ties, the other ties are broken randomly.
+            int winningLabel = lv;
+
+            if (!isStable) {
+                if (dominantLabels.length < combinedClusterWeights.size())
+                    dominantLabels = new int[combinedClusterWeights.size()];
+
+                int tiesCount = 0;
+
+                for (int i = 0; i < combinedClusterWeights.size(); i++) {
+                    if (combinedClusterWeights.getWeight(i) == maxWeight)
+                        dominantLabels[tiesCount++] = combinedClusterWeights.getLabel(i);
+                }
+
+                winningLabel = tiesCount == 1
+                    ? dominantLabels[0]
+                    : dominantLabels[(int)((hash(hash, cycle, v) >>> 1) % tiesCount)];
+
+                nextLabels[v] = winningLabel;
+                changes++;
+            }
+
+            // Dv is updated as in LabelPropagation, from the neighbors of the previous cycle in the winning cluster.
+            MaskUtils.clear(DU, 0, words);
+            MaskUtils.clear(combinedDvu, 0, words);
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (labels[u] != winningLabel)
+                    continue;
+
+                MaskUtils.or(DU, 0, DV, u * words, words);
+                MaskUtils.or(combinedDvu, 0, signatures, slotSignatures[s] * words, words);
+            }
+
+            MaskUtils.and(DU, 0, combinedDvu, 0, words);
+
+            if (!MaskUtils.equals(DU, 0, DV, v * words, words)) {
+                MaskUtils.copy(DU, 0, nextDV, v * words, words);
+                isDvChanged[v] = true;
+            }
+        }
+
+        return new int[] { unstable, changes };
+    }
+
+    /**
+     * Revises the weights w(v,u) applied on the nodes from (inclusive) to to (exclusive) by the neighbors whose Dv
+     * changed, only writing to the rows of these nodes.
+     */
+    private void reviseWeights(int from, int to) {
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+
+        for (int v = from; v < to; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+
+                if (isDvChanged[u])
+                    W[s] = WeightKernels.getWeight(graph, DV, u, s, W0);
+            }
+        }
+    }
+
+    /**
+     * Mixes the seed, the cycle and a node into a random 64-bit value (SplitMix64 finalizer).
+     */
+    private static long hash(long seed, int cycle, int v) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long)cycle << 32) + v + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    public ClusteringResult getResult() {
+        return ClusteringResult.create(graph, labels, DV, cycles, converged);
+    }
+}
@@ -0,0 +1,321 @@
+package MDLPA.engine;
+
+import MDLPA.helpers.MaskUtils;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Labels (and optionally relevant dimensions Dv) to start MDLPA[1] from instead of putting each node in its own cluster,
+ * so that the first cycles aren't spent merging groups which are already known:
+ * - a prior partition, read from the memberships or the clusters written by ClusteringResult. The memberships only
+ *   give the labels; the clusters also give the relevant dimensions Dk, from which Dv is seeded as the dimensions of
+ *   Dk connecting v to the other members of its cluster (Dv_0 is kept when there are none),
+ * - a per-layer pre-clustering of the network, see LayerPreclustering.
+ * The label of a seeded cluster is the index of its first member, so the labels stay within the node indices.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class WarmStart {
+    private final int[] labels;
+
+    // Seeded relevant dimensions, empty for the nodes keeping Dv_0, null if none is seeded.
+    private final long[] DV;
+
+    private final int clustersCount;
+
+    public WarmStart(int[] labels, long[] DV) {
+        this.labels = labels;
+        this.DV = DV;
+
+        int count = 0;
+
+        for (int v = 0; v < labels.length; v++) {
+            if (labels[v] == v)
+                count++;
+        }
+
+        this.clustersCount = count;
+    }
+
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public long[] getDV() {
+        return DV;
+    }
+
+    public int getClustersCount() {
+        return clustersCount;
+    }
+
+    /**
+     * Returns the initialization to propagate from: the initialization of the network if Dv isn't seeded, otherwise
+     * the seeded Dv (Dv_0 for the nodes left without seeded dimensions) along with the weights w(v,u) revised
+     * accordingly.
+     */
+    public Preprocessing apply(MultidimensionalGraph graph, Preprocessing preprocessing) {
+        if (DV == null)
+            return preprocessing;
+
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        double[] W0 = preprocessing.getW0();
+        double[] W = new double[graph.getSlotsCount()];
+        long[] seeded = DV.clone();
+
+        for (int v = 0; v < n; v++) {
+            if (MaskUtils.isEmpty(seeded, v * words, words))
+                MaskUtils.copy(preprocessing.getDV0(), v * words, seeded, v * words, words);
+        }
+
+        for (int v = 0; v < n; v++) {
+            Preprocessing.reviseWeightsInNeighborhood(graph, v, W0, seeded, W);
+        }
+
+        return new Preprocessing(W0, seeded, W);
+    }
+
+    /**
+     * Reads a prior partition from either the clusters or the memberships written by ClusteringResult, told apart by
+     * their first line.
+     */
+    public static WarmStart read(MultidimensionalGraph graph, File file) throws IOException {
+        BufferedReader lines = open(file);
+        String line;
+
+        try {
+            while ((line = lines.readLine()) != null && line.trim().isEmpty()) {
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        return line != null && line.trim().startsWith("clusters")
+            ? readClusters(graph, file)
+            : readMemberships(graph, file);
+    }
+
+    /**
+     * Reads the memberships written by ClusteringResult.writeMemberships: the cluster (numbered from 1) of each node,
+     * one per line, the nodes being sorted by id.
+     */
+    public static WarmStart readMemberships(MultidimensionalGraph graph, File file) throws IOException {
+        Integer[] sorted = ClusteringResult.sortById(graph.getNodeIds());
+        Map<String, Integer> firstMembers = new HashMap<String, Integer>();
+        int[] labels = new int[graph.getNodesCount()];
+        int rows = 0;
+        BufferedReader lines = open(file);
+
+        try {
+            String line;
+
+            while ((line = lines.readLine()) != null) {
+                line = line.trim();
+
+                if (line.isEmpty())
+                    continue;
+
+                if (rows == sorted.length)
+                    throw new IOException(String.format("The memberships file has more rows than the %d nodes of the network.", sorted.length));
+
+                int v = sorted[rows++];
+                Integer first = firstMembers.get(line);
+
+                if (first == null) {
+                    first = v;
+                    firstMembers.put(line, v);
+                }
+
+                labels[v] = first;
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        if (rows != sorted.length)
+            throw new IOException(String.format("The memberships file has %d rows for %d nodes.", rows, sorted.length));
+
+        return new WarmStart(relabel(labels), null);
+    }
+
+    /**
+     * Reads the clusters and their relevant dimensions written by ClusteringResult.writeClustersAndRelevantDimensions.
+     * Nodes and dimensions which aren't part of the network are ignored, the nodes missing from the clusters start in
+     * their own cluster.
+     */
+    public static WarmStart readClusters(MultidimensionalGraph graph, File file) throws IOException {
+        String[][] clusters = null;
+        String[][] dimensions = null;
+        BufferedReader lines = open(file);
+
+        try {
+            String line;
+
+            while ((line = lines.readLine()) != null) {
+                line = line.trim();
+
+                if (line.startsWith("clusters"))
+                    clusters = parseGroups(line);
+                else if (line.startsWith("relevantDimensions"))
+                    dimensions = parseGroups(line);
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        if (clusters == null || dimensions == null || clusters.length != dimensions.length)
+            throw new IOException("Expected the clusters = {...}; and relevantDimensions = {...}; lines of a clusters file.");
+
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        Map<String, Integer> nodeIndices = new HashMap<String, Integer>();
+        Map<String, Integer> dimensionIndices = new HashMap<String, Integer>();
+        String[] nodeIds = graph.getNodeIds();
+        String[] dimensionNames = graph.getDimensionNames();
+
+        for (int v = 0; v < n; v++) {
+            nodeIndices.put(nodeIds[v], v);
+        }
+
+        for (int d = 0; d < dimensionNames.length; d++) {
+            dimensionIndices.put(dimensionNames[d], d);
+        }
+
+        int[] labels = new int[n];
+        int[] clusterOf = new int[n];
+        long[] clusterDimensions = new long[clusters.length * words];
+
+        for (int v = 0; v < n; v++) {
+            labels[v] = v;
+            clusterOf[v] = -1;
+        }
+
+        for (int k = 0; k < clusters.length; k++) {
+            int first = -1;
+
+            for (String id : clusters[k]) {
+                Integer v = nodeIndices.get(id);
+
+                if (v == null)
+                    continue;
+
+                if (first < 0)
+                    first = v;
+
+                labels[v] = first;
+                clusterOf[v] = k;
+            }
+
+            for (String name : dimensions[k]) {
+                Integer d = dimensionIndices.get(name);
+
+                if (d != null)
+                    MaskUtils.set(clusterDimensions, k * words, d);
+            }
+        }
+
+        return new WarmStart(relabel(labels), seedDV(graph, clusterOf, clusterDimensions));
+    }
+
+    /**
+     * Seeds Dv as Dk intersected with the connecting dimensions Dvu of the edges linking v to the other members of its
+     * cluster, the same intersection as the one made by the propagation.
+     */
+    private static long[] seedDV(MultidimensionalGraph graph, int[] clusterOf, long[] clusterDimensions) {
+        int n = graph.getNodesCount();
+        int words = graph.getMaskWords();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        long[] DV = new long[n * words];
+        long[] combinedDvu = new long[words];
+
+        for (int v = 0; v < n; v++) {
+            int k = clusterOf[v];
+
+            if (k < 0)
+                continue;
+
+            MaskUtils.clear(combinedDvu, 0, words);
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (clusterOf[neighbors[s]] == k)
+                    MaskUtils.or(combinedDvu, 0, signatures, slotSignatures[s] * words, words);
+            }
+
+            MaskUtils.and(combinedDvu, 0, clusterDimensions, k * words, words);
+            MaskUtils.copy(combinedDvu, 0, DV, v * words, words);
+        }
+
+        return DV;
+    }
+
+    /**
+     * Ensures that the label of each cluster is the index of its first member.
+     */
+    static int[] relabel(int[] labels) {
+        int[] firstMembers = new int[labels.length];
+        int[] relabelled = new int[labels.length];
+
+        for (int v = 0; v < labels.length; v++) {
+            firstMembers[v] = -1;
+        }
+
+        for (int v = 0; v < labels.length; v++) {
+            if (firstMembers[labels[v]] < 0)
+                firstMembers[labels[v]] = v;
+
+            relabelled[v] = firstMembers[labels[v]];
+        }
+
+        return relabelled;
+    }
+
+    /**
+     * Splits a line of the form name = {[a,b],[c],[]}; into its groups.
+     */
+    private static String[][] parseGroups(String line) throws IOException {
+        int start = line.indexOf('{');
+        int end = line.lastIndexOf('}');
+
+        if (start < 0 || end < start)
+            throw new IOException("Malformed line " + line);
+
+        String body = line.substring(start + 1, end).trim();
+
+        if (body.isEmpty())
+            return new String[0][];
+
+        if (!body.startsWith("[") || !body.endsWith("]"))
+            throw new IOException("Malformed line " + line);
+
+        String[] groups = body.substring(1, body.length() - 1).split("\\],\\[", -1);
+        String[][] values = new String[groups.length][];
+
+        for (int k = 0; k < groups.length; k++) {
+            values[k] = groups[k].isEmpty() ? new String[0] : groups[k].split(",");
+
+            for (int i = 0; i < values[k].length; i++) {
+                values[k][i] = values[k][i].trim();
+            }
+        }
+
+        return values;
+    }
+
+    private static BufferedReader open(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    }
+}
@@ -0,0 +1,126 @@
+package MDLPA.engine;
+
+/**
+ * Row kernels revising the attraction weights w(u,v) applied by a node v on all its neighbors u in a single pass over
+ * its adjacency row: w(u,v) = w0(u,v) * J(Dv, Dvu), J being the Jaccard coefficient computed from the popcounts of the
+ * packed masks.
+ * The kernel is picked at runtime from the number of words of the masks: networks of up to 64 dimensions (the common
+ * case) go through a single-word kernel which keeps Dv in a register and reads one signature word per slot.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public final class WeightKernels {
+    private WeightKernels() {
+    }
+
+    /**
+     * Revises w(u,v) = w0(u,v) * J(Dv, Dvu) on the reverse slot of each slot of v held by the graph.
+     * Slots whose reverse slot isn't held (remote neighbors, see MDLPA.distributed) are left to the caller.
+     * @return the number of slots of v whose reverse slot isn't held.
+     */
+    public static int reviseRow(MultidimensionalGraph graph, long[] DV, int v, double[] W0, double[] W) {
+        return reviseRow(graph, DV, v, graph.getOffsets()[v], graph.getOffsets()[v + 1], W0, W);
+    }
+
+    /**
+     * Same as reviseRow, restricted to the slots from (inclusive) to end (exclusive) of the row of v.
+     */
+    public static int reviseRow(MultidimensionalGraph graph, long[] DV, int v, int from, int end, double[] W0, double[] W) {
+        if (graph.getMaskWords() == 1)
+            return reviseRowSingleWord(graph, DV[v], from, end, W0, W);
+
+        return reviseRowMultiWord(graph, DV, v, from, end, W0, W);
+    }
+
+    /**
+     * Computes the weight w(v,u) = w0(v,u) * J(Du, Dvu) applied by the neighbor u on v, stored on the slot s of (v,u),
+     * as reviseRow writes it when u revises its row.
+     */
+    public static double getWeight(MultidimensionalGraph graph, long[] DV, int u, int s, double[] W0) {
+        long[] signatures = graph.getSignatures();
+        int words = graph.getMaskWords();
+        int union;
+
+        if (words == 1) {
+            long Du = DV[u];
+            long Dvu = signatures[graph.getSlotSignatures()[s]];
+            union = Long.bitCount(Du | Dvu);
+
+            return union == 0 ? 0 : W0[s] * (Long.bitCount(Du & Dvu) / (double)union);
+        }
+
+        int duOffset = u * words;
+        int signatureOffset = graph.getSlotSignatures()[s] * words;
+        int intersection = 0;
+        union = 0;
+
+        for (int i = 0; i < words; i++) {
+            long a = DV[duOffset + i];
+            long b = signatures[signatureOffset + i];
+
+            intersection += Long.bitCount(a & b);
+            union += Long.bitCount(a | b);
+        }
+
+        return union == 0 ? 0 : W0[s] * (intersection / (double)union);
+    }
+
+    private static int reviseRowSingleWord(MultidimensionalGraph graph, long Dv, int from, int end, double[] W0, double[] W) {
+        int[] reverseSlots = graph.getReverseSlots();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int remoteSlots = 0;
+
+        for (int s = from; s < end; s++) {
+            int r = reverseSlots[s];
+
+            if (r < 0) {
+                remoteSlots++;
+                continue;
+            }
+
+            long Dvu = signatures[slotSignatures[s]];
+            int union = Long.bitCount(Dv | Dvu);
+
+            W[r] = union == 0 ? 0 : W0[r] * (Long.bitCount(Dv & Dvu) / (double)union);
+        }
+
+        return remoteSlots;
+    }
+
+    private static int reviseRowMultiWord(MultidimensionalGraph graph, long[] DV, int v, int from, int end, double[] W0, double[] W) {
+        int[] reverseSlots = graph.getReverseSlots();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+        int words = graph.getMaskWords();
+        int dvOffset = v * words;
+        int remoteSlots = 0;
+
+        for (int s = from; s < end; s++) {
+            int r = reverseSlots[s];
+
+            if (r < 0) {
+                remoteSlots++;
+                continue;
+            }
+
+            int signatureOffset = slotSignatures[s] * words;
+            int intersection = 0;
+            int union = 0;
+
+            for (int i = 0; i < words; i++) {
+                long a = DV[dvOffset + i];
+                long b = signatures[signatureOffset + i];
+
+                intersection += Long.bitCount(a & b);
+                union += Long.bitCount(a | b);
+            }
+
+            W[r] = union == 0 ? 0 : W0[r] * (intersection / (double)union);
+        }
+
+        return remoteSlots;
+    }
+}
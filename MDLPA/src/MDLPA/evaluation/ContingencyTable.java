@@ -0,0 +1,187 @@
+package MDLPA.evaluation;
+
+import java.util.Arrays;
+
+/**
+ * Sparse contingency table between two partitions of the same nodes, holding only the non-zero cells n_ij.
+ * The table is built by sorting the packed (i,j) pairs of the nodes, so its memory is linear in the number of nodes
+ * whatever the numbers of clusters are. Nodes with a negative cluster in any of the partitions are left out.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class ContingencyTable {
+    // Row (cluster of the first partition), column (cluster of the second partition) and count of each non-zero cell.
+    private final int[] rows;
+    private final int[] columns;
+    private final int[] counts;
+
+    // Sizes a_i and b_j of the clusters, restricted to the counted nodes.
+    private final int[] rowSums;
+    private final int[] columnSums;
+
+    private final int total;
+
+    private ContingencyTable(int[] rows, int[] columns, int[] counts, int[] rowSums, int[] columnSums, int total) {
+        this.rows = rows;
+        this.columns = columns;
+        this.counts = counts;
+        this.rowSums = rowSums;
+        this.columnSums = columnSums;
+        this.total = total;
+    }
+
+    public static ContingencyTable create(int[] memberships1, int[] memberships2) {
+        long[] pairs = new long[memberships1.length];
+        int total = 0;
+        int rowsCount = 0;
+        int columnsCount = 0;
+
+        for (int v = 0; v < memberships1.length; v++) {
+            if (memberships1[v] < 0 || memberships2[v] < 0)
+                continue;
+
+            pairs[total++] = ((long)memberships1[v] << 32) | memberships2[v];
+            rowsCount = Math.max(rowsCount, memberships1[v] + 1);
+            columnsCount = Math.max(columnsCount, memberships2[v] + 1);
+        }
+
+        Arrays.sort(pairs, 0, total);
+
+        int cellsCount = 0;
+
+        for (int i = 0; i < total; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1])
+                cellsCount++;
+        }
+
+        int[] rows = new int[cellsCount];
+        int[] columns = new int[cellsCount];
+        int[] counts = new int[cellsCount];
+        int[] rowSums = new int[rowsCount];
+        int[] columnSums = new int[columnsCount];
+        int cell = -1;
+
+        for (int i = 0; i < total; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                cell++;
+                rows[cell] = (int)(pairs[i] >>> 32);
+                columns[cell] = (int)pairs[i];
+            }
+
+            counts[cell]++;
+            rowSums[rows[cell]]++;
+            columnSums[columns[cell]]++;
+        }
+
+        return new ContingencyTable(rows, columns, counts, rowSums, columnSums, total);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCellsCount() {
+        return counts.length;
+    }
+
+    /**
+     * Normalized mutual information 2 I(A,B) / (H(A) + H(B)) (Danon et al., 2005).
+     * Two partitions putting all the nodes in a single cluster are considered identical.
+     */
+    public double getNormalizedMutualInformation() {
+        if (total == 0)
+            return Double.NaN;
+
+        double mutualInformation = 0;
+
+        for (int c = 0; c < counts.length; c++) {
+            mutualInformation += counts[c] / (double)total
+                * Math.log((double)counts[c] * total / ((double)rowSums[rows[c]] * columnSums[columns[c]]));
+        }
+
+        double entropies = getEntropy(rowSums) + getEntropy(columnSums);
+
+        if (entropies == 0)
+            return 1;
+
+        return Math.max(0, 2 * mutualInformation / entropies);
+    }
+
+    /**
+     * Adjusted Rand index (Hubert and Arabie, 1985).
+     * A single node makes no pair, the two partitions are then considered identical.
+     */
+    public double getAdjustedRandIndex() {
+        if (total == 0)
+            return Double.NaN;
+
+        if (total < 2)
+            return 1;
+
+        double index = 0;
+
+        for (int count : counts) {
+            index += getPairsCount(count);
+        }
+
+        double rowPairs = 0;
+
+        for (int sum : rowSums) {
+            rowPairs += getPairsCount(sum);
+        }
+
+        double columnPairs = 0;
+
+        for (int sum : columnSums) {
+            columnPairs += getPairsCount(sum);
+        }
+
+        double expectedIndex = rowPairs * columnPairs / getPairsCount(total);
+        double maxIndex = (rowPairs + columnPairs) / 2;
+
+        if (maxIndex == expectedIndex)
+            return 1;
+
+        return (index - expectedIndex) / (maxIndex - expectedIndex);
+    }
+
+    /**
+     * Returns, for each row, the column sharing the most nodes with it (-1 for rows without counted nodes).
+     */
+    public int[] getBestColumns() {
+        int[] bestColumns = new int[rowSums.length];
+        int[] bestCounts = new int[rowSums.length];
+        Arrays.fill(bestColumns, -1);
+
+        // Cells are sorted by row then column, ties go to the first column.
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > bestCounts[rows[c]]) {
+                bestCounts[rows[c]] = counts[c];
+                bestColumns[rows[c]] = columns[c];
+            }
+        }
+
+        return bestColumns;
+    }
+
+    public int getRowSum(int i) {
+        return i < rowSums.length ? rowSums[i] : 0;
+    }
+
+    private double getEntropy(int[] sums) {
+        double entropy = 0;
+
+        for (int sum : sums) {
+            if (sum > 0)
+                entropy -= sum / (double)total * Math.log(sum / (double)total);
+        }
+
+        return entropy;
+    }
+
+    private static double getPairsCount(long n) {
+        return n * (n - 1) / 2.0;
+    }
+}
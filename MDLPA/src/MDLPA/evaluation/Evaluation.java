@@ -0,0 +1,195 @@
+package MDLPA.evaluation;
+
+import MDLPA.engine.ClusteringResult;
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.helpers.MaskUtils;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Quality scores of the clusters detected by MDLPA[1]: the modularity of each dimension and the multiplex modularity
+ * and, when the ground truth is known, the NMI and the ARI of the memberships and the precision and recall of the
+ * relevant dimensions.
+ * Each detected cluster is matched with the known cluster sharing the most of its nodes; the precision and recall of
+ * the relevant dimensions are averaged over the detected clusters, weighted by their number of labelled nodes.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class Evaluation {
+    private final String[] dimensionNames;
+    private final double[] dimensionModularities;
+    private final double multiplexModularity;
+
+    // NaN when the ground truth (or its relevant dimensions) isn't known.
+    private final int labelledNodesCount;
+    private final double normalizedMutualInformation;
+    private final double adjustedRandIndex;
+    private final double dimensionsPrecision;
+    private final double dimensionsRecall;
+
+    public Evaluation(
+        String[] dimensionNames,
+        double[] dimensionModularities,
+        int labelledNodesCount,
+        double normalizedMutualInformation,
+        double adjustedRandIndex,
+        double dimensionsPrecision,
+        double dimensionsRecall
+    )
+    {
+        this.dimensionNames = dimensionNames;
+        this.dimensionModularities = dimensionModularities;
+        this.multiplexModularity = Modularity.getMultiplexModularity(dimensionModularities);
+        this.labelledNodesCount = labelledNodesCount;
+        this.normalizedMutualInformation = normalizedMutualInformation;
+        this.adjustedRandIndex = adjustedRandIndex;
+        this.dimensionsPrecision = dimensionsPrecision;
+        this.dimensionsRecall = dimensionsRecall;
+    }
+
+    /**
+     * Scores result; groundTruth may be null, in which case only the modularities are computed.
+     */
+    public static Evaluation evaluate(ClusteringResult result, GroundTruth groundTruth, int threadsCount)
+        throws InterruptedException, ExecutionException
+    {
+        MultidimensionalGraph graph = result.getGraph();
+        double[] modularities = Modularity.calculate(graph, result.getMemberships(), result.getClustersCount(), threadsCount);
+
+        if (groundTruth == null)
+            return new Evaluation(graph.getDimensionNames(), modularities, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+        ContingencyTable table = ContingencyTable.create(result.getMemberships(), groundTruth.getMemberships());
+        double precision = Double.NaN;
+        double recall = Double.NaN;
+
+        if (groundTruth.hasRelevantDimensions()) {
+            int words = graph.getMaskWords();
+            long[] detected = result.getClusterDimensions();
+            long[] known = groundTruth.getClusterDimensions();
+            long[] common = new long[words];
+            int[] bestColumns = table.getBestColumns();
+            double precisionSum = 0;
+            double recallSum = 0;
+            double weights = 0;
+
+            for (int k = 0; k < bestColumns.length; k++) {
+                int t = bestColumns[k];
+
+                if (t < 0)
+                    continue;
+
+                MaskUtils.copy(detected, k * words, common, 0, words);
+                MaskUtils.and(common, 0, known, t * words, words);
+
+                int detectedCount = MaskUtils.cardinality(detected, k * words, words);
+                int knownCount = MaskUtils.cardinality(known, t * words, words) + groundTruth.getMissingDimensionsCount(t);
+                int commonCount = MaskUtils.cardinality(common, 0, words);
+                double weight = table.getRowSum(k);
+
+                precisionSum += weight * (detectedCount > 0 ? commonCount / (double)detectedCount : 0);
+                recallSum += weight * (knownCount > 0 ? commonCount / (double)knownCount : 1);
+                weights += weight;
+            }
+
+            if (weights > 0) {
+                precision = precisionSum / weights;
+                recall = recallSum / weights;
+            }
+        }
+
+        return new Evaluation(
+            graph.getDimensionNames(),
+            modularities,
+            table.getTotal(),
+            table.getNormalizedMutualInformation(),
+            table.getAdjustedRandIndex(),
+            precision,
+            recall
+        );
+    }
+
+    public double[] getDimensionModularities() {
+        return dimensionModularities;
+    }
+
+    public double getMultiplexModularity() {
+        return multiplexModularity;
+    }
+
+    public int getLabelledNodesCount() {
+        return labelledNodesCount;
+    }
+
+    public double getNormalizedMutualInformation() {
+        return normalizedMutualInformation;
+    }
+
+    public double getAdjustedRandIndex() {
+        return adjustedRandIndex;
+    }
+
+    public double getDimensionsPrecision() {
+        return dimensionsPrecision;
+    }
+
+    public double getDimensionsRecall() {
+        return dimensionsRecall;
+    }
+
+    /**
+     * Adds the scores to a record of JSON fields (see JsonUtils), unknown scores being left out.
+     */
+    public void addTo(Map<String, Object> record) {
+        putScore(record, "nmi", normalizedMutualInformation);
+        putScore(record, "ari", adjustedRandIndex);
+
+        if (!Double.isNaN(normalizedMutualInformation))
+            record.put("labelledNodes", labelledNodesCount);
+
+        putScore(record, "dimensionsPrecision", dimensionsPrecision);
+        putScore(record, "dimensionsRecall", dimensionsRecall);
+        putScore(record, "multiplexModularity", multiplexModularity);
+
+        Map<String, Object> modularities = new LinkedHashMap<String, Object>();
+
+        for (int d = 0; d < dimensionNames.length; d++) {
+            modularities.put(dimensionNames[d], Double.isNaN(dimensionModularities[d]) ? null : dimensionModularities[d]);
+        }
+
+        record.put("dimensionModularities", modularities);
+    }
+
+    private static void putScore(Map<String, Object> record, String name, double score) {
+        if (!Double.isNaN(score))
+            record.put(name, score);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        if (!Double.isNaN(normalizedMutualInformation)) {
+            builder.append(String.format(
+                "NMI %.4f, ARI %.4f over %d labelled nodes, ",
+                normalizedMutualInformation,
+                adjustedRandIndex,
+                labelledNodesCount
+            ));
+        }
+
+        if (!Double.isNaN(dimensionsPrecision))
+            builder.append(String.format("relevant dimensions precision %.4f recall %.4f, ", dimensionsPrecision, dimensionsRecall));
+
+        builder.append(String.format("multiplex modularity %.4f (", multiplexModularity));
+
+        for (int d = 0; d < dimensionNames.length; d++) {
+            builder.append(String.format("%s%s: %.4f", d > 0 ? ", " : "", dimensionNames[d], dimensionModularities[d]));
+        }
+
+        return builder.append(")").toString();
+    }
+}
@@ -0,0 +1,213 @@
+package MDLPA.evaluation;
+
+import MDLPA.engine.MultidimensionalGraph;
+import MDLPA.helpers.MaskUtils;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The known clusters of the nodes of a network, used to assess the clusters detected by MDLPA[1].
+ * Memberships are read from a node list whose first column is the node id and whose last column is the cluster
+ * (ex Id;Label;cluster as in Datasets/Aarhus Computer Science/Dataset/52nodes_memberships.csv).
+ * The relevant dimensions of the known clusters may optionally be read from a Cluster;Dimensions list
+ * (ex 6;1,3,5), the dimension names being separated as on the edge labels.
+ * Nodes of the network which are missing from the memberships file are left unlabelled (-1) and aren't scored.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class GroundTruth {
+    // Index of the known cluster of each node of the network, -1 when unknown.
+    private final int[] memberships;
+
+    private final String[] clusterNames;
+
+    // Relevant dimensions of each known cluster packed on maskWords words, null when unknown.
+    private final long[] clusterDimensions;
+
+    // Number of relevant dimensions of each known cluster which don't appear in the network.
+    private final int[] missingDimensionsCount;
+
+    public GroundTruth(int[] memberships, String[] clusterNames, long[] clusterDimensions, int[] missingDimensionsCount) {
+        this.memberships = memberships;
+        this.clusterNames = clusterNames;
+        this.clusterDimensions = clusterDimensions;
+        this.missingDimensionsCount = missingDimensionsCount;
+    }
+
+    public int[] getMemberships() {
+        return memberships;
+    }
+
+    public int getClustersCount() {
+        return clusterNames.length;
+    }
+
+    public String getClusterName(int k) {
+        return clusterNames[k];
+    }
+
+    public boolean hasRelevantDimensions() {
+        return clusterDimensions != null;
+    }
+
+    public long[] getClusterDimensions() {
+        return clusterDimensions;
+    }
+
+    public int getMissingDimensionsCount(int k) {
+        return missingDimensionsCount[k];
+    }
+
+    public int getLabelledNodesCount() {
+        int count = 0;
+
+        for (int k : memberships) {
+            if (k >= 0)
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads the known clusters of the nodes of graph. dimensionsFile may be null.
+     */
+    public static GroundTruth read(
+        MultidimensionalGraph graph,
+        File membershipsFile,
+        File dimensionsFile,
+        String columnsSeparator,
+        String dimensionsSeparator
+    ) throws IOException
+    {
+        Pattern columnsPattern = Pattern.compile(Pattern.quote(columnsSeparator));
+        Map<String, Integer> nodeIndices = new HashMap<String, Integer>();
+        String[] nodeIds = graph.getNodeIds();
+
+        for (int v = 0; v < nodeIds.length; v++) {
+            nodeIndices.put(nodeIds[v], v);
+        }
+
+        int[] memberships = new int[graph.getNodesCount()];
+        Arrays.fill(memberships, -1);
+
+        Map<String, Integer> clusterIndices = new HashMap<String, Integer>();
+        BufferedReader lines = open(membershipsFile);
+
+        try {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+
+                if (line.isEmpty())
+                    continue;
+
+                String[] columns = columnsPattern.split(line);
+
+                if (lineNumber == 1 && columns[0].trim().equalsIgnoreCase("Id"))
+                    continue;
+
+                if (columns.length < 2)
+                    throw new IOException(String.format("Line %d: expected Id%s...%sCluster, found '%s'", lineNumber, columnsSeparator, columnsSeparator, line));
+
+                Integer v = nodeIndices.get(columns[0].trim());
+
+                // Nodes which aren't part of the network are ignored.
+                if (v == null)
+                    continue;
+
+                memberships[v] = getClusterIndex(clusterIndices, columns[columns.length - 1].trim());
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        String[] clusterNames = new String[clusterIndices.size()];
+
+        for (Map.Entry<String, Integer> cluster : clusterIndices.entrySet()) {
+            clusterNames[cluster.getValue()] = cluster.getKey();
+        }
+
+        if (dimensionsFile == null)
+            return new GroundTruth(memberships, clusterNames, null, new int[clusterNames.length]);
+
+        int words = graph.getMaskWords();
+        long[] clusterDimensions = new long[clusterNames.length * words];
+        int[] missingDimensionsCount = new int[clusterNames.length];
+        Map<String, Integer> dimensionIndices = new HashMap<String, Integer>();
+        String[] dimensionNames = graph.getDimensionNames();
+
+        for (int d = 0; d < dimensionNames.length; d++) {
+            dimensionIndices.put(dimensionNames[d], d);
+        }
+
+        Pattern dimensionsPattern = Pattern.compile(dimensionsSeparator);
+        lines = open(dimensionsFile);
+
+        try {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+
+                if (line.isEmpty())
+                    continue;
+
+                String[] columns = columnsPattern.split(line);
+
+                if (lineNumber == 1 && columns[0].trim().equalsIgnoreCase("Cluster"))
+                    continue;
+
+                Integer k = clusterIndices.get(columns[0].trim());
+
+                // Clusters without labelled nodes in the network can't be matched.
+                if (k == null || columns.length < 2)
+                    continue;
+
+                for (String dimension : dimensionsPattern.split(columns[1].trim())) {
+                    Integer d = dimensionIndices.get(dimension.trim());
+
+                    if (d != null)
+                        MaskUtils.set(clusterDimensions, k * words, d);
+                    else if (!dimension.trim().isEmpty())
+                        missingDimensionsCount[k]++;
+                }
+            }
+        }
+        finally {
+            lines.close();
+        }
+
+        return new GroundTruth(memberships, clusterNames, clusterDimensions, missingDimensionsCount);
+    }
+
+    private static int getClusterIndex(Map<String, Integer> clusterIndices, String cluster) {
+        Integer k = clusterIndices.get(cluster);
+
+        if (k == null) {
+            k = clusterIndices.size();
+            clusterIndices.put(cluster, k);
+        }
+
+        return k;
+    }
+
+    private static BufferedReader open(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    }
+}
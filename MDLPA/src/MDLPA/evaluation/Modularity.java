@@ -0,0 +1,202 @@
+package MDLPA.evaluation;
+
+import MDLPA.engine.MultidimensionalGraph;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Modularity of a partition of the nodes of a multidimensional network, computed on each dimension separately:
+ * Q_d = sum_k [ e_kd / m_d - (a_kd / 2 m_d)^2 ]
+ * where m_d is the number of edges of the dimension d, e_kd the number of edges of the dimension d inside the
+ * cluster k and a_kd the sum of the degrees in the dimension d of the members of k.
+ * The multiplex modularity is the mean of Q_d over the dimensions having edges.
+ *
+ * The edges are scanned in parallel over contiguous node ranges, each thread counting into its own e_kd and a_kd
+ * arrays which are summed at the end.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class Modularity {
+
+    /**
+     * Returns the modularity Q_d of each dimension (NaN for dimensions without edges).
+     * memberships holds the cluster index (0..clustersCount-1) of each node.
+     */
+    public static double[] calculate(
+        final MultidimensionalGraph graph,
+        final int[] memberships,
+        final int clustersCount,
+        int threadsCount
+    ) throws InterruptedException, ExecutionException
+    {
+        final int n = graph.getNodesCount();
+        final int dimensionsCount = graph.getDimensionsCount();
+
+        // Each thread holds 2 K x D counters, the number of threads is bounded accordingly.
+        long countersSize = 2L * clustersCount * dimensionsCount + dimensionsCount;
+        int maxThreads = (int)Math.max(1, Math.min(threadsCount, (1L << 27) / Math.max(1, countersSize)));
+        int chunksCount = Math.max(1, Math.min(maxThreads, n / 1024));
+
+        long[][] chunks = new long[chunksCount][];
+
+        if (chunksCount == 1) {
+            chunks[0] = scan(graph, memberships, clustersCount, 0, n);
+        }
+        else {
+            int[] ranges = getRanges(graph, chunksCount);
+            ExecutorService executor = Executors.newFixedThreadPool(chunksCount);
+            List<Future<long[]>> scans = new ArrayList<Future<long[]>>();
+
+            try {
+                for (int c = 0; c < chunksCount; c++) {
+                    final int start = ranges[c];
+                    final int end = ranges[c + 1];
+
+                    scans.add(executor.submit(new Callable<long[]>() {
+                        @Override
+                        public long[] call() {
+                            return scan(graph, memberships, clustersCount, start, end);
+                        }
+                    }));
+                }
+
+                for (int c = 0; c < chunksCount; c++) {
+                    chunks[c] = scans.get(c).get();
+                }
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        long[] counters = chunks[0];
+
+        for (int c = 1; c < chunksCount; c++) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] += chunks[c][i];
+            }
+        }
+
+        return getModularities(counters, clustersCount, dimensionsCount);
+    }
+
+    /**
+     * Mean of the modularities of the dimensions having edges.
+     */
+    public static double getMultiplexModularity(double[] modularities) {
+        double sum = 0;
+        int count = 0;
+
+        for (double modularity : modularities) {
+            if (!Double.isNaN(modularity)) {
+                sum += modularity;
+                count++;
+            }
+        }
+
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    /**
+     * Counts m_d, e_kd and a_kd over the rows of the nodes [start, end), laid out as
+     * [m_0..m_D-1, e_00..e_K-1,D-1, a_00..a_K-1,D-1].
+     */
+    private static long[] scan(MultidimensionalGraph graph, int[] memberships, int clustersCount, int start, int end) {
+        int dimensionsCount = graph.getDimensionsCount();
+        int words = graph.getMaskWords();
+        int[] offsets = graph.getOffsets();
+        int[] neighbors = graph.getNeighbors();
+        int[] slotSignatures = graph.getSlotSignatures();
+        long[] signatures = graph.getSignatures();
+
+        int intraBase = dimensionsCount;
+        int degreesBase = dimensionsCount + clustersCount * dimensionsCount;
+        long[] counters = new long[dimensionsCount + 2 * clustersCount * dimensionsCount];
+
+        for (int v = start; v < end; v++) {
+            int k = memberships[v];
+
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                int u = neighbors[s];
+                int signature = slotSignatures[s] * words;
+                // Each edge appears in the rows of both of its endpoints, it's counted once from the smaller one.
+                boolean isCounted = v < u;
+                boolean isIntra = isCounted && memberships[u] == k;
+
+                for (int w = 0; w < words; w++) {
+                    long bits = signatures[signature + w];
+
+                    while (bits != 0) {
+                        int d = w * 64 + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+
+                        counters[degreesBase + k * dimensionsCount + d]++;
+
+                        if (isCounted)
+                            counters[d]++;
+
+                        if (isIntra)
+                            counters[intraBase + k * dimensionsCount + d]++;
+                    }
+                }
+            }
+        }
+
+        return counters;
+    }
+
+    private static double[] getModularities(long[] counters, int clustersCount, int dimensionsCount) {
+        int intraBase = dimensionsCount;
+        int degreesBase = dimensionsCount + clustersCount * dimensionsCount;
+        double[] modularities = new double[dimensionsCount];
+
+        for (int d = 0; d < dimensionsCount; d++) {
+            double m = counters[d];
+
+            if (m == 0) {
+                modularities[d] = Double.NaN;
+                continue;
+            }
+
+            double modularity = 0;
+
+            for (int k = 0; k < clustersCount; k++) {
+                double degrees = counters[degreesBase + k * dimensionsCount + d] / (2 * m);
+                modularity += counters[intraBase + k * dimensionsCount + d] / m - degrees * degrees;
+            }
+
+            modularities[d] = modularity;
+        }
+
+        return modularities;
+    }
+
+    /**
+     * Splits the nodes into contiguous ranges holding roughly the same number of slots.
+     */
+    private static int[] getRanges(MultidimensionalGraph graph, int chunksCount) {
+        int n = graph.getNodesCount();
+        int[] offsets = graph.getOffsets();
+        int[] ranges = new int[chunksCount + 1];
+        long total = (long)offsets[n] + n;
+        int c = 1;
+
+        for (int v = 0; v < n && c < chunksCount; v++) {
+            if ((long)offsets[v] + v >= total * c / chunksCount)
+                ranges[c++] = v;
+        }
+
+        while (c <= chunksCount) {
+            ranges[c++] = n;
+        }
+
+        return ranges;
+    }
+}
@@ -0,0 +1,99 @@
+package MDLPA.helpers;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A helper utility to produce machine-readable JSON representations of flat records.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class JsonUtils {
+    /**
+     * Returns the JSON representation of a record. Values may be null, numbers, booleans, strings, maps or collections.
+     * Use a LinkedHashMap to keep the order of the fields.
+     */
+    public static String toJson(Map<String, ?> record) {
+        StringBuilder builder = new StringBuilder();
+        append(builder, record);
+
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, Object value) {
+        if (value == null) {
+            builder.append("null");
+        }
+        else if (value instanceof Number || value instanceof Boolean) {
+            builder.append(value.toString());
+        }
+        else if (value instanceof Map) {
+            builder.append("{");
+            boolean first = true;
+
+            for (Map.Entry<?, ?> field : ((Map<?, ?>)value).entrySet()) {
+                if (!first)
+                    builder.append(",");
+
+                appendString(builder, field.getKey().toString());
+                builder.append(":");
+                append(builder, field.getValue());
+                first = false;
+            }
+
+            builder.append("}");
+        }
+        else if (value instanceof Collection) {
+            builder.append("[");
+            boolean first = true;
+
+            for (Object element : (Collection<?>)value) {
+                if (!first)
+                    builder.append(",");
+
+                append(builder, element);
+                first = false;
+            }
+
+            builder.append("]");
+        }
+        else {
+            appendString(builder, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        builder.append(String.format("\\u%04x", (int)c));
+                    else
+                        builder.append(c);
+            }
+        }
+
+        builder.append('"');
+    }
+}
@@ -0,0 +1,161 @@
+package MDLPA.helpers;
+
+import java.util.BitSet;
+
+/**
+ * Helper utility for packed dimension masks.
+ * A set of dimensions is stored on a fixed number of consecutive words of a flat long array, so that the masks
+ * of all the nodes (or all the edge signatures) of a network can share a single contiguous array.
+ * Each mask is addressed through the offset of its first word.
+ *
+ * @author Oualid Boutemine <boutemine.oualid@courrier.uqam.ca>
+ *
+ * [1] Boutemine, O., & Bouguessa, M. (2017). Mining Community Structures in Multidimensional Networks. ACM Transactions on Knowledge Discovery from Data (TKDD), 11(4), 51.
+ */
+public class MaskUtils {
+    /**
+     * Returns the number of words needed to represent a mask of the given number of dimensions.
+     */
+    public static int getWordsCount(int dimensionsCount) {
+        return Math.max(1, (dimensionsCount + 63) >>> 6);
+    }
+
+    /**
+     * Activates the bit of a dimension in a mask.
+     */
+    public static void set(long[] mask, int offset, int dimension) {
+        mask[offset + (dimension >>> 6)] |= 1L << (dimension & 63);
+    }
+
+    /**
+     * Checks whether a dimension is activated in a mask.
+     */
+    public static boolean get(long[] mask, int offset, int dimension) {
+        return (mask[offset + (dimension >>> 6)] & (1L << (dimension & 63))) != 0;
+    }
+
+    /**
+     * Checks whether a given mask contains all dimensions of another mask.
+     * returns true if the dimensions of @param set2 are all contained in @param set1.
+     */
+    public static boolean contains(long[] set1, int offset1, long[] set2, int offset2, int words) {
+        for (int i = 0; i < words; i++) {
+            if ((set2[offset2 + i] & ~set1[offset1 + i]) != 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Estimates the distance between two masks using the Jaccard coefficient.
+     * Two empty masks are considered as being at distance 0.
+     */
+    public static double getJaccardCoefficient(long[] set1, int offset1, long[] set2, int offset2, int words) {
+        int intersection = 0;
+        int union = 0;
+
+        for (int i = 0; i < words; i++) {
+            long a = set1[offset1 + i];
+            long b = set2[offset2 + i];
+
+            intersection += Long.bitCount(a & b);
+            union += Long.bitCount(a | b);
+        }
+
+        if (union == 0)
+            return 0;
+
+        return intersection / (double)union;
+    }
+
+    /**
+     * Checks whether two masks hold the same dimensions.
+     */
+    public static boolean equals(long[] set1, int offset1, long[] set2, int offset2, int words) {
+        for (int i = 0; i < words; i++) {
+            if (set1[offset1 + i] != set2[offset2 + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether a mask has no activated dimensions.
+     */
+    public static boolean isEmpty(long[] mask, int offset, int words) {
+        for (int i = 0; i < words; i++) {
+            if (mask[offset + i] != 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of activated dimensions in a mask.
+     */
+    public static int cardinality(long[] mask, int offset, int words) {
+        int cardinality = 0;
+
+        for (int i = 0; i < words; i++) {
+            cardinality += Long.bitCount(mask[offset + i]);
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Takes the union of @param target and @param source and saves it in @param target.
+     */
+    public static void or(long[] target, int targetOffset, long[] source, int sourceOffset, int words) {
+        for (int i = 0; i < words; i++) {
+            target[targetOffset + i] |= source[sourceOffset + i];
+        }
+    }
+
+    /**
+     * Takes the intersection of @param target and @param source and saves it in @param target.
+     */
+    public static void and(long[] target, int targetOffset, long[] source, int sourceOffset, int words) {
+        for (int i = 0; i < words; i++) {
+            target[targetOffset + i] &= source[sourceOffset + i];
+        }
+    }
+
+    /**
+     * Copies the words of a mask into another.
+     */
+    public static void copy(long[] source, int sourceOffset, long[] target, int targetOffset, int words) {
+        System.arraycopy(source, sourceOffset, target, targetOffset, words);
+    }
+
+    /**
+     * Deactivates all dimensions of a mask.
+     */
+    public static void clear(long[] mask, int offset, int words) {
+        for (int i = 0; i < words; i++) {
+            mask[offset + i] = 0;
+        }
+    }
+
+    /**
+     * Converts a packed mask into its BitSet representation.
+     */
+    public static BitSet toBitSet(long[] mask, int offset, int words) {
+        BitSet result = new BitSet();
+
+        for (int i = 0; i < words; i++) {
+            long word = mask[offset + i];
+
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                result.set((i << 6) + bit);
+                word &= word - 1;
+            }
+        }
+
+        return result;
+    }
+}